@@ -0,0 +1,113 @@
+package com.example.backend.benchmarks;
+
+import com.example.backend.dtos.CheckInResultDTO;
+import com.example.backend.repositories.ManagerRepository;
+import com.example.backend.repositories.ShowtimeRepository;
+import com.example.backend.repositories.TicketRepository;
+import com.example.backend.services.CheckInService;
+import com.example.backend.services.TicketTokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Tải soát vé của 20 cổng (20 thread) trên cùng một node:
+ * - scan: mỗi lượt quét một vé mới (ký token + verify + CAS bitmap + hàng đợi ghi DB),
+ *   vé rải trên SHOWTIMES suất chiếu; TICKETS vé được nạp sẵn, đủ cho số lượt quét của một lần chạy
+ * - rescan: quét lại vé đã dùng (ALREADY_USED)
+ * DB và WebSocket được thay bằng mock stubOnly (không ghi lại lời gọi); flush chạy sau mỗi iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(20)
+public class CheckInBenchmark {
+
+    private static final int SHOWTIMES = 20;
+    private static final int TICKETS = 1_000_000;
+
+    private TicketTokenService ticketTokenService;
+    private CheckInService checkInService;
+    private String usedToken;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setup() {
+        TicketRepository ticketRepository = mock(TicketRepository.class, withSettings().stubOnly());
+        ShowtimeRepository showtimeRepository = mock(ShowtimeRepository.class, withSettings().stubOnly());
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class, withSettings().stubOnly());
+        ticketTokenService = new TicketTokenService(ticketRepository, "benchmark-ticket-token-secret-0123456789");
+
+        LocalDateTime now = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
+        List<Object[]> times = new ArrayList<>();
+        times.add(new Object[]{now.minusMinutes(10), now.plusHours(2), 1L});
+        when(showtimeRepository.findTimesById(anyLong())).thenReturn(times);
+        // Vé ticketId thuộc suất chiếu ticketId % SHOWTIMES + 1 (giống cách scan() chọn suất chiếu)
+        when(ticketRepository.findCheckInRowsByShowtimeId(anyLong())).thenAnswer(inv -> {
+            long showtimeId = inv.getArgument(0);
+            List<Object[]> rows = new ArrayList<>();
+            for (long ticketId = showtimeId - 1; ticketId <= TICKETS; ticketId += SHOWTIMES) {
+                if (ticketId > 0) {
+                    rows.add(new Object[]{ticketId, "A", (int) ticketId, null});
+                }
+            }
+            return rows;
+        });
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any())).thenReturn(new int[0][]);
+
+        checkInService = new CheckInService(ticketTokenService, ticketRepository, showtimeRepository,
+                mock(ManagerRepository.class, withSettings().stubOnly()), jdbcTemplate,
+                mock(SimpMessagingTemplate.class, withSettings().stubOnly()),
+                30, 30, 500, 5000, 300000);
+        usedToken = ticketTokenService.issue(SHOWTIMES, 1L, SHOWTIMES);
+        checkInService.checkIn(usedToken, 1L, "G0", 1L);
+    }
+
+    @TearDown(Level.Iteration)
+    public void flush() {
+        checkInService.flush();
+    }
+
+    @Benchmark
+    public CheckInResultDTO scan() {
+        long ticketId = sequence.incrementAndGet() % TICKETS + 1;
+        String token = ticketTokenService.issue(ticketId, ticketId % SHOWTIMES + 1, ticketId);
+        return checkInService.checkIn(token, null, "G1", 1L).get(0);
+    }
+
+    @Benchmark
+    public CheckInResultDTO rescan() {
+        return checkInService.checkIn(usedToken, 1L, "G1", 1L).get(0);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.backend.benchmarks;
+
+import com.example.backend.services.EmailTemplateRenderer;
+import com.samskivert.mustache.Mustache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí render một email xác nhận đặt vé (booking-confirmation + fragment ticket/combo/voucher):
+ * - precompiled: EmailTemplateRenderer (template compile một lần, dùng lại)
+ * - compilePerEmail: compile lại template và partial cho mỗi email (nguồn template đã nằm sẵn trong bộ nhớ,
+ *   chỉ đo phần compile + render)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailRenderBenchmark {
+
+    private static final String[] TEMPLATES = {
+            "email/booking-confirmation",
+            "email/fragments/ticket",
+            "email/fragments/combos",
+            "email/fragments/combo",
+            "email/fragments/voucher"
+    };
+
+    @Param({"1", "4"})
+    public int ticketGroups;
+
+    private EmailTemplateRenderer renderer;
+    private Map<String, String> sources;
+    private Map<String, Object> model;
+
+    @Setup
+    public void setup() throws IOException {
+        renderer = new EmailTemplateRenderer();
+        sources = new HashMap<>();
+        for (String name : TEMPLATES) {
+            sources.put(name, new String(new ClassPathResource("templates/" + name + ".mustache")
+                    .getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        }
+        model = bookingModel(ticketGroups);
+        renderer.render("email/booking-confirmation", model);
+    }
+
+    @Benchmark
+    public String precompiled() {
+        return renderer.render("email/booking-confirmation", model);
+    }
+
+    @Benchmark
+    public String compilePerEmail() {
+        return Mustache.compiler()
+                .defaultValue("")
+                .emptyStringIsFalse(true)
+                .withLoader(name -> new StringReader(sources.get(name)))
+                .compile(sources.get("email/booking-confirmation"))
+                .execute(model);
+    }
+
+    static Map<String, Object> bookingModel(int ticketGroups) {
+        Map<String, Object> model = new HashMap<>();
+        model.put("headerTitle", "VÉ XEM PHIM & ĐỒ ĂN");
+        model.put("orderId", 123456L);
+        model.put("orderDateTime", "20/10/2026 19:30");
+        model.put("orderDate", "20/10/2026");
+        model.put("totalAmount", "450000 ₫");
+
+        List<Map<String, Object>> tickets = new ArrayList<>();
+        for (int i = 0; i < ticketGroups; i++) {
+            Map<String, Object> ticket = new HashMap<>();
+            ticket.put("movieTitle", "Phim số " + i);
+            ticket.put("cinemaName", "Cinesmart Quận 1");
+            ticket.put("cinemaAddress", "123 Nguyễn Huệ, Quận 1, TP.HCM");
+            ticket.put("date", "20/10/2026");
+            ticket.put("time", "19:30");
+            ticket.put("format", "2D");
+            ticket.put("seats", "F5, F6, F7");
+            ticket.put("price", "270000 ₫");
+            ticket.put("bookingId", "123456-" + i + "-2026-10-20T19:30:00");
+            ticket.put("qrCid", "qr" + i);
+            tickets.add(ticket);
+        }
+        model.put("tickets", tickets);
+
+        Map<String, Object> voucher = new HashMap<>();
+        voucher.put("code", "FLASH50");
+        voucher.put("name", "Giảm 50k");
+        model.put("voucher", voucher);
+
+        List<Map<String, Object>> combos = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Map<String, Object> combo = new HashMap<>();
+            combo.put("name", "Combo " + i);
+            combo.put("quantity", 1);
+            combo.put("unitPrice", "90000 ₫");
+            combo.put("lineTotal", "90000 ₫");
+            combos.add(combo);
+        }
+        model.put("hasCombos", true);
+        model.put("combos", combos);
+        return model;
+    }
+}
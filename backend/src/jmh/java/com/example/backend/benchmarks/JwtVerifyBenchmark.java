@@ -0,0 +1,93 @@
+package com.example.backend.benchmarks;
+
+import com.example.backend.config.JwtAuthenticationFilter;
+import com.example.backend.repositories.UserRepository;
+import com.example.backend.services.TokenRevocationService;
+import com.example.backend.utils.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Chi phí xác thực JWT của mỗi request:
+ * - cachedVerify: token đã verify nằm trong cache (SHA-256 + tra map)
+ * - uncachedVerify: cache tắt (max-entries = 0), mỗi lần verify HS512 + parse JSON bằng parser dùng chung
+ * - legacyTripleParse: cách cũ của filter, validate + lấy username + lấy role,
+ *   mỗi lần build parser mới và parse lại token
+ * - filter: toàn bộ JwtAuthenticationFilter (cache + kiểm tra thu hồi + set SecurityContext)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class JwtVerifyBenchmark {
+
+    private JwtUtils cachedJwtUtils;
+    private JwtUtils uncachedJwtUtils;
+    private JwtAuthenticationFilter filter;
+    private SecretKey secret;
+    private String token;
+
+    @Setup
+    public void setup() {
+        cachedJwtUtils = new JwtUtils(10000);
+        uncachedJwtUtils = new JwtUtils(0);
+        secret = (SecretKey) ReflectionTestUtils.getField(cachedJwtUtils, "jwtSecret");
+        token = cachedJwtUtils.generateJwtToken("customer1", "CUSTOMER");
+        filter = new JwtAuthenticationFilter(cachedJwtUtils,
+                new TokenRevocationService(mock(UserRepository.class, withSettings().stubOnly()), 86400000L));
+    }
+
+    @Benchmark
+    public JwtUtils.VerifiedToken cachedVerify() {
+        return cachedJwtUtils.verify(token);
+    }
+
+    @Benchmark
+    public JwtUtils.VerifiedToken uncachedVerify() {
+        return uncachedJwtUtils.verify(token);
+    }
+
+    @Benchmark
+    public String legacyTripleParse() {
+        Jwts.parserBuilder().setSigningKey(secret).build().parseClaimsJws(token);
+        String username = Jwts.parserBuilder().setSigningKey(secret).build()
+                .parseClaimsJws(token).getBody().getSubject();
+        Claims claims = Jwts.parserBuilder().setSigningKey(secret).build().parseClaimsJws(token).getBody();
+        return username + claims.get("role", String.class);
+    }
+
+    @Benchmark
+    public Object filter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/my-orders");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
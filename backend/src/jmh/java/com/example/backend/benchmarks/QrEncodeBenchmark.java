@@ -0,0 +1,81 @@
+package com.example.backend.benchmarks;
+
+import com.example.backend.services.QrCodeService;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput render QR (PNG 400x400) cho nội dung cỡ một nhóm 4 vé:
+ * - legacyEncode: cách cũ, QRCodeWriter + MatrixToImageWriter với buffer mới mỗi lần
+ * - encodeMiss: QrCodeService với nội dung mới mỗi lần (buffer dùng lại theo thread, không trúng cache)
+ * - cacheHit: QrCodeService với nội dung đã render (gửi lại email, mở lại vé)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class QrEncodeBenchmark {
+
+    private static final String GROUP_CONTENT =
+            "T1.3F2K9QH7ZC4XRMB1Y8W T1.3F2K9QH7ZC4XRMB1Y8X T1.3F2K9QH7ZC4XRMB1Y8Y T1.3F2K9QH7ZC4XRMB1Y8Z";
+
+    private QrCodeService qrCodeService;
+    private final AtomicLong sequence = new AtomicLong();
+    private Map<EncodeHintType, Object> hints;
+
+    @Setup
+    public void setup() {
+        qrCodeService = new QrCodeService(null, null, 2000);
+        qrCodeService.render(GROUP_CONTENT);
+        hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M);
+        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
+        hints.put(EncodeHintType.MARGIN, 1);
+    }
+
+    @Benchmark
+    public byte[] legacyEncode() throws Exception {
+        BitMatrix matrix = new QRCodeWriter().encode(uniqueContent(), BarcodeFormat.QR_CODE, 400, 400, hints);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatrixToImageWriter.writeToStream(matrix, "PNG", out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeMiss() {
+        return qrCodeService.render(uniqueContent()).png();
+    }
+
+    @Benchmark
+    public byte[] cacheHit() {
+        return qrCodeService.render(GROUP_CONTENT).png();
+    }
+
+    private String uniqueContent() {
+        return GROUP_CONTENT + " " + sequence.incrementAndGet();
+    }
+}
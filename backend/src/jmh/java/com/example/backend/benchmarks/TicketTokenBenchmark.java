@@ -0,0 +1,86 @@
+package com.example.backend.benchmarks;
+
+import com.example.backend.dtos.TicketTokenVerificationDTO;
+import com.example.backend.services.QrCodeService;
+import com.example.backend.services.TicketTokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ticket token có chữ ký so với payload JSON cũ:
+ * - issue / verify: chi phí ký và kiểm tra offline một token (máy quét tại cổng)
+ * - qrTokenGroup / qrLegacyJson: render QR cho nhóm 4 vé bằng token so với JSON (movie, rạp, ngày, ghế),
+ *   nội dung khác nhau mỗi lần nên không trúng cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TicketTokenBenchmark {
+
+    private TicketTokenService ticketTokenService;
+    private QrCodeService qrCodeService;
+    private String token;
+    private final AtomicLong sequence = new AtomicLong(1);
+
+    @Setup
+    public void setup() {
+        ticketTokenService = new TicketTokenService(null, "benchmark-ticket-token-secret-0123456789");
+        qrCodeService = new QrCodeService(null, ticketTokenService, 16);
+        token = ticketTokenService.issue(123456789L, 4242L, 77L);
+    }
+
+    @Benchmark
+    public String issue() {
+        return ticketTokenService.issue(sequence.incrementAndGet(), 4242L, 77L);
+    }
+
+    @Benchmark
+    public TicketTokenVerificationDTO verify() {
+        return ticketTokenService.verify(token);
+    }
+
+    @Benchmark
+    public byte[] qrTokenGroup() {
+        long ticketId = sequence.addAndGet(4);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            if (i > 0) {
+                content.append(' ');
+            }
+            content.append(ticketTokenService.issue(ticketId + i, 4242L, 77L + i));
+        }
+        return qrCodeService.render(content.toString()).png();
+    }
+
+    @Benchmark
+    public byte[] qrLegacyJson() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("orderId", sequence.incrementAndGet());
+        data.put("bookingId", "123456-4242-2026-10-20T19:30:00");
+        data.put("movie", "Dune: Part Two");
+        data.put("cinema", "Cinesmart Quận 1");
+        data.put("date", "20/10/2026");
+        data.put("time", "19:30");
+        data.put("seats", List.of("F5", "F6", "F7", "F8"));
+        return qrCodeService.render(data).png();
+    }
+}
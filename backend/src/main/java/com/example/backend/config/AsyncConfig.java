@@ -1,16 +1,36 @@
 package com.example.backend.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
+@Slf4j
 public class AsyncConfig {
     
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${spring.task.scheduling.pool.size:4}") int poolSize) {
+        // Khai báo tường minh: STOMP broker đã có messageBrokerTaskScheduler nên Spring Boot không tự tạo scheduler,
+        // @Scheduled sẽ chạy chung pool của broker. Nhiều thread để một job chậm không chặn các job chạy dày
+        // (checkout-queue admit 1s, check-in flush 1s, email outbox poll, refresh token revocation)
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduling-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        scheduler.initialize();
+        System.out.println("AsyncConfig - taskScheduler initialized with " + poolSize + " threads");
+        return scheduler;
+    }
+
     @Bean(name = "emailExecutor")
     public Executor emailExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
@@ -38,5 +58,181 @@ public class AsyncConfig {
         System.out.println("AsyncConfig - notificationExecutor initialized with thread prefix: notification-");
         return executor;
     }
-}
+    
+    @Bean(name = "campaignExecutor")
+    public Executor campaignExecutor() {
+        // Campaign chạy lâu (nhiều chunk), giới hạn số campaign đồng thời để không chiếm connection pool
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("campaign-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        System.out.println("AsyncConfig - campaignExecutor initialized with thread prefix: campaign-");
+        return executor;
+    }
+    
+    @Bean(name = "notificationRetentionExecutor")
+    public Executor notificationRetentionExecutor() {
+        // Dọn thông báo chạy tới max-duration-ms: tách khỏi scheduler và notificationExecutor (thông báo đơn hàng)
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("notification-retention-");
+        // Đã có một lần chạy đang chờ thì bỏ lần mới (runRetention cũng bỏ qua khi đang chạy)
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        System.out.println("AsyncConfig - notificationRetentionExecutor initialized with thread prefix: notification-retention-");
+        return executor;
+    }
+
+    @Bean(name = "activityLogArchiveExecutor")
+    public Executor activityLogArchiveExecutor() {
+        // Lưu trữ activity log chạy tới max-duration-ms: tách khỏi thread scheduler dùng chung
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("activity-log-archive-");
+        // Lần trước chưa xong và đã có một lần chờ thì bỏ lần mới
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        System.out.println("AsyncConfig - activityLogArchiveExecutor initialized with thread prefix: activity-log-archive-");
+        return executor;
+    }
+
+    @Bean(name = "emailOutboxExecutor")
+    public Executor emailOutboxExecutor(@Value("${email.outbox.senders:3}") int senders) {
+        // Một thread điều phối vòng gửi + mỗi sender một thread giữ một kết nối SMTP + một thread dọn outbox
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(senders + 2);
+        executor.setMaxPoolSize(senders + 2);
+        executor.setQueueCapacity(senders * 2);
+        executor.setThreadNamePrefix("email-outbox-");
+        // Chờ batch đang gửi xong; email chưa gửi vẫn nằm trong outbox cho lần khởi động sau
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        System.out.println("AsyncConfig - emailOutboxExecutor initialized with thread prefix: email-outbox-");
+        return executor;
+    }
+    
+    @Bean(name = "scheduleIndexExecutor")
+    public Executor scheduleIndexExecutor() {
+        // Một thread: các lần cập nhật index lịch chiếu chạy tuần tự theo thứ tự commit
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("schedule-index-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        System.out.println("AsyncConfig - scheduleIndexExecutor initialized with thread prefix: schedule-index-");
+        return executor;
+    }
+    
+    @Bean(name = "customerSpendExecutor")
+    public Executor customerSpendExecutor() {
+        // Một thread: cập nhật và backfill bảng chi tiêu chạy tuần tự, không ghi đè cùng một dòng (user, tháng)
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("customer-spend-");
+        executor.setRejectedExecutionHandler(discardWithLog("customerSpendExecutor"));
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        System.out.println("AsyncConfig - customerSpendExecutor initialized with thread prefix: customer-spend-");
+        return executor;
+    }
+
+    @Bean(name = "analyticsExecutor")
+    public Executor analyticsExecutor() {
+        // Một thread: cập nhật tăng dần và điều phối backfill bảng doanh thu/lấp đầy chạy tuần tự
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("analytics-");
+        executor.setRejectedExecutionHandler(discardWithLog("analyticsExecutor"));
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        System.out.println("AsyncConfig - analyticsExecutor initialized with thread prefix: analytics-");
+        return executor;
+    }
 
+    @Bean(name = "analyticsBackfillExecutor")
+    public Executor analyticsBackfillExecutor(@Value("${analytics.backfill-threads:4}") int threads) {
+        // Các ngày (khoảng khóa rời nhau) được tính lại song song khi backfill; mỗi đợt tối đa 16 ngày
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(64);
+        executor.setThreadNamePrefix("analytics-backfill-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        System.out.println("AsyncConfig - analyticsBackfillExecutor initialized with " + threads + " threads");
+        return executor;
+    }
+
+    @Bean(name = "activityLogExecutor")
+    public Executor activityLogExecutor() {
+        // Một thread rút hàng đợi activity log và ghi theo batch; chỉ có một vòng ghi được schedule tại một thời điểm
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("activity-log-");
+        // Chờ batch đang ghi xong; phần còn lại trong hàng đợi được ActivityLogWriter.flush() ghi khi tắt
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        System.out.println("AsyncConfig - activityLogExecutor initialized with thread prefix: activity-log-");
+        return executor;
+    }
+
+    @Bean(name = "exportExecutor")
+    public ThreadPoolTaskExecutor exportExecutor(@Value("${export.threads:2}") int threads) {
+        // Mỗi file xuất giữ một kết nối DB suốt thời gian stream: giới hạn số file xuất đồng thời
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("export-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        System.out.println("AsyncConfig - exportExecutor initialized with " + threads + " threads");
+        return executor;
+    }
+    
+    @Bean(name = "passwordHashExecutor")
+    public ThreadPoolTaskExecutor passwordHashExecutor(
+            @Value("${security.password-hash.threads:0}") int threads,
+            @Value("${security.password-hash.queue-capacity:64}") int queueCapacity) {
+        // BCrypt chỉ tốn CPU: mặc định số thread = số core; hàng đợi đầy thì từ chối (AbortPolicy) để trả 429 ngay
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        System.out.println("AsyncConfig - passwordHashExecutor initialized with " + poolSize + " threads");
+        return executor;
+    }
+
+    /**
+     * Hàng đợi đầy thì bỏ task và ghi log thay vì ném TaskRejectedException (task được gửi từ callback
+     * afterCommit của request); bảng tổng hợp được đồng bộ lại bởi resync hằng đêm.
+     * Không dùng CallerRunsPolicy: chạy trên thread gọi sẽ phá thứ tự tuần tự của executor một thread.
+     */
+    private static RejectedExecutionHandler discardWithLog(String name) {
+        return (task, pool) -> log.warn("{} queue is full ({} queued), dropping task; nightly resync will repair",
+                name, pool.getQueue().size());
+    }
+}
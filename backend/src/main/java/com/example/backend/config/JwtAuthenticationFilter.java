@@ -1,5 +1,6 @@
 package com.example.backend.config;
 
+import com.example.backend.services.TokenRevocationService;
 import com.example.backend.utils.JwtUtils;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -19,9 +20,11 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
+    private final TokenRevocationService tokenRevocationService;
 
-    public JwtAuthenticationFilter(JwtUtils jwtUtils) {
+    public JwtAuthenticationFilter(JwtUtils jwtUtils, TokenRevocationService tokenRevocationService) {
         this.jwtUtils = jwtUtils;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -53,9 +56,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 try {
                     String token = authHeader.substring(7);
                     
-                    if (jwtUtils.validateJwtToken(token)) {
-                        String username = jwtUtils.getUsernameFromJwtToken(token);
-                        String role = jwtUtils.getRoleFromJwtToken(token);
+                    // Verify chữ ký và lấy username/role trong một lần parse (có cache);
+                    // token đã bị thu hồi (đăng xuất, user bị chặn) được xử lý như không có token
+                    JwtUtils.VerifiedToken verified = jwtUtils.verify(token);
+                    if (verified != null && !tokenRevocationService.isRevoked(verified)) {
+                        String username = verified.username();
+                        String role = verified.role();
                         
                         if (role != null && !role.isEmpty()) {
                             // Chuyển đổi role thành uppercase để đảm bảo consistency
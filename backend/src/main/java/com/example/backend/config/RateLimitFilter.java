@@ -0,0 +1,77 @@
+package com.example.backend.config;
+
+import com.example.backend.services.RateLimiterService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Rate limit theo rule cấu hình (RateLimitProperties), chạy sau JwtAuthenticationFilter
+ * để rule USER biết được user hiện tại. Vượt giới hạn -> 429 + Retry-After.
+ * Không đánh dấu @Component: được tạo trong SecurityConfig để không bị đăng ký hai lần.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiterService rateLimiterService;
+    private final boolean trustForwardedFor;
+
+    public RateLimitFilter(RateLimiterService rateLimiterService, boolean trustForwardedFor) {
+        this.rateLimiterService = rateLimiterService;
+        this.trustForwardedFor = trustForwardedFor;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        // Skip OPTIONS requests (CORS preflight)
+        if ("OPTIONS".equals(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RateLimiterService.Decision decision = rateLimiterService.check(
+                request.getMethod(), request.getRequestURI(), currentUsername(), clientIp(request));
+        if (!decision.allowed()) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf(decision.retryAfterSeconds()));
+            response.setCharacterEncoding("UTF-8");
+            response.setContentType("application/json;charset=UTF-8");
+            response.getWriter().write(
+                    "{\"success\":false,\"message\":\"Bạn thao tác quá nhanh, vui lòng thử lại sau "
+                            + decision.retryAfterSeconds() + " giây\",\"error\":\"Too many requests\","
+                            + "\"retryAfterSeconds\":" + decision.retryAfterSeconds() + "}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                int comma = forwardedFor.indexOf(',');
+                return (comma >= 0 ? forwardedFor.substring(0, comma) : forwardedFor).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.backend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cấu hình rate limit theo tiền tố đường dẫn (rate-limit.rules[i].*).
+ * Mỗi rule là một token bucket: tối đa capacity request, hồi đầy sau period-ms.
+ * Request khớp nhiều rule thì phải qua được tất cả.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    // Số bucket tối đa giữ trong bộ nhớ (mỗi rule x mỗi user/IP một bucket)
+    private int maxKeys = 100000;
+    // Chỉ bật khi chạy sau reverse proxy tin cậy, nếu không client tự đặt X-Forwarded-For để né giới hạn
+    private boolean trustForwardedFor = false;
+    private List<Rule> rules = new ArrayList<>();
+
+    public enum KeyType {
+        IP,
+        USER // user đã đăng nhập, chưa đăng nhập thì tính theo IP
+    }
+
+    @Getter
+    @Setter
+    public static class Rule {
+        private String name;
+        private List<String> pathPrefixes = new ArrayList<>();
+        private List<String> excludePrefixes = new ArrayList<>();
+        // Rỗng = mọi method
+        private List<String> methods = new ArrayList<>();
+        private KeyType key = KeyType.IP;
+        private int capacity = 10;
+        private long periodMs = 60000;
+
+        public boolean matches(String method, String path) {
+            if (!methods.isEmpty() && methods.stream().noneMatch(m -> m.equalsIgnoreCase(method))) {
+                return false;
+            }
+            return pathPrefixes.stream().anyMatch(path::startsWith)
+                    && excludePrefixes.stream().noneMatch(path::startsWith);
+        }
+    }
+}
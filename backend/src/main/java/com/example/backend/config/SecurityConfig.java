@@ -1,8 +1,11 @@
 package com.example.backend.config;
 
+import com.example.backend.services.RateLimiterService;
+import com.example.backend.services.TokenRevocationService;
 import com.example.backend.utils.JwtUtils;
 import java.util.Arrays;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -24,14 +27,22 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 public class SecurityConfig {
 
     private final JwtUtils jwtUtils;
+    private final TokenRevocationService tokenRevocationService;
+    private final RateLimiterService rateLimiterService;
+    private final RateLimitProperties rateLimitProperties;
 
-    public SecurityConfig(JwtUtils jwtUtils) {
+    public SecurityConfig(JwtUtils jwtUtils, TokenRevocationService tokenRevocationService,
+                          RateLimiterService rateLimiterService, RateLimitProperties rateLimitProperties) {
         this.jwtUtils = jwtUtils;
+        this.tokenRevocationService = tokenRevocationService;
+        this.rateLimiterService = rateLimiterService;
+        this.rateLimitProperties = rateLimitProperties;
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength) {
+        // Tăng strength thì hash cũ được nâng cấp khi người dùng đăng nhập (AuthService.login)
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
@@ -60,7 +71,8 @@ public class SecurityConfig {
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         // Instantiate filter manually to avoid double registration by Spring Boot
-        JwtAuthenticationFilter jwtAuthenticationFilter = new JwtAuthenticationFilter(jwtUtils);
+        JwtAuthenticationFilter jwtAuthenticationFilter = new JwtAuthenticationFilter(jwtUtils, tokenRevocationService);
+        RateLimitFilter rateLimitFilter = new RateLimitFilter(rateLimiterService, rateLimitProperties.isTrustForwardedFor());
 
         http
                 .csrf(csrf -> csrf.disable())
@@ -100,6 +112,8 @@ public class SecurityConfig {
                         // Tất cả request khác cần authentication
                         .anyRequest().authenticated())
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // Rate limit sau JWT filter để giới hạn theo user đã đăng nhập
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class)
                 // Đảm bảo JWT filter luôn chạy trước tất cả các filter khác
                 .exceptionHandling(exceptions -> exceptions
                         .accessDeniedHandler((request, response, accessDeniedException) -> {
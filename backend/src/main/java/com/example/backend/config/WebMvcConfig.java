@@ -0,0 +1,31 @@
+package com.example.backend.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Request bất đồng bộ của MVC (StreamingResponseBody khi xuất file) chạy trên exportExecutor,
+ * timeout đủ dài cho file lớn
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final ThreadPoolTaskExecutor exportExecutor;
+    private final long asyncTimeoutMs;
+
+    public WebMvcConfig(@Qualifier("exportExecutor") ThreadPoolTaskExecutor exportExecutor,
+                        @Value("${export.timeout-ms:1800000}") long asyncTimeoutMs) {
+        this.exportExecutor = exportExecutor;
+        this.asyncTimeoutMs = asyncTimeoutMs;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(exportExecutor);
+        configurer.setDefaultTimeout(asyncTimeoutMs);
+    }
+}
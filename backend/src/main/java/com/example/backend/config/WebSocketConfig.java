@@ -1,15 +1,36 @@
 package com.example.backend.config;
 
+import com.example.backend.services.TokenRevocationService;
+import com.example.backend.utils.JwtUtils;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import java.util.Collections;
+
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final JwtUtils jwtUtils;
+    private final TokenRevocationService tokenRevocationService;
+
+    public WebSocketConfig(JwtUtils jwtUtils, TokenRevocationService tokenRevocationService) {
+        this.jwtUtils = jwtUtils;
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable a simple in-memory message broker to carry messages back to the client
@@ -34,19 +55,40 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOrigins(origins)
                 .withSockJS();
     }
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
 
+    /**
+     * Client có thể gửi header "Authorization: Bearer ..." khi CONNECT (máy quét vé);
+     * token hợp lệ thì session được gán user + role. Kết nối không có token vẫn hoạt động như trước.
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+                if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+                    return message;
+                }
+                String authHeader = accessor.getFirstNativeHeader("Authorization");
+                if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                    String token = authHeader.substring(7);
+                    try {
+                        JwtUtils.VerifiedToken verified = jwtUtils.verify(token);
+                        if (verified != null && !tokenRevocationService.isRevoked(verified)) {
+                            String role = verified.role();
+                            if (role != null && !role.isEmpty()) {
+                                accessor.setUser(new UsernamePasswordAuthenticationToken(
+                                        verified.username(),
+                                        null,
+                                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))));
+                            }
+                        }
+                    } catch (Exception e) {
+                        // Token không hợp lệ: giữ kết nối ẩn danh
+                    }
+                }
+                return message;
+            }
+        });
+    }
+}
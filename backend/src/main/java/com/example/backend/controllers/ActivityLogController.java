@@ -1,5 +1,6 @@
 package com.example.backend.controllers;
 
+import com.example.backend.dtos.ActivityLogPageDTO;
 import com.example.backend.dtos.ActivityLogResponseDTO;
 import com.example.backend.entities.enums.Action;
 import com.example.backend.entities.enums.ObjectType;
@@ -65,6 +66,38 @@ public class ActivityLogController {
         }
     }
     
+    /**
+     * Admin endpoint: Nhật ký hoạt động của admin theo trang (cursor), gồm cả log đã lưu trữ
+     * Trang tiếp theo: truyền lại nextCursor của trang trước
+     */
+    @GetMapping("/api/admin/activities/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getActivitiesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) Action action,
+            @RequestParam(required = false) ObjectType objectType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) Integer days) {
+        try {
+            if (days != null && days > 0) {
+                startDate = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")).minusDays(days);
+                endDate = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
+            }
+
+            ActivityLogPageDTO page = activityLogService.getActivitiesPage(
+                    username, true, action, objectType, startDate, endDate, cursor, size
+            );
+
+            return ResponseEntity.ok(createSuccessResponse("Lấy danh sách hoạt động thành công", page));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+    
     /**
      * Admin endpoint: Xóa một hoạt động theo ID
      */
@@ -120,6 +153,43 @@ public class ActivityLogController {
         }
     }
 
+    /**
+     * Manager endpoint: Hoạt động của chính manager theo trang (cursor), gồm cả log đã lưu trữ
+     */
+    @GetMapping("/api/manager/activities/page")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<?> getManagerActivitiesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Action action,
+            @RequestParam(required = false) ObjectType objectType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) Integer days
+    ) {
+        try {
+            String username = getCurrentUsername();
+            if (username == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(createErrorResponse("Không xác định được người dùng"));
+            }
+
+            if (days != null && days > 0) {
+                startDate = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")).minusDays(days);
+                endDate = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
+            }
+
+            ActivityLogPageDTO page = activityLogService.getActivitiesPage(
+                    username, false, action, objectType, startDate, endDate, cursor, size
+            );
+
+            return ResponseEntity.ok(createSuccessResponse("Lấy danh sách hoạt động thành công", page));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+
     /**
      * Manager endpoint: Xóa hoạt động thuộc về manager
      */
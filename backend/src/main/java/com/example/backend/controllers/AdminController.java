@@ -3,15 +3,25 @@ package com.example.backend.controllers;
 import com.example.backend.repositories.AdminRepository;
 import com.example.backend.repositories.UserRepository;
 import com.example.backend.entities.Admin;
+import com.example.backend.services.CatalogCache;
 import com.example.backend.services.CustomerService;
+import com.example.backend.services.CustomerSpendService;
+import com.example.backend.services.PasswordHashingService;
+import com.example.backend.services.RateLimiterService;
+import com.example.backend.services.SalesAnalyticsService;
+import com.example.backend.services.ScheduleIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -27,6 +37,12 @@ public class AdminController {
     private final CustomerService customerService;
     private final AdminRepository adminRepository;
     private final UserRepository userRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final RateLimiterService rateLimiterService;
+    private final CatalogCache catalogCache;
+    private final ScheduleIndex scheduleIndex;
+    private final CustomerSpendService customerSpendService;
+    private final SalesAnalyticsService salesAnalyticsService;
     
     private Long getCurrentAdminId() {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
@@ -37,6 +53,122 @@ public class AdminController {
         throw new RuntimeException("Không tìm thấy admin với username: " + username);
     }
     
+    /**
+     * Thống kê executor hash mật khẩu (thời gian hash, thời gian chờ trong hàng đợi, số request bị từ chối)
+     */
+    @GetMapping("/password-hashing/metrics")
+    public ResponseEntity<?> getPasswordHashingMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", passwordHashingService.getMetrics());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Thống kê rate limit theo rule (số request được qua / bị chặn, số bucket đang giữ)
+     */
+    @GetMapping("/rate-limit/metrics")
+    public ResponseEntity<?> getRateLimitMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", rateLimiterService.getMetrics());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Thống kê cache catalog public theo vùng (hit/miss, số entry, số lần xóa)
+     */
+    @GetMapping("/catalog-cache/metrics")
+    public ResponseEntity<?> getCatalogCacheMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        Map<String, Object> data = new LinkedHashMap<>(catalogCache.getMetrics());
+        data.put("scheduleIndex", scheduleIndex.getStats());
+        response.put("data", data);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Xóa toàn bộ cache catalog và dựng lại index lịch chiếu (khi sửa dữ liệu trực tiếp trong DB)
+     */
+    @DeleteMapping("/catalog-cache")
+    public ResponseEntity<?> clearCatalogCache() {
+        catalogCache.clearAll();
+        scheduleIndex.rebuild();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Đã xóa cache catalog và dựng lại index lịch chiếu");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Dựng lại bảng chi tiêu theo tháng của customer từ lịch sử đơn hàng (chạy nền)
+     */
+    @PostMapping("/customer-spend/rebuild")
+    public ResponseEntity<?> rebuildCustomerSpend() {
+        customerSpendService.rebuildAll();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Đã bắt đầu dựng lại thống kê chi tiêu");
+        return ResponseEntity.accepted().body(response);
+    }
+
+    /**
+     * Báo cáo doanh thu theo giờ/ngày/cụm rạp (đọc bảng tổng hợp hourly_sales)
+     */
+    @GetMapping("/analytics/sales")
+    public ResponseEntity<?> getSalesReport(@RequestParam(required = false) LocalDate from,
+                                            @RequestParam(required = false) LocalDate to,
+                                            @RequestParam(required = false) String groupBy,
+                                            @RequestParam(required = false) Long complexId) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", salesAnalyticsService.getSalesReport(from, to, groupBy, complexId));
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Báo cáo lấp đầy theo suất chiếu/phòng/cụm rạp/phim/ngày (đọc bảng tổng hợp showtime_sales)
+     */
+    @GetMapping("/analytics/occupancy")
+    public ResponseEntity<?> getOccupancyReport(@RequestParam(required = false) LocalDate from,
+                                                @RequestParam(required = false) LocalDate to,
+                                                @RequestParam(required = false) String groupBy,
+                                                @RequestParam(required = false) Long complexId,
+                                                @RequestParam(required = false) Long movieId) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", salesAnalyticsService.getOccupancyReport(from, to, groupBy, complexId, movieId));
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Dựng lại bảng doanh thu/lấp đầy cho khoảng ngày (chạy nền, các ngày tính song song)
+     */
+    @PostMapping("/analytics/rebuild")
+    public ResponseEntity<?> rebuildAnalytics(@RequestParam LocalDate from, @RequestParam LocalDate to) {
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().body(createErrorResponse("Ngày bắt đầu phải trước ngày kết thúc"));
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= SalesAnalyticsService.MAX_REPORT_DAYS) {
+            return ResponseEntity.badRequest().body(createErrorResponse(
+                    "Khoảng thời gian dựng lại tối đa " + SalesAnalyticsService.MAX_REPORT_DAYS + " ngày"));
+        }
+        salesAnalyticsService.rebuild(from, to);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Đã bắt đầu dựng lại số liệu doanh thu");
+        return ResponseEntity.accepted().body(response);
+    }
+
     @GetMapping("/password/check")
     public ResponseEntity<?> checkPassword() {
         try {
@@ -91,6 +223,8 @@ public class AdminController {
             response.put("success", true);
             response.put("message", "Đổi mật khẩu thành công");
             return ResponseEntity.ok(response);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(createErrorResponse(e.getReason()));
         } catch (Exception e) {
             System.err.println("Error updating password: " + e.getMessage());
             e.printStackTrace();
@@ -124,6 +258,8 @@ public class AdminController {
             response.put("success", true);
             response.put("message", "Tạo mật khẩu thành công");
             return ResponseEntity.ok(response);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(createErrorResponse(e.getReason()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
         }
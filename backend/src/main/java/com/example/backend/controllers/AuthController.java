@@ -11,8 +11,11 @@ import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.example.backend.dtos.GoogleLoginRequestDTO;
 import com.example.backend.dtos.LoginResponseDTO;
@@ -23,7 +26,6 @@ import com.example.backend.dtos.SendOtpRequestDTO;
 import com.example.backend.dtos.VerifyOtpRequestDTO;
 import com.example.backend.services.AuthService;
 
-import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -39,8 +41,7 @@ public class AuthController {
     
     @PostMapping("/send-otp")
     public ResponseEntity<?> sendOtp(@Valid @RequestBody SendOtpRequestDTO request,
-                                      BindingResult bindingResult,
-                                      HttpSession session) {
+                                      BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body(
                     createErrorResponse(bindingResult)
@@ -48,7 +49,7 @@ public class AuthController {
         }
         
         try {
-            String message = authService.sendOtp(request, session);
+            String message = authService.sendOtp(request);
             return ResponseEntity.ok(createSuccessResponse(message));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -57,10 +58,9 @@ public class AuthController {
     }
 
     @PostMapping("/forgot-password/send-otp")
-    public ResponseEntity<?> sendForgotPasswordOtp(@Valid @RequestBody SendOtpRequestDTO request,
-                                                   HttpSession session) {
+    public ResponseEntity<?> sendForgotPasswordOtp(@Valid @RequestBody SendOtpRequestDTO request) {
         try {
-            authService.sendForgotPasswordOtp(request.getEmail(), session);
+            authService.sendForgotPasswordOtp(request.getEmail());
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Mã OTP đã được gửi đến email của bạn");
@@ -74,19 +74,16 @@ public class AuthController {
     }
 
     @PostMapping("/forgot-password/resend-otp")
-    public ResponseEntity<?> resendForgotPasswordOtp(@Valid @RequestBody SendOtpRequestDTO request,
-                                                     HttpSession session) {
-        return sendForgotPasswordOtp(request, session);
+    public ResponseEntity<?> resendForgotPasswordOtp(@Valid @RequestBody SendOtpRequestDTO request) {
+        return sendForgotPasswordOtp(request);
     }
 
     @PostMapping("/forgot-password/verify-otp")
-    public ResponseEntity<?> verifyForgotPasswordOtp(@Valid @RequestBody VerifyOtpRequestDTO request,
-                                                     HttpSession session) {
+    public ResponseEntity<?> verifyForgotPasswordOtp(@Valid @RequestBody VerifyOtpRequestDTO request) {
         try {
             String resetToken = authService.verifyForgotPasswordOtp(
                     request.getEmail(),
-                    request.getOtp(),
-                    session
+                    request.getOtp()
             );
 
             Map<String, Object> response = new HashMap<>();
@@ -105,16 +102,17 @@ public class AuthController {
     }
 
     @PostMapping("/forgot-password/reset-password")
-    public ResponseEntity<?> resetPassword(@Valid @RequestBody ResetPasswordRequestDTO request,
-                                           HttpSession session) {
+    public ResponseEntity<?> resetPassword(@Valid @RequestBody ResetPasswordRequestDTO request) {
         try {
-            authService.resetForgotPassword(request.getToken(), request.getNewPassword(), session);
+            authService.resetForgotPassword(request.getToken(), request.getNewPassword());
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Đặt lại mật khẩu thành công");
 
             return ResponseEntity.ok(response);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(createErrorResponse(e.getReason()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
         } catch (Exception e) {
@@ -124,9 +122,9 @@ public class AuthController {
     }
 
     @GetMapping("/forgot-password/otp-remaining-time")
-    public ResponseEntity<?> getForgotPasswordOtpRemainingTime(HttpSession session) {
+    public ResponseEntity<?> getForgotPasswordOtpRemainingTime(@RequestParam(required = false) String email) {
         try {
-            long remainingSeconds = authService.getForgotPasswordOtpRemainingSeconds(session);
+            long remainingSeconds = authService.getForgotPasswordOtpRemainingSeconds(email);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -141,8 +139,7 @@ public class AuthController {
     
     @PostMapping("/register")
     public ResponseEntity<?> register(@Valid @RequestBody RegisterRequestDTO request,
-                                       BindingResult bindingResult,
-                                       HttpSession session) {
+                                       BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body(
                     createErrorResponse(bindingResult)
@@ -150,8 +147,10 @@ public class AuthController {
         }
         
         try {
-            RegisterResponseDTO response = authService.register(request, session);
+            RegisterResponseDTO response = authService.register(request);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(createErrorResponse(e.getReason()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(createErrorResponse(e.getMessage()));
@@ -166,6 +165,8 @@ public class AuthController {
             LoginResponseDTO loginResponseDTO = authService.login(username, password);
 
             return ResponseEntity.ok(loginResponseDTO);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(createErrorResponse(e.getReason()));
         } catch (Exception e) {
             return ResponseEntity.status(401).body(Map.of("message", e.getMessage()));
         }
@@ -182,6 +183,14 @@ public class AuthController {
         }
     }
     
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            authService.logout(authHeader.substring(7));
+        }
+        return ResponseEntity.ok(createSuccessResponse("Đăng xuất thành công"));
+    }
+    
     private Map<String, Object> createSuccessResponse(String message) {
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -0,0 +1,125 @@
+package com.example.backend.controllers;
+
+import com.example.backend.dtos.CheckInRequestDTO;
+import com.example.backend.dtos.CheckInResultDTO;
+import com.example.backend.services.CheckInService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Soát vé tại cổng.
+ * - REST: POST /api/check-in
+ * - STOMP (máy quét giữ kết nối): gửi tới /app/check-in, nhận kết quả ở /user/queue/check-in;
+ *   tiến độ check-in của suất chiếu được broadcast ở /topic/check-in/{showtimeId}
+ * Quản lý chỉ soát vé/xem thống kê của suất chiếu thuộc cụm rạp mình quản lý.
+ */
+@RestController
+@RequestMapping("/api/check-in")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"},
+             allowedHeaders = "*",
+             allowCredentials = "true")
+public class CheckInController {
+
+    private final CheckInService checkInService;
+
+    @PostMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> checkIn(@RequestBody CheckInRequestDTO request, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(createCheckInResponse(checkInService.checkIn(request.getToken(),
+                    request.getShowtimeId(), request.getGate(), complexScope(authentication))));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(createErrorResponse(e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/showtimes/{showtimeId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> getShowtimeStats(@PathVariable Long showtimeId, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(createSuccessResponse("Lấy thông tin check-in thành công",
+                    checkInService.getShowtimeStats(showtimeId, complexScope(authentication))));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(createErrorResponse(e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getMetrics() {
+        return ResponseEntity.ok(createSuccessResponse("Lấy thống kê check-in thành công",
+                checkInService.getMetrics()));
+    }
+
+    /**
+     * Máy quét gửi qua STOMP; user của session được gán từ JWT khi CONNECT (WebSocketConfig)
+     */
+    @MessageMapping("/check-in")
+    @SendToUser(value = "/queue/check-in", broadcast = false)
+    public Map<String, Object> checkInMessage(CheckInRequestDTO request, Principal principal) {
+        if (!isStaff(principal)) {
+            return createErrorResponse("Bạn không có quyền soát vé");
+        }
+        try {
+            return createCheckInResponse(checkInService.checkIn(request.getToken(),
+                    request.getShowtimeId(), request.getGate(), complexScope((Authentication) principal)));
+        } catch (RuntimeException e) {
+            return createErrorResponse(e.getMessage());
+        }
+    }
+
+    /**
+     * null = admin (mọi cụm rạp), ngược lại là cụm rạp của quản lý
+     */
+    private Long complexScope(Authentication authentication) {
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        return admin ? null : checkInService.getManagerComplexId(authentication.getName());
+    }
+
+    private boolean isStaff(Principal principal) {
+        return principal instanceof Authentication authentication && authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN") || a.getAuthority().equals("ROLE_MANAGER"));
+    }
+
+    private Map<String, Object> createCheckInResponse(List<CheckInResultDTO> results) {
+        boolean allAccepted = results.stream().allMatch(CheckInResultDTO::getAccepted);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", allAccepted ? "Check-in thành công" : "Có vé không hợp lệ");
+        response.put("accepted", allAccepted);
+        response.put("data", results);
+        return response;
+    }
+
+    private Map<String, Object> createSuccessResponse(String message, Object data) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", message);
+        response.put("data", data);
+        return response;
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.backend.controllers;
+
+import com.example.backend.repositories.ManagerRepository;
+import com.example.backend.services.CheckoutQueueService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hàng chờ checkout cho suất chiếu bán chạy.
+ * - Người mua (đã đăng nhập): POST /{showtimeId}/join lấy số (lấy lại thì nhận ticket đang giữ), GET /{showtimeId}/status?ticket= để xem vị trí;
+ *   khi được vào thì gửi ticket trong header X-Checkout-Ticket lúc tạo thanh toán.
+ *   Ticket chỉ có hiệu lực với tài khoản đã lấy số
+ * - Admin/Manager: bật (PUT), tắt (DELETE) hàng chờ cho suất chiếu và xem các hàng chờ đang chạy;
+ *   quản lý chỉ thao tác trên suất chiếu thuộc cụm rạp của mình
+ */
+@RestController
+@RequestMapping("/api/checkout-queue")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"},
+             allowedHeaders = "*",
+             allowCredentials = "true")
+public class CheckoutQueueController {
+
+    private final CheckoutQueueService checkoutQueueService;
+    private final ManagerRepository managerRepository;
+
+    @PostMapping("/{showtimeId}/join")
+    public ResponseEntity<?> join(@PathVariable Long showtimeId, Authentication authentication) {
+        return ResponseEntity.ok(createSuccessResponse("Lấy số thứ tự thành công",
+                checkoutQueueService.join(showtimeId, authentication.getName())));
+    }
+
+    @GetMapping("/{showtimeId}/status")
+    public ResponseEntity<?> getStatus(@PathVariable Long showtimeId,
+                                       @RequestParam(required = false) String ticket,
+                                       Authentication authentication) {
+        try {
+            return ResponseEntity.ok(createSuccessResponse("Lấy trạng thái hàng chờ thành công",
+                    checkoutQueueService.getStatus(showtimeId, ticket, authentication.getName())));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> getQueues(Authentication authentication) {
+        try {
+            return ResponseEntity.ok(createSuccessResponse("Lấy danh sách hàng chờ thành công",
+                    checkoutQueueService.getQueues(complexScope(authentication))));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    @PutMapping("/{showtimeId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> activate(@PathVariable Long showtimeId,
+                                      @RequestParam(required = false) Integer admitPerMinute,
+                                      Authentication authentication) {
+        try {
+            checkoutQueueService.activate(showtimeId, admitPerMinute, complexScope(authentication));
+            return ResponseEntity.ok(createSuccessResponse("Đã bật hàng chờ cho suất chiếu", null));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(createErrorResponse(e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{showtimeId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> deactivate(@PathVariable Long showtimeId, Authentication authentication) {
+        try {
+            checkoutQueueService.deactivate(showtimeId, complexScope(authentication));
+            return ResponseEntity.ok(createSuccessResponse("Đã tắt hàng chờ cho suất chiếu", null));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * null = admin (mọi cụm rạp), ngược lại là cụm rạp của quản lý
+     */
+    private Long complexScope(Authentication authentication) {
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        if (admin) {
+            return null;
+        }
+        return managerRepository.findCinemaComplexIdByUsername(authentication.getName())
+                .orElseThrow(() -> new SecurityException("Quản lý chưa được gán cụm rạp"));
+    }
+
+    private Map<String, Object> createSuccessResponse(String message, Object data) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", message);
+        response.put("data", data);
+        return response;
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
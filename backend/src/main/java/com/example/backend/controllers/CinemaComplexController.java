@@ -3,7 +3,6 @@ package com.example.backend.controllers;
 import com.example.backend.dtos.CinemaComplexResponseDTO;
 import com.example.backend.dtos.CreateCinemaComplexDTO;
 import com.example.backend.dtos.MovieResponseDTO;
-import com.example.backend.entities.Movie;
 import com.example.backend.services.CinemaComplexService;
 import com.example.backend.services.MovieService;
 import com.example.backend.utils.JwtUtils;
@@ -71,13 +70,13 @@ public class CinemaComplexController {
     @GetMapping("/api/public/cinema-complexes/{complexId}/movies")
     public ResponseEntity<?> getComplexMoviesPublic(@PathVariable Long complexId) {
         try {
-            List<Movie> movies = cinemaComplexService.getMoviesByComplexId(complexId);
+            List<Long> movieIds = cinemaComplexService.getMovieIdsByComplexId(complexId);
             
-            // Convert to MovieResponseDTO using MovieService
-            List<MovieResponseDTO> movieDTOs = movies.stream()
-                .map(movie -> {
+            // Convert to MovieResponseDTO using MovieService (cached)
+            List<MovieResponseDTO> movieDTOs = movieIds.stream()
+                .map(movieId -> {
                     try {
-                        return movieService.getMovieById(movie.getMovieId());
+                        return movieService.getMovieById(movieId);
                     } catch (Exception e) {
                         // If movie not found, return null and filter it out
                         return null;
@@ -3,24 +3,36 @@ package com.example.backend.controllers;
 import com.example.backend.dtos.CancelOrderRequestDTO;
 import com.example.backend.dtos.CancelOrderResponseDTO;
 import com.example.backend.dtos.MovieResponseDTO;
+import com.example.backend.dtos.OrderPageDTO;
 import com.example.backend.dtos.OrderResponseDTO;
 import com.example.backend.dtos.UpdateCustomerProfileRequestDTO;
 import com.example.backend.dtos.VoucherResponseDTO;
 import com.example.backend.entities.Customer;
 import com.example.backend.repositories.CustomerRepository;
+import com.example.backend.repositories.OrderSearchRepository;
 import com.example.backend.services.CustomerService;
+import com.example.backend.services.OrderExportService;
 import com.example.backend.services.OrderService;
 import com.example.backend.services.CloudinaryService;
 import jakarta.validation.Valid;
 import org.springframework.web.multipart.MultipartFile;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +48,7 @@ public class CustomerController {
     private final CustomerService customerService;
     private final CustomerRepository customerRepository;
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
     private final CloudinaryService cloudinaryService;
 
     @PutMapping("/{id}/profile")
@@ -361,6 +374,32 @@ public class CustomerController {
         }
     }
 
+    /**
+     * Lịch sử đơn phân trang theo cursor (nextCursor của trang trước)
+     */
+    @GetMapping("/orders/page")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public ResponseEntity<?> getMyOrdersPage(@RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer size,
+                                             @RequestParam(required = false) String status,
+                                             @RequestParam(required = false) LocalDate from,
+                                             @RequestParam(required = false) LocalDate to) {
+        try {
+            Long userId = getCurrentCustomerId();
+            OrderPageDTO page = orderService.getOrdersPageByUser(userId, status, from, to, cursor, size);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Lấy danh sách đơn hàng thành công");
+            response.put("data", page);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Có lỗi xảy ra. Vui lòng thử lại sau."));
+        }
+    }
+
     @PostMapping("/orders/{orderId}/cancel")
     @PreAuthorize("hasRole('CUSTOMER')")
     public ResponseEntity<?> cancelOrder(
@@ -441,6 +480,77 @@ public class CustomerController {
         }
     }
 
+    /**
+     * Danh sách đơn cho admin, phân trang keyset và lọc trong SQL
+     * @param keyword mã đơn hoặc tiền tố email/số điện thoại khách hàng
+     */
+    @GetMapping("/admin/orders/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getOrdersPage(@RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer size,
+                                           @RequestParam(required = false) Long complexId,
+                                           @RequestParam(required = false) Long movieId,
+                                           @RequestParam(required = false) Long userId,
+                                           @RequestParam(required = false) String status,
+                                           @RequestParam(required = false) String paymentMethod,
+                                           @RequestParam(required = false) LocalDate from,
+                                           @RequestParam(required = false) LocalDate to,
+                                           @RequestParam(required = false) String keyword) {
+        try {
+            OrderPageDTO page = orderService.searchOrders(
+                    orderService.buildFilter(userId, complexId, movieId, status, paymentMethod, from, to, keyword),
+                    cursor, size);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Lấy danh sách đơn hàng thành công");
+            response.put("data", page);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Có lỗi xảy ra. Vui lòng thử lại sau."));
+        }
+    }
+
+    /**
+     * Xuất CSV đơn hàng (type=orders) hoặc vé (type=tickets) cho kế toán, cùng bộ lọc với danh sách đơn;
+     * dữ liệu được stream từ cursor DB ra response nên không giới hạn số dòng
+     */
+    @GetMapping("/admin/orders/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> exportOrders(@RequestParam(defaultValue = "orders") String type,
+                                          @RequestParam(required = false) Long complexId,
+                                          @RequestParam(required = false) Long movieId,
+                                          @RequestParam(required = false) Long userId,
+                                          @RequestParam(required = false) String status,
+                                          @RequestParam(required = false) String paymentMethod,
+                                          @RequestParam(required = false) LocalDate from,
+                                          @RequestParam(required = false) LocalDate to,
+                                          @RequestParam(required = false) String keyword) {
+        try {
+            boolean tickets = "tickets".equalsIgnoreCase(type);
+            if (!tickets && !"orders".equalsIgnoreCase(type)) {
+                return ResponseEntity.badRequest().body(createErrorResponse("Loại file xuất không hợp lệ"));
+            }
+            // Lỗi tham số trả về JSON trước khi bắt đầu stream
+            OrderSearchRepository.Filter filter = orderService.buildFilter(
+                    userId, complexId, movieId, status, paymentMethod, from, to, keyword);
+            StreamingResponseBody body = tickets
+                    ? out -> orderExportService.exportTicketsCsv(filter, out)
+                    : out -> orderExportService.exportOrdersCsv(filter, out);
+            String fileName = (tickets ? "tickets-" : "orders-")
+                    + LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")).format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmm"))
+                    + ".csv";
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .body(body);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        }
+    }
+
     @PostMapping("/admin/orders/{orderId}/cancel")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> cancelOrderAdmin(
@@ -574,6 +684,8 @@ public class CustomerController {
             response.put("success", true);
             response.put("message", "Đổi mật khẩu thành công");
             return ResponseEntity.ok(response);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(createErrorResponse(e.getReason()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
         }
@@ -606,6 +718,8 @@ public class CustomerController {
             response.put("success", true);
             response.put("message", "Tạo mật khẩu thành công");
             return ResponseEntity.ok(response);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(createErrorResponse(e.getReason()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
         }
@@ -0,0 +1,63 @@
+package com.example.backend.controllers;
+
+import com.example.backend.services.EmailOutboxService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/email-outbox")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"},
+             allowedHeaders = "*",
+             allowCredentials = "true")
+@PreAuthorize("hasRole('ADMIN')")
+public class EmailOutboxController {
+
+    private final EmailOutboxService outboxService;
+
+    /**
+     * Số email theo trạng thái và số liệu gửi của node hiện tại
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats() {
+        return ResponseEntity.ok(createSuccessResponse("Lấy thống kê email thành công", outboxService.getStats()));
+    }
+
+    @GetMapping("/failed")
+    public ResponseEntity<?> getFailedEmails(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(createSuccessResponse("Lấy danh sách email lỗi thành công",
+                outboxService.getFailedEmails(limit)));
+    }
+
+    @PostMapping("/{outboxId}/retry")
+    public ResponseEntity<?> retry(@PathVariable Long outboxId) {
+        try {
+            outboxService.retry(outboxId);
+            return ResponseEntity.ok(createSuccessResponse("Đã đưa email vào hàng đợi gửi lại", null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> createSuccessResponse(String message, Object data) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", message);
+        response.put("data", data);
+        return response;
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
@@ -1,11 +1,18 @@
 package com.example.backend.controllers;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -17,17 +24,23 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.backend.dtos.CinemaComplexResponseDTO;
 import com.example.backend.dtos.MovieResponseDTO;
+import com.example.backend.dtos.OrderPageDTO;
 import com.example.backend.dtos.OrderResponseDTO;
 import com.example.backend.entities.Manager;
-import com.example.backend.entities.Movie;
 import com.example.backend.repositories.ManagerRepository;
+import com.example.backend.repositories.OrderSearchRepository;
 import com.example.backend.services.CinemaComplexService;
 import com.example.backend.services.MovieService;
+import com.example.backend.services.OrderExportService;
 import com.example.backend.services.OrderService;
+import com.example.backend.services.SalesAnalyticsService;
 import com.example.backend.services.CustomerService;
 import com.example.backend.repositories.UserRepository;
 import com.example.backend.repositories.ManagerRepository;
@@ -49,6 +62,8 @@ public class ManagerController {
     private final OrderService orderService;
     private final CustomerService customerService;
     private final UserRepository userRepository;
+    private final SalesAnalyticsService salesAnalyticsService;
+    private final OrderExportService orderExportService;
     
     @GetMapping("/cinema-complex")
     public ResponseEntity<?> getManagerCinemaComplex() {
@@ -144,13 +159,13 @@ public class ManagerController {
                     .body(createErrorResponse("Bạn không có quyền truy cập cụm rạp này"));
             }
             
-            List<Movie> movies = cinemaComplexService.getMoviesByComplexId(complexId);
+            List<Long> movieIds = cinemaComplexService.getMovieIdsByComplexId(complexId);
             
-            // Convert to MovieResponseDTO using MovieService
-            List<MovieResponseDTO> movieDTOs = movies.stream()
-                .map(movie -> {
+            // Convert to MovieResponseDTO using MovieService (cached)
+            List<MovieResponseDTO> movieDTOs = movieIds.stream()
+                .map(movieId -> {
                     try {
-                        return movieService.getMovieById(movie.getMovieId());
+                        return movieService.getMovieById(movieId);
                     } catch (Exception e) {
                         // If movie not found, return null and filter it out
                         return null;
@@ -262,6 +277,124 @@ public class ManagerController {
         }
     }
     
+    /**
+     * Danh sách đơn của cụm rạp manager quản lý, phân trang keyset và lọc trong SQL
+     */
+    @GetMapping("/orders/page")
+    public ResponseEntity<?> getManagerOrdersPage(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer size,
+                                                  @RequestParam(required = false) Long movieId,
+                                                  @RequestParam(required = false) String status,
+                                                  @RequestParam(required = false) String paymentMethod,
+                                                  @RequestParam(required = false) LocalDate from,
+                                                  @RequestParam(required = false) LocalDate to,
+                                                  @RequestParam(required = false) String keyword) {
+        try {
+            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            Optional<Long> complexIdOpt = managerRepository.findCinemaComplexIdByUsername(username);
+            if (!complexIdOpt.isPresent() || complexIdOpt.get() == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Manager chưa được gán cụm rạp"));
+            }
+
+            // Cụm rạp luôn lấy theo tài khoản manager, không nhận từ request
+            OrderPageDTO page = orderService.searchOrders(
+                    orderService.buildFilter(null, complexIdOpt.get(), movieId, status, paymentMethod, from, to, keyword),
+                    cursor, size);
+            return ResponseEntity.ok(createSuccessResponse("Lấy danh sách đơn hàng thành công", page));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(createErrorResponse(e.getMessage()));
+        }
+    }
+    
+    /**
+     * Xuất CSV đơn hàng (type=orders) hoặc vé (type=tickets) của cụm rạp manager quản lý
+     */
+    @GetMapping("/orders/export")
+    public ResponseEntity<?> exportManagerOrders(@RequestParam(defaultValue = "orders") String type,
+                                                 @RequestParam(required = false) Long movieId,
+                                                 @RequestParam(required = false) String status,
+                                                 @RequestParam(required = false) String paymentMethod,
+                                                 @RequestParam(required = false) LocalDate from,
+                                                 @RequestParam(required = false) LocalDate to,
+                                                 @RequestParam(required = false) String keyword) {
+        try {
+            boolean tickets = "tickets".equalsIgnoreCase(type);
+            if (!tickets && !"orders".equalsIgnoreCase(type)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Loại file xuất không hợp lệ"));
+            }
+            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            Optional<Long> complexIdOpt = managerRepository.findCinemaComplexIdByUsername(username);
+            if (!complexIdOpt.isPresent() || complexIdOpt.get() == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Manager chưa được gán cụm rạp"));
+            }
+
+            OrderSearchRepository.Filter filter = orderService.buildFilter(
+                    null, complexIdOpt.get(), movieId, status, paymentMethod, from, to, keyword);
+            StreamingResponseBody body = tickets
+                    ? out -> orderExportService.exportTicketsCsv(filter, out)
+                    : out -> orderExportService.exportOrdersCsv(filter, out);
+            String fileName = (tickets ? "tickets-" : "orders-") + complexIdOpt.get() + "-"
+                    + LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")).format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmm"))
+                    + ".csv";
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .body(body);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(createErrorResponse(e.getMessage()));
+        }
+    }
+    
+    /**
+     * Báo cáo doanh thu của cụm rạp manager quản lý, nhóm theo HOUR / DAY
+     */
+    @GetMapping("/analytics/sales")
+    public ResponseEntity<?> getManagerSalesReport(@RequestParam(required = false) LocalDate from,
+                                                   @RequestParam(required = false) LocalDate to,
+                                                   @RequestParam(required = false) String groupBy) {
+        try {
+            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            Optional<Long> complexIdOpt = managerRepository.findCinemaComplexIdByUsername(username);
+            if (!complexIdOpt.isPresent() || complexIdOpt.get() == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Manager chưa được gán cụm rạp"));
+            }
+            return ResponseEntity.ok(createSuccessResponse("Lấy báo cáo doanh thu thành công",
+                    salesAnalyticsService.getSalesReport(from, to, groupBy, complexIdOpt.get())));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(createErrorResponse(e.getMessage()));
+        }
+    }
+    
+    /**
+     * Báo cáo lấp đầy của cụm rạp manager quản lý, nhóm theo SHOWTIME / ROOM / MOVIE / DAY
+     */
+    @GetMapping("/analytics/occupancy")
+    public ResponseEntity<?> getManagerOccupancyReport(@RequestParam(required = false) LocalDate from,
+                                                       @RequestParam(required = false) LocalDate to,
+                                                       @RequestParam(required = false) String groupBy,
+                                                       @RequestParam(required = false) Long movieId) {
+        try {
+            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            Optional<Long> complexIdOpt = managerRepository.findCinemaComplexIdByUsername(username);
+            if (!complexIdOpt.isPresent() || complexIdOpt.get() == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Manager chưa được gán cụm rạp"));
+            }
+            return ResponseEntity.ok(createSuccessResponse("Lấy báo cáo lấp đầy thành công",
+                    salesAnalyticsService.getOccupancyReport(from, to, groupBy, complexIdOpt.get(), movieId)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(createErrorResponse(e.getMessage()));
+        }
+    }
+    
     private Map<String, Object> createSuccessResponse(String message, Object data) {
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -344,6 +477,8 @@ public class ManagerController {
             response.put("success", true);
             response.put("message", "Đổi mật khẩu thành công");
             return ResponseEntity.ok(response);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(createErrorResponse(e.getReason()));
         } catch (Exception e) {
             System.err.println("Error updating password: " + e.getMessage());
             e.printStackTrace();
@@ -377,6 +512,8 @@ public class ManagerController {
             response.put("success", true);
             response.put("message", "Tạo mật khẩu thành công");
             return ResponseEntity.ok(response);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(createErrorResponse(e.getReason()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
         }
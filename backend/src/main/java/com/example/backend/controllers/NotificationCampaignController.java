@@ -0,0 +1,119 @@
+package com.example.backend.controllers;
+
+import com.example.backend.dtos.CreateNotificationCampaignDTO;
+import com.example.backend.dtos.NotificationCampaignResponseDTO;
+import com.example.backend.services.NotificationCampaignService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/admin/notification-campaigns")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"},
+             allowedHeaders = "*",
+             allowCredentials = "true")
+@PreAuthorize("hasRole('ADMIN')")
+public class NotificationCampaignController {
+
+    private final NotificationCampaignService campaignService;
+
+    @PostMapping
+    public ResponseEntity<?> createCampaign(@Valid @RequestBody CreateNotificationCampaignDTO createDTO,
+                                            BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity.badRequest().body(createErrorResponse(bindingResult));
+        }
+
+        try {
+            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            NotificationCampaignResponseDTO campaign = campaignService.createCampaign(createDTO, username);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(createSuccessResponse("Tạo campaign thành công", campaign));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getAllCampaigns() {
+        try {
+            List<NotificationCampaignResponseDTO> campaigns = campaignService.getAllCampaigns();
+            return ResponseEntity.ok(createSuccessResponse("Lấy danh sách campaign thành công", campaigns));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{campaignId}")
+    public ResponseEntity<?> getCampaignById(@PathVariable Long campaignId) {
+        try {
+            NotificationCampaignResponseDTO campaign = campaignService.getCampaignById(campaignId);
+            return ResponseEntity.ok(createSuccessResponse("Lấy thông tin campaign thành công", campaign));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{campaignId}/cancel")
+    public ResponseEntity<?> cancelCampaign(@PathVariable Long campaignId) {
+        try {
+            NotificationCampaignResponseDTO campaign = campaignService.cancelCampaign(campaignId);
+            return ResponseEntity.ok(createSuccessResponse("Đã dừng campaign", campaign));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{campaignId}/resume")
+    public ResponseEntity<?> resumeCampaign(@PathVariable Long campaignId) {
+        try {
+            NotificationCampaignResponseDTO campaign = campaignService.resumeCampaign(campaignId);
+            return ResponseEntity.ok(createSuccessResponse("Đang chạy tiếp campaign", campaign));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> createSuccessResponse(String message, Object data) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", message);
+        response.put("data", data);
+        return response;
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+
+    private Map<String, Object> createErrorResponse(BindingResult bindingResult) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+
+        String errors = bindingResult.getFieldErrors().stream()
+                .map(error -> error.getField() + ": " + error.getDefaultMessage())
+                .collect(Collectors.joining(", "));
+
+        response.put("message", errors);
+        return response;
+    }
+}
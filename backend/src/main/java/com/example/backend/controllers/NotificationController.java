@@ -1,21 +1,25 @@
 package com.example.backend.controllers;
 
 import com.example.backend.dtos.NotificationDTO;
+import com.example.backend.dtos.NotificationPageDTO;
 import com.example.backend.entities.User;
 import com.example.backend.repositories.UserRepository;
 import com.example.backend.services.NotificationService;
-import com.example.backend.utils.JwtUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Slf4j
 @RestController
@@ -26,9 +30,12 @@ import java.util.Map;
 public class NotificationController {
     
     private final NotificationService notificationService;
-    private final JwtUtils jwtUtils;
     private final UserRepository userRepository;
     
+    // username -> userId (username không đổi sau khi tạo), để badge/inbox không phải lookup user mỗi request
+    private static final int MAX_CACHED_USER_IDS = 50000;
+    private final ConcurrentMap<String, Long> userIdByUsername = new ConcurrentHashMap<>();
+    
     /**
      * Trigger notification cho order khi thanh toán thành công
      */
@@ -62,6 +69,24 @@ public class NotificationController {
         }
     }
     
+    /**
+     * Lấy inbox phân trang theo cursor
+     */
+    @GetMapping("/api/notifications/inbox")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN', 'MANAGER')")
+    public ResponseEntity<?> getInbox(@RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) Integer size,
+                                      HttpServletRequest request) {
+        try {
+            Long userId = getUserIdFromRequest(request);
+            NotificationPageDTO page = notificationService.getInbox(userId, cursor, size);
+            return ResponseEntity.ok(createSuccessResponse("Lấy danh sách thông báo thành công", page));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+    
     /**
      * Lấy số lượng thông báo chưa đọc
      */
@@ -127,22 +152,26 @@ public class NotificationController {
     }
     
     /**
-     * Lấy userId từ JWT token
+     * Lấy userId của user hiện tại (JWT đã được JwtAuthenticationFilter xác thực)
      */
     private Long getUserIdFromRequest(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof String)) {
             throw new RuntimeException("Token không hợp lệ");
         }
         
-        String token = authHeader.substring(7);
-        if (!jwtUtils.validateJwtToken(token)) {
-            throw new RuntimeException("Token không hợp lệ");
+        String username = (String) authentication.getPrincipal();
+        Long cachedUserId = userIdByUsername.get(username);
+        if (cachedUserId != null) {
+            return cachedUserId;
         }
         
-        String username = jwtUtils.getUsernameFromJwtToken(token);
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        if (userIdByUsername.size() >= MAX_CACHED_USER_IDS) {
+            userIdByUsername.clear();
+        }
+        userIdByUsername.put(username, user.getUserId());
         return user.getUserId();
     }
     
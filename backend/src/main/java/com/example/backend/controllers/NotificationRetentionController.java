@@ -0,0 +1,63 @@
+package com.example.backend.controllers;
+
+import com.example.backend.services.NotificationRetentionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/notifications/retention")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"},
+             allowedHeaders = "*",
+             allowCredentials = "true")
+@PreAuthorize("hasRole('ADMIN')")
+public class NotificationRetentionController {
+
+    private final NotificationRetentionService retentionService;
+
+    /**
+     * Xem kết quả lần dọn gần nhất (số dòng đã chuyển, thời gian chạy)
+     */
+    @GetMapping
+    public ResponseEntity<?> getLastReport() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("running", retentionService.isRunning());
+        data.put("lastReport", retentionService.getLastReport());
+        return ResponseEntity.ok(createSuccessResponse("Lấy thông tin dọn thông báo thành công", data));
+    }
+
+    /**
+     * Chạy dọn thông báo ngay, không chờ lịch
+     */
+    @PostMapping("/run")
+    public ResponseEntity<?> runRetention() {
+        if (retentionService.isRunning()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(createErrorResponse("Tác vụ dọn thông báo đang chạy"));
+        }
+        retentionService.runRetentionAsync();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(createSuccessResponse("Đã bắt đầu dọn thông báo", null));
+    }
+
+    private Map<String, Object> createSuccessResponse(String message, Object data) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", message);
+        response.put("data", data);
+        return response;
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
@@ -16,6 +16,7 @@ import com.example.backend.repositories.UserRepository;
 import com.example.backend.repositories.VoucherRepository;
 import com.example.backend.repositories.CustomerRepository;
 import com.example.backend.repositories.WalletTransactionRepository;
+import com.example.backend.services.CheckoutQueueService;
 import com.example.backend.services.OrderCreationService;
 import com.example.backend.services.OrderService;
 import com.example.backend.services.MomoService;
@@ -88,6 +89,9 @@ public class PaymentController {
     private final JwtUtils jwtUtils;
     private final WalletTransactionRepository walletTransactionRepository;
 
+    // Hàng chờ checkout (suất chiếu bán chạy)
+    private final CheckoutQueueService checkoutQueueService;
+
     // ==================== ZaloPay Endpoints ====================
 
     /**
@@ -95,7 +99,8 @@ public class PaymentController {
      */
     @PostMapping("/zalopay/create")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<?> createZaloPayOrder(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<?> createZaloPayOrder(@RequestBody Map<String, Object> request,
+                                                @RequestHeader(value = "X-Checkout-Ticket", required = false) String checkoutTicket) {
         try {
             System.out.println("=== ZaloPay Create Order Request ===");
             System.out.println("Request body: " + request);
@@ -220,6 +225,12 @@ public class PaymentController {
             } else {
                 System.out.println("bookingInfo is null - food-only order");
             }
+
+            // Suất chiếu đang bật hàng chờ: chỉ người đã được vào (ticket còn hạn) mới được tạo đơn
+            if (!checkoutQueueService.isAdmitted(showtimeId, checkoutTicket, user.getUsername())) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .body(createErrorResponse("Suất chiếu đang có nhiều người đặt vé. Vui lòng xếp hàng chờ đến lượt", null));
+            }
             
             // Check for duplicate order trong vòng 10 giây gần đây (tránh double-click và race condition)
             // Tạo final copies để sử dụng trong lambda
@@ -716,7 +727,8 @@ public class PaymentController {
     @PostMapping("/momo/create")
     @PreAuthorize("hasRole('CUSTOMER')")
     public ResponseEntity<?> createMomoPayment(@Valid @RequestBody CreatePaymentRequest request,
-                                               BindingResult bindingResult) {
+                                               BindingResult bindingResult,
+                                               @RequestHeader(value = "X-Checkout-Ticket", required = false) String checkoutTicket) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body(createErrorResponse("Dữ liệu không hợp lệ", bindingResult));
         }
@@ -735,6 +747,12 @@ public class PaymentController {
             List<Map<String, Object>> foodComboMaps = request.getFoodCombos() != null ? request.getFoodCombos() : List.of();
             String voucherCode = request.getVoucherCode();
             Long cinemaComplexId = request.getCinemaComplexId(); // Lấy cinemaComplexId từ request (cho đơn hàng chỉ có đồ ăn)
+
+            // Suất chiếu đang bật hàng chờ: chỉ người đã được vào (ticket còn hạn) mới được tạo đơn
+            if (!checkoutQueueService.isAdmitted(showtimeId, checkoutTicket, user.getUsername())) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .body(createErrorResponse("Suất chiếu đang có nhiều người đặt vé. Vui lòng xếp hàng chờ đến lượt", null));
+            }
             
             // Lấy voucher nếu có
             Voucher voucher = null;
@@ -1350,7 +1368,8 @@ public class PaymentController {
     @PostMapping("/wallet/create")
     public ResponseEntity<?> createWalletPayment(@Valid @RequestBody CreatePaymentRequest request,
                                                  BindingResult bindingResult,
-                                                 @RequestHeader(value = "Authorization", required = false) String authHeader) {
+                                                 @RequestHeader(value = "Authorization", required = false) String authHeader,
+                                                 @RequestHeader(value = "X-Checkout-Ticket", required = false) String checkoutTicket) {
         
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body(createErrorResponse("Dữ liệu không hợp lệ", bindingResult));
@@ -1397,6 +1416,12 @@ public class PaymentController {
             String voucherCode = request.getVoucherCode();
             Long cinemaComplexId = request.getCinemaComplexId();
 
+            // Suất chiếu đang bật hàng chờ: chỉ người đã được vào (ticket còn hạn) mới được tạo đơn
+            if (!checkoutQueueService.isAdmitted(showtimeId, checkoutTicket, finalUser.getUsername())) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .body(createErrorResponse("Suất chiếu đang có nhiều người đặt vé. Vui lòng xếp hàng chờ đến lượt", null));
+            }
+
             // Check for duplicate order trong vòng 10 giây gần đây
             final Long finalShowtimeId = showtimeId;
             final List<String> finalSeatIds = new ArrayList<>(seatIds);
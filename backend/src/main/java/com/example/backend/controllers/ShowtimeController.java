@@ -243,22 +243,13 @@ public class ShowtimeController {
             @RequestParam(required = false) String province,
             @RequestParam String date) {
         try {
-            System.out.println("=== ShowtimeController.getPublicShowtimes ===");
-            System.out.println("movieId: " + movieId);
-            System.out.println("province: " + province);
-            System.out.println("date: " + date);
-            
             java.time.LocalDate localDate = java.time.LocalDate.parse(date);
             List<ShowtimeResponseDTO> showtimes = showtimeService.getPublicShowtimes(movieId, province, localDate);
             
-            System.out.println("Returning " + showtimes.size() + " showtimes");
-            
             return ResponseEntity.ok(
                 createSuccessResponse("Lấy danh sách lịch chiếu thành công", showtimes)
             );
         } catch (Exception e) {
-            System.err.println("ERROR in getPublicShowtimes: " + e.getMessage());
-            e.printStackTrace();
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(createErrorResponse(e.getMessage()));
         }
@@ -0,0 +1,109 @@
+package com.example.backend.controllers;
+
+import com.example.backend.dtos.TicketTokenVerificationDTO;
+import com.example.backend.repositories.ManagerRepository;
+import com.example.backend.services.QrCodeService;
+import com.example.backend.services.TicketTokenService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/tickets")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"},
+             allowedHeaders = "*",
+             allowCredentials = "true")
+public class TicketController {
+
+    private final QrCodeService qrCodeService;
+    private final TicketTokenService ticketTokenService;
+    private final ManagerRepository managerRepository;
+
+    /**
+     * Ảnh QR của vé (giống ảnh trong email xác nhận).
+     * ETag là hash nội dung QR nên trình duyệt có thể dùng lại ảnh đã tải (304 Not Modified).
+     * Quản lý chỉ xem được vé của suất chiếu thuộc cụm rạp mình quản lý.
+     */
+    @GetMapping(value = "/{ticketId}/qr.png")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN', 'MANAGER')")
+    public ResponseEntity<?> getTicketQr(@PathVariable Long ticketId, WebRequest webRequest) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            boolean admin = hasRole(authentication, "ROLE_ADMIN");
+            boolean manager = !admin && hasRole(authentication, "ROLE_MANAGER");
+            Long cinemaComplexId = null;
+            if (manager) {
+                cinemaComplexId = managerRepository.findCinemaComplexIdByUsername(authentication.getName())
+                        .orElseThrow(() -> new SecurityException("Quản lý chưa được gán cụm rạp"));
+            }
+
+            QrCodeService.QrImage qr = qrCodeService.renderTicketQr(
+                    ticketId, authentication.getName(), admin || manager, cinemaComplexId);
+            String etag = "\"" + qr.hash() + "\"";
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_PNG)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate())
+                    .body(qr.png());
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(createErrorResponse(e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Máy quét tại cổng gửi nội dung QR (một hoặc nhiều token cách nhau bởi dấu cách).
+     * Chỉ kiểm tra chữ ký và danh sách vé đã hủy trong bộ nhớ, không truy vấn database.
+     */
+    @PostMapping("/verify")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> verifyTokens(@RequestBody Map<String, String> request) {
+        String content = request.get("token");
+        if (content == null || content.isBlank()) {
+            return ResponseEntity.badRequest().body(createErrorResponse("Thiếu nội dung QR"));
+        }
+        List<TicketTokenVerificationDTO> results = Arrays.stream(content.trim().split("\\s+"))
+                .map(ticketTokenService::verify)
+                .collect(Collectors.toList());
+        boolean allValid = results.stream().allMatch(TicketTokenVerificationDTO::getValid);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", allValid ? "Vé hợp lệ" : "Có vé không hợp lệ");
+        response.put("valid", allValid);
+        response.put("data", results);
+        return ResponseEntity.ok(response);
+    }
+
+    private boolean hasRole(Authentication authentication, String role) {
+        return authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals(role));
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ActivityLogPageDTO {
+    private List<ActivityLogResponseDTO> items;
+    private String nextCursor; // null nếu đã hết
+    private Boolean hasMore;
+}
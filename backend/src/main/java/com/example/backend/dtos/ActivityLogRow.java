@@ -0,0 +1,27 @@
+package com.example.backend.dtos;
+
+import com.example.backend.entities.enums.Action;
+import com.example.backend.entities.enums.ObjectType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng nhật ký hoạt động (activity_logs hoặc activity_logs_archive), select trực tiếp (không tải entity)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityLogRow {
+    private Long activityId;
+    private Long userId;
+    private String username;
+    private Action action;
+    private ObjectType objectType;
+    private Long objectId;
+    private String objectName;
+    private String description;
+    private LocalDateTime timestamp;
+}
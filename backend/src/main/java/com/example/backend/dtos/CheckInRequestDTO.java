@@ -0,0 +1,14 @@
+package com.example.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckInRequestDTO {
+    private String token;       // Nội dung QR: một hoặc nhiều ticket token cách nhau bởi dấu cách
+    private Long showtimeId;    // Suất chiếu cổng đang soát (không bắt buộc)
+    private String gate;        // Mã cổng/máy quét
+}
@@ -0,0 +1,25 @@
+package com.example.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckInResultDTO {
+    private String token;
+    private Boolean accepted;
+    private Long ticketId;
+    private Long showtimeId;
+    private String seat;        // "A5" (null nếu vé đặt sau khi preload)
+    private String gate;
+    private LocalDateTime checkedInAt;
+    // INVALID_FORMAT, INVALID_SIGNATURE, REVOKED, WRONG_SHOWTIME, SHOWTIME_NOT_FOUND,
+    // TOO_EARLY, SHOWTIME_ENDED, ALREADY_USED (null nếu hợp lệ)
+    private String reason;
+}
@@ -0,0 +1,20 @@
+package com.example.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckoutQueueStatusDTO {
+    private Long showtimeId;
+    private Boolean active;             // false = suất chiếu không bật hàng chờ, vào chọn ghế ngay
+    private String ticket;              // gửi lại khi hỏi trạng thái và khi thanh toán (header X-Checkout-Ticket)
+    private Boolean admitted;
+    private Long position;              // số người đứng trước (0 khi đã được vào)
+    private Long estimatedWaitSeconds;
+    private Long passExpiresInSeconds;  // thời gian còn lại để hoàn tất thanh toán sau khi được vào
+}
@@ -0,0 +1,36 @@
+package com.example.backend.dtos;
+
+import com.example.backend.entities.enums.CampaignSegment;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CreateNotificationCampaignDTO {
+    @Size(max = 50, message = "Loại thông báo không được vượt quá 50 ký tự")
+    private String type; // Mặc định PROMOTION
+
+    @NotBlank(message = "Tiêu đề không được để trống")
+    @Size(max = 255, message = "Tiêu đề không được vượt quá 255 ký tự")
+    private String title;
+
+    @NotBlank(message = "Nội dung không được để trống")
+    @Size(max = 2000, message = "Nội dung không được vượt quá 2000 ký tự")
+    private String message;
+
+    @NotNull(message = "Nhóm người nhận không được để trống")
+    private CampaignSegment segment;
+
+    private String segmentValue; // Tên tỉnh (PROVINCE) hoặc voucherId (VOUCHER_HOLDERS)
+
+    private Map<String, Object> data; // Optional additional data
+}
@@ -0,0 +1,24 @@
+package com.example.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmailOutboxStatsDTO {
+    private Map<String, Long> countsByStatus; // PENDING/SENDING/SENT/FAILED trong database
+    private Long sentTotal;             // Gửi thành công kể từ khi node khởi động
+    private Long failedAttempts;        // Số lần gửi lỗi (mỗi lần retry tính một lần)
+    private Long deadLettered;          // Email chuyển sang FAILED sau khi hết retry
+    private Long batches;
+    private Long lastBatchSize;
+    private Long lastBatchDurationMs;
+    private Long purgedTotal;           // Email SENT/FAILED đã xóa theo retention kể từ khi node khởi động
+    private Integer openTransports;     // Số kết nối SMTP đang được giữ mở
+}
@@ -0,0 +1,31 @@
+package com.example.backend.dtos;
+
+import com.example.backend.entities.enums.CampaignSegment;
+import com.example.backend.entities.enums.CampaignStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationCampaignResponseDTO {
+    private Long campaignId;
+    private String type;
+    private String title;
+    private String message;
+    private CampaignSegment segment;
+    private String segmentValue;
+    private CampaignStatus status;
+    private Long lastUserId;
+    private Long sentCount;
+    private String createdBy;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,24 @@
+package com.example.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationRetentionReportDTO {
+    private String mode;            // ARCHIVE hoặc DELETE
+    private LocalDateTime cutoff;   // Notification đã đọc trước thời điểm này sẽ bị xử lý
+    private Long rowsMoved;
+    private Integer batches;
+    private Long durationMs;
+    private Boolean completed;      // false nếu dừng vì hết thời gian cho phép
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -0,0 +1,22 @@
+package com.example.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OccupancyReportRowDTO {
+    private String key; // id suất chiếu/phòng/cụm rạp/phim hoặc ngày chiếu (yyyy-MM-dd)
+    private String label;
+    private Long showtimeCount;
+    private Long capacity; // tổng số ghế của các suất chiếu
+    private Long ticketsSold;
+    private BigDecimal ticketRevenue;
+    private Double occupancyRate; // ticketsSold / capacity
+}
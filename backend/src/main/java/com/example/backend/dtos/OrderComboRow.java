@@ -0,0 +1,22 @@
+package com.example.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Một combo đồ ăn của đơn hàng; select trực tiếp theo danh sách orderId
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderComboRow {
+    private Long orderId;
+    private Long comboId;
+    private String comboName;
+    private String comboImage;
+    private Integer quantity;
+    private BigDecimal price;
+}
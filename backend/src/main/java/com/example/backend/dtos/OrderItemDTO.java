@@ -31,5 +31,6 @@ public class OrderItemDTO {
     private Integer seatColumn;
     private BigDecimal price; // Adjusted price (with 30% if weekend)
     private BigDecimal basePrice; // Base price (without 30%)
+    private String qrToken; // Token có chữ ký hiển thị trong QR code của vé
 }
 
@@ -0,0 +1,36 @@
+package com.example.backend.dtos;
+
+import com.example.backend.entities.enums.OrderStatus;
+import com.example.backend.entities.enums.PaymentMethod;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng danh sách đơn hàng: cột của orders + user + voucher, select trực tiếp (không tải entity)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryRow {
+    private Long orderId;
+    private LocalDateTime orderDate;
+    private BigDecimal totalAmount;
+    private PaymentMethod paymentMethod;
+    private OrderStatus status;
+    private LocalDateTime vnpPayDate;
+    private String voucherCode;
+    private Long cinemaComplexId;
+    private Long userId;
+    private String username;
+    private String userEmail;
+    private String userPhone;
+    private LocalDateTime cancelledAt;
+    private BigDecimal refundAmount;
+    private String cancellationReason;
+    private Boolean refundedToWallet;
+    private Boolean isTopUp;
+}
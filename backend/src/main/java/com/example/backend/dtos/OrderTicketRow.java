@@ -0,0 +1,40 @@
+package com.example.backend.dtos;
+
+import com.example.backend.entities.enums.RoomType;
+import com.example.backend.entities.enums.SeatType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Một vé của đơn hàng kèm suất chiếu, phim, phòng, cụm rạp; select trực tiếp theo danh sách orderId
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderTicketRow {
+    private Long orderId;
+    private Long ticketId;
+    private BigDecimal price;
+    private String qrCode; // token đã ký lúc tạo đơn (vé cũ: chuỗi TICKET_...)
+    private Long seatId;
+    private SeatType seatType;
+    private String seatRow;
+    private Integer seatColumn;
+    private Long showtimeId;
+    private LocalDateTime showtimeStart;
+    private LocalDateTime showtimeEnd;
+    private RoomType roomType;
+    private Long movieId;
+    private String movieTitle;
+    private String moviePoster;
+    private Long roomId;
+    private String roomName;
+    private Long cinemaComplexId;
+    private String cinemaComplexName;
+    private String addressDescription;
+    private String addressProvince;
+}
@@ -0,0 +1,30 @@
+package com.example.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesReportRowDTO {
+    private String key; // giờ (yyyy-MM-ddTHH:00), ngày (yyyy-MM-dd) hoặc id cụm rạp
+    private String label;
+    private Long orderCount;
+    private Long cancelledOrderCount;
+    private BigDecimal grossRevenue;
+    private BigDecimal refundAmount;
+    private BigDecimal netRevenue;
+    private Long ticketCount;
+    private BigDecimal ticketRevenue;
+    private Long comboQuantity;
+    private BigDecimal comboRevenue;
+    private Long ticketOrderCount;
+    private Long comboAttachedOrderCount;
+    private Long foodOnlyOrderCount;
+    private Double comboAttachRate; // comboAttachedOrderCount / ticketOrderCount
+}
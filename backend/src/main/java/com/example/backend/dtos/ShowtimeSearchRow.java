@@ -0,0 +1,31 @@
+package com.example.backend.dtos;
+
+import com.example.backend.entities.enums.Language;
+import com.example.backend.entities.enums.RoomType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng kết quả tìm suất chiếu public: chỉ các cột cần hiển thị, select trực tiếp (không tải entity)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShowtimeSearchRow {
+    private Long showtimeId;
+    private Long movieId;
+    private String movieTitle;
+    private Long movieVersionId;
+    private Language language;
+    private RoomType roomType;
+    private Long cinemaRoomId;
+    private String cinemaRoomName;
+    private Long cinemaComplexId;
+    private String cinemaComplexName;
+    private String province;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+}
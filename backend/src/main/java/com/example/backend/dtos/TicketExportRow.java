@@ -0,0 +1,39 @@
+package com.example.backend.dtos;
+
+import com.example.backend.entities.enums.OrderStatus;
+import com.example.backend.entities.enums.PaymentMethod;
+import com.example.backend.entities.enums.RoomType;
+import com.example.backend.entities.enums.SeatType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng file xuất vé: vé + đơn hàng + suất chiếu, select trực tiếp (không tải entity)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketExportRow {
+    private Long orderId;
+    private LocalDateTime orderDate;
+    private PaymentMethod paymentMethod;
+    private OrderStatus status;
+    private LocalDateTime vnpPayDate;
+    private String userEmail;
+    private String userPhone;
+    private Long ticketId;
+    private BigDecimal price;
+    private String seatRow;
+    private Integer seatColumn;
+    private SeatType seatType;
+    private LocalDateTime showtimeStart;
+    private RoomType roomType;
+    private String movieTitle;
+    private String roomName;
+    private Long cinemaComplexId;
+    private String cinemaComplexName;
+}
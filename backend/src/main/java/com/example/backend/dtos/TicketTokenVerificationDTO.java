@@ -0,0 +1,19 @@
+package com.example.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TicketTokenVerificationDTO {
+    private String token;
+    private Boolean valid;
+    private Long ticketId;
+    private Long showtimeId;
+    private Long seatId;
+    private String reason;  // INVALID_FORMAT, INVALID_SIGNATURE, REVOKED (null nếu hợp lệ)
+}
@@ -8,7 +8,12 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "activity_logs")
+@Table(name = "activity_logs", indexes = {
+        // Trang nhật ký: keyset theo (timestamp, activityId) giảm dần, lọc theo người thực hiện hoặc loại đối tượng
+        @Index(name = "idx_activity_logs_timestamp", columnList = "timestamp, activity_id"),
+        @Index(name = "idx_activity_logs_user_timestamp", columnList = "user_id, timestamp"),
+        @Index(name = "idx_activity_logs_object_type_timestamp", columnList = "object_type, timestamp")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,76 @@
+package com.example.backend.entities;
+
+import com.example.backend.entities.enums.Action;
+import com.example.backend.entities.enums.ObjectType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Activity log cũ hơn activity-log.archive.retention-months tháng, chuyển từ activity_logs (ActivityLogArchiveService).
+ * Bảng được partition theo tháng (RANGE theo period = yyyyMM) nên khóa chính gồm cả period và không có khóa ngoại;
+ * username/loại người thực hiện được chụp lại lúc lưu trữ.
+ */
+@Entity
+@Table(name = "activity_logs_archive", indexes = {
+        @Index(name = "idx_activity_logs_archive_timestamp", columnList = "timestamp, activity_id"),
+        @Index(name = "idx_activity_logs_archive_user_timestamp", columnList = "user_id, timestamp"),
+        @Index(name = "idx_activity_logs_archive_object_type_timestamp", columnList = "object_type, timestamp")
+})
+@IdClass(ActivityLogArchive.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ActivityLogArchive {
+    @Id
+    private Long activityId;
+
+    @Id
+    private Integer period;
+
+    private Long userId;
+
+    private String actorUsername;
+
+    // ADMIN, MANAGER hoặc USER
+    private String actorRole;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Action action;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ObjectType objectType;
+
+    private Long objectId;
+
+    private String objectName;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long activityId;
+        private Integer period;
+    }
+}
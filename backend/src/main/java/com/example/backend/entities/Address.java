@@ -1,9 +1,13 @@
 package com.example.backend.entities;
 
+import com.example.backend.utils.ProvinceKeys;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_address_province_key", columnList = "province_key")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -15,4 +19,14 @@ public class Address {
 
     private String description;
     private String province;
+
+    // Tỉnh/thành đã chuẩn hóa (ProvinceKeys) để lọc bằng so sánh bằng trên index
+    @Column(name = "province_key", length = 100)
+    private String provinceKey;
+
+    @PrePersist
+    @PreUpdate
+    void syncProvinceKey() {
+        provinceKey = ProvinceKeys.normalize(province);
+    }
 }
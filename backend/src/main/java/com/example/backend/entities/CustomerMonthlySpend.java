@@ -0,0 +1,50 @@
+package com.example.backend.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Chi tiêu của một user trong một tháng (CustomerSpendService), tính lại sau mỗi thay đổi đơn hàng của user
+ * trong tháng đó. Thống kê chi tiêu đọc các dòng của user thay vì tải toàn bộ đơn hàng.
+ */
+@Entity
+@Table(name = "customer_monthly_spend", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_customer_monthly_spend_user_period", columnNames = {"user_id", "period"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerMonthlySpend {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Tháng dạng yyyyMM, ví dụ 202610
+    @Column(nullable = false)
+    private Integer period;
+
+    // Tổng tiền đơn đã thanh toán, đơn đã hủy trừ đi số tiền hoàn
+    @Column(precision = 19, scale = 2)
+    private BigDecimal spent;
+
+    private Long orderCount;
+    private Long ticketCount;
+
+    private LocalDateTime updatedAt;
+}
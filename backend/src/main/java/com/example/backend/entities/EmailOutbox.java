@@ -0,0 +1,74 @@
+package com.example.backend.entities;
+
+import com.example.backend.entities.enums.EmailOutboxStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email chờ gửi. Mọi email đều được ghi vào bảng này trước rồi mới được EmailOutboxSender gửi đi,
+ * nên restart hay lỗi SMTP tạm thời không làm mất email.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_email_outbox_status_created", columnList = "status, created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmailOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long outboxId;
+
+    @Column(nullable = false, length = 50)
+    private String emailType; // OTP, FORGOT_PASSWORD_OTP, BOOKING_CONFIRMATION, TOP_UP, ...
+
+    private Long referenceId; // orderId, ... (nếu có)
+
+    @Column(nullable = false)
+    private String toEmail;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, columnDefinition = "LONGTEXT")
+    private String body;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean html = false;
+
+    @Column(columnDefinition = "LONGTEXT")
+    private String inlineImages; // JSON {cid: base64 PNG} cho ảnh nhúng (QR code)
+
+    // Số nhỏ gửi trước: OTP = 0, email giao dịch = 5
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer priority = 5;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private EmailOutboxStatus status = EmailOutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime claimedAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,60 @@
+package com.example.backend.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Doanh thu theo (giờ đặt đơn, cụm rạp) (SalesAnalyticsService), tính lại cả giờ khi một đơn trong giờ đó
+ * thay đổi. Báo cáo theo giờ/ngày/cụm rạp cộng các dòng này, không quét orders.
+ * Chỉ tính đơn đã thanh toán, không tính đơn nạp ví; complexId null = đơn chỉ có đồ ăn không gắn cụm rạp.
+ */
+@Entity
+@Table(name = "hourly_sales", indexes = {
+        @Index(name = "idx_hourly_sales_bucket", columnList = "bucket_start, complex_id"),
+        @Index(name = "idx_hourly_sales_complex_bucket", columnList = "complex_id, bucket_start")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HourlySales {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Đầu giờ (giờ Việt Nam)
+    private LocalDateTime bucketStart;
+    private LocalDate bucketDate;
+    private Long complexId;
+
+    private Long orderCount;
+    private Long cancelledOrderCount;
+    // Tổng tiền đơn, tiền đã hoàn của đơn hủy, và chênh lệch (doanh thu thực)
+    private BigDecimal grossRevenue;
+    private BigDecimal refundAmount;
+    private BigDecimal netRevenue;
+
+    // Các cột dưới chỉ tính đơn chưa hủy
+    private Long ticketCount;
+    private BigDecimal ticketRevenue;
+    private Long comboQuantity;
+    private BigDecimal comboRevenue;
+    // Đơn có vé, đơn có vé kèm combo (tỉ lệ mua kèm = comboAttachedOrderCount / ticketOrderCount), đơn chỉ có đồ ăn
+    private Long ticketOrderCount;
+    private Long comboAttachedOrderCount;
+    private Long foodOnlyOrderCount;
+
+    private LocalDateTime updatedAt;
+}
@@ -7,6 +7,8 @@ import com.example.backend.entities.enums.AgeRating;
 import com.example.backend.entities.enums.Genre;
 import com.example.backend.entities.enums.MovieStatus;
 
+import org.hibernate.annotations.BatchSize;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
@@ -38,6 +40,8 @@ public class Movie {
 
     private String title;
 
+    // Danh sách phim: nạp genre theo lô thay vì một truy vấn mỗi phim
+    @BatchSize(size = 100)
     @ElementCollection(targetClass = Genre.class)
     @Enumerated(EnumType.STRING)
     @CollectionTable(name = "movie_genres", joinColumns = @JoinColumn(name = "movie_id"))
@@ -0,0 +1,41 @@
+package com.example.backend.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tóm tắt lịch chiếu của một phim, cập nhật khi thêm/sửa/xóa suất chiếu hoặc phiên bản phim
+ * (MovieSummaryService). Danh sách phim đọc bảng này một lần thay vì tải toàn bộ showtime của từng phim.
+ */
+@Entity
+@Table(name = "movie_summaries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovieSummary {
+    @Id
+    private Long movieId;
+
+    private LocalDateTime firstShowtimeStart;
+    private LocalDateTime lastShowtimeStart;
+    private LocalDateTime lastShowtimeEnd;
+    private Long showtimeCount;
+
+    // Tên enum RoomType/Language, phân tách bằng dấu phẩy
+    @Column(length = 255)
+    private String formats;
+
+    @Column(length = 255)
+    private String languages;
+
+    private LocalDateTime updatedAt;
+}
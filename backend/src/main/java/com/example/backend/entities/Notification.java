@@ -5,7 +5,15 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        // Inbox phân trang theo cursor: WHERE user_id = ? ORDER BY timestamp DESC, notification_id DESC
+        @Index(name = "idx_notifications_user_timestamp", columnList = "user_id, timestamp"),
+        // Retention job: WHERE is_read = true AND timestamp < cutoff
+        @Index(name = "idx_notifications_read_timestamp", columnList = "is_read, timestamp")
+}, uniqueConstraints = {
+        // Mỗi (type, user, order) chỉ có một notification, insert trùng sẽ bị INSERT IGNORE bỏ qua
+        @UniqueConstraint(name = "uk_notifications_dedup_key", columnNames = "dedup_key")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -41,5 +49,8 @@ public class Notification {
     @Column(nullable = false)
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "dedup_key", length = 100)
+    private String dedupKey; // TYPE:userId:orderId, null với notification không cần chống trùng
 }
 
@@ -0,0 +1,44 @@
+package com.example.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bản lưu trữ gọn của notification đã đọc và quá hạn giữ lại.
+ * Không có foreign key tới users để việc chuyển dữ liệu không khóa bảng users.
+ */
+@Entity
+@Table(name = "notifications_archive", indexes = {
+        @Index(name = "idx_notifications_archive_user_timestamp", columnList = "user_id, timestamp")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationArchive {
+    @Id
+    private Long notificationId; // Giữ nguyên ID từ bảng notifications
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String type;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    @Column(columnDefinition = "TEXT")
+    private String data;
+
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,62 @@
+package com.example.backend.entities;
+
+import com.example.backend.entities.enums.CampaignSegment;
+import com.example.backend.entities.enums.CampaignStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "notification_campaigns")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationCampaign {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long campaignId;
+
+    @Column(nullable = false)
+    private String type; // VOUCHER_PROMO, PROMOTION, ...
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    @Column(columnDefinition = "TEXT")
+    private String data; // JSON string for additional data
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CampaignSegment segment;
+
+    private String segmentValue;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private CampaignStatus status = CampaignStatus.PENDING;
+
+    // Checkpoint: userId lớn nhất đã được ghi notification, dùng để chạy tiếp sau khi restart
+    @Column(nullable = false)
+    @Builder.Default
+    private Long lastUserId = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long sentCount = 0L;
+
+    private String createdBy;
+
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+}
@@ -7,9 +7,14 @@ import java.time.LocalDateTime;
 import java.util.List;
 import com.example.backend.entities.enums.OrderStatus;
 import com.example.backend.entities.enums.PaymentMethod;
+import com.example.backend.services.OrderChangeListener;
 
 @Entity
-@Table(name = "orders")
+@EntityListeners(OrderChangeListener.class)
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_order_date", columnList = "order_date, order_id"),
+        @Index(name = "idx_orders_user_order_date", columnList = "user_id, order_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -80,4 +85,7 @@ public class Order {
     // Đánh dấu đơn hàng là nạp tiền vào ví (không hiển thị trong danh sách orders)
     @Builder.Default
     private Boolean isTopUp = Boolean.FALSE;
+    
+    // Thời điểm email xác nhận được đưa vào outbox, null nếu chưa gửi (dedup giữa các node và sau restart)
+    private LocalDateTime emailSentAt;
 }
@@ -6,7 +6,9 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "showtimes")
+@Table(name = "showtimes", indexes = {
+        @Index(name = "idx_showtimes_start_time", columnList = "start_time")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,48 @@
+package com.example.backend.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Số vé bán và sức chứa của một suất chiếu (SalesAnalyticsService), tính lại khi đơn hàng của suất chiếu
+ * thay đổi. Báo cáo lấp đầy theo suất/phòng/cụm rạp/phim/ngày cộng các dòng này, không quét tickets.
+ */
+@Entity
+@Table(name = "showtime_sales", indexes = {
+        @Index(name = "idx_showtime_sales_start", columnList = "start_time"),
+        @Index(name = "idx_showtime_sales_complex_start", columnList = "complex_id, start_time"),
+        @Index(name = "idx_showtime_sales_movie_start", columnList = "movie_id, start_time")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShowtimeSales {
+    @Id
+    private Long showtimeId;
+
+    private Long movieId;
+    private Long roomId;
+    private Long complexId;
+    private LocalDateTime startTime;
+    private LocalDate startDate;
+
+    // Số ghế của phòng chiếu
+    private Long capacity;
+
+    // Vé thuộc đơn đã thanh toán và chưa hủy
+    private Long ticketsSold;
+    private BigDecimal ticketRevenue;
+
+    private LocalDateTime updatedAt;
+}
@@ -3,6 +3,7 @@ package com.example.backend.entities;
 import jakarta.persistence.*;
 import lombok.*;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "tickets")
@@ -26,6 +27,9 @@ public class Ticket {
     private BigDecimal price;
     private String qrCode;
 
+    // Thời điểm vé được quét tại cổng (null = chưa sử dụng)
+    private LocalDateTime checkedInAt;
+
     @ManyToOne
     @JoinColumn(name = "order_id")
     private Order order;
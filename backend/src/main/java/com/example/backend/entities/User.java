@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Table(name = "users")
 @Inheritance(strategy = InheritanceType.JOINED)
@@ -27,4 +29,7 @@ public class User {
     private String phone;
     private Boolean status;
     private String avatar; // URL của avatar từ Cloudinary
+
+    // JWT cấp trước thời điểm này không còn hợp lệ (đăng xuất, chặn/bỏ chặn tài khoản)
+    private LocalDateTime tokensRevokedAt;
 }
@@ -0,0 +1,7 @@
+package com.example.backend.entities.enums;
+
+public enum CampaignSegment {
+    ALL_CUSTOMERS,    // Tất cả khách hàng đang hoạt động
+    PROVINCE,         // Khách hàng thuộc một tỉnh/thành (segmentValue = tên tỉnh)
+    VOUCHER_HOLDERS   // Khách hàng đang giữ một voucher (segmentValue = voucherId)
+}
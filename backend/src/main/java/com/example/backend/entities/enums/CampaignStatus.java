@@ -0,0 +1,9 @@
+package com.example.backend.entities.enums;
+
+public enum CampaignStatus {
+    PENDING,    // Campaign đã tạo, chưa bắt đầu gửi
+    RUNNING,    // Đang gửi theo từng chunk
+    COMPLETED,  // Đã gửi hết danh sách người nhận
+    CANCELLED,  // Admin đã dừng campaign
+    FAILED      // Gặp lỗi khi gửi, có thể chạy tiếp từ checkpoint
+}
@@ -0,0 +1,8 @@
+package com.example.backend.entities.enums;
+
+public enum EmailOutboxStatus {
+    PENDING,    // Chờ gửi (lần đầu hoặc chờ retry tới nextAttemptAt)
+    SENDING,    // Đã được sender claim, đang gửi qua SMTP
+    SENT,       // Gửi thành công
+    FAILED      // Hết số lần retry, cần admin kiểm tra và gửi lại
+}
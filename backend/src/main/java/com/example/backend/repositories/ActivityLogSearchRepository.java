@@ -0,0 +1,34 @@
+package com.example.backend.repositories;
+
+import com.example.backend.dtos.ActivityLogRow;
+import com.example.backend.entities.enums.Action;
+import com.example.backend.entities.enums.ObjectType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Nhật ký hoạt động với điều kiện động (Criteria API, chỉ thêm điều kiện có giá trị để dùng được index),
+ * phân trang keyset theo (timestamp, activityId) giảm dần trên bảng chính và bảng lưu trữ
+ */
+public interface ActivityLogSearchRepository {
+
+    /**
+     * Điều kiện lọc; trường null thì bỏ qua
+     * @param actorUserId người thực hiện
+     * @param adminOnly   chỉ hoạt động của admin
+     * @param from        thời điểm từ (bao gồm), to thời điểm đến (bao gồm)
+     */
+    record Filter(Long actorUserId, boolean adminOnly, Action action, ObjectType objectType,
+                  LocalDateTime from, LocalDateTime to) {}
+
+    /**
+     * Một trang trong activity_logs đứng sau cursor (afterTimestamp, afterId); cursor null = trang đầu
+     */
+    List<ActivityLogRow> searchActivities(Filter filter, LocalDateTime afterTimestamp, Long afterId, int limit);
+
+    /**
+     * Như searchActivities nhưng trên activity_logs_archive (thêm điều kiện period để MySQL chỉ đọc partition cần thiết)
+     */
+    List<ActivityLogRow> searchArchivedActivities(Filter filter, LocalDateTime afterTimestamp, Long afterId, int limit);
+}
@@ -0,0 +1,130 @@
+package com.example.backend.repositories;
+
+import com.example.backend.dtos.ActivityLogRow;
+import com.example.backend.entities.ActivityLog;
+import com.example.backend.entities.ActivityLogArchive;
+import com.example.backend.entities.Admin;
+import com.example.backend.entities.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cài đặt ActivityLogSearchRepository (Spring Data ghép vào ActivityLogRepository theo hậu tố Impl)
+ */
+public class ActivityLogSearchRepositoryImpl implements ActivityLogSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ActivityLogRow> searchActivities(Filter filter, LocalDateTime afterTimestamp, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ActivityLogRow> query = cb.createQuery(ActivityLogRow.class);
+
+        Root<ActivityLog> activity = query.from(ActivityLog.class);
+        Join<ActivityLog, User> actor = activity.join("actor");
+
+        List<Predicate> predicates = commonPredicates(cb, activity, actor.get("userId"), filter, afterTimestamp, afterId);
+        if (filter.adminOnly()) {
+            // EXISTS theo khóa chính của admins thay vì TYPE(actor) (không join mọi bảng con của users)
+            Subquery<Long> admin = query.subquery(Long.class);
+            Root<Admin> adminRoot = admin.from(Admin.class);
+            admin.select(adminRoot.get("userId")).where(cb.equal(adminRoot.get("userId"), actor.get("userId")));
+            predicates.add(cb.exists(admin));
+        }
+
+        query.select(cb.construct(ActivityLogRow.class,
+                        activity.get("activityId"),
+                        actor.get("userId"),
+                        actor.get("username"),
+                        activity.get("action"),
+                        activity.get("objectType"),
+                        activity.get("objectId"),
+                        activity.get("objectName"),
+                        activity.get("description"),
+                        activity.get("timestamp")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(activity.get("timestamp")), cb.desc(activity.get("activityId")));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<ActivityLogRow> searchArchivedActivities(Filter filter, LocalDateTime afterTimestamp, Long afterId,
+                                                         int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ActivityLogRow> query = cb.createQuery(ActivityLogRow.class);
+
+        Root<ActivityLogArchive> activity = query.from(ActivityLogArchive.class);
+
+        List<Predicate> predicates = commonPredicates(cb, activity, activity.get("userId"), filter, afterTimestamp, afterId);
+        if (filter.adminOnly()) {
+            predicates.add(cb.equal(activity.get("actorRole"), "ADMIN"));
+        }
+        // Cắt partition theo tháng của khoảng thời gian / cursor
+        if (filter.from() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(activity.get("period"), toPeriod(filter.from())));
+        }
+        LocalDateTime upper = afterTimestamp != null ? afterTimestamp : filter.to();
+        if (upper != null) {
+            predicates.add(cb.lessThanOrEqualTo(activity.get("period"), toPeriod(upper)));
+        }
+
+        query.select(cb.construct(ActivityLogRow.class,
+                        activity.get("activityId"),
+                        activity.get("userId"),
+                        activity.get("actorUsername"),
+                        activity.get("action"),
+                        activity.get("objectType"),
+                        activity.get("objectId"),
+                        activity.get("objectName"),
+                        activity.get("description"),
+                        activity.get("timestamp")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(activity.get("timestamp")), cb.desc(activity.get("activityId")));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private List<Predicate> commonPredicates(CriteriaBuilder cb, Root<?> activity, Path<Long> actorUserId,
+                                             Filter filter, LocalDateTime afterTimestamp, Long afterId) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.actorUserId() != null) {
+            predicates.add(cb.equal(actorUserId, filter.actorUserId()));
+        }
+        if (filter.action() != null) {
+            predicates.add(cb.equal(activity.get("action"), filter.action()));
+        }
+        if (filter.objectType() != null) {
+            predicates.add(cb.equal(activity.get("objectType"), filter.objectType()));
+        }
+        if (filter.from() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(activity.get("timestamp"), filter.from()));
+        }
+        if (filter.to() != null) {
+            predicates.add(cb.lessThanOrEqualTo(activity.get("timestamp"), filter.to()));
+        }
+        if (afterTimestamp != null && afterId != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(activity.get("timestamp"), afterTimestamp),
+                    cb.and(cb.equal(activity.get("timestamp"), afterTimestamp),
+                            cb.lessThan(activity.get("activityId"), afterId))));
+        }
+        return predicates;
+    }
+
+    private int toPeriod(LocalDateTime time) {
+        return time.getYear() * 100 + time.getMonthValue();
+    }
+}
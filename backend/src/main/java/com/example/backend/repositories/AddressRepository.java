@@ -1,7 +1,17 @@
 package com.example.backend.repositories;
 
 import com.example.backend.entities.Address;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface AddressRepository extends JpaRepository<Address, Long> {
+
+    /**
+     * Địa chỉ có province nhưng chưa có provinceKey (dữ liệu trước khi thêm cột)
+     */
+    @Query("SELECT a FROM Address a WHERE a.provinceKey IS NULL AND a.province IS NOT NULL AND TRIM(a.province) <> ''")
+    List<Address> findMissingProvinceKey(Pageable pageable);
 }
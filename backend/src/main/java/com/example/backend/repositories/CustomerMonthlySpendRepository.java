@@ -0,0 +1,24 @@
+package com.example.backend.repositories;
+
+import com.example.backend.entities.CustomerMonthlySpend;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CustomerMonthlySpendRepository extends JpaRepository<CustomerMonthlySpend, Long> {
+
+    List<CustomerMonthlySpend> findByUserId(Long userId);
+
+    Optional<CustomerMonthlySpend> findByUserIdAndPeriod(Long userId, Integer period);
+
+    @Modifying
+    @Query("DELETE FROM CustomerMonthlySpend s WHERE s.userId IN :userIds")
+    int deleteByUserIds(@Param("userIds") Collection<Long> userIds);
+}
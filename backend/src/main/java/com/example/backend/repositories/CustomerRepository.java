@@ -1,10 +1,13 @@
 package com.example.backend.repositories;
 
 import com.example.backend.entities.Customer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -25,4 +28,28 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     @Query("SELECT DISTINCT c FROM Customer c LEFT JOIN FETCH c.favorites WHERE c.userId = :userId")
     Optional<Customer> findByIdWithFavorites(@Param("userId") Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Keyset queries cho notification campaign: lấy từng chunk userId tăng dần sau afterUserId,
+     * chỉ select id nên bộ nhớ không phụ thuộc vào số lượng khách hàng
+     */
+    @Query("SELECT c.userId FROM Customer c WHERE c.userId > :afterUserId " +
+           "AND (c.status IS NULL OR c.status = true) ORDER BY c.userId")
+    List<Long> findActiveIdsAfter(@Param("afterUserId") Long afterUserId, Pageable pageable);
+
+    @Query("SELECT c.userId FROM Customer c JOIN c.address a WHERE c.userId > :afterUserId " +
+           "AND (c.status IS NULL OR c.status = true) AND LOWER(a.province) = LOWER(:province) ORDER BY c.userId")
+    List<Long> findActiveIdsByProvinceAfter(@Param("province") String province,
+                                            @Param("afterUserId") Long afterUserId,
+                                            Pageable pageable);
+
+    @Query("SELECT c.userId FROM Customer c JOIN c.vouchers v WHERE v.voucherId = :voucherId " +
+           "AND c.userId > :afterUserId AND (c.status IS NULL OR c.status = true) ORDER BY c.userId")
+    List<Long> findActiveIdsByVoucherAfter(@Param("voucherId") Long voucherId,
+                                           @Param("afterUserId") Long afterUserId,
+                                           Pageable pageable);
+
+    // Tên hiển thị của các customer trong một trang đơn hàng: [userId, name]
+    @Query("SELECT c.userId, c.name FROM Customer c WHERE c.userId IN :userIds")
+    List<Object[]> findNamesByUserIds(@Param("userIds") Collection<Long> userIds);
+}
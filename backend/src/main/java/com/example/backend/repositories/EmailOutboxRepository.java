@@ -0,0 +1,22 @@
+package com.example.backend.repositories;
+
+import com.example.backend.entities.EmailOutbox;
+import com.example.backend.entities.enums.EmailOutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    /**
+     * Số email theo từng trạng thái, mỗi phần tử là [status, count]
+     */
+    @Query("SELECT e.status, COUNT(e) FROM EmailOutbox e GROUP BY e.status")
+    List<Object[]> countGroupByStatus();
+
+    List<EmailOutbox> findByStatusOrderByCreatedAtDesc(EmailOutboxStatus status, Pageable pageable);
+}
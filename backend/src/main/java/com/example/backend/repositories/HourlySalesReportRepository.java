@@ -0,0 +1,24 @@
+package com.example.backend.repositories;
+
+import com.example.backend.dtos.SalesReportRowDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Báo cáo doanh thu cộng từ bảng hourly_sales, nhóm theo chiều do nơi gọi chọn (Criteria API)
+ */
+public interface HourlySalesReportRepository {
+
+    enum GroupBy { HOUR, DAY, COMPLEX }
+
+    /**
+     * @param complexId null = mọi cụm rạp
+     */
+    record Filter(LocalDateTime from, LocalDateTime to, Long complexId) {}
+
+    /**
+     * Các dòng báo cáo sắp theo key tăng dần; label để trống cho service điền
+     */
+    List<SalesReportRowDTO> reportSales(Filter filter, GroupBy groupBy);
+}
@@ -0,0 +1,105 @@
+package com.example.backend.repositories;
+
+import com.example.backend.dtos.SalesReportRowDTO;
+import com.example.backend.entities.HourlySales;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Cài đặt HourlySalesReportRepository (Spring Data ghép vào HourlySalesRepository theo hậu tố Impl)
+ */
+public class HourlySalesReportRepositoryImpl implements HourlySalesReportRepository {
+
+    private static final String[] LONG_COLUMNS = {"orderCount", "cancelledOrderCount", "ticketCount", "comboQuantity",
+            "ticketOrderCount", "comboAttachedOrderCount", "foodOnlyOrderCount"};
+    private static final String[] DECIMAL_COLUMNS = {"grossRevenue", "refundAmount", "netRevenue", "ticketRevenue",
+            "comboRevenue"};
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<SalesReportRowDTO> reportSales(Filter filter, GroupBy groupBy) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<HourlySales> sales = query.from(HourlySales.class);
+
+        Expression<?> key = switch (groupBy) {
+            case HOUR -> sales.get("bucketStart");
+            case DAY -> sales.get("bucketDate");
+            case COMPLEX -> sales.get("complexId");
+        };
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.from() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(sales.get("bucketStart"), filter.from()));
+        }
+        if (filter.to() != null) {
+            predicates.add(cb.lessThan(sales.get("bucketStart"), filter.to()));
+        }
+        if (filter.complexId() != null) {
+            predicates.add(cb.equal(sales.get("complexId"), filter.complexId()));
+        }
+
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(key.alias("key"));
+        for (String column : LONG_COLUMNS) {
+            selections.add(cb.sum(sales.<Long>get(column)).alias(column));
+        }
+        for (String column : DECIMAL_COLUMNS) {
+            selections.add(cb.sum(sales.<BigDecimal>get(column)).alias(column));
+        }
+        query.multiselect(selections)
+                .where(predicates.toArray(new Predicate[0]))
+                .groupBy(key)
+                .orderBy(cb.asc(key));
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(this::toRow)
+                .collect(Collectors.toList());
+    }
+
+    private SalesReportRowDTO toRow(Tuple tuple) {
+        Object key = tuple.get("key");
+        long ticketOrders = longValue(tuple, "ticketOrderCount");
+        long attached = longValue(tuple, "comboAttachedOrderCount");
+        return SalesReportRowDTO.builder()
+                .key(key != null ? key.toString() : null)
+                .orderCount(longValue(tuple, "orderCount"))
+                .cancelledOrderCount(longValue(tuple, "cancelledOrderCount"))
+                .grossRevenue(decimalValue(tuple, "grossRevenue"))
+                .refundAmount(decimalValue(tuple, "refundAmount"))
+                .netRevenue(decimalValue(tuple, "netRevenue"))
+                .ticketCount(longValue(tuple, "ticketCount"))
+                .ticketRevenue(decimalValue(tuple, "ticketRevenue"))
+                .comboQuantity(longValue(tuple, "comboQuantity"))
+                .comboRevenue(decimalValue(tuple, "comboRevenue"))
+                .ticketOrderCount(ticketOrders)
+                .comboAttachedOrderCount(attached)
+                .foodOnlyOrderCount(longValue(tuple, "foodOnlyOrderCount"))
+                .comboAttachRate(ticketOrders > 0 ? (double) attached / ticketOrders : 0.0)
+                .build();
+    }
+
+    private long longValue(Tuple tuple, String alias) {
+        Object value = tuple.get(alias);
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private BigDecimal decimalValue(Tuple tuple, String alias) {
+        Object value = tuple.get(alias);
+        return value != null ? (BigDecimal) value : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.backend.repositories;
+
+import com.example.backend.entities.HourlySales;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface HourlySalesRepository extends JpaRepository<HourlySales, Long>, HourlySalesReportRepository {
+
+    // Đơn được tính doanh thu: đã thanh toán, không phải nạp ví
+    String SALES_CONDITION = "o.vnpPayDate IS NOT NULL AND (o.isTopUp IS NULL OR o.isTopUp = false) ";
+    String SALES_DATE = "COALESCE(o.orderDate, o.vnpPayDate)";
+
+    // Đơn trong khoảng [from, to): [orderId, ngày đặt, totalAmount, status, refundAmount, cinemaComplexId]
+    @Query("SELECT o.orderId, " + SALES_DATE + ", o.totalAmount, o.status, o.refundAmount, o.cinemaComplexId " +
+           "FROM Order o WHERE " + SALES_CONDITION +
+           "AND " + SALES_DATE + " >= :from AND " + SALES_DATE + " < :to")
+    List<Object[]> findSalesOrderRows(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Vé theo đơn trong khoảng [from, to): [orderId, complexId, count, sum(price)]
+    @Query("SELECT o.orderId, MIN(cr.cinemaComplex.complexId), COUNT(t), COALESCE(SUM(t.price), 0) " +
+           "FROM Ticket t JOIN t.order o JOIN t.showtime s JOIN s.cinemaRoom cr " +
+           "WHERE " + SALES_CONDITION + "AND " + SALES_DATE + " >= :from AND " + SALES_DATE + " < :to " +
+           "GROUP BY o.orderId")
+    List<Object[]> aggregateTicketsByOrder(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Combo theo đơn trong khoảng [from, to): [orderId, sum(quantity), sum(price)] (price của OrderCombo là tiền cả dòng)
+    @Query("SELECT o.orderId, COALESCE(SUM(oc.quantity), 0), COALESCE(SUM(oc.price), 0) " +
+           "FROM OrderCombo oc JOIN oc.order o " +
+           "WHERE " + SALES_CONDITION + "AND " + SALES_DATE + " >= :from AND " + SALES_DATE + " < :to " +
+           "GROUP BY o.orderId")
+    List<Object[]> aggregateCombosByOrder(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT MIN(" + SALES_DATE + ") FROM Order o WHERE " + SALES_CONDITION)
+    LocalDateTime findFirstSalesDate();
+
+    @Modifying
+    @Query("DELETE FROM HourlySales h WHERE h.bucketStart >= :from AND h.bucketStart < :to")
+    int deleteBucketsBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
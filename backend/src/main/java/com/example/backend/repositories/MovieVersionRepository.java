@@ -5,6 +5,8 @@ import com.example.backend.entities.MovieVersion;
 import com.example.backend.entities.enums.Language;
 import com.example.backend.entities.enums.RoomType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,5 +16,13 @@ import java.util.Optional;
 public interface MovieVersionRepository extends JpaRepository<MovieVersion, Long> {
     List<MovieVersion> findByMovie(Movie movie);
     Optional<MovieVersion> findByMovieAndRoomTypeAndLanguage(Movie movie, RoomType roomType, Language language);
+
+    // [roomType, language] của một phim (MovieSummaryService)
+    @Query("SELECT mv.roomType, mv.language FROM MovieVersion mv WHERE mv.movie.movieId = :movieId")
+    List<Object[]> findFormatRowsByMovieId(@Param("movieId") Long movieId);
+
+    // [movieId, roomType, language] của mọi phim, dùng khi dựng lại toàn bộ bảng tóm tắt
+    @Query("SELECT mv.movie.movieId, mv.roomType, mv.language FROM MovieVersion mv")
+    List<Object[]> findAllFormatRows();
 }
 
@@ -0,0 +1,70 @@
+package com.example.backend.repositories;
+
+import com.example.backend.entities.NotificationCampaign;
+import com.example.backend.entities.enums.CampaignStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationCampaignRepository extends JpaRepository<NotificationCampaign, Long> {
+
+    List<NotificationCampaign> findAllByOrderByCreatedAtDesc();
+
+    List<NotificationCampaign> findByStatusIn(Collection<CampaignStatus> statuses);
+
+    @Query("SELECT c.status FROM NotificationCampaign c WHERE c.campaignId = :campaignId")
+    CampaignStatus findStatusById(@Param("campaignId") Long campaignId);
+
+    /**
+     * Nhận campaign để chạy (PENDING/RUNNING/FAILED -> RUNNING); campaign đã CANCELLED/COMPLETED giữ nguyên
+     */
+    @Modifying
+    @Query("UPDATE NotificationCampaign c SET c.status = com.example.backend.entities.enums.CampaignStatus.RUNNING, " +
+           "c.lastError = NULL, c.startedAt = COALESCE(c.startedAt, :now) " +
+           "WHERE c.campaignId = :campaignId AND c.status IN (" +
+           "com.example.backend.entities.enums.CampaignStatus.PENDING, " +
+           "com.example.backend.entities.enums.CampaignStatus.RUNNING, " +
+           "com.example.backend.entities.enums.CampaignStatus.FAILED)")
+    int markRunning(@Param("campaignId") Long campaignId, @Param("now") LocalDateTime now);
+
+    /**
+     * Lưu checkpoint sau mỗi chunk (chạy chung transaction với batch insert notifications).
+     * Compare-and-set theo lastUserId: node khác đã ghi chunk này (hoặc campaign đã bị hủy) thì trả về 0
+     * và người gọi rollback chunk vừa insert.
+     */
+    @Modifying
+    @Query("UPDATE NotificationCampaign c SET c.lastUserId = :lastUserId, c.sentCount = c.sentCount + :sent " +
+           "WHERE c.campaignId = :campaignId AND c.lastUserId = :expectedLastUserId " +
+           "AND c.status = com.example.backend.entities.enums.CampaignStatus.RUNNING")
+    int updateCheckpoint(@Param("campaignId") Long campaignId,
+                         @Param("expectedLastUserId") Long expectedLastUserId,
+                         @Param("lastUserId") Long lastUserId,
+                         @Param("sent") long sent);
+
+    @Modifying
+    @Query("UPDATE NotificationCampaign c SET c.status = com.example.backend.entities.enums.CampaignStatus.COMPLETED, " +
+           "c.completedAt = :now " +
+           "WHERE c.campaignId = :campaignId AND c.status = com.example.backend.entities.enums.CampaignStatus.RUNNING")
+    int markCompleted(@Param("campaignId") Long campaignId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE NotificationCampaign c SET c.status = com.example.backend.entities.enums.CampaignStatus.FAILED, " +
+           "c.lastError = :error " +
+           "WHERE c.campaignId = :campaignId AND c.status = com.example.backend.entities.enums.CampaignStatus.RUNNING")
+    int markFailed(@Param("campaignId") Long campaignId, @Param("error") String error);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE NotificationCampaign c SET c.status = com.example.backend.entities.enums.CampaignStatus.CANCELLED, " +
+           "c.completedAt = :now " +
+           "WHERE c.campaignId = :campaignId AND c.status NOT IN (" +
+           "com.example.backend.entities.enums.CampaignStatus.COMPLETED, " +
+           "com.example.backend.entities.enums.CampaignStatus.CANCELLED)")
+    int markCancelled(@Param("campaignId") Long campaignId, @Param("now") LocalDateTime now);
+}
@@ -2,12 +2,14 @@ package com.example.backend.repositories;
 
 import com.example.backend.entities.Notification;
 import com.example.backend.entities.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -23,5 +25,45 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Modifying
     @Query("UPDATE Notification n SET n.isRead = true WHERE n.user = :user AND n.isRead = false")
     int markAllAsReadByUser(@Param("user") User user);
-}
 
+    @Query("SELECT n FROM Notification n WHERE n.user.userId = :userId " +
+           "ORDER BY n.timestamp DESC, n.notificationId DESC")
+    List<Notification> findByUserIdOrderByTimestampDesc(@Param("userId") Long userId);
+
+    /**
+     * Trang đầu tiên của inbox (dùng index user_id, timestamp)
+     */
+    @Query("SELECT n FROM Notification n WHERE n.user.userId = :userId " +
+           "ORDER BY n.timestamp DESC, n.notificationId DESC")
+    List<Notification> findInboxFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Các trang tiếp theo: keyset sau cursor (timestamp, notificationId), không dùng OFFSET
+     */
+    @Query("SELECT n FROM Notification n WHERE n.user.userId = :userId " +
+           "AND (n.timestamp < :timestamp OR (n.timestamp = :timestamp AND n.notificationId < :notificationId)) " +
+           "ORDER BY n.timestamp DESC, n.notificationId DESC")
+    List<Notification> findInboxPageAfter(@Param("userId") Long userId,
+                                          @Param("timestamp") LocalDateTime timestamp,
+                                          @Param("notificationId") Long notificationId,
+                                          Pageable pageable);
+
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.user.userId = :userId AND n.isRead = false")
+    long countUnreadByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.user.userId = :userId AND n.isRead = false")
+    int markAllAsReadByUserId(@Param("userId") Long userId);
+
+    boolean existsByDedupKey(String dedupKey);
+
+    /**
+     * Kiểm tra notification cũ (tạo trước khi có dedup_key) của một order, chỉ quét notification của user đó
+     */
+    @Query("SELECT COUNT(n) > 0 FROM Notification n WHERE n.user.userId = :userId AND n.type = :type " +
+           "AND n.dedupKey IS NULL AND (n.data LIKE :dataPatternComma OR n.data LIKE :dataPatternBrace)")
+    boolean existsLegacyOrderNotification(@Param("userId") Long userId,
+                                          @Param("type") String type,
+                                          @Param("dataPatternComma") String dataPatternComma,
+                                          @Param("dataPatternBrace") String dataPatternBrace);
+}
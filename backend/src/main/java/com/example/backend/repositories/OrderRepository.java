@@ -1,66 +1,102 @@
 package com.example.backend.repositories;
 
+import com.example.backend.dtos.OrderComboRow;
+import com.example.backend.dtos.OrderTicketRow;
 import com.example.backend.entities.Order;
 import com.example.backend.entities.enums.OrderStatus;
+import com.example.backend.entities.enums.PaymentMethod;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderSearchRepository {
     // Methods from HEAD (for getting orders)
     List<Order> findByUserUserIdOrderByOrderDateDesc(Long userId);
     
-    @Query("SELECT DISTINCT o FROM Order o " +
-           "LEFT JOIN FETCH o.tickets t " +
-           "LEFT JOIN FETCH t.showtime s " +
-           "LEFT JOIN FETCH s.movieVersion mv " +
-           "LEFT JOIN FETCH mv.movie m " +
-           "LEFT JOIN FETCH t.seat se " +
-           "LEFT JOIN FETCH s.cinemaRoom cr " +
-           "LEFT JOIN FETCH cr.cinemaComplex cc " +
-           "LEFT JOIN FETCH cc.address a " +
-           "WHERE o.user.userId = :userId " +
-           "ORDER BY o.orderDate DESC")
-    List<Order> findByUserUserIdWithDetails(@Param("userId") Long userId);
+    // Điều kiện đơn được tính vào chi tiêu: đã thanh toán, không tính thanh toán bằng ví (trừ đơn nạp ví)
+    String SPEND_CONDITION = "o.vnpPayDate IS NOT NULL " +
+           "AND (o.paymentMethod IS NULL OR o.paymentMethod <> 'WALLET' OR o.isTopUp = true) ";
+    // Số tiền chi tiêu của một đơn: đơn đã hủy trừ đi số tiền hoàn
+    String SPEND_AMOUNT = "CASE WHEN o.status = 'CANCELLED' AND o.refundAmount IS NOT NULL " +
+           "THEN o.totalAmount - o.refundAmount ELSE o.totalAmount END";
+    // Tháng tính chi tiêu của đơn (đơn cũ thiếu orderDate thì theo ngày thanh toán)
+    String SPEND_DATE = "COALESCE(o.orderDate, o.vnpPayDate)";
     
-    // Get all orders for admin (including food-only orders)
-    @Query("SELECT DISTINCT o FROM Order o " +
-           "LEFT JOIN FETCH o.tickets t " +
-           "LEFT JOIN FETCH t.showtime s " +
-           "LEFT JOIN FETCH s.movieVersion mv " +
-           "LEFT JOIN FETCH mv.movie m " +
-           "LEFT JOIN FETCH t.seat se " +
-           "LEFT JOIN FETCH s.cinemaRoom cr " +
-           "LEFT JOIN FETCH cr.cinemaComplex cc " +
-           "LEFT JOIN FETCH cc.address a " +
-           "LEFT JOIN FETCH o.user u " +
-           "WHERE o.vnpPayDate IS NOT NULL " +
-           "ORDER BY o.orderDate DESC")
-    List<Order> findAllWithDetails();
+    // Chi tiêu của một user trong khoảng [start, end): [sum(spent), count(orders)]
+    @Query("SELECT COALESCE(SUM(" + SPEND_AMOUNT + "), 0), COUNT(o) FROM Order o " +
+           "WHERE o.user.userId = :userId AND " + SPEND_CONDITION +
+           "AND " + SPEND_DATE + " >= :start AND " + SPEND_DATE + " < :end")
+    List<Object[]> aggregateSpend(@Param("userId") Long userId,
+                                  @Param("start") LocalDateTime start,
+                                  @Param("end") LocalDateTime end);
     
-    // Get orders by cinema complex ID for manager (including food-only orders)
-    // Note: orderCombos will be loaded lazily in service layer to avoid MultipleBagFetchException
-    // Food-only orders (no tickets) are shown to all managers since they're not tied to a specific cinema
-    @Query("SELECT DISTINCT o FROM Order o " +
-           "LEFT JOIN FETCH o.tickets t " +
-           "LEFT JOIN FETCH t.showtime s " +
-           "LEFT JOIN FETCH s.movieVersion mv " +
-           "LEFT JOIN FETCH mv.movie m " +
-           "LEFT JOIN FETCH t.seat se " +
-           "LEFT JOIN FETCH s.cinemaRoom cr " +
-           "LEFT JOIN FETCH cr.cinemaComplex cc " +
-           "LEFT JOIN FETCH cc.address a " +
-           "LEFT JOIN FETCH o.user u " +
-           "WHERE o.vnpPayDate IS NOT NULL " +
-           "AND (cc.complexId = :complexId OR NOT EXISTS (SELECT 1 FROM Ticket t2 WHERE t2.order = o)) " +
-           "ORDER BY o.orderDate DESC")
-    List<Order> findByCinemaComplexIdWithDetails(@Param("complexId") Long complexId);
+    @Query("SELECT COUNT(t) FROM Ticket t JOIN t.order o " +
+           "WHERE o.user.userId = :userId AND " + SPEND_CONDITION +
+           "AND " + SPEND_DATE + " >= :start AND " + SPEND_DATE + " < :end")
+    long countSpendTickets(@Param("userId") Long userId,
+                           @Param("start") LocalDateTime start,
+                           @Param("end") LocalDateTime end);
+    
+    // Chi tiêu theo tháng của nhiều user (backfill): [userId, year, month, sum(spent), count(orders)]
+    @Query("SELECT o.user.userId, YEAR(" + SPEND_DATE + "), MONTH(" + SPEND_DATE + "), " +
+           "COALESCE(SUM(" + SPEND_AMOUNT + "), 0), COUNT(o) FROM Order o " +
+           "WHERE o.user.userId IN :userIds AND " + SPEND_CONDITION +
+           "GROUP BY o.user.userId, YEAR(" + SPEND_DATE + "), MONTH(" + SPEND_DATE + ")")
+    List<Object[]> aggregateSpendByUsers(@Param("userIds") Collection<Long> userIds);
+    
+    // Số vé theo tháng của nhiều user (backfill): [userId, year, month, count(tickets)]
+    @Query("SELECT o.user.userId, YEAR(" + SPEND_DATE + "), MONTH(" + SPEND_DATE + "), COUNT(t) " +
+           "FROM Ticket t JOIN t.order o " +
+           "WHERE o.user.userId IN :userIds AND " + SPEND_CONDITION +
+           "GROUP BY o.user.userId, YEAR(" + SPEND_DATE + "), MONTH(" + SPEND_DATE + ")")
+    List<Object[]> countSpendTicketsByUsers(@Param("userIds") Collection<Long> userIds);
+    
+    // Keyset theo userId: các user có đơn hàng, tăng dần sau afterUserId
+    @Query("SELECT DISTINCT o.user.userId FROM Order o WHERE o.user.userId > :afterUserId ORDER BY o.user.userId")
+    List<Long> findUserIdsWithOrdersAfter(@Param("afterUserId") Long afterUserId, Pageable pageable);
+    
+    // User có đơn được đặt hoặc hủy từ thời điểm since (đồng bộ lại bảng chi tiêu theo lịch)
+    @Query("SELECT DISTINCT o.user.userId FROM Order o " +
+           "WHERE o.user IS NOT NULL AND (o.orderDate >= :since OR o.vnpPayDate >= :since OR o.cancelledAt >= :since)")
+    List<Long> findUserIdsWithOrderActivitySince(@Param("since") LocalDateTime since);
+    
+    // Vé của một trang đơn hàng (danh sách đơn dùng projection, không fetch-join entity)
+    @Query("SELECT new com.example.backend.dtos.OrderTicketRow(o.orderId, t.ticketId, t.price, t.qrCode, " +
+           "se.seatId, se.type, se.seatRow, se.seatColumn, s.showtimeId, s.startTime, s.endTime, mv.roomType, " +
+           "m.movieId, m.title, m.poster, cr.roomId, cr.roomName, cc.complexId, cc.name, a.description, a.province) " +
+           "FROM Ticket t " +
+           "JOIN t.order o " +
+           "JOIN t.seat se " +
+           "JOIN t.showtime s " +
+           "JOIN s.movieVersion mv " +
+           "JOIN mv.movie m " +
+           "JOIN s.cinemaRoom cr " +
+           "JOIN cr.cinemaComplex cc " +
+           "LEFT JOIN cc.address a " +
+           "WHERE o.orderId IN :orderIds " +
+           "ORDER BY t.ticketId")
+    List<OrderTicketRow> findTicketRowsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+    
+    // Combo đồ ăn của một trang đơn hàng
+    @Query("SELECT new com.example.backend.dtos.OrderComboRow(o.orderId, fc.foodComboId, fc.name, fc.image, oc.quantity, oc.price) " +
+           "FROM OrderCombo oc " +
+           "JOIN oc.order o " +
+           "JOIN oc.foodCombo fc " +
+           "WHERE o.orderId IN :orderIds " +
+           "ORDER BY oc.orderComboId")
+    List<OrderComboRow> findComboRowsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+    
+    // Đơn MoMo chưa xác nhận thanh toán của user (self-healing trong lịch sử đơn)
+    List<Order> findByUserUserIdAndVnpPayDateIsNullAndPaymentMethod(Long userId, PaymentMethod paymentMethod);
     
     // Methods from origin/nhan (for MoMo payment)
     Optional<Order> findByVnpTxnRef(String vnpTxnRef);
@@ -90,6 +126,13 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
            "WHERE o.orderId = :orderId")
     Optional<Order> findByIdWithDetails(@Param("orderId") Long orderId);
     
+    /**
+     * Đánh dấu đã gửi email xác nhận; trả về 0 nếu node/thread khác đã đánh dấu trước
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.emailSentAt = :sentAt WHERE o.orderId = :orderId AND o.emailSentAt IS NULL")
+    int markEmailSent(@Param("orderId") Long orderId, @Param("sentAt") LocalDateTime sentAt);
+    
     // Load order with orderCombos (for email sending when order has food only)
     @Query("SELECT DISTINCT o FROM Order o " +
            "LEFT JOIN FETCH o.orderCombos oc " +
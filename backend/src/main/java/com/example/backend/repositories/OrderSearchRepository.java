@@ -0,0 +1,46 @@
+package com.example.backend.repositories;
+
+import com.example.backend.dtos.OrderSummaryRow;
+import com.example.backend.dtos.TicketExportRow;
+import com.example.backend.entities.enums.OrderStatus;
+import com.example.backend.entities.enums.PaymentMethod;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Danh sách đơn hàng với điều kiện động (Criteria API), phân trang keyset theo (orderDate, orderId) giảm dần;
+ * xuất file đọc cùng điều kiện bằng cursor chỉ-tiến (ScrollableResults), không giữ kết quả trong bộ nhớ
+ */
+public interface OrderSearchRepository {
+
+    /**
+     * Điều kiện lọc; trường null thì bỏ qua
+     * @param complexId    đơn có vé thuộc cụm rạp này, hoặc đơn chỉ có đồ ăn (như danh sách của manager trước đây)
+     * @param keyword      mã đơn (số) hoặc tiền tố email/số điện thoại của user
+     * @param paidOnly     chỉ đơn đã thanh toán (vnpPayDate khác null)
+     * @param excludeTopUp bỏ các đơn nạp ví
+     */
+    record Filter(Long userId, Long complexId, Long movieId, OrderStatus status, PaymentMethod paymentMethod,
+                  LocalDateTime from, LocalDateTime to, String keyword, boolean paidOnly, boolean excludeTopUp) {}
+
+    /**
+     * Một trang đơn hàng đứng sau cursor (afterDate, afterId); cursor null = trang đầu
+     * @param limit số dòng tối đa (nơi gọi lấy dư 1 để biết còn trang sau)
+     */
+    List<OrderSummaryRow> searchOrders(Filter filter, LocalDateTime afterDate, Long afterId, int limit);
+
+    /**
+     * Duyệt toàn bộ đơn hàng khớp filter theo (orderDate, orderId) giảm dần, từng dòng một
+     * (phải gọi trong transaction; không được chạy truy vấn khác trên cùng kết nối trong lúc duyệt)
+     * @return số dòng đã duyệt
+     */
+    long scrollOrders(Filter filter, Consumer<OrderSummaryRow> consumer);
+
+    /**
+     * Duyệt từng vé của các đơn khớp filter; complexId/movieId lọc theo chính suất chiếu của vé
+     * @return số dòng đã duyệt
+     */
+    long scrollTickets(Filter filter, Consumer<TicketExportRow> consumer);
+}
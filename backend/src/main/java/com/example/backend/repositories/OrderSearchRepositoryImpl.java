@@ -0,0 +1,238 @@
+package com.example.backend.repositories;
+
+import com.example.backend.dtos.OrderSummaryRow;
+import com.example.backend.dtos.TicketExportRow;
+import com.example.backend.entities.CinemaComplex;
+import com.example.backend.entities.CinemaRoom;
+import com.example.backend.entities.Movie;
+import com.example.backend.entities.MovieVersion;
+import com.example.backend.entities.Order;
+import com.example.backend.entities.Seat;
+import com.example.backend.entities.Showtime;
+import com.example.backend.entities.Ticket;
+import com.example.backend.entities.User;
+import com.example.backend.entities.Voucher;
+import com.example.backend.entities.enums.OrderStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Cài đặt OrderSearchRepository (Spring Data ghép vào OrderRepository theo hậu tố Impl)
+ */
+public class OrderSearchRepositoryImpl implements OrderSearchRepository {
+
+    private static final int STREAM_FETCH_SIZE = Integer.MIN_VALUE;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderSummaryRow> searchOrders(Filter filter, LocalDateTime afterDate, Long afterId, int limit) {
+        return entityManager.createQuery(summaryQuery(filter, afterDate, afterId)).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public long scrollOrders(Filter filter, Consumer<OrderSummaryRow> consumer) {
+        return scroll(entityManager.createQuery(summaryQuery(filter, null, null)), consumer);
+    }
+
+    @Override
+    public long scrollTickets(Filter filter, Consumer<TicketExportRow> consumer) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TicketExportRow> query = cb.createQuery(TicketExportRow.class);
+
+        Root<Ticket> ticket = query.from(Ticket.class);
+        Join<Ticket, Order> order = ticket.join("order");
+        Join<Order, User> user = order.join("user", JoinType.LEFT);
+        Join<Ticket, Seat> seat = ticket.join("seat");
+        Join<Ticket, Showtime> showtime = ticket.join("showtime");
+        Join<Showtime, MovieVersion> movieVersion = showtime.join("movieVersion");
+        Join<MovieVersion, Movie> movie = movieVersion.join("movie");
+        Join<Showtime, CinemaRoom> room = showtime.join("cinemaRoom");
+        Join<CinemaRoom, CinemaComplex> complex = room.join("cinemaComplex");
+
+        List<Predicate> predicates = orderPredicates(cb, query, order, user, filter, false);
+        if (filter.complexId() != null) {
+            predicates.add(cb.equal(complex.get("complexId"), filter.complexId()));
+        }
+        if (filter.movieId() != null) {
+            predicates.add(cb.equal(movie.get("movieId"), filter.movieId()));
+        }
+
+        query.select(cb.construct(TicketExportRow.class,
+                        order.get("orderId"),
+                        order.get("orderDate"),
+                        order.get("paymentMethod"),
+                        order.get("status"),
+                        order.get("vnpPayDate"),
+                        user.get("email"),
+                        user.get("phone"),
+                        ticket.get("ticketId"),
+                        ticket.get("price"),
+                        seat.get("seatRow"),
+                        seat.get("seatColumn"),
+                        seat.get("type"),
+                        showtime.get("startTime"),
+                        movieVersion.get("roomType"),
+                        movie.get("title"),
+                        room.get("roomName"),
+                        complex.get("complexId"),
+                        complex.get("name")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(order.get("orderDate")), cb.desc(order.get("orderId")), cb.asc(ticket.get("ticketId")));
+
+        return scroll(entityManager.createQuery(query), consumer);
+    }
+
+    private CriteriaQuery<OrderSummaryRow> summaryQuery(Filter filter, LocalDateTime afterDate, Long afterId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderSummaryRow> query = cb.createQuery(OrderSummaryRow.class);
+
+        Root<Order> order = query.from(Order.class);
+        Join<Order, User> user = order.join("user", JoinType.LEFT);
+        Join<Order, Voucher> voucher = order.join("voucher", JoinType.LEFT);
+
+        List<Predicate> predicates = orderPredicates(cb, query, order, user, filter, true);
+        if (afterDate != null && afterId != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(order.get("orderDate"), afterDate),
+                    cb.and(cb.equal(order.get("orderDate"), afterDate), cb.lessThan(order.get("orderId"), afterId))));
+        }
+
+        query.select(cb.construct(OrderSummaryRow.class,
+                        order.get("orderId"),
+                        order.get("orderDate"),
+                        order.get("totalAmount"),
+                        order.get("paymentMethod"),
+                        order.get("status"),
+                        order.get("vnpPayDate"),
+                        voucher.get("code"),
+                        order.get("cinemaComplexId"),
+                        user.get("userId"),
+                        user.get("username"),
+                        user.get("email"),
+                        user.get("phone"),
+                        order.get("cancelledAt"),
+                        order.get("refundAmount"),
+                        order.get("cancellationReason"),
+                        order.get("refundedToWallet"),
+                        order.get("isTopUp")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(order.get("orderDate")), cb.desc(order.get("orderId")));
+        return query;
+    }
+
+    /**
+     * Đọc kết quả bằng cursor chỉ-tiến, chỉ đọc: MySQL Connector/J stream từng dòng khi fetch size = Integer.MIN_VALUE
+     * (không nạp cả result set vào bộ nhớ); dòng là DTO nên persistence context không phình theo số dòng
+     */
+    private <T> long scroll(TypedQuery<T> typedQuery, Consumer<T> consumer) {
+        Query<T> query = typedQuery.unwrap(Query.class)
+                .setReadOnly(true)
+                .setFetchSize(STREAM_FETCH_SIZE);
+        long count = 0;
+        try (ScrollableResults<T> results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept(results.get());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Điều kiện theo filter trên đơn hàng
+     * @param ticketScope lọc complexId/movieId bằng EXISTS trên vé của đơn (false khi truy vấn đã đứng trên vé)
+     */
+    private List<Predicate> orderPredicates(CriteriaBuilder cb, CriteriaQuery<?> query, From<?, Order> order,
+                                            Join<Order, User> user, Filter filter, boolean ticketScope) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.userId() != null) {
+            predicates.add(cb.equal(user.get("userId"), filter.userId()));
+        }
+        if (filter.paidOnly()) {
+            predicates.add(cb.isNotNull(order.get("vnpPayDate")));
+        }
+        if (filter.excludeTopUp()) {
+            predicates.add(cb.or(cb.isNull(order.get("isTopUp")), cb.isFalse(order.get("isTopUp"))));
+        }
+        if (filter.status() != null) {
+            predicates.add(statusPredicate(cb, order, filter.status()));
+        }
+        if (filter.paymentMethod() != null) {
+            predicates.add(cb.equal(order.get("paymentMethod"), filter.paymentMethod()));
+        }
+        if (filter.from() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(order.get("orderDate"), filter.from()));
+        }
+        if (filter.to() != null) {
+            predicates.add(cb.lessThan(order.get("orderDate"), filter.to()));
+        }
+        if (ticketScope && filter.complexId() != null) {
+            // Đơn có vé thuộc cụm rạp, hoặc đơn chỉ có đồ ăn (không gắn với rạp cụ thể)
+            predicates.add(cb.or(
+                    cb.exists(ticketSubquery(cb, query, order, ticket -> cb.equal(
+                            ticket.get("showtime").get("cinemaRoom").get("cinemaComplex").get("complexId"),
+                            filter.complexId()))),
+                    cb.not(cb.exists(ticketSubquery(cb, query, order, null)))));
+        }
+        if (ticketScope && filter.movieId() != null) {
+            predicates.add(cb.exists(ticketSubquery(cb, query, order, ticket -> cb.equal(
+                    ticket.get("showtime").get("movieVersion").get("movie").get("movieId"), filter.movieId()))));
+        }
+        if (filter.keyword() != null && !filter.keyword().isBlank()) {
+            String keyword = filter.keyword().trim();
+            String prefix = keyword.toLowerCase().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            List<Predicate> matches = new ArrayList<>();
+            matches.add(cb.like(cb.lower(user.get("email")), prefix, '\\'));
+            matches.add(cb.like(user.get("phone"), prefix, '\\'));
+            if (keyword.chars().allMatch(Character::isDigit) && keyword.length() <= 18) {
+                matches.add(cb.equal(order.get("orderId"), Long.valueOf(keyword)));
+            }
+            predicates.add(cb.or(matches.toArray(new Predicate[0])));
+        }
+        return predicates;
+    }
+
+    /**
+     * Đơn cũ có status null được hiểu theo vnpPayDate (PAID nếu đã thanh toán, ngược lại PENDING)
+     */
+    private Predicate statusPredicate(CriteriaBuilder cb, From<?, Order> order, OrderStatus status) {
+        Predicate equal = cb.equal(order.get("status"), status);
+        return switch (status) {
+            case PAID -> cb.or(equal, cb.and(cb.isNull(order.get("status")), cb.isNotNull(order.get("vnpPayDate"))));
+            case PENDING -> cb.or(equal, cb.and(cb.isNull(order.get("status")), cb.isNull(order.get("vnpPayDate"))));
+            default -> equal;
+        };
+    }
+
+    /**
+     * SELECT 1 FROM Ticket t WHERE t.order = order [AND condition(t)]
+     */
+    private Subquery<Integer> ticketSubquery(CriteriaBuilder cb, CriteriaQuery<?> query, From<?, Order> order,
+                                             Function<Root<Ticket>, Predicate> condition) {
+        Subquery<Integer> subquery = query.subquery(Integer.class);
+        Root<Ticket> ticket = subquery.from(Ticket.class);
+        Predicate sameOrder = cb.equal(ticket.get("order"), order);
+        return subquery.select(cb.literal(1))
+                .where(condition == null ? sameOrder : cb.and(sameOrder, condition.apply(ticket)));
+    }
+}
@@ -11,7 +11,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ShowtimeRepository extends JpaRepository<Showtime, Long> {
+public interface ShowtimeRepository extends JpaRepository<Showtime, Long>, ShowtimeSearchRepository {
     
     @Query("SELECT s FROM Showtime s " +
            "LEFT JOIN FETCH s.movieVersion mv " +
@@ -32,51 +32,6 @@ public interface ShowtimeRepository extends JpaRepository<Showtime, Long> {
     @Query("SELECT COUNT(s) > 0 FROM Showtime s WHERE s.cinemaRoom.roomId = :roomId AND EXISTS (SELECT t FROM Ticket t WHERE t.showtime = s)")
     boolean existsByRoomIdWithTickets(@Param("roomId") Long roomId);
     
-    /**
-     * Lấy showtimes theo movieId, province và date (public API)
-     * Query trực tiếp qua MovieVersion để đảm bảo lấy được đúng
-     * CHỈ lấy showtimes khi roomType của MovieVersion khớp với roomType của CinemaRoom
-     */
-    @Query("SELECT DISTINCT s FROM Showtime s " +
-           "INNER JOIN FETCH s.movieVersion mv " +
-           "INNER JOIN FETCH mv.movie m " +
-           "INNER JOIN FETCH s.cinemaRoom cr " +
-           "INNER JOIN FETCH cr.cinemaComplex cc " +
-           "INNER JOIN FETCH cc.address a " +
-           "WHERE m.movieId = :movieId " +
-           "AND mv.roomType = cr.roomType " +
-           "AND (:province IS NULL OR a.province = :province) " +
-           "AND s.startTime >= :startOfDay " +
-           "AND s.startTime < :endOfDay " +
-           "AND s.startTime >= CURRENT_TIMESTAMP " +
-           "ORDER BY cc.name ASC, s.startTime ASC")
-    List<Showtime> findPublicShowtimes(@Param("movieId") Long movieId, 
-                                       @Param("province") String province,
-                                       @Param("startOfDay") java.time.LocalDateTime startOfDay,
-                                       @Param("endOfDay") java.time.LocalDateTime endOfDay);
-    
-    /**
-     * Lấy tất cả showtimes theo movieId và date (không filter province)
-     * Query đi từ Movie -> MovieVersion -> Showtime để đảm bảo lấy được đúng
-     * CHỈ lấy showtimes khi roomType của MovieVersion khớp với roomType của CinemaRoom
-     * Chỉ lấy showtimes trong tương lai (startTime >= CURRENT_TIMESTAMP)
-     */
-    @Query("SELECT DISTINCT s FROM Showtime s " +
-           "INNER JOIN FETCH s.movieVersion mv " +
-           "INNER JOIN FETCH mv.movie m " +
-           "INNER JOIN FETCH s.cinemaRoom cr " +
-           "INNER JOIN FETCH cr.cinemaComplex cc " +
-           "INNER JOIN FETCH cc.address a " +
-           "WHERE m.movieId = :movieId " +
-           "AND mv.roomType = cr.roomType " +
-           "AND s.startTime >= :startOfDay " +
-           "AND s.startTime < :endOfDay " +
-           "AND s.startTime >= CURRENT_TIMESTAMP " +
-           "ORDER BY cc.name ASC, s.startTime ASC")
-    List<Showtime> findPublicShowtimesWithoutProvince(@Param("movieId") Long movieId, 
-                                                      @Param("startOfDay") java.time.LocalDateTime startOfDay,
-                                                      @Param("endOfDay") java.time.LocalDateTime endOfDay);
-    
     /**
      * Test query: Lấy tất cả showtimes theo movieId (không filter gì cả) - để debug
      * Query đi từ Movie -> MovieVersion -> Showtime để đảm bảo lấy được đúng
@@ -127,5 +82,23 @@ public interface ShowtimeRepository extends JpaRepository<Showtime, Long> {
     List<Showtime> findByCinemaRoom_RoomIdAndDate(@Param("roomId") Long roomId, 
                                                    @Param("startOfDay") java.time.LocalDateTime startOfDay,
                                                    @Param("endOfDay") java.time.LocalDateTime endOfDay);
-}
 
+    // Thời gian bắt đầu/kết thúc và cụm rạp của suất chiếu (check-in, không load entity)
+    @Query("SELECT s.startTime, s.endTime, s.cinemaRoom.cinemaComplex.complexId FROM Showtime s " +
+           "WHERE s.showtimeId = :showtimeId")
+    List<Object[]> findTimesById(@Param("showtimeId") Long showtimeId);
+
+    // Suất chiếu sắp bắt đầu hoặc đang chiếu (preload dữ liệu check-in)
+    @Query("SELECT s.showtimeId FROM Showtime s WHERE s.startTime <= :until AND s.endTime >= :now")
+    List<Long> findIdsOpenForCheckIn(@Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    // [min startTime, max startTime, max endTime, count] của một phim (MovieSummaryService)
+    @Query("SELECT MIN(s.startTime), MAX(s.startTime), MAX(s.endTime), COUNT(s) FROM Showtime s " +
+           "WHERE s.movieVersion.movie.movieId = :movieId")
+    List<Object[]> aggregateTimesByMovieId(@Param("movieId") Long movieId);
+
+    // [movieId, min startTime, max startTime, max endTime, count] của mọi phim có suất chiếu
+    @Query("SELECT s.movieVersion.movie.movieId, MIN(s.startTime), MAX(s.startTime), MAX(s.endTime), COUNT(s) " +
+           "FROM Showtime s GROUP BY s.movieVersion.movie.movieId")
+    List<Object[]> aggregateTimesGroupByMovie();
+}
@@ -0,0 +1,24 @@
+package com.example.backend.repositories;
+
+import com.example.backend.dtos.OccupancyReportRowDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Báo cáo lấp đầy cộng từ bảng showtime_sales, nhóm theo chiều do nơi gọi chọn (Criteria API)
+ */
+public interface ShowtimeSalesReportRepository {
+
+    enum GroupBy { SHOWTIME, ROOM, COMPLEX, MOVIE, DAY }
+
+    /**
+     * Lọc theo giờ bắt đầu suất chiếu trong [from, to); trường null thì bỏ qua
+     */
+    record Filter(LocalDateTime from, LocalDateTime to, Long complexId, Long movieId) {}
+
+    /**
+     * Các dòng báo cáo sắp theo key tăng dần; label để trống cho service điền
+     */
+    List<OccupancyReportRowDTO> reportOccupancy(Filter filter, GroupBy groupBy);
+}
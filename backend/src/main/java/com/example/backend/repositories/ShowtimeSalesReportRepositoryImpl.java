@@ -0,0 +1,89 @@
+package com.example.backend.repositories;
+
+import com.example.backend.dtos.OccupancyReportRowDTO;
+import com.example.backend.entities.ShowtimeSales;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Cài đặt ShowtimeSalesReportRepository (Spring Data ghép vào ShowtimeSalesRepository theo hậu tố Impl)
+ */
+public class ShowtimeSalesReportRepositoryImpl implements ShowtimeSalesReportRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OccupancyReportRowDTO> reportOccupancy(Filter filter, GroupBy groupBy) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<ShowtimeSales> sales = query.from(ShowtimeSales.class);
+
+        Expression<?> key = switch (groupBy) {
+            case SHOWTIME -> sales.get("showtimeId");
+            case ROOM -> sales.get("roomId");
+            case COMPLEX -> sales.get("complexId");
+            case MOVIE -> sales.get("movieId");
+            case DAY -> sales.get("startDate");
+        };
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.from() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(sales.get("startTime"), filter.from()));
+        }
+        if (filter.to() != null) {
+            predicates.add(cb.lessThan(sales.get("startTime"), filter.to()));
+        }
+        if (filter.complexId() != null) {
+            predicates.add(cb.equal(sales.get("complexId"), filter.complexId()));
+        }
+        if (filter.movieId() != null) {
+            predicates.add(cb.equal(sales.get("movieId"), filter.movieId()));
+        }
+
+        query.multiselect(
+                        key.alias("key"),
+                        cb.count(sales).alias("showtimeCount"),
+                        cb.sum(sales.<Long>get("capacity")).alias("capacity"),
+                        cb.sum(sales.<Long>get("ticketsSold")).alias("ticketsSold"),
+                        cb.sum(sales.<BigDecimal>get("ticketRevenue")).alias("ticketRevenue"))
+                .where(predicates.toArray(new Predicate[0]))
+                .groupBy(key)
+                .orderBy(cb.asc(key));
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(this::toRow)
+                .collect(Collectors.toList());
+    }
+
+    private OccupancyReportRowDTO toRow(Tuple tuple) {
+        Object key = tuple.get("key");
+        long capacity = longValue(tuple, "capacity");
+        long sold = longValue(tuple, "ticketsSold");
+        Object revenue = tuple.get("ticketRevenue");
+        return OccupancyReportRowDTO.builder()
+                .key(key != null ? key.toString() : null)
+                .showtimeCount(longValue(tuple, "showtimeCount"))
+                .capacity(capacity)
+                .ticketsSold(sold)
+                .ticketRevenue(revenue != null ? (BigDecimal) revenue : BigDecimal.ZERO)
+                .occupancyRate(capacity > 0 ? (double) sold / capacity : 0.0)
+                .build();
+    }
+
+    private long longValue(Tuple tuple, String alias) {
+        Object value = tuple.get(alias);
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.backend.repositories;
+
+import com.example.backend.entities.ShowtimeSales;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ShowtimeSalesRepository extends JpaRepository<ShowtimeSales, Long>, ShowtimeSalesReportRepository {
+
+    // Thông tin suất chiếu cần cho dòng tổng hợp: [showtimeId, movieId, roomId, complexId, startTime]
+    @Query("SELECT s.showtimeId, m.movieId, cr.roomId, cc.complexId, s.startTime FROM Showtime s " +
+           "JOIN s.movieVersion mv JOIN mv.movie m JOIN s.cinemaRoom cr JOIN cr.cinemaComplex cc " +
+           "WHERE s.showtimeId IN :showtimeIds")
+    List<Object[]> findShowtimeRows(@Param("showtimeIds") Collection<Long> showtimeIds);
+
+    // Vé đã bán theo suất chiếu (đơn đã thanh toán, chưa hủy): [showtimeId, count, sum(price)]
+    @Query("SELECT t.showtime.showtimeId, COUNT(t), COALESCE(SUM(t.price), 0) FROM Ticket t JOIN t.order o " +
+           "WHERE t.showtime.showtimeId IN :showtimeIds AND o.vnpPayDate IS NOT NULL " +
+           "AND (o.status IS NULL OR o.status <> com.example.backend.entities.enums.OrderStatus.CANCELLED) " +
+           "GROUP BY t.showtime.showtimeId")
+    List<Object[]> aggregateTicketsByShowtime(@Param("showtimeIds") Collection<Long> showtimeIds);
+
+    // Sức chứa theo phòng: [roomId, count(seats)]
+    @Query("SELECT se.cinemaRoom.roomId, COUNT(se) FROM Seat se WHERE se.cinemaRoom.roomId IN :roomIds " +
+           "GROUP BY se.cinemaRoom.roomId")
+    List<Object[]> countSeatsByRoom(@Param("roomIds") Collection<Long> roomIds);
+
+    // Suất chiếu của các vé trong đơn hàng
+    @Query("SELECT DISTINCT t.showtime.showtimeId FROM Ticket t WHERE t.order.orderId = :orderId")
+    List<Long> findShowtimeIdsByOrderId(@Param("orderId") Long orderId);
+
+    @Query("SELECT s.showtimeId FROM Showtime s WHERE s.startTime >= :from AND s.startTime < :to")
+    List<Long> findShowtimeIdsStartingBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Dòng tổng hợp có giờ chiếu trong khoảng (kể cả suất đã bị xóa hoặc dời sang ngày khác)
+    @Query("SELECT ss.showtimeId FROM ShowtimeSales ss WHERE ss.startTime >= :from AND ss.startTime < :to")
+    List<Long> findIdsStartingBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
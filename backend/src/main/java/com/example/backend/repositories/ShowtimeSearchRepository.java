@@ -0,0 +1,25 @@
+package com.example.backend.repositories;
+
+import com.example.backend.dtos.ShowtimeSearchRow;
+import com.example.backend.entities.enums.RoomType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Tìm suất chiếu public với điều kiện động (Criteria API), mọi điều kiện lọc chạy trong SQL
+ */
+public interface ShowtimeSearchRepository {
+
+    /**
+     * Điều kiện tìm; trường null thì bỏ qua
+     * @param provinceKey tỉnh/thành đã chuẩn hóa (ProvinceKeys), so sánh bằng với Address.provinceKey
+     */
+    record Filter(Long movieId, String provinceKey, Long cinemaComplexId, RoomType roomType,
+                  LocalDateTime startFrom, LocalDateTime startBefore) {}
+
+    /**
+     * Suất chiếu khớp filter, chỉ lấy suất có định dạng phim khớp loại phòng; sắp theo cụm rạp, giờ chiếu
+     */
+    List<ShowtimeSearchRow> searchPublicShowtimes(Filter filter);
+}
@@ -0,0 +1,83 @@
+package com.example.backend.repositories;
+
+import com.example.backend.dtos.ShowtimeSearchRow;
+import com.example.backend.entities.Address;
+import com.example.backend.entities.CinemaComplex;
+import com.example.backend.entities.CinemaRoom;
+import com.example.backend.entities.Movie;
+import com.example.backend.entities.MovieVersion;
+import com.example.backend.entities.Showtime;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cài đặt ShowtimeSearchRepository (Spring Data ghép vào ShowtimeRepository theo hậu tố Impl)
+ */
+public class ShowtimeSearchRepositoryImpl implements ShowtimeSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ShowtimeSearchRow> searchPublicShowtimes(Filter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ShowtimeSearchRow> query = cb.createQuery(ShowtimeSearchRow.class);
+
+        Root<Showtime> showtime = query.from(Showtime.class);
+        Join<Showtime, MovieVersion> movieVersion = showtime.join("movieVersion");
+        Join<MovieVersion, Movie> movie = movieVersion.join("movie");
+        Join<Showtime, CinemaRoom> room = showtime.join("cinemaRoom");
+        Join<CinemaRoom, CinemaComplex> complex = room.join("cinemaComplex");
+        Join<CinemaComplex, Address> address = complex.join("address",
+                filter.provinceKey() != null ? JoinType.INNER : JoinType.LEFT);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(movieVersion.get("roomType"), room.get("roomType")));
+        if (filter.movieId() != null) {
+            predicates.add(cb.equal(movie.get("movieId"), filter.movieId()));
+        }
+        if (filter.provinceKey() != null) {
+            predicates.add(cb.equal(address.get("provinceKey"), filter.provinceKey()));
+        }
+        if (filter.cinemaComplexId() != null) {
+            predicates.add(cb.equal(complex.get("complexId"), filter.cinemaComplexId()));
+        }
+        if (filter.roomType() != null) {
+            predicates.add(cb.equal(movieVersion.get("roomType"), filter.roomType()));
+        }
+        if (filter.startFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(showtime.get("startTime"), filter.startFrom()));
+        }
+        if (filter.startBefore() != null) {
+            predicates.add(cb.lessThan(showtime.get("startTime"), filter.startBefore()));
+        }
+
+        query.select(cb.construct(ShowtimeSearchRow.class,
+                        showtime.get("showtimeId"),
+                        movie.get("movieId"),
+                        movie.get("title"),
+                        movieVersion.get("movieVersionId"),
+                        movieVersion.get("language"),
+                        movieVersion.get("roomType"),
+                        room.get("roomId"),
+                        room.get("roomName"),
+                        complex.get("complexId"),
+                        complex.get("name"),
+                        address.get("province"),
+                        showtime.get("startTime"),
+                        showtime.get("endTime")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(complex.get("name")), cb.asc(showtime.get("startTime")));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+}
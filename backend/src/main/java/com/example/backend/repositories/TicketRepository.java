@@ -6,7 +6,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
@@ -63,5 +65,39 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
            "AND t.order.vnpPayDate IS NOT NULL " +
            "AND (t.order.status IS NULL OR t.order.status <> com.example.backend.entities.enums.OrderStatus.CANCELLED)")
     boolean existsPaidTicketsByMovieId(@Param("movieId") Long movieId);
-}
 
+    // Vé kèm đầy đủ thông tin để render QR (order, user, suất chiếu, phim, rạp)
+    @Query("SELECT t FROM Ticket t " +
+           "JOIN FETCH t.order o " +
+           "LEFT JOIN FETCH o.user " +
+           "JOIN FETCH t.showtime s " +
+           "JOIN FETCH s.movieVersion mv " +
+           "JOIN FETCH mv.movie " +
+           "JOIN FETCH s.cinemaRoom r " +
+           "JOIN FETCH r.cinemaComplex c " +
+           "LEFT JOIN FETCH c.address " +
+           "WHERE t.ticketId = :ticketId")
+    Optional<Ticket> findByIdWithDetails(@Param("ticketId") Long ticketId);
+
+    // Các vé cùng suất chiếu trong một đơn hàng (cùng một QR code)
+    @Query("SELECT t FROM Ticket t JOIN FETCH t.seat " +
+           "WHERE t.order.orderId = :orderId AND t.showtime.showtimeId = :showtimeId")
+    List<Ticket> findByOrderIdAndShowtimeId(@Param("orderId") Long orderId, @Param("showtimeId") Long showtimeId);
+
+    // Vé thuộc đơn hàng đã hủy (nạp revocation bitmap khi khởi động)
+    @Query("SELECT t.ticketId FROM Ticket t " +
+           "WHERE t.order.status = com.example.backend.entities.enums.OrderStatus.CANCELLED")
+    List<Long> findCancelledTicketIds();
+
+    @Query("SELECT t.ticketId FROM Ticket t " +
+           "WHERE t.order.status = com.example.backend.entities.enums.OrderStatus.CANCELLED " +
+           "AND t.order.cancelledAt >= :since")
+    List<Long> findTicketIdsCancelledSince(@Param("since") LocalDateTime since);
+
+    // Vé của suất chiếu cho check-in: ticketId, hàng ghế, số ghế, checkedInAt (chỉ đơn đã thanh toán, chưa hủy)
+    @Query("SELECT t.ticketId, s.seatRow, s.seatColumn, t.checkedInAt FROM Ticket t JOIN t.seat s " +
+           "WHERE t.showtime.showtimeId = :showtimeId " +
+           "AND t.order.vnpPayDate IS NOT NULL " +
+           "AND (t.order.status IS NULL OR t.order.status <> com.example.backend.entities.enums.OrderStatus.CANCELLED)")
+    List<Object[]> findCheckInRowsByShowtimeId(@Param("showtimeId") Long showtimeId);
+}
@@ -2,10 +2,14 @@ package com.example.backend.repositories;
 
 import com.example.backend.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -22,4 +26,31 @@ public interface UserRepository extends JpaRepository<User, Long> {
             "WHEN EXISTS(SELECT 1 FROM customers WHERE user_id = :userId) THEN 'USER' " +
             "ELSE 'USER' END", nativeQuery = true)
     String getUserType(@Param("userId") Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Thông tin người thực hiện cho activity log: [userId, username, loại (ADMIN/MANAGER/USER), tên cụm rạp của manager]
+     */
+    @Query(value = "SELECT u.user_id, u.username, CASE " +
+            "WHEN a.user_id IS NOT NULL THEN 'ADMIN' " +
+            "WHEN m.user_id IS NOT NULL THEN 'MANAGER' " +
+            "ELSE 'USER' END, cc.name " +
+            "FROM users u " +
+            "LEFT JOIN admins a ON a.user_id = u.user_id " +
+            "LEFT JOIN managers m ON m.user_id = u.user_id " +
+            "LEFT JOIN cinema_complex cc ON cc.complex_id = m.cinema_complex_id " +
+            "WHERE u.username IN (:usernames)", nativeQuery = true)
+    List<Object[]> findActorRowsByUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Modifying
+    @Query("UPDATE User u SET u.tokensRevokedAt = :revokedAt WHERE u.username = :username")
+    int updateTokensRevokedAt(@Param("username") String username, @Param("revokedAt") LocalDateTime revokedAt);
+
+    // Nạp revocation khi khởi động: user bị chặn + user thu hồi token trong thời hạn của JWT
+    @Query("SELECT u.username, u.status, u.tokensRevokedAt FROM User u " +
+           "WHERE u.status = false OR u.tokensRevokedAt >= :since")
+    List<Object[]> findBlockedOrRevokedSince(@Param("since") LocalDateTime since);
+
+    // Đồng bộ revocation từ node khác
+    @Query("SELECT u.username, u.status, u.tokensRevokedAt FROM User u WHERE u.tokensRevokedAt >= :since")
+    List<Object[]> findRevokedSince(@Param("since") LocalDateTime since);
+}
@@ -0,0 +1,187 @@
+package com.example.backend.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lưu trữ activity log cũ để bảng activity_logs (trang nhật ký) chỉ chứa vài tháng gần nhất:
+ * - Hằng đêm chuyển log cũ hơn retention-months tháng sang activity_logs_archive theo batch
+ *   (INSERT ... SELECT + DELETE cùng một transaction, theo activity_id nên chạy lại không trùng);
+ *   chạy trên activityLogArchiveExecutor, dừng sau max-duration-ms, phần còn lại để đêm sau
+ * - activity_logs_archive được partition theo tháng (RANGE theo period = yyyyMM); partition của các tháng sắp tới
+ *   được tạo trước bằng cách tách partition pmax. Không phải MySQL hoặc partition lỗi thì bảng vẫn dùng bình thường.
+ */
+@Service
+@Slf4j
+public class ActivityLogArchiveService {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+    private static final String TABLE = "activity_logs_archive";
+    // Số tháng tạo partition trước
+    private static final int PARTITION_MONTHS_AHEAD = 3;
+
+    private static final String SELECT_EXPIRED_SQL =
+            "SELECT activity_id FROM activity_logs WHERE timestamp < :cutoff " +
+            "ORDER BY timestamp, activity_id LIMIT :limit";
+
+    private static final String ARCHIVE_SQL =
+            "INSERT IGNORE INTO activity_logs_archive (activity_id, period, user_id, actor_username, actor_role, " +
+            "action, object_type, object_id, object_name, description, timestamp) " +
+            "SELECT l.activity_id, YEAR(l.timestamp) * 100 + MONTH(l.timestamp), l.user_id, u.username, " +
+            "CASE WHEN a.user_id IS NOT NULL THEN 'ADMIN' WHEN m.user_id IS NOT NULL THEN 'MANAGER' ELSE 'USER' END, " +
+            "l.action, l.object_type, l.object_id, l.object_name, l.description, l.timestamp " +
+            "FROM activity_logs l " +
+            "LEFT JOIN users u ON u.user_id = l.user_id " +
+            "LEFT JOIN admins a ON a.user_id = l.user_id " +
+            "LEFT JOIN managers m ON m.user_id = l.user_id " +
+            "WHERE l.activity_id IN (:ids)";
+
+    private static final String DELETE_SQL = "DELETE FROM activity_logs WHERE activity_id IN (:ids)";
+
+    private static final String SELECT_PARTITIONS_SQL =
+            "SELECT partition_name FROM information_schema.partitions " +
+            "WHERE table_schema = DATABASE() AND table_name = :table AND partition_name IS NOT NULL";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${activity-log.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${activity-log.archive.retention-months:6}")
+    private int retentionMonths;
+
+    @Value("${activity-log.archive.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${activity-log.archive.partitioning:true}")
+    private boolean partitioning;
+
+    @Value("${activity-log.archive.max-duration-ms:1800000}")
+    private long maxDurationMs;
+
+    public ActivityLogArchiveService(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        ensurePartitions();
+    }
+
+    /**
+     * Chuyển log cũ hơn retentionMonths tháng (tính từ đầu tháng) sang bảng lưu trữ,
+     * tối đa maxDurationMs mỗi lần chạy (mặc định 2h30 sáng, tách khỏi giờ dọn thông báo 3h30)
+     */
+    @Async("activityLogArchiveExecutor")
+    @Scheduled(cron = "${activity-log.archive.cron:0 30 2 * * *}", zone = "Asia/Ho_Chi_Minh")
+    public void archiveExpired() {
+        if (!enabled) {
+            return;
+        }
+        ensurePartitions();
+        LocalDateTime cutoff = YearMonth.now(ZONE).minusMonths(retentionMonths).atDay(1).atStartOfDay();
+        long startedAt = System.currentTimeMillis();
+        long deadline = startedAt + maxDurationMs;
+        long archived = 0;
+        boolean completed = false;
+        while (System.currentTimeMillis() < deadline) {
+            Integer moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            if (moved == null || moved < batchSize) {
+                archived += moved != null ? moved : 0;
+                completed = true;
+                break;
+            }
+            archived += moved;
+        }
+        if (!completed) {
+            log.warn("Activity log archive stopped after {} ms with {} logs moved; the rest is archived next run",
+                    maxDurationMs, archived);
+        } else if (archived > 0) {
+            log.info("Archived {} activity logs older than {} in {} ms",
+                    archived, cutoff, System.currentTimeMillis() - startedAt);
+        }
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_EXPIRED_SQL, new MapSqlParameterSource()
+                .addValue("cutoff", Timestamp.valueOf(cutoff))
+                .addValue("limit", batchSize), Long.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+        jdbcTemplate.update(ARCHIVE_SQL, params);
+        jdbcTemplate.update(DELETE_SQL, params);
+        return ids.size();
+    }
+
+    /**
+     * Partition theo tháng: lần đầu chuyển bảng sang PARTITION BY RANGE (period), các lần sau tách pmax
+     * cho các tháng còn thiếu đến PARTITION_MONTHS_AHEAD tháng tới
+     */
+    private void ensurePartitions() {
+        if (!partitioning) {
+            return;
+        }
+        try {
+            Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+                    SELECT_PARTITIONS_SQL, new MapSqlParameterSource("table", TABLE), String.class));
+            YearMonth last = YearMonth.now(ZONE).plusMonths(PARTITION_MONTHS_AHEAD);
+            if (existing.isEmpty()) {
+                // Partition từ tháng cũ nhất có thể được lưu trữ; dữ liệu cũ hơn nữa (nếu có) nằm trong partition đầu
+                YearMonth first = YearMonth.now(ZONE).minusMonths(retentionMonths + 1L);
+                List<String> definitions = new ArrayList<>();
+                for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+                    definitions.add(partitionDefinition(month));
+                }
+                definitions.add("PARTITION pmax VALUES LESS THAN MAXVALUE");
+                jdbcTemplate.getJdbcTemplate().execute(
+                        "ALTER TABLE " + TABLE + " PARTITION BY RANGE (period) (" + String.join(", ", definitions) + ")");
+                log.info("Partitioned {} by month up to {}", TABLE, last);
+                return;
+            }
+            List<String> missing = new ArrayList<>();
+            for (YearMonth month = YearMonth.now(ZONE); !month.isAfter(last); month = month.plusMonths(1)) {
+                if (!existing.contains(partitionName(month))) {
+                    missing.add(partitionDefinition(month));
+                }
+            }
+            if (!missing.isEmpty() && existing.contains("pmax")) {
+                missing.add("PARTITION pmax VALUES LESS THAN MAXVALUE");
+                jdbcTemplate.getJdbcTemplate().execute(
+                        "ALTER TABLE " + TABLE + " REORGANIZE PARTITION pmax INTO (" + String.join(", ", missing) + ")");
+                log.info("Added {} monthly partitions to {}", missing.size() - 1, TABLE);
+            }
+        } catch (Exception e) {
+            log.warn("Cannot maintain partitions of {}: {}", TABLE, e.getMessage());
+        }
+    }
+
+    private String partitionDefinition(YearMonth month) {
+        YearMonth next = month.plusMonths(1);
+        return "PARTITION " + partitionName(month) + " VALUES LESS THAN (" + (next.getYear() * 100 + next.getMonthValue()) + ")";
+    }
+
+    private String partitionName(YearMonth month) {
+        return String.format("p%d%02d", month.getYear(), month.getMonthValue());
+    }
+}
@@ -1,27 +1,29 @@
 package com.example.backend.services;
 
+import com.example.backend.dtos.ActivityLogPageDTO;
 import com.example.backend.dtos.ActivityLogResponseDTO;
+import com.example.backend.dtos.ActivityLogRow;
 import com.example.backend.entities.*;
 import com.example.backend.entities.enums.Action;
 import com.example.backend.entities.enums.ObjectType;
 import com.example.backend.repositories.ActivityLogRepository;
-import com.example.backend.repositories.AdminRepository;
-import com.example.backend.repositories.ManagerRepository;
+import com.example.backend.repositories.ActivityLogSearchRepository;
 import com.example.backend.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import com.example.backend.entities.Manager;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -29,16 +31,19 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ActivityLogService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    // Số dòng tối đa của các API trả danh sách không phân trang
+    private static final int LIST_LIMIT = 500;
+
     private final ActivityLogRepository activityLogRepository;
     private final UserRepository userRepository;
-    private final AdminRepository adminRepository;
-    private final ManagerRepository managerRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ActivityLogWriter activityLogWriter;
 
     /**
      * Log một hoạt động (helper method để các service khác gọi)
-     * Sử dụng REQUIRES_NEW để chạy trong transaction riêng, không bị ảnh hưởng bởi
-     * transaction chính
+     * Không ghi trong transaction riêng: ActivityLogWriter xếp log vào hàng đợi sau khi transaction của nghiệp vụ
+     * commit và ghi theo batch trên thread nền (hành động cấu hình sync thì ghi ngay, cùng transaction nghiệp vụ)
      * 
      * @param username    Username của người thực hiện
      * @param action      Hành động (CREATE, UPDATE, DELETE)
@@ -47,212 +52,169 @@ public class ActivityLogService {
      * @param objectName  Tên của đối tượng
      * @param description Mô tả chi tiết
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void logActivity(String username, Action action, ObjectType objectType,
             Long objectId, String objectName, String description) {
-        try {
-            log.info("=== START LOGGING ACTIVITY ===");
-            log.info("Username: {}, Action: {}, ObjectType: {}, ObjectId: {}, ObjectName: {}",
-                    username, action, objectType, objectId, objectName);
-            System.out.println("=== ActivityLogService.logActivity CALLED ===");
-            System.out.println("Username: " + username);
-            System.out.println("Action: " + action);
-            System.out.println("ObjectType: " + objectType);
-            System.out.println("ObjectId: " + objectId);
-            System.out.println("ObjectName: " + objectName);
-
-            if (username == null || username.isEmpty()) {
-                log.error("Cannot log activity: Username is null or empty");
-                System.err.println("✗ ERROR: Username is null or empty");
-                return;
-            }
-
-            User actor = null;
-
-            // Try to find as Admin first
-            java.util.Optional<Admin> adminOpt = adminRepository.findByUsername(username);
-            if (adminOpt.isPresent()) {
-                actor = adminOpt.get();
-                log.info("Actor identified as ADMIN");
-            } else {
-                // Try to find as Manager
-                java.util.Optional<Manager> managerOpt = managerRepository.findByUsername(username);
-                if (managerOpt.isPresent()) {
-                    actor = managerOpt.get();
-                    log.info("Actor identified as MANAGER");
-                } else {
-                    // Fallback to generic User
-                    actor = userRepository.findByUsername(username).orElse(null);
-                    log.info("Actor identified as generic USER");
-                }
-            }
-
-            if (actor == null) {
-                log.error("Cannot log activity: User not found with username: {}", username);
-                log.error("Available users check - this is a critical error!");
-                System.err.println("✗ ERROR: User not found with username: " + username);
-                return;
-            }
-
-            log.info("Actor found - userId: {}, username: {}, class: {}",
-                    actor.getUserId(), actor.getUsername(), actor.getClass().getName());
-            System.out.println("✓ Actor found - userId: " + actor.getUserId() + ", username: " + actor.getUsername());
-
-            ActivityLog activityLog = ActivityLog.builder()
-                    .actor(actor)
-                    .action(action)
-                    .objectType(objectType)
-                    .objectId(objectId)
-                    .objectName(objectName != null ? objectName : "")
-                    .description(description != null ? description : "")
-                    .timestamp(LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")))
-                    .build();
-
-            log.info("ActivityLog entity created, attempting to save...");
-            System.out.println("Attempting to save ActivityLog...");
-            ActivityLog savedLog = activityLogRepository.save(activityLog);
-            log.info("Activity saved successfully - activityId: {}", savedLog.getActivityId());
-            log.info("Activity logged: {} {} {} by {}", action, objectType, objectName, username);
-            System.out.println("✓ Activity saved successfully - activityId: " + savedLog.getActivityId());
-
-            // Flush để đảm bảo đã lưu vào database
-            activityLogRepository.flush();
-            log.info("Database flush completed");
-            System.out.println("✓ Database flush completed");
-
-            // Broadcast activity to WebSocket - chỉ broadcast nếu actor là Admin hoặc
-            // Manager
-            try {
-                if (actor instanceof Admin) {
-                    ActivityLogResponseDTO activityDTO = convertToDTO(savedLog);
-                    // Broadcast to all admins
-                    messagingTemplate.convertAndSend("/topic/activities/admin", activityDTO);
-                    log.info("Broadcasted to /topic/activities/admin");
-                    log.info("Activity broadcasted via WebSocket: {} {} {}", action, objectType, objectName);
-                } else if (actor instanceof Manager) {
-                    ActivityLogResponseDTO activityDTO = convertToDTO(savedLog);
-                    String destination = "/topic/activities/manager/" + actor.getUsername();
-                    messagingTemplate.convertAndSend(destination, activityDTO);
-                    log.info("Broadcasted to {}", destination);
-                } else {
-                    log.info("Activity not broadcasted - actor is not Admin (actor type: {})",
-                            actor.getClass().getName());
-                }
-            } catch (Exception e) {
-                log.error("Error broadcasting activity via WebSocket: {}", e.getMessage(), e);
-                // Không throw exception để không ảnh hưởng đến flow chính
-            }
-            log.info("=== END LOGGING ACTIVITY ===");
-        } catch (Exception e) {
-            log.error("CRITICAL ERROR logging activity: {}", e.getMessage(), e);
-            log.error("Exception type: {}", e.getClass().getName());
-            e.printStackTrace();
-            // KHÔNG throw exception để không ảnh hưởng đến flow chính
-            // Activity log failure không nên làm fail business logic
+        if (username == null || username.isEmpty()) {
+            log.error("Cannot log activity: Username is null or empty");
+            return;
         }
+        activityLogWriter.submit(new ActivityLogWriter.PendingActivity(
+                username, action, objectType, objectId, objectName, description, ActivityLogWriter.now()));
     }
 
     /**
-     * Lấy tất cả hoạt động của admin (cho Admin)
-     * Chỉ lấy activities của ADMIN, không lấy MANAGER
+     * Lấy hoạt động của admin (cho Admin), mới nhất trước, tối đa LIST_LIMIT dòng của bảng chính
+     * (giữ tương thích cho màn hình cũ; xem thêm và log đã lưu trữ qua getActivitiesPage)
      * Có thể filter theo username, action, objectType, khoảng thời gian
      */
+    @Transactional(readOnly = true)
     public List<ActivityLogResponseDTO> getAllActivities(String username, Action action,
             ObjectType objectType,
             LocalDateTime startDate,
             LocalDateTime endDate) {
-        try {
-            log.info("=== getAllActivities called ===");
-            log.info("Filters - username: {}, action: {}, objectType: {}, startDate: {}, endDate: {}",
-                    username, action, objectType, startDate, endDate);
-            System.out.println("=== ActivityLogService.getAllActivities ===");
-            System.out
-                    .println("Filters - username: " + username + ", action: " + action + ", objectType: " + objectType);
-
-            List<ActivityLog> activities;
-
-            // Lấy tất cả activities trước
-            if (username != null || action != null || objectType != null || startDate != null || endDate != null) {
-                // Có filter
-                log.info("Using findWithFilters with filters");
-                System.out.println("Using findWithFilters");
-                activities = activityLogRepository.findWithFilters(
-                        username, action, objectType, startDate, endDate);
-            } else {
-                // Không có filter, lấy tất cả
-                log.info("Using findAllByOrderByTimestampDesc (no filters)");
-                System.out.println("Using findAllByOrderByTimestampDesc (no filters)");
-                activities = activityLogRepository.findAllByOrderByTimestampDesc();
-            }
-
-            log.info("Total activities found: {}", activities.size());
-            System.out.println("Total activities found: " + activities.size());
-
-            // Filter chỉ lấy activities của ADMIN
-            List<ActivityLogResponseDTO> result = activities.stream()
-                    .filter(activity -> {
-                        boolean isAdmin = activity.getActor() instanceof Admin;
-                        if (!isAdmin) {
-                            log.debug("Filtering out non-admin activity: actor type = {}",
-                                    activity.getActor() != null ? activity.getActor().getClass().getName() : "null");
-                        }
-                        return isAdmin;
-                    })
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-
-            log.info("Activities after filtering for ADMIN: {}", result.size());
-            System.out.println("Activities after filtering for ADMIN: " + result.size());
-
-            return result;
-        } catch (Exception e) {
-            log.error("ERROR in getAllActivities: {}", e.getMessage(), e);
-            System.err.println("ERROR in getAllActivities: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
+        ActivityLogSearchRepository.Filter filter = buildFilter(username, true, action, objectType, startDate, endDate);
+        if (filter == null) {
+            return Collections.emptyList();
         }
+        return toResponses(activityLogRepository.searchActivities(filter, null, null, LIST_LIMIT));
     }
 
     /**
-     * Lấy hoạt động dành cho Manager hiện tại
+     * Lấy hoạt động dành cho Manager hiện tại (tối đa LIST_LIMIT dòng mới nhất của bảng chính)
      */
+    @Transactional(readOnly = true)
     public List<ActivityLogResponseDTO> getManagerActivities(String username,
             Action action,
             ObjectType objectType,
             LocalDateTime startDate,
             LocalDateTime endDate) {
-        log.info("Getting manager activities for user: {}", username);
-
         if (username == null || username.isEmpty()) {
             return Collections.emptyList();
         }
+        ActivityLogSearchRepository.Filter filter = buildFilter(username, false, action, objectType, startDate, endDate);
+        if (filter == null) {
+            return Collections.emptyList();
+        }
+        return toResponses(activityLogRepository.searchActivities(filter, null, null, LIST_LIMIT));
+    }
+
+    /**
+     * Một trang nhật ký hoạt động, phân trang keyset theo (timestamp, activityId) của dòng cuối trang trước.
+     * Đọc bảng chính trước, hết thì đọc tiếp bảng lưu trữ với cùng cursor (log lưu trữ luôn cũ hơn log trong bảng chính)
+     * @param username   người thực hiện (null = tất cả)
+     * @param adminOnly  chỉ hoạt động của admin
+     * @param cursor     null để lấy trang đầu tiên
+     */
+    @Transactional(readOnly = true)
+    public ActivityLogPageDTO getActivitiesPage(String username, boolean adminOnly, Action action,
+            ObjectType objectType, LocalDateTime startDate, LocalDateTime endDate, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        ActivityLogSearchRepository.Filter filter = buildFilter(username, adminOnly, action, objectType, startDate, endDate);
+        if (filter == null) {
+            return ActivityLogPageDTO.builder().items(Collections.emptyList()).hasMore(false).build();
+        }
+        LocalDateTime afterTimestamp = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            afterTimestamp = LocalDateTime.parse(parts[0]);
+            afterId = Long.valueOf(parts[1]);
+        }
 
-        List<ActivityLog> activities = activityLogRepository.findWithFilters(
-                username, action, objectType, startDate, endDate);
+        // Lấy dư 1 dòng để biết còn trang sau hay không
+        List<ActivityLogRow> rows = new ArrayList<>(
+                activityLogRepository.searchActivities(filter, afterTimestamp, afterId, pageSize + 1));
+        if (rows.size() <= pageSize) {
+            if (!rows.isEmpty()) {
+                ActivityLogRow last = rows.get(rows.size() - 1);
+                afterTimestamp = last.getTimestamp();
+                afterId = last.getActivityId();
+            }
+            rows.addAll(activityLogRepository.searchArchivedActivities(
+                    filter, afterTimestamp, afterId, pageSize + 1 - rows.size()));
+        }
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
 
-        log.info("Found {} activities in DB for user {}", activities.size(), username);
+        return ActivityLogPageDTO.builder()
+                .items(toResponses(rows))
+                .nextCursor(hasMore ? encodeCursor(rows.get(rows.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
 
-        List<ActivityLogResponseDTO> result = activities.stream()
-                .filter(activity -> {
-                    if (activity.getActor() == null) {
-                        return false;
-                    }
-                    // Debug log for actor class
-                    // log.info("Activity {} actor class: {}", activity.getActivityId(),
-                    // activity.getActor().getClass().getName());
+    /**
+     * @return null nếu lọc theo username không tồn tại (kết quả chắc chắn rỗng)
+     */
+    private ActivityLogSearchRepository.Filter buildFilter(String username, boolean adminOnly, Action action,
+            ObjectType objectType, LocalDateTime startDate, LocalDateTime endDate) {
+        Long actorUserId = null;
+        if (username != null && !username.isBlank()) {
+            List<Object[]> actors = userRepository.findActorRowsByUsernames(List.of(username.trim()));
+            if (actors.isEmpty()) {
+                return null;
+            }
+            actorUserId = ((Number) actors.get(0)[0]).longValue();
+        }
+        return new ActivityLogSearchRepository.Filter(actorUserId, adminOnly, action, objectType, startDate, endDate);
+    }
 
-                    // Vì đã filter theo username trong query rồi, chỉ cần kiểm tra instanceof
-                    // Manager
-                    // Hoặc nếu user3 là User nhưng có role MANAGER, cần check logic khác?
-                    // Tạm thời bỏ check instanceof Manager để xem có ra data không
-                    return true;
-                    // return activity.getActor() instanceof Manager;
+    /**
+     * Loại người thực hiện và tên cụm rạp của manager tra một lần cho cả trang
+     */
+    private List<ActivityLogResponseDTO> toResponses(List<ActivityLogRow> rows) {
+        Set<String> usernames = rows.stream()
+                .map(ActivityLogRow::getUsername)
+                .filter(username -> username != null)
+                .collect(Collectors.toSet());
+        Map<String, Object[]> actors = new HashMap<>();
+        if (!usernames.isEmpty()) {
+            for (Object[] actor : userRepository.findActorRowsByUsernames(usernames)) {
+                actors.put((String) actor[1], actor);
+            }
+        }
+        return rows.stream()
+                .map(row -> {
+                    Object[] actor = actors.get(row.getUsername());
+                    String role = actor != null ? (String) actor[2] : "USER";
+                    return ActivityLogResponseDTO.builder()
+                            .activityId(row.getActivityId())
+                            .actorUsername(row.getUsername())
+                            .actorName(actorName(role, row.getUsername(), actor != null ? (String) actor[3] : null))
+                            .actorRole("USER".equals(role) ? "" : role)
+                            .action(row.getAction())
+                            .actionLabel(actionLabel(row.getAction()))
+                            .objectType(row.getObjectType())
+                            .objectLabel(objectLabel(row.getObjectType()))
+                            .objectId(row.getObjectId())
+                            .objectName(row.getObjectName())
+                            .description(row.getDescription())
+                            .timestamp(row.getTimestamp())
+                            .build();
                 })
-                .map(this::convertToDTO)
                 .collect(Collectors.toList());
+    }
+
+    private String encodeCursor(ActivityLogRow row) {
+        String raw = row.getTimestamp() + "|" + row.getActivityId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
 
-        log.info("Returning {} activities after filtering", result.size());
-        return result;
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(raw);
+            }
+            LocalDateTime.parse(parts[0]);
+            Long.valueOf(parts[1]);
+            return parts;
+        } catch (Exception e) {
+            throw new RuntimeException("Cursor không hợp lệ");
+        }
     }
 
     /**
@@ -332,90 +294,38 @@ public class ActivityLogService {
     }
 
     /**
-     * Convert ActivityLog entity sang DTO
+     * Tên hiển thị của người thực hiện theo loại (ADMIN/MANAGER/USER)
      */
-    private ActivityLogResponseDTO convertToDTO(ActivityLog activityLog) {
-        User actor = activityLog.getActor();
-        String actorRole = "";
-        String actorName = "";
-
-        // Xác định role của actor
-        if (actor instanceof Admin) {
-            actorRole = "ADMIN";
-            actorName = "Quản trị viên";
-        } else if (actor instanceof Manager) {
-            actorRole = "MANAGER";
-            Manager manager = (Manager) actor;
-            // Lấy tên từ cinemaComplex hoặc username
-            if (manager.getCinemaComplex() != null) {
-                actorName = "Quản lý " + manager.getCinemaComplex().getName();
-            } else {
-                actorName = "Quản lý " + actor.getUsername();
-            }
+    static String actorName(String role, String username, String complexName) {
+        if ("ADMIN".equals(role)) {
+            return "Quản trị viên";
         }
-
-        // Map action label
-        String actionLabel = "";
-        switch (activityLog.getAction()) {
-            case CREATE:
-                actionLabel = "Thêm";
-                break;
-            case UPDATE:
-                actionLabel = "Sửa";
-                break;
-            case DELETE:
-                actionLabel = "Xóa";
-                break;
+        if ("MANAGER".equals(role)) {
+            return "Quản lý " + (complexName != null ? complexName : username);
         }
+        return "";
+    }
 
-        // Map objectType label
-        String objectLabel = "";
-        switch (activityLog.getObjectType()) {
-            case MOVIE:
-                objectLabel = "Phim";
-                break;
-            case CINEMA:
-                objectLabel = "Rạp";
-                break;
-            case ROOM:
-                objectLabel = "Phòng chiếu";
-                break;
-            case SHOWTIME:
-                objectLabel = "Lịch chiếu";
-                break;
-            case USER:
-                objectLabel = "Người dùng";
-                break;
-            case VOUCHER:
-                objectLabel = "Voucher";
-                break;
-            case BANNER:
-                objectLabel = "Banner";
-                break;
-            case FOOD:
-                objectLabel = "Đồ ăn";
-                break;
-            case SEAT:
-                objectLabel = "Ghế";
-                break;
-            case PRICE:
-                objectLabel = "Bảng giá";
-                break;
-        }
+    static String actionLabel(Action action) {
+        return switch (action) {
+            case CREATE -> "Thêm";
+            case UPDATE -> "Sửa";
+            case DELETE -> "Xóa";
+        };
+    }
 
-        return ActivityLogResponseDTO.builder()
-                .activityId(activityLog.getActivityId())
-                .actorUsername(actor.getUsername())
-                .actorName(actorName)
-                .actorRole(actorRole)
-                .action(activityLog.getAction())
-                .actionLabel(actionLabel)
-                .objectType(activityLog.getObjectType())
-                .objectLabel(objectLabel)
-                .objectId(activityLog.getObjectId())
-                .objectName(activityLog.getObjectName())
-                .description(activityLog.getDescription())
-                .timestamp(activityLog.getTimestamp())
-                .build();
+    static String objectLabel(ObjectType objectType) {
+        return switch (objectType) {
+            case MOVIE -> "Phim";
+            case CINEMA -> "Rạp";
+            case ROOM -> "Phòng chiếu";
+            case SHOWTIME -> "Lịch chiếu";
+            case USER -> "Người dùng";
+            case VOUCHER -> "Voucher";
+            case BANNER -> "Banner";
+            case FOOD -> "Đồ ăn";
+            case SEAT -> "Ghế";
+            case PRICE -> "Bảng giá";
+        };
     }
 }
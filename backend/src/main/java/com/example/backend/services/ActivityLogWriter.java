@@ -0,0 +1,358 @@
+package com.example.backend.services;
+
+import com.example.backend.dtos.ActivityLogResponseDTO;
+import com.example.backend.entities.enums.Action;
+import com.example.backend.entities.enums.ObjectType;
+import com.example.backend.repositories.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Ghi activity log ngoài luồng xử lý của admin/manager:
+ * - logActivity chỉ chụp lại username + dữ liệu log và đưa vào hàng đợi có giới hạn (sau khi transaction của
+ *   nghiệp vụ commit; rollback thì không ghi), không mở transaction riêng và không flush
+ * - Một thread trên activityLogExecutor rút hàng đợi, ghi mỗi batch bằng một JDBC batch INSERT rồi broadcast WebSocket
+ * - Chế độ sync (activity-log.mode=sync, hoặc action/objectType nằm trong danh sách sync) ghi ngay trên thread gọi,
+ *   cùng transaction với thay đổi nghiệp vụ; hàng đợi đầy cũng ghi ngay để không mất log
+ * userId/loại người thực hiện (JWT chỉ chứa username) được tra một lần cho cả batch và cache theo username.
+ */
+@Component
+@Slf4j
+public class ActivityLogWriter {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+    private static final long ACTOR_TTL_MS = 10 * 60 * 1000L;
+    private static final int MAX_CACHED_ACTORS = 10000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO activity_logs (user_id, action, object_type, object_id, object_name, description, timestamp) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Một log đang chờ ghi
+     */
+    record PendingActivity(String username, Action action, ObjectType objectType, Long objectId,
+                           String objectName, String description, LocalDateTime timestamp) {}
+
+    /**
+     * Người thực hiện đã tra từ DB; role ADMIN/MANAGER/USER
+     */
+    private record Actor(Long userId, String username, String role, String complexName, long loadedAtMs) {}
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final Executor executor;
+    private final TransactionTemplate detachedTransaction;
+    private final BlockingQueue<PendingActivity> queue;
+    private final int batchSize;
+    private final boolean syncMode;
+    private final Set<Action> syncActions;
+    private final Set<ObjectType> syncObjectTypes;
+
+    private final Map<String, Actor> actors = new ConcurrentHashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    public ActivityLogWriter(UserRepository userRepository,
+                             JdbcTemplate jdbcTemplate,
+                             SimpMessagingTemplate messagingTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Qualifier("activityLogExecutor") Executor executor,
+                             @Value("${activity-log.buffer-capacity:10000}") int bufferCapacity,
+                             @Value("${activity-log.batch-size:200}") int batchSize,
+                             @Value("${activity-log.mode:async}") String mode,
+                             @Value("${activity-log.sync-actions:}") String syncActions,
+                             @Value("${activity-log.sync-object-types:}") String syncObjectTypes) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.executor = executor;
+        this.detachedTransaction = new TransactionTemplate(transactionManager);
+        this.detachedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queue = new ArrayBlockingQueue<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.syncMode = "sync".equalsIgnoreCase(mode.trim());
+        this.syncActions = parseEnums(Action.class, syncActions);
+        this.syncObjectTypes = parseEnums(ObjectType.class, syncObjectTypes);
+    }
+
+    /**
+     * Nhận một log; ghi ngay nếu là hành động cần ghi đồng bộ, ngược lại xếp hàng sau khi transaction hiện tại commit
+     */
+    public void submit(PendingActivity activity) {
+        if (syncMode || syncActions.contains(activity.action()) || syncObjectTypes.contains(activity.objectType())) {
+            writeNow(activity);
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(activity);
+                }
+            });
+        } else {
+            enqueue(activity);
+        }
+    }
+
+    private void enqueue(PendingActivity activity) {
+        if (!queue.offer(activity)) {
+            // Hàng đợi đầy: ghi trên thread gọi trong transaction riêng (có thể đang ở afterCommit) thay vì bỏ log
+            log.warn("Activity log buffer is full, writing synchronously");
+            try {
+                broadcast(detachedTransaction.execute(status -> persist(List.of(activity))));
+            } catch (Exception e) {
+                log.error("Error writing activity log {} {} {}: {}",
+                        activity.action(), activity.objectType(), activity.objectName(), e.getMessage(), e);
+            }
+            return;
+        }
+        wakeUp();
+    }
+
+    /**
+     * Ghi trên thread gọi; trong transaction nghiệp vụ thì INSERT đi cùng transaction đó, broadcast sau commit
+     */
+    private void writeNow(PendingActivity activity) {
+        try {
+            List<ActivityLogResponseDTO> written = persist(List.of(activity));
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        broadcast(written);
+                    }
+                });
+            } else {
+                broadcast(written);
+            }
+        } catch (Exception e) {
+            // Lỗi ghi log không làm fail nghiệp vụ
+            log.error("Error writing activity log {} {} {}: {}",
+                    activity.action(), activity.objectType(), activity.objectName(), e.getMessage(), e);
+        }
+    }
+
+    private void wakeUp() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException e) {
+                draining.set(false);
+                log.warn("Cannot schedule activity log drain: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            List<PendingActivity> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        } finally {
+            draining.set(false);
+            // Log được đưa vào đúng lúc vòng ghi vừa kết thúc
+            if (!queue.isEmpty()) {
+                wakeUp();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingActivity> batch) {
+        try {
+            broadcast(persist(batch));
+        } catch (Exception e) {
+            log.error("Error writing {} activity logs: {}", batch.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ghi các log còn trong hàng đợi khi tắt ứng dụng
+     */
+    @PreDestroy
+    public void flush() {
+        List<PendingActivity> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Một JDBC batch INSERT cho cả danh sách; log của username không tồn tại bị bỏ qua
+     * @return DTO của các log đã ghi (có activityId) để broadcast
+     */
+    private List<ActivityLogResponseDTO> persist(List<PendingActivity> activities) {
+        Map<String, Actor> actorsByUsername = resolveActors(activities.stream()
+                .map(PendingActivity::username)
+                .collect(Collectors.toSet()));
+        List<PendingActivity> rows = new ArrayList<>();
+        for (PendingActivity activity : activities) {
+            if (actorsByUsername.containsKey(activity.username())) {
+                rows.add(activity);
+            } else {
+                log.error("Cannot log activity: User not found with username: {}", activity.username());
+            }
+        }
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        PendingActivity activity = rows.get(i);
+                        ps.setLong(1, actorsByUsername.get(activity.username()).userId());
+                        ps.setString(2, activity.action().name());
+                        ps.setString(3, activity.objectType().name());
+                        ps.setLong(4, activity.objectId() != null ? activity.objectId() : 0L);
+                        ps.setString(5, activity.objectName() != null ? activity.objectName() : "");
+                        ps.setString(6, activity.description() != null ? activity.description() : "");
+                        ps.setTimestamp(7, Timestamp.valueOf(activity.timestamp()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> keyList = keys.getKeyList();
+        List<ActivityLogResponseDTO> written = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            PendingActivity activity = rows.get(i);
+            Actor actor = actorsByUsername.get(activity.username());
+            Long activityId = i < keyList.size() ? firstKey(keyList.get(i)) : null;
+            written.add(toDTO(activityId, actor, activity));
+        }
+        return written;
+    }
+
+    /**
+     * Chỉ broadcast log của Admin (tới mọi admin) và Manager (tới chính manager đó)
+     */
+    private void broadcast(List<ActivityLogResponseDTO> activities) {
+        for (ActivityLogResponseDTO activity : activities) {
+            try {
+                if ("ADMIN".equals(activity.getActorRole())) {
+                    messagingTemplate.convertAndSend("/topic/activities/admin", activity);
+                } else if ("MANAGER".equals(activity.getActorRole())) {
+                    messagingTemplate.convertAndSend("/topic/activities/manager/" + activity.getActorUsername(), activity);
+                }
+            } catch (Exception e) {
+                log.error("Error broadcasting activity via WebSocket: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Tra người thực hiện theo username: lấy từ cache, phần còn thiếu tra bằng một truy vấn
+     */
+    private Map<String, Actor> resolveActors(Set<String> usernames) {
+        long now = System.currentTimeMillis();
+        Map<String, Actor> result = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String username : usernames) {
+            if (username == null || username.isEmpty()) {
+                continue;
+            }
+            Actor cached = actors.get(username);
+            if (cached != null && now - cached.loadedAtMs() < ACTOR_TTL_MS) {
+                result.put(username, cached);
+            } else {
+                missing.add(username);
+            }
+        }
+        if (!missing.isEmpty()) {
+            if (actors.size() > MAX_CACHED_ACTORS) {
+                actors.clear();
+            }
+            for (Object[] row : userRepository.findActorRowsByUsernames(missing)) {
+                Actor actor = new Actor(((Number) row[0]).longValue(), (String) row[1], (String) row[2],
+                        (String) row[3], now);
+                actors.put(actor.username(), actor);
+                result.put(actor.username(), actor);
+            }
+        }
+        return result;
+    }
+
+    private ActivityLogResponseDTO toDTO(Long activityId, Actor actor, PendingActivity activity) {
+        return ActivityLogResponseDTO.builder()
+                .activityId(activityId)
+                .actorUsername(actor.username())
+                .actorName(ActivityLogService.actorName(actor.role(), actor.username(), actor.complexName()))
+                .actorRole("USER".equals(actor.role()) ? "" : actor.role())
+                .action(activity.action())
+                .actionLabel(ActivityLogService.actionLabel(activity.action()))
+                .objectType(activity.objectType())
+                .objectLabel(ActivityLogService.objectLabel(activity.objectType()))
+                .objectId(activity.objectId())
+                .objectName(activity.objectName() != null ? activity.objectName() : "")
+                .description(activity.description() != null ? activity.description() : "")
+                .timestamp(activity.timestamp())
+                .build();
+    }
+
+    private Long firstKey(Map<String, Object> keys) {
+        return keys.values().stream()
+                .filter(value -> value instanceof Number)
+                .map(value -> ((Number) value).longValue())
+                .findFirst()
+                .orElse(null);
+    }
+
+    static LocalDateTime now() {
+        return LocalDateTime.now(ZONE);
+    }
+
+    private static <E extends Enum<E>> Set<E> parseEnums(Class<E> type, String values) {
+        Set<E> result = EnumSet.noneOf(type);
+        Arrays.stream(values.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .forEach(value -> result.add(Enum.valueOf(type, value.toUpperCase())));
+        return result;
+    }
+}
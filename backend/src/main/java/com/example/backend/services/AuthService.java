@@ -8,7 +8,6 @@ import java.util.UUID;
 import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,10 +19,8 @@ import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.jackson2.JacksonFactory;
 
 import com.example.backend.dtos.LoginResponseDTO;
-import com.example.backend.dtos.OtpSessionDTO;
 import com.example.backend.dtos.RegisterRequestDTO;
 import com.example.backend.dtos.RegisterResponseDTO;
-import com.example.backend.dtos.ResetTokenSessionDTO;
 import com.example.backend.dtos.SendOtpRequestDTO;
 import com.example.backend.entities.Admin;
 import com.example.backend.entities.Customer;
@@ -35,7 +32,6 @@ import com.example.backend.repositories.ManagerRepository;
 import com.example.backend.repositories.UserRepository;
 import com.example.backend.utils.JwtUtils;
 
-import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 
 
@@ -47,9 +43,11 @@ public class AuthService {
     private final ManagerRepository managerRepository;
     private final AdminRepository adminRepository;
     private final EmailService emailService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtUtils jwtUtils;
     private final UserRepository userRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final OtpStore otpStore;
 
     @Value("${google.client-id}")
     private String googleClientId;
@@ -61,21 +59,23 @@ public class AuthService {
     private String googleRedirectUri;
     
     private static final int OTP_LENGTH = 6;
+    // Số lần nhập sai tối đa cho một mã OTP, vượt quá thì mã bị hủy
+    private static final int MAX_OTP_ATTEMPTS = 5;
     // Đăng ký tài khoản
     private static final long REGISTER_OTP_VALIDITY_MINUTES = 5;
     private static final long REGISTER_RESEND_COOLDOWN_SECONDS = 30;
-    private static final String REGISTER_SESSION_OTP_KEY = "REGISTER_OTP_SESSION";
+    private static final String REGISTER_OTP_NAMESPACE = "register-otp";
 
     // Quên mật khẩu
     private static final int FORGOT_OTP_EXPIRY_MINUTES = 5;
     private static final int RESET_TOKEN_EXPIRY_MINUTES = 15;
     private static final int FORGOT_RESEND_COOLDOWN_SECONDS = 30;
-    private static final String FORGOT_OTP_SESSION_KEY = "FORGOT_PASSWORD_OTP_SESSION";
-    private static final String RESET_TOKEN_SESSION_KEY = "PASSWORD_RESET_TOKEN_SESSION";
+    private static final String FORGOT_OTP_NAMESPACE = "forgot-password-otp";
+    private static final String RESET_TOKEN_NAMESPACE = "password-reset-token";
     private static final Pattern PASSWORD_PATTERN = Pattern.compile("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d).{8,32}$");
     
     @Transactional
-    public String sendOtp(SendOtpRequestDTO request, HttpSession session) {
+    public String sendOtp(SendOtpRequestDTO request) {
         String email = request.getEmail();
         
         // Kiểm tra email đã tồn tại trong hệ thống chưa
@@ -83,33 +83,9 @@ public class AuthService {
             throw new RuntimeException("Email đã được đăng ký");
         }
         
-        // Kiểm tra cooldown 30 giây từ session (chỉ áp dụng cho cùng email)
-        OtpSessionDTO existingOtp = (OtpSessionDTO) session.getAttribute(REGISTER_SESSION_OTP_KEY);
-        long nowMillis = System.currentTimeMillis();
-        
-        if (existingOtp != null && existingOtp.getEmail().equals(email)) {
-            long timeSinceLastSent = (nowMillis - existingOtp.getLastSentAtMillis()) / 1000; // Convert to seconds
-            
-            if (timeSinceLastSent < REGISTER_RESEND_COOLDOWN_SECONDS) {
-                long remainingSeconds = REGISTER_RESEND_COOLDOWN_SECONDS - timeSinceLastSent;
-                throw new RuntimeException("Vui lòng đợi " + remainingSeconds + " giây trước khi gửi lại OTP");
-            }
-        }
-        
-        // Tạo mã OTP ngẫu nhiên
-        String otpCode = generateOtpCode();
-        
-        // Lưu OTP vào session với thời gian hết hạn 5 phút
-        OtpSessionDTO otpSession = new OtpSessionDTO();
-        otpSession.setEmail(email);
-        otpSession.setOtpCode(otpCode);
-        otpSession.setCreatedAtMillis(nowMillis);
-        otpSession.setExpiresAtMillis(nowMillis + (REGISTER_OTP_VALIDITY_MINUTES * 60 * 1000)); // 5 minutes in milliseconds
-        otpSession.setLastSentAtMillis(nowMillis);
-        
-        session.setAttribute(REGISTER_SESSION_OTP_KEY, otpSession);
-        // Set session timeout là 5 phút (300 giây) + một chút buffer
-        session.setMaxInactiveInterval((int) (REGISTER_OTP_VALIDITY_MINUTES * 60));
+        // Tạo và lưu OTP (hết hạn sau 5 phút), cooldown 30 giây cho mỗi email
+        String otpCode = issueOtp(REGISTER_OTP_NAMESPACE, email,
+                REGISTER_OTP_VALIDITY_MINUTES * 60 * 1000, REGISTER_RESEND_COOLDOWN_SECONDS);
         
         // Gửi email
         emailService.sendOtpEmail(email, otpCode);
@@ -118,7 +94,7 @@ public class AuthService {
     }
     
     @Transactional
-    public RegisterResponseDTO register(RegisterRequestDTO request, HttpSession session) {
+    public RegisterResponseDTO register(RegisterRequestDTO request) {
         // Validate mật khẩu khớp
         if (!request.getPassword().equals(request.getConfirmPassword())) {
             throw new RuntimeException("Mật khẩu xác nhận không khớp");
@@ -134,31 +110,9 @@ public class AuthService {
             throw new RuntimeException("Email đã được đăng ký");
         }
         
-        // Xác thực OTP từ session
-        OtpSessionDTO otpSession = (OtpSessionDTO) session.getAttribute(REGISTER_SESSION_OTP_KEY);
-        if (otpSession == null) {
-            throw new RuntimeException("Không tìm thấy OTP trong session. Vui lòng gửi lại OTP");
-        }
-        
-        // Kiểm tra email có khớp không
-        if (!otpSession.getEmail().equals(request.getEmail())) {
-            throw new RuntimeException("Email không khớp với email đã gửi OTP");
-        }
-        
-        // Kiểm tra OTP có khớp không
-        if (!otpSession.getOtpCode().equals(request.getOtp())) {
-            throw new RuntimeException("Mã OTP không đúng");
-        }
-        
-        // Kiểm tra OTP có hết hạn không
-        long nowMillis = System.currentTimeMillis();
-        if (nowMillis > otpSession.getExpiresAtMillis()) {
-            session.removeAttribute(REGISTER_SESSION_OTP_KEY);
-            throw new RuntimeException("Mã OTP đã hết hạn. Vui lòng gửi lại OTP");
-        }
-        
-        // Xóa OTP khỏi session sau khi xác thực thành công
-        session.removeAttribute(REGISTER_SESSION_OTP_KEY);
+        // Xác thực OTP đã gửi tới email (OTP bị xóa sau khi xác thực thành công)
+        verifyOtp(REGISTER_OTP_NAMESPACE, request.getEmail(), request.getOtp(),
+                "Mã OTP không tồn tại hoặc đã hết hạn. Vui lòng gửi lại OTP");
         
         // Tạo customer mới
         Customer customer = Customer.builder()
@@ -167,7 +121,7 @@ public class AuthService {
                 .phone(request.getMobile())
                 .username(request.getUsername())
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHashingService.encode(request.getPassword()))
                 .status(true)
                 .build();
         
@@ -184,36 +138,13 @@ public class AuthService {
     /**
      * Forgot password - Send OTP
      */
-    public void sendForgotPasswordOtp(String email, HttpSession session) {
+    public void sendForgotPasswordOtp(String email) {
         if (!customerRepository.existsByEmail(email)) {
             throw new RuntimeException("Email không tồn tại trong hệ thống");
         }
 
-        OtpSessionDTO existingSession = (OtpSessionDTO) session.getAttribute(FORGOT_OTP_SESSION_KEY);
-        if (existingSession != null && existingSession.getEmail().equals(email)) {
-            long currentTimeMillis = System.currentTimeMillis();
-            long secondsSinceLastSent = (currentTimeMillis - existingSession.getLastSentAtMillis()) / 1000;
-
-            if (secondsSinceLastSent < FORGOT_RESEND_COOLDOWN_SECONDS) {
-                throw new RuntimeException(
-                        "Vui lòng đợi " + (FORGOT_RESEND_COOLDOWN_SECONDS - secondsSinceLastSent) +
-                        " giây trước khi gửi lại OTP");
-            }
-        }
-
-        String otpCode = generateOtpCode();
-        long currentTimeMillis = System.currentTimeMillis();
-        long expiryTimeMillis = currentTimeMillis + (FORGOT_OTP_EXPIRY_MINUTES * 60 * 1000);
-
-        OtpSessionDTO otpSession = new OtpSessionDTO(
-                email,
-                otpCode,
-                currentTimeMillis,
-                expiryTimeMillis,
-                currentTimeMillis
-        );
-
-        session.setAttribute(FORGOT_OTP_SESSION_KEY, otpSession);
+        String otpCode = issueOtp(FORGOT_OTP_NAMESPACE, email,
+                FORGOT_OTP_EXPIRY_MINUTES * 60 * 1000L, FORGOT_RESEND_COOLDOWN_SECONDS);
 
         emailService.sendForgotPasswordOtpEmail(email, otpCode);
     }
@@ -221,40 +152,17 @@ public class AuthService {
     /**
      * Forgot password - Verify OTP
      */
-    public String verifyForgotPasswordOtp(String email, String otpCode, HttpSession session) {
-        OtpSessionDTO otpSession = (OtpSessionDTO) session.getAttribute(FORGOT_OTP_SESSION_KEY);
-
-        if (otpSession == null) {
-            throw new RuntimeException("Không tìm thấy mã OTP. Vui lòng yêu cầu mã mới.");
-        }
-
-        if (!otpSession.getEmail().equals(email)) {
-            throw new RuntimeException("Email không khớp với mã OTP đã gửi");
-        }
+    public String verifyForgotPasswordOtp(String email, String otpCode) {
+        verifyOtp(FORGOT_OTP_NAMESPACE, email, otpCode,
+                "Mã OTP không tồn tại hoặc đã hết hạn. Vui lòng yêu cầu mã mới.");
 
         long currentTimeMillis = System.currentTimeMillis();
-        if (currentTimeMillis > otpSession.getExpiresAtMillis()) {
-            session.removeAttribute(FORGOT_OTP_SESSION_KEY);
-            throw new RuntimeException("Mã OTP đã hết hạn. Vui lòng yêu cầu mã mới.");
-        }
-
-        if (!otpSession.getOtpCode().equals(otpCode)) {
-            throw new RuntimeException("Mã OTP không đúng");
-        }
-
-        session.removeAttribute(FORGOT_OTP_SESSION_KEY);
-
         String resetToken = UUID.randomUUID().toString();
-        long expiryTimeMillis = currentTimeMillis + (RESET_TOKEN_EXPIRY_MINUTES * 60 * 1000);
-
-        ResetTokenSessionDTO resetTokenSession = new ResetTokenSessionDTO(
-                resetToken,
+        otpStore.put(RESET_TOKEN_NAMESPACE, resetToken, new OtpStore.Entry(
                 email,
+                currentTimeMillis + (RESET_TOKEN_EXPIRY_MINUTES * 60 * 1000L),
                 currentTimeMillis,
-                expiryTimeMillis
-        );
-
-        session.setAttribute(RESET_TOKEN_SESSION_KEY, resetTokenSession);
+                0));
 
         return resetToken;
     }
@@ -263,52 +171,85 @@ public class AuthService {
      * Forgot password - Reset password
      */
     @Transactional
-    public void resetForgotPassword(String token, String newPassword, HttpSession session) {
+    public void resetForgotPassword(String token, String newPassword) {
         if (!PASSWORD_PATTERN.matcher(newPassword).matches()) {
             throw new RuntimeException("Mật khẩu phải từ 8 đến 32 ký tự và chứa ít nhất 1 chữ hoa, 1 chữ thường, 1 số");
         }
 
-        ResetTokenSessionDTO resetTokenSession = (ResetTokenSessionDTO) session.getAttribute(RESET_TOKEN_SESSION_KEY);
-
-        if (resetTokenSession == null) {
-            throw new RuntimeException("Token không hợp lệ hoặc đã hết phiên làm việc");
-        }
-
-        if (!resetTokenSession.getToken().equals(token)) {
-            throw new RuntimeException("Token không hợp lệ");
-        }
-
-        long currentTimeMillis = System.currentTimeMillis();
-        if (currentTimeMillis > resetTokenSession.getExpiresAtMillis()) {
-            session.removeAttribute(RESET_TOKEN_SESSION_KEY);
-            throw new RuntimeException("Token đã hết hạn. Vui lòng yêu cầu mã OTP mới.");
-        }
+        // Token chỉ dùng được một lần (hết hạn thì store coi như không có)
+        OtpStore.Entry resetToken = otpStore.remove(RESET_TOKEN_NAMESPACE, token)
+                .orElseThrow(() -> new RuntimeException("Token không hợp lệ hoặc đã hết hạn. Vui lòng yêu cầu mã OTP mới."));
 
-        Customer customer = customerRepository.findByEmail(resetTokenSession.getEmail())
+        Customer customer = customerRepository.findByEmail(resetToken.value())
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy người dùng"));
 
-        customer.setPassword(passwordEncoder.encode(newPassword));
+        customer.setPassword(passwordHashingService.encode(newPassword));
         customerRepository.save(customer);
-
-        session.removeAttribute(RESET_TOKEN_SESSION_KEY);
     }
 
     /**
      * Forgot password - Get remaining OTP time
      */
-    public long getForgotPasswordOtpRemainingSeconds(HttpSession session) {
-        OtpSessionDTO otpSession = (OtpSessionDTO) session.getAttribute(FORGOT_OTP_SESSION_KEY);
-
-        if (otpSession == null) {
+    public long getForgotPasswordOtpRemainingSeconds(String email) {
+        if (email == null || email.isBlank()) {
             return 0;
         }
+        return otpStore.get(FORGOT_OTP_NAMESPACE, email)
+                .filter(entry -> !entry.isRevoked())
+                .map(entry -> Math.max(0, (entry.expiresAtMillis() - System.currentTimeMillis()) / 1000))
+                .orElse(0L);
+    }
 
-        long currentTimeMillis = System.currentTimeMillis();
-        long remainingMillis = otpSession.getExpiresAtMillis() - currentTimeMillis;
+    /**
+     * Tạo OTP mới cho email; từ chối nếu lần gửi trước chưa quá cooldown
+     */
+    private String issueOtp(String namespace, String email, long validityMillis, long cooldownSeconds) {
+        String otpCode = generateOtpCode();
+        otpStore.compute(namespace, email, existing -> {
+            long nowMillis = System.currentTimeMillis();
+            if (existing != null) {
+                long secondsSinceLastSent = (nowMillis - existing.lastSentAtMillis()) / 1000;
+                if (secondsSinceLastSent < cooldownSeconds) {
+                    throw new RuntimeException("Vui lòng đợi " + (cooldownSeconds - secondsSinceLastSent)
+                            + " giây trước khi gửi lại OTP");
+                }
+            }
+            return new OtpStore.Entry(otpCode, nowMillis + validityMillis, nowMillis, 0);
+        });
+        return otpCode;
+    }
 
-        return Math.max(0, remainingMillis / 1000);
+    /**
+     * Kiểm tra OTP của email: sai thì tăng số lần thử (quá MAX_OTP_ATTEMPTS thì hủy mã), đúng thì xóa mã.
+     * Mã bị hủy vẫn được giữ lại (không dùng được) để cooldown gửi lại OTP còn hiệu lực.
+     */
+    private void verifyOtp(String namespace, String email, String otpCode, String missingMessage) {
+        String[] error = new String[1];
+        otpStore.compute(namespace, email, existing -> {
+            if (existing == null) {
+                error[0] = missingMessage;
+                return null;
+            }
+            if (existing.isRevoked()) {
+                error[0] = "Nhập sai OTP quá " + MAX_OTP_ATTEMPTS + " lần. Vui lòng yêu cầu mã mới.";
+                return existing;
+            }
+            if (existing.value().equals(otpCode)) {
+                return null;
+            }
+            int attempts = existing.attempts() + 1;
+            if (attempts >= MAX_OTP_ATTEMPTS) {
+                error[0] = "Nhập sai OTP quá " + MAX_OTP_ATTEMPTS + " lần. Vui lòng yêu cầu mã mới.";
+                return existing.revoked().withAttempts(attempts);
+            }
+            error[0] = "Mã OTP không đúng";
+            return existing.withAttempts(attempts);
+        });
+        if (error[0] != null) {
+            throw new RuntimeException(error[0]);
+        }
     }
-    
+
     private String generateOtpCode() {
         Random random = new Random();
         StringBuilder otp = new StringBuilder();
@@ -353,15 +294,23 @@ public class AuthService {
             throw new Exception("Tài khoản này chưa có mật khẩu. Vui lòng đăng nhập bằng Google hoặc tạo mật khẩu mới.");
         }
 
-        boolean passwordMatches = passwordEncoder.matches(password, user.getPassword());
+        boolean passwordMatches = passwordHashingService.matches(password, user.getPassword());
         System.out.println("Password matches: " + passwordMatches);
         
         if (!passwordMatches) {
             throw new Exception("Tên đăng nhập hoặc mật khẩu không đúng");
         }
 
-        // Không chặn đăng nhập nếu user bị blocked, nhưng sẽ lưu status để frontend hiển thị
-        // User bị blocked vẫn có thể đăng nhập nhưng không thể mua hàng
+        // User bị chặn không được cấp token mới (token cũ đã bị thu hồi khi chặn), giống đăng nhập Google
+        if (Boolean.FALSE.equals(user.getStatus())) {
+            throw new Exception("Tài khoản của bạn đã bị chặn. Vui lòng liên hệ quản trị viên.");
+        }
+
+        // Hash tạo với cost cũ (thấp hơn security.bcrypt.strength): hash lại bằng mật khẩu vừa nhập
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            user.setPassword(passwordHashingService.encode(password));
+            userRepository.save(user);
+        }
 
         String role = "";
         String name = null;
@@ -459,6 +408,16 @@ public class AuthService {
         return response;
     }
 
+    /**
+     * Đăng xuất: thu hồi mọi JWT đã cấp cho tài khoản, áp dụng cho mọi thiết bị (token không hợp lệ thì bỏ qua)
+     */
+    public void logout(String token) {
+        JwtUtils.VerifiedToken verified = jwtUtils.verify(token);
+        if (verified != null && verified.username() != null) {
+            tokenRevocationService.revokeTokens(verified.username());
+        }
+    }
+
     public LoginResponseDTO loginWithGoogle(String authorizationCode) throws Exception {
         if (authorizationCode == null || authorizationCode.isBlank()) {
             throw new Exception("Mã xác thực Google không hợp lệ");
@@ -6,6 +6,7 @@ import com.example.backend.dtos.UpdateBannerDTO;
 import com.example.backend.entities.Banner;
 import com.example.backend.repositories.BannerRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +23,8 @@ public class BannerService {
     
     private final BannerRepository bannerRepository;
     private final ActivityLogService activityLogService;
+    private final CatalogCache catalogCache;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional
     public BannerResponseDTO createBanner(CreateBannerDTO createDTO, String username) {
@@ -61,6 +64,7 @@ public class BannerService {
             }
         }
         
+        eventPublisher.publishEvent(CatalogChangedEvent.banners());
         return convertToDTO(savedBanner);
     }
     
@@ -104,6 +108,7 @@ public class BannerService {
             }
         }
         
+        eventPublisher.publishEvent(CatalogChangedEvent.banners());
         return convertToDTO(updatedBanner);
     }
     
@@ -132,6 +137,7 @@ public class BannerService {
             }
         }
         
+        eventPublisher.publishEvent(CatalogChangedEvent.banners());
         return convertToDTO(updatedBanner);
     }
     
@@ -142,6 +148,7 @@ public class BannerService {
         
         String bannerName = banner.getName();
         bannerRepository.deleteById(bannerId);
+        eventPublisher.publishEvent(CatalogChangedEvent.banners());
         
         // Log activity - username được truyền từ controller
         if (username != null && !username.isEmpty()) {
@@ -174,9 +181,10 @@ public class BannerService {
     }
     
     public List<BannerResponseDTO> getActiveBanners() {
-        return bannerRepository.findByIsActiveTrueOrderByDisplayOrderAsc().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return catalogCache.get(CatalogCache.BANNERS, "active", () ->
+                bannerRepository.findByIsActiveTrueOrderByDisplayOrderAsc().stream()
+                        .map(this::convertToDTO)
+                        .collect(Collectors.toList()));
     }
     
     private BannerResponseDTO convertToDTO(Banner banner) {
@@ -0,0 +1,242 @@
+package com.example.backend.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache đọc-qua (read-through) cho dữ liệu catalog public: phim, cụm rạp, banner, lịch chiếu.
+ * - Mỗi vùng có TTL và số entry tối đa riêng; đầy thì bỏ entry nạp lâu nhất
+ * - Nhiều request cùng miss một key chỉ nạp DB một lần (các request sau chờ kết quả của lần nạp đó)
+ * - Luồng quản trị publish CatalogChangedEvent, cache xóa đúng các key liên quan sau khi transaction commit;
+ *   TTL chỉ là lưới an toàn cho thay đổi ngoài luồng (và cho status/lịch chiếu phụ thuộc thời điểm hiện tại)
+ * - Giá trị trả ra được dùng chung giữa các request: danh sách bọc unmodifiable, nơi gọi không được sửa DTO
+ * Trạng thái giữ trong bộ nhớ của node.
+ */
+@Component
+@Slf4j
+public class CatalogCache {
+
+    public static final String MOVIES = "movies";
+    public static final String CINEMA_COMPLEXES = "cinema-complexes";
+    public static final String BANNERS = "banners";
+    public static final String SCHEDULE = "schedule";
+
+    /**
+     * Key vùng SCHEDULE; date null = lịch 30 ngày tới (không lọc ngày)
+     */
+    public record ScheduleKey(String kind, LocalDate date, Long movieId, Long cinemaId) {}
+
+    private static final class Entry {
+        final CompletableFuture<Object> value = new CompletableFuture<>();
+        volatile long loadedAt;
+    }
+
+    private static final class Region {
+        final String name;
+        final long ttlMs;
+        final int maxEntries;
+        final ConcurrentMap<Object, Entry> entries = new ConcurrentHashMap<>();
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+        final AtomicLong loadFailures = new AtomicLong();
+
+        Region(String name, long ttlMs, int maxEntries) {
+            this.name = name;
+            this.ttlMs = ttlMs;
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<String, Region> regions = new LinkedHashMap<>();
+
+    public CatalogCache(@Value("${catalog-cache.enabled:true}") boolean enabled,
+                        @Value("${catalog-cache.max-entries:2000}") int maxEntries,
+                        @Value("${catalog-cache.movies-ttl-ms:60000}") long moviesTtlMs,
+                        @Value("${catalog-cache.cinema-complexes-ttl-ms:600000}") long complexesTtlMs,
+                        @Value("${catalog-cache.banners-ttl-ms:600000}") long bannersTtlMs,
+                        @Value("${catalog-cache.schedule-ttl-ms:30000}") long scheduleTtlMs) {
+        this.enabled = enabled;
+        regions.put(MOVIES, new Region(MOVIES, moviesTtlMs, maxEntries));
+        regions.put(CINEMA_COMPLEXES, new Region(CINEMA_COMPLEXES, complexesTtlMs, maxEntries));
+        regions.put(BANNERS, new Region(BANNERS, bannersTtlMs, maxEntries));
+        regions.put(SCHEDULE, new Region(SCHEDULE, scheduleTtlMs, maxEntries));
+    }
+
+    /**
+     * Lấy từ cache, miss hoặc hết hạn thì gọi loader. Loader lỗi thì không lưu gì, lỗi được ném lại cho nơi gọi.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String regionName, Object key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Region region = region(regionName);
+        long now = System.currentTimeMillis();
+
+        Entry entry = region.entries.get(key);
+        if (entry != null && (!entry.value.isDone() || now - entry.loadedAt < region.ttlMs)) {
+            region.hits.incrementAndGet();
+            return (T) join(entry);
+        }
+
+        Entry fresh = new Entry();
+        Entry current = entry == null
+                ? region.entries.putIfAbsent(key, fresh)
+                : (region.entries.replace(key, entry, fresh) ? null : region.entries.get(key));
+        if (current != null) {
+            // Request khác vừa bắt đầu nạp key này
+            region.hits.incrementAndGet();
+            return (T) join(current);
+        }
+
+        region.misses.incrementAndGet();
+        if (region.entries.size() > region.maxEntries) {
+            trim(region, now);
+        }
+        try {
+            Object value = readOnly(loader.get());
+            fresh.loadedAt = System.currentTimeMillis();
+            fresh.value.complete(value);
+            return (T) value;
+        } catch (RuntimeException e) {
+            region.loadFailures.incrementAndGet();
+            region.entries.remove(key, fresh);
+            fresh.value.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void evict(String regionName, Object key) {
+        if (region(regionName).entries.remove(key) != null) {
+            region(regionName).evictions.incrementAndGet();
+        }
+    }
+
+    public void evictIf(String regionName, Predicate<Object> keyPredicate) {
+        Region region = region(regionName);
+        region.entries.keySet().removeIf(key -> {
+            if (keyPredicate.test(key)) {
+                region.evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public void clear(String regionName) {
+        evictIf(regionName, key -> true);
+    }
+
+    public void clearAll() {
+        regions.keySet().forEach(this::clear);
+    }
+
+    /**
+     * Xóa các key bị ảnh hưởng bởi thay đổi, sau khi transaction ghi commit
+     * (publish ngoài transaction thì xử lý ngay)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        Object key = event.key();
+        if (key == null) {
+            clear(event.region());
+            return;
+        }
+        switch (event.region()) {
+            case MOVIES -> {
+                // Phim theo id và mọi danh sách phim (key dạng String)
+                evict(MOVIES, key);
+                evictIf(MOVIES, cached -> cached instanceof String);
+            }
+            case CINEMA_COMPLEXES -> {
+                evict(CINEMA_COMPLEXES, key);
+                evict(CINEMA_COMPLEXES, "all");
+                evict(CINEMA_COMPLEXES, "movies:" + key);
+            }
+            case SCHEDULE -> evictIf(SCHEDULE, cached -> cached instanceof ScheduleKey scheduleKey
+                    && (scheduleKey.date() == null || scheduleKey.date().equals(key)));
+            default -> evict(event.region(), key);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        for (Region region : regions.values()) {
+            long hits = region.hits.get();
+            long misses = region.misses.get();
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("size", region.entries.size());
+            info.put("maxEntries", region.maxEntries);
+            info.put("ttlMs", region.ttlMs);
+            info.put("hits", hits);
+            info.put("misses", misses);
+            info.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+            info.put("evictions", region.evictions.get());
+            info.put("loadFailures", region.loadFailures.get());
+            metrics.put(region.name, info);
+        }
+        return metrics;
+    }
+
+    private Region region(String name) {
+        Region region = regions.get(name);
+        if (region == null) {
+            throw new IllegalArgumentException("Unknown catalog cache region: " + name);
+        }
+        return region;
+    }
+
+    /**
+     * Bỏ entry hết hạn; vẫn còn đầy thì bỏ entry nạp lâu nhất
+     */
+    private void trim(Region region, long now) {
+        region.entries.entrySet().removeIf(e -> e.getValue().value.isDone() && now - e.getValue().loadedAt >= region.ttlMs);
+        while (region.entries.size() > region.maxEntries) {
+            Object oldestKey = null;
+            long oldest = Long.MAX_VALUE;
+            for (Map.Entry<Object, Entry> e : region.entries.entrySet()) {
+                if (e.getValue().value.isDone() && e.getValue().loadedAt < oldest) {
+                    oldest = e.getValue().loadedAt;
+                    oldestKey = e.getKey();
+                }
+            }
+            if (oldestKey == null || region.entries.remove(oldestKey) == null) {
+                break;
+            }
+            region.evictions.incrementAndGet();
+        }
+    }
+
+    private Object readOnly(Object value) {
+        return value instanceof List<?> list ? Collections.unmodifiableList(list) : value;
+    }
+
+    private Object join(Entry entry) {
+        try {
+            return entry.value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.backend.services;
+
+import java.time.LocalDate;
+
+/**
+ * Sự kiện thay đổi dữ liệu catalog (phim, cụm rạp, banner, lịch chiếu) từ các luồng quản trị.
+ * Được publish trong transaction ghi; CatalogCache xóa đúng các key bị ảnh hưởng sau khi commit.
+ *
+ * @param region vùng cache (CatalogCache.MOVIES, CINEMA_COMPLEXES, BANNERS, SCHEDULE)
+ * @param key    id phim / id cụm rạp / ngày chiếu (LocalDate); null = toàn bộ vùng
+ */
+public record CatalogChangedEvent(String region, Object key) {
+
+    public static CatalogChangedEvent movie(Long movieId) {
+        return new CatalogChangedEvent(CatalogCache.MOVIES, movieId);
+    }
+
+    public static CatalogChangedEvent cinemaComplex(Long complexId) {
+        return new CatalogChangedEvent(CatalogCache.CINEMA_COMPLEXES, complexId);
+    }
+
+    public static CatalogChangedEvent banners() {
+        return new CatalogChangedEvent(CatalogCache.BANNERS, null);
+    }
+
+    public static CatalogChangedEvent scheduleDate(LocalDate date) {
+        return new CatalogChangedEvent(CatalogCache.SCHEDULE, date);
+    }
+
+    public static CatalogChangedEvent all(String region) {
+        return new CatalogChangedEvent(region, null);
+    }
+}
@@ -0,0 +1,367 @@
+package com.example.backend.services;
+
+import com.example.backend.dtos.CheckInResultDTO;
+import com.example.backend.dtos.TicketTokenVerificationDTO;
+import com.example.backend.repositories.ManagerRepository;
+import com.example.backend.repositories.ShowtimeRepository;
+import com.example.backend.repositories.TicketRepository;
+import com.example.backend.utils.ConcurrentBitmap;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Soát vé tại cổng.
+ * - Token được kiểm tra offline (chữ ký + revocation) bởi TicketTokenService
+ * - Mỗi suất chiếu giữ một bitmap vé đã dùng trong bộ nhớ, nạp sẵn trước giờ chiếu preload-minutes phút;
+ *   đánh dấu vé là một thao tác CAS nên quét trùng (cùng lúc ở hai cổng) chỉ có một lần được chấp nhận
+ * - Danh sách vé được nạp lại ở mỗi lượt preload và khi quét một vé chưa có trong bộ nhớ (vé bán sau khi nạp)
+ * - Quản lý chỉ soát vé của suất chiếu thuộc cụm rạp mình quản lý
+ * - Thời điểm check-in được ghi xuống tickets.checked_in_at theo batch (flush-interval-ms)
+ * Bitmap nằm trong bộ nhớ của từng node: các máy quét của một rạp cần kết nối tới cùng một node.
+ * Nếu vẫn có vé được dùng ở hai node, UPDATE ... WHERE checked_in_at IS NULL sẽ phát hiện và ghi log.
+ */
+@Service
+@Slf4j
+public class CheckInService {
+
+    private static final String MARK_CHECKED_IN_SQL =
+            "UPDATE tickets SET checked_in_at = ? WHERE ticket_id = ? AND checked_in_at IS NULL";
+
+    private final TicketTokenService ticketTokenService;
+    private final TicketRepository ticketRepository;
+    private final ShowtimeRepository showtimeRepository;
+    private final ManagerRepository managerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long preloadMinutes;
+    private final long retainMinutes;
+    private final int flushBatchSize;
+    private final long refreshMinIntervalMs;
+    private final long managerScopeTtlMs;
+
+    private final ConcurrentMap<Long, ShowtimeCheckIn> showtimes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ManagerScope> managerScopes = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<PendingCheckIn> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong acceptedTotal = new AtomicLong();
+    private final AtomicLong rejectedTotal = new AtomicLong();
+    private final AtomicLong flushedTotal = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+
+    private static final class ShowtimeCheckIn {
+        private final Long showtimeId;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        private final Long cinemaComplexId;
+        private final ConcurrentBitmap used = new ConcurrentBitmap();
+        private final Map<Long, String> seats = new ConcurrentHashMap<>();     // ticketId -> "A5"
+        private final AtomicInteger checkedIn = new AtomicInteger();
+        private volatile long refreshedAt;
+
+        private ShowtimeCheckIn(Long showtimeId, LocalDateTime startTime, LocalDateTime endTime, Long cinemaComplexId) {
+            this.showtimeId = showtimeId;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.cinemaComplexId = cinemaComplexId;
+        }
+    }
+
+    private record PendingCheckIn(long ticketId, LocalDateTime checkedInAt) {}
+
+    private record ManagerScope(Long cinemaComplexId, long loadedAt) {}
+
+    public CheckInService(TicketTokenService ticketTokenService,
+                          TicketRepository ticketRepository,
+                          ShowtimeRepository showtimeRepository,
+                          ManagerRepository managerRepository,
+                          JdbcTemplate jdbcTemplate,
+                          SimpMessagingTemplate messagingTemplate,
+                          @Value("${checkin.preload-minutes:30}") long preloadMinutes,
+                          @Value("${checkin.retain-minutes:30}") long retainMinutes,
+                          @Value("${checkin.flush-batch-size:500}") int flushBatchSize,
+                          @Value("${checkin.refresh-min-interval-ms:5000}") long refreshMinIntervalMs,
+                          @Value("${checkin.manager-scope-ttl-ms:300000}") long managerScopeTtlMs) {
+        this.ticketTokenService = ticketTokenService;
+        this.ticketRepository = ticketRepository;
+        this.showtimeRepository = showtimeRepository;
+        this.managerRepository = managerRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.preloadMinutes = preloadMinutes;
+        this.retainMinutes = retainMinutes;
+        this.flushBatchSize = flushBatchSize;
+        this.refreshMinIntervalMs = refreshMinIntervalMs;
+        this.managerScopeTtlMs = managerScopeTtlMs;
+    }
+
+    /**
+     * Check-in toàn bộ vé trong nội dung QR (QR của một nhóm vé chứa nhiều token)
+     * @param expectedShowtimeId suất chiếu cổng đang soát; null = chấp nhận mọi suất chiếu
+     * @param cinemaComplexId cụm rạp của quản lý đang soát; null = admin, mọi cụm rạp
+     */
+    public List<CheckInResultDTO> checkIn(String content, Long expectedShowtimeId, String gate, Long cinemaComplexId) {
+        if (content == null || content.isBlank()) {
+            throw new RuntimeException("Thiếu nội dung QR");
+        }
+        return Arrays.stream(content.trim().split("\\s+"))
+                .map(token -> checkInToken(token, expectedShowtimeId, gate, cinemaComplexId))
+                .collect(Collectors.toList());
+    }
+
+    private CheckInResultDTO checkInToken(String token, Long expectedShowtimeId, String gate, Long cinemaComplexId) {
+        CheckInResultDTO.CheckInResultDTOBuilder result = CheckInResultDTO.builder()
+                .token(token)
+                .gate(gate)
+                .accepted(false);
+
+        TicketTokenVerificationDTO verification = ticketTokenService.verify(token);
+        result.ticketId(verification.getTicketId()).showtimeId(verification.getShowtimeId());
+        if (!verification.getValid()) {
+            return reject(result, verification.getReason());
+        }
+        if (expectedShowtimeId != null && !expectedShowtimeId.equals(verification.getShowtimeId())) {
+            return reject(result, "WRONG_SHOWTIME");
+        }
+
+        ShowtimeCheckIn state = getOrLoad(verification.getShowtimeId());
+        if (state == null) {
+            return reject(result, "SHOWTIME_NOT_FOUND");
+        }
+        if (cinemaComplexId != null && !cinemaComplexId.equals(state.cinemaComplexId)) {
+            return reject(result, "WRONG_CINEMA_COMPLEX");
+        }
+        long ticketId = verification.getTicketId();
+        String seat = state.seats.get(ticketId);
+        if (seat == null && System.currentTimeMillis() - state.refreshedAt >= refreshMinIntervalMs) {
+            // Vé bán sau lần nạp gần nhất: nạp lại danh sách vé của suất chiếu
+            refresh(state);
+            seat = state.seats.get(ticketId);
+        }
+        if (seat == null) {
+            // Token hợp lệ nhưng vé không thuộc đơn đã thanh toán của suất chiếu
+            return reject(result, "UNKNOWN_TICKET");
+        }
+        result.seat(seat);
+
+        LocalDateTime now = now();
+        if (now.isBefore(state.startTime.minusMinutes(preloadMinutes))) {
+            return reject(result, "TOO_EARLY");
+        }
+        if (now.isAfter(state.endTime)) {
+            return reject(result, "SHOWTIME_ENDED");
+        }
+        if (!state.used.set(ticketId)) {
+            return reject(result, "ALREADY_USED");
+        }
+
+        pending.add(new PendingCheckIn(ticketId, now));
+        acceptedTotal.incrementAndGet();
+        publishProgress(state, state.checkedIn.incrementAndGet());
+        return result.accepted(true).checkedInAt(now).build();
+    }
+
+    private CheckInResultDTO reject(CheckInResultDTO.CheckInResultDTOBuilder result, String reason) {
+        rejectedTotal.incrementAndGet();
+        return result.reason(reason).build();
+    }
+
+    /**
+     * Số vé đã check-in của suất chiếu
+     * @param cinemaComplexId cụm rạp của quản lý; null = admin
+     */
+    public Map<String, Object> getShowtimeStats(Long showtimeId, Long cinemaComplexId) {
+        ShowtimeCheckIn state = getOrLoad(showtimeId);
+        if (state == null) {
+            throw new RuntimeException("Không tìm thấy suất chiếu với ID: " + showtimeId);
+        }
+        if (cinemaComplexId != null && !cinemaComplexId.equals(state.cinemaComplexId)) {
+            throw new SecurityException("Bạn không có quyền xem suất chiếu này");
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("showtimeId", showtimeId);
+        stats.put("startTime", state.startTime);
+        stats.put("endTime", state.endTime);
+        stats.put("totalTickets", state.seats.size());
+        stats.put("checkedIn", state.checkedIn.get());
+        return stats;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("loadedShowtimes", showtimes.size());
+        metrics.put("pendingWrites", pending.size());
+        metrics.put("accepted", acceptedTotal.get());
+        metrics.put("rejected", rejectedTotal.get());
+        metrics.put("flushed", flushedTotal.get());
+        metrics.put("conflicts", conflicts.get());
+        metrics.put("reloads", reloads.get());
+        return metrics;
+    }
+
+    /**
+     * Cụm rạp của quản lý (cache manager-scope-ttl-ms để không truy vấn DB ở mỗi lượt quét)
+     */
+    public Long getManagerComplexId(String username) {
+        ManagerScope scope = managerScopes.get(username);
+        if (scope == null || System.currentTimeMillis() - scope.loadedAt() >= managerScopeTtlMs) {
+            Long complexId = managerRepository.findCinemaComplexIdByUsername(username)
+                    .orElseThrow(() -> new SecurityException("Quản lý chưa được gán cụm rạp"));
+            scope = new ManagerScope(complexId, System.currentTimeMillis());
+            managerScopes.put(username, scope);
+        }
+        return scope.cinemaComplexId();
+    }
+
+    /**
+     * Nạp trước dữ liệu các suất chiếu sắp mở cửa soát vé (nạp lại danh sách vé của suất đã có),
+     * bỏ các suất đã kết thúc quá retain-minutes
+     */
+    @Scheduled(fixedDelayString = "${checkin.preload-interval-ms:60000}")
+    public void preload() {
+        LocalDateTime now = now();
+        for (Long showtimeId : showtimeRepository.findIdsOpenForCheckIn(now, now.plusMinutes(preloadMinutes))) {
+            ShowtimeCheckIn state = showtimes.get(showtimeId);
+            if (state == null) {
+                getOrLoad(showtimeId);
+            } else {
+                refresh(state);
+            }
+        }
+
+        flush();
+        if (!pending.isEmpty()) {
+            // Còn check-in chưa ghi xuống DB thì chưa bỏ state, tránh nạp lại thiếu vé đã dùng
+            return;
+        }
+        LocalDateTime expiredBefore = now.minusMinutes(retainMinutes);
+        showtimes.values().removeIf(state -> state.endTime.isBefore(expiredBefore));
+    }
+
+    /**
+     * Ghi thời điểm check-in xuống DB theo batch
+     */
+    @Scheduled(fixedDelayString = "${checkin.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        while (!pending.isEmpty()) {
+            List<PendingCheckIn> batch = new ArrayList<>(Math.min(flushBatchSize, pending.size()));
+            PendingCheckIn item;
+            while (batch.size() < flushBatchSize && (item = pending.poll()) != null) {
+                batch.add(item);
+            }
+
+            try {
+                int[][] counts = jdbcTemplate.batchUpdate(MARK_CHECKED_IN_SQL, batch, batch.size(), (ps, checkIn) -> {
+                    ps.setTimestamp(1, Timestamp.valueOf(checkIn.checkedInAt()));
+                    ps.setLong(2, checkIn.ticketId());
+                });
+                int index = 0;
+                for (int[] chunk : counts) {
+                    for (int count : chunk) {
+                        // 0 = vé đã được check-in ở nơi khác (node khác) trước đó
+                        if (count == 0) {
+                            conflicts.incrementAndGet();
+                            log.warn("Ticket {} was already checked in before this node accepted it",
+                                    batch.get(index).ticketId());
+                        }
+                        index++;
+                    }
+                }
+                flushedTotal.addAndGet(batch.size());
+            } catch (DataAccessException e) {
+                log.error("Failed to write {} check-ins, will retry: {}", batch.size(), e.getMessage());
+                pending.addAll(batch);
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private ShowtimeCheckIn getOrLoad(Long showtimeId) {
+        ShowtimeCheckIn state = showtimes.get(showtimeId);
+        if (state != null) {
+            return state;
+        }
+        return showtimes.computeIfAbsent(showtimeId, this::load);
+    }
+
+    private ShowtimeCheckIn load(Long showtimeId) {
+        List<Object[]> times = showtimeRepository.findTimesById(showtimeId);
+        if (times.isEmpty()) {
+            return null;
+        }
+        Object[] time = times.get(0);
+        ShowtimeCheckIn state = new ShowtimeCheckIn(showtimeId,
+                (LocalDateTime) time[0], (LocalDateTime) time[1], (Long) time[2]);
+        refresh(state);
+        log.debug("Loaded check-in state for showtime {}: {} tickets, {} checked in",
+                showtimeId, state.seats.size(), state.checkedIn.get());
+        return state;
+    }
+
+    /**
+     * Đồng bộ danh sách vé với DB: thêm vé mới bán, bỏ vé của đơn đã hủy,
+     * đánh dấu vé đã được check-in ở node khác
+     */
+    private void refresh(ShowtimeCheckIn state) {
+        synchronized (state) {
+            List<Object[]> rows = ticketRepository.findCheckInRowsByShowtimeId(state.showtimeId);
+            Set<Long> ticketIds = new HashSet<>(rows.size() * 2);
+            for (Object[] row : rows) {
+                Long ticketId = (Long) row[0];
+                ticketIds.add(ticketId);
+                state.seats.putIfAbsent(ticketId, row[1] + String.valueOf(row[2]));
+                if (row[3] != null && state.used.set(ticketId)) {
+                    state.checkedIn.incrementAndGet();
+                }
+            }
+            state.seats.keySet().retainAll(ticketIds);
+            state.refreshedAt = System.currentTimeMillis();
+        }
+        reloads.incrementAndGet();
+    }
+
+    private void publishProgress(ShowtimeCheckIn state, int checkedIn) {
+        try {
+            Map<String, Object> progress = new HashMap<>();
+            progress.put("showtimeId", state.showtimeId);
+            progress.put("checkedIn", checkedIn);
+            progress.put("totalTickets", state.seats.size());
+            messagingTemplate.convertAndSend("/topic/check-in/" + state.showtimeId, progress);
+        } catch (Exception e) {
+            log.debug("Failed to publish check-in progress: {}", e.getMessage());
+        }
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.backend.services;
+
+import com.example.backend.dtos.CheckoutQueueStatusDTO;
+import com.example.backend.repositories.ShowtimeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hàng chờ checkout cho suất chiếu bán chạy (bật/tắt theo suất chiếu).
+ * - Người mua lấy số thứ tự (ticket) trước khi vào chọn ghế; mỗi giây admit() cho thêm một lượng người vào
+ *   theo admitPerMinute, nên số request chọn ghế/tạo đơn/gọi cổng thanh toán tăng có kiểm soát
+ * - Người đã được vào có pass-ttl để hoàn tất thanh toán; PaymentController từ chối tạo đơn
+ *   cho suất chiếu đang bật hàng chờ nếu ticket chưa được vào hoặc đã hết hạn
+ * - Ticket bỏ dở vẫn chiếm một lượt admit (không cần duyệt hàng chờ), admitPerMinute nên đặt dư một chút
+ * - Ticket gắn với user đã lấy số: user khác gửi cùng ticket thì coi như không có ticket;
+ *   mỗi user chỉ có một ticket cho mỗi suất chiếu, lấy số lại thì nhận lại ticket đang giữ
+ * - Quản lý chỉ bật/tắt/xem hàng chờ của suất chiếu thuộc cụm rạp mình quản lý
+ * Trạng thái giữ trong bộ nhớ của node (cần sticky routing theo suất chiếu nếu chạy nhiều node).
+ */
+@Service
+@Slf4j
+public class CheckoutQueueService {
+
+    private final ShowtimeRepository showtimeRepository;
+    private final long passTtlMs;
+    private final int defaultAdmitPerMinute;
+
+    private final ConcurrentMap<Long, ShowtimeQueue> queues = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, QueueTicket> tickets = new ConcurrentHashMap<>();
+    // showtimeId:username -> ticket đang giữ
+    private final ConcurrentMap<String, String> ticketByUser = new ConcurrentHashMap<>();
+
+    private record QueueTicket(Long showtimeId, long number, String username) {}
+
+    private static class ShowtimeQueue {
+        final Long showtimeId;
+        final Long cinemaComplexId;
+        volatile int admitPerMinute;
+        final AtomicLong issued = new AtomicLong();
+        volatile long admittedUpTo;
+        // các số <= expiredUpTo đã hết hạn pass
+        volatile long expiredUpTo;
+        double carry;
+        // số thứ tự cuối của mỗi đợt admit -> thời điểm admit (ms), đợt cũ hơn pass-ttl bị bỏ
+        final ConcurrentNavigableMap<Long, Long> admittedAt = new ConcurrentSkipListMap<>();
+
+        ShowtimeQueue(Long showtimeId, Long cinemaComplexId, int admitPerMinute) {
+            this.showtimeId = showtimeId;
+            this.cinemaComplexId = cinemaComplexId;
+            this.admitPerMinute = admitPerMinute;
+        }
+    }
+
+    public CheckoutQueueService(ShowtimeRepository showtimeRepository,
+                                @Value("${checkout-queue.pass-ttl-ms:900000}") long passTtlMs,
+                                @Value("${checkout-queue.default-admit-per-minute:120}") int defaultAdmitPerMinute) {
+        this.showtimeRepository = showtimeRepository;
+        this.passTtlMs = passTtlMs;
+        this.defaultAdmitPerMinute = defaultAdmitPerMinute;
+    }
+
+    /**
+     * Bật hàng chờ (hoặc đổi tốc độ) cho suất chiếu
+     * @param cinemaComplexId cụm rạp của quản lý; null = admin, mọi cụm rạp
+     */
+    public void activate(Long showtimeId, Integer admitPerMinute, Long cinemaComplexId) {
+        int rate = admitPerMinute != null ? admitPerMinute : defaultAdmitPerMinute;
+        if (rate <= 0) {
+            throw new RuntimeException("Số người vào mỗi phút phải lớn hơn 0");
+        }
+        List<Object[]> times = showtimeRepository.findTimesById(showtimeId);
+        if (times.isEmpty()) {
+            throw new RuntimeException("Không tìm thấy suất chiếu với ID: " + showtimeId);
+        }
+        Long showtimeComplexId = (Long) times.get(0)[2];
+        checkComplex(cinemaComplexId, showtimeComplexId);
+        queues.compute(showtimeId, (id, existing) -> {
+            if (existing == null) {
+                return new ShowtimeQueue(id, showtimeComplexId, rate);
+            }
+            existing.admitPerMinute = rate;
+            return existing;
+        });
+        log.info("Checkout queue activated for showtime {} ({} per minute)", showtimeId, rate);
+    }
+
+    public void deactivate(Long showtimeId, Long cinemaComplexId) {
+        ShowtimeQueue queue = queues.get(showtimeId);
+        if (queue == null) {
+            return;
+        }
+        checkComplex(cinemaComplexId, queue.cinemaComplexId);
+        if (queues.remove(showtimeId, queue)) {
+            tickets.values().removeIf(ticket -> ticket.showtimeId().equals(showtimeId));
+            ticketByUser.keySet().removeIf(key -> key.startsWith(showtimeId + ":"));
+            log.info("Checkout queue deactivated for showtime {}", showtimeId);
+        }
+    }
+
+    /**
+     * Lấy số thứ tự; user đã có ticket còn hiệu lực cho suất chiếu thì giữ nguyên vị trí
+     * (lấy số lại nhiều lần không tạo thêm ticket). Pass đã hết hạn thì được số mới ở cuối hàng.
+     */
+    public CheckoutQueueStatusDTO join(Long showtimeId, String username) {
+        ShowtimeQueue queue = queues.get(showtimeId);
+        if (queue == null) {
+            return inactiveStatus(showtimeId);
+        }
+        QueueTicket[] joined = new QueueTicket[1];
+        String ticketId = ticketByUser.compute(userKey(showtimeId, username), (key, current) -> {
+            QueueTicket ticket = findTicket(showtimeId, current, username);
+            if (ticket != null && (ticket.number() > queue.admittedUpTo || passExpiresAt(queue, ticket) > now())) {
+                joined[0] = ticket;
+                return current;
+            }
+            if (current != null) {
+                tickets.remove(current);
+            }
+            String newTicketId = UUID.randomUUID().toString();
+            joined[0] = new QueueTicket(showtimeId, queue.issued.incrementAndGet(), username);
+            tickets.put(newTicketId, joined[0]);
+            return newTicketId;
+        });
+        return toStatus(queue, ticketId, joined[0]);
+    }
+
+    public CheckoutQueueStatusDTO getStatus(Long showtimeId, String ticketId, String username) {
+        ShowtimeQueue queue = queues.get(showtimeId);
+        if (queue == null) {
+            return inactiveStatus(showtimeId);
+        }
+        QueueTicket ticket = findTicket(showtimeId, ticketId, username);
+        if (ticket == null) {
+            throw new RuntimeException("Lượt chờ không tồn tại hoặc đã hết hạn. Vui lòng xếp hàng lại");
+        }
+        return toStatus(queue, ticketId, ticket);
+    }
+
+    /**
+     * Kiểm tra trước khi tạo đơn: suất chiếu không bật hàng chờ thì luôn được
+     */
+    public boolean isAdmitted(Long showtimeId, String ticketId, String username) {
+        if (showtimeId == null) {
+            return true;
+        }
+        ShowtimeQueue queue = queues.get(showtimeId);
+        if (queue == null) {
+            return true;
+        }
+        QueueTicket ticket = findTicket(showtimeId, ticketId, username);
+        return ticket != null && passExpiresAt(queue, ticket) > now();
+    }
+
+    /**
+     * @param cinemaComplexId cụm rạp của quản lý; null = admin, mọi hàng chờ
+     */
+    public List<Map<String, Object>> getQueues(Long cinemaComplexId) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (ShowtimeQueue queue : queues.values()) {
+            if (cinemaComplexId != null && !cinemaComplexId.equals(queue.cinemaComplexId)) {
+                continue;
+            }
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("showtimeId", queue.showtimeId);
+            info.put("cinemaComplexId", queue.cinemaComplexId);
+            info.put("admitPerMinute", queue.admitPerMinute);
+            info.put("issued", queue.issued.get());
+            info.put("admitted", queue.admittedUpTo);
+            info.put("waiting", queue.issued.get() - queue.admittedUpTo);
+            result.add(info);
+        }
+        return result;
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void admit() {
+        long now = now();
+        for (ShowtimeQueue queue : queues.values()) {
+            synchronized (queue) {
+                queue.carry += queue.admitPerMinute / 60.0;
+                long batch = (long) queue.carry;
+                queue.carry -= batch;
+                long issued = queue.issued.get();
+                // Không tích lũy lượt khi hàng chờ trống (giữ tối đa một lượt cho người tiếp theo)
+                if (queue.admittedUpTo >= issued) {
+                    queue.carry = Math.min(queue.carry + batch, 1);
+                } else if (batch > 0) {
+                    queue.admittedUpTo = Math.min(issued, queue.admittedUpTo + batch);
+                    queue.admittedAt.put(queue.admittedUpTo, now);
+                }
+                Map.Entry<Long, Long> oldest;
+                while ((oldest = queue.admittedAt.firstEntry()) != null && oldest.getValue() + passTtlMs <= now) {
+                    queue.expiredUpTo = oldest.getKey();
+                    queue.admittedAt.remove(oldest.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Dọn ticket đã hết hạn pass
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpiredTickets() {
+        long now = now();
+        tickets.entrySet().removeIf(entry -> {
+            ShowtimeQueue queue = queues.get(entry.getValue().showtimeId());
+            return queue == null || (entry.getValue().number() <= queue.admittedUpTo
+                    && passExpiresAt(queue, entry.getValue()) <= now);
+        });
+        ticketByUser.entrySet().removeIf(entry -> !tickets.containsKey(entry.getValue()));
+    }
+
+    /**
+     * Ticket của đúng suất chiếu và đúng user đã lấy số; null nếu không có
+     */
+    private QueueTicket findTicket(Long showtimeId, String ticketId, String username) {
+        QueueTicket ticket = ticketId != null ? tickets.get(ticketId) : null;
+        if (ticket == null || !ticket.showtimeId().equals(showtimeId) || !ticket.username().equals(username)) {
+            return null;
+        }
+        return ticket;
+    }
+
+    private String userKey(Long showtimeId, String username) {
+        return showtimeId + ":" + username;
+    }
+
+    private void checkComplex(Long managerComplexId, Long showtimeComplexId) {
+        if (managerComplexId != null && !managerComplexId.equals(showtimeComplexId)) {
+            throw new SecurityException("Bạn chỉ được quản lý hàng chờ của suất chiếu thuộc cụm rạp của mình");
+        }
+    }
+
+    private CheckoutQueueStatusDTO toStatus(ShowtimeQueue queue, String ticketId, QueueTicket ticket) {
+        long position = Math.max(0, ticket.number() - queue.admittedUpTo);
+        boolean admitted = position == 0;
+        long waitSeconds = admitted ? 0 : (long) Math.ceil(position * 60.0 / queue.admitPerMinute);
+        return CheckoutQueueStatusDTO.builder()
+                .showtimeId(queue.showtimeId)
+                .active(true)
+                .ticket(ticketId)
+                .admitted(admitted && passExpiresAt(queue, ticket) > now())
+                .position(position)
+                .estimatedWaitSeconds(waitSeconds)
+                .passExpiresInSeconds(admitted ? Math.max(0, (passExpiresAt(queue, ticket) - now()) / 1000) : null)
+                .build();
+    }
+
+    private CheckoutQueueStatusDTO inactiveStatus(Long showtimeId) {
+        return CheckoutQueueStatusDTO.builder()
+                .showtimeId(showtimeId)
+                .active(false)
+                .admitted(true)
+                .position(0L)
+                .estimatedWaitSeconds(0L)
+                .build();
+    }
+
+    /**
+     * Thời điểm hết hạn pass của ticket; 0 nếu chưa được vào hoặc đã hết hạn
+     */
+    private long passExpiresAt(ShowtimeQueue queue, QueueTicket ticket) {
+        if (ticket.number() > queue.admittedUpTo || ticket.number() <= queue.expiredUpTo) {
+            return 0;
+        }
+        Map.Entry<Long, Long> batch = queue.admittedAt.ceilingEntry(ticket.number());
+        return batch != null ? batch.getValue() + passTtlMs : 0;
+    }
+
+    private long now() {
+        return System.currentTimeMillis();
+    }
+}
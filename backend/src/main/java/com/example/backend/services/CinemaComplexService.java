@@ -10,6 +10,7 @@ import com.example.backend.repositories.CinemaComplexRepository;
 import com.example.backend.repositories.MovieRepository;
 import com.example.backend.repositories.TicketRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,17 +30,22 @@ public class CinemaComplexService {
     private final MovieRepository movieRepository;
     private final ActivityLogService activityLogService;
     private final TicketRepository ticketRepository;
+    private final CatalogCache catalogCache;
+    private final ApplicationEventPublisher eventPublisher;
     
     public List<CinemaComplexResponseDTO> getAllCinemaComplexes() {
-        return cinemaComplexRepository.findAll().stream()
-            .map(this::mapToDTO)
-            .collect(Collectors.toList());
+        return catalogCache.get(CatalogCache.CINEMA_COMPLEXES, "all", () ->
+            cinemaComplexRepository.findAll().stream()
+                .map(this::mapToDTO)
+                .collect(Collectors.toList()));
     }
     
     public CinemaComplexResponseDTO getCinemaComplexById(Long complexId) {
-        CinemaComplex complex = cinemaComplexRepository.findById(complexId)
-            .orElseThrow(() -> new RuntimeException("Không tìm thấy cụm rạp với ID: " + complexId));
-        return mapToDTO(complex);
+        return catalogCache.get(CatalogCache.CINEMA_COMPLEXES, complexId, () -> {
+            CinemaComplex complex = cinemaComplexRepository.findById(complexId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy cụm rạp với ID: " + complexId));
+            return mapToDTO(complex);
+        });
     }
     
     public List<CinemaComplexResponseDTO> getCinemaComplexesByManager(Long complexId) {
@@ -86,6 +92,7 @@ public class CinemaComplexService {
             }
         }
         
+        eventPublisher.publishEvent(CatalogChangedEvent.cinemaComplex(savedComplex.getComplexId()));
         return mapToDTO(savedComplex);
     }
     
@@ -133,6 +140,9 @@ public class CinemaComplexService {
             }
         }
         
+        // Tên/địa chỉ cụm rạp hiển thị trong lịch chiếu
+        eventPublisher.publishEvent(CatalogChangedEvent.cinemaComplex(complexId));
+        eventPublisher.publishEvent(CatalogChangedEvent.all(CatalogCache.SCHEDULE));
         return mapToDTO(updatedComplex);
     }
     
@@ -155,6 +165,8 @@ public class CinemaComplexService {
         }
         
         cinemaComplexRepository.delete(complex);
+        eventPublisher.publishEvent(CatalogChangedEvent.cinemaComplex(complexId));
+        eventPublisher.publishEvent(CatalogChangedEvent.all(CatalogCache.SCHEDULE));
         
         // Log activity - username được truyền từ controller
         if (username != null && !username.isEmpty()) {
@@ -190,6 +202,16 @@ public class CinemaComplexService {
         return complex.getMovies();
     }
 
+    /**
+     * Id các phim của cụm rạp (dùng cho trang public, DTO phim lấy qua MovieService từ cache)
+     */
+    public List<Long> getMovieIdsByComplexId(Long complexId) {
+        return catalogCache.get(CatalogCache.CINEMA_COMPLEXES, "movies:" + complexId, () ->
+            getMoviesByComplexId(complexId).stream()
+                .map(Movie::getMovieId)
+                .collect(Collectors.toList()));
+    }
+
     /**
      * Thêm phim vào cụm rạp
      */
@@ -217,6 +239,7 @@ public class CinemaComplexService {
         // Add movie to complex
         complex.getMovies().add(movie);
         cinemaComplexRepository.save(complex);
+        eventPublisher.publishEvent(CatalogChangedEvent.cinemaComplex(complexId));
 
         logMovieAssignmentActivity(
             username,
@@ -255,6 +278,7 @@ public class CinemaComplexService {
                 .collect(Collectors.toList())
         );
         cinemaComplexRepository.save(complex);
+        eventPublisher.publishEvent(CatalogChangedEvent.cinemaComplex(complexId));
 
         Movie movie = movieRepository.findById(movieId)
             .orElse(null);
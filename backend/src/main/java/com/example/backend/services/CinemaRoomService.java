@@ -15,6 +15,7 @@ import com.example.backend.repositories.SeatRepository;
 import com.example.backend.repositories.TicketRepository;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,6 +33,7 @@ public class CinemaRoomService {
     private final SeatRepository seatRepository;
     private final TicketRepository ticketRepository;
     private final ActivityLogService activityLogService;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional
     public CinemaRoomResponseDTO createCinemaRoom(CreateCinemaRoomDTO createDTO, String username) {
@@ -158,6 +160,8 @@ public class CinemaRoomService {
         }
         
         CinemaRoom savedRoom = cinemaRoomRepository.save(room);
+        // Tên phòng hiển thị trong lịch chiếu
+        eventPublisher.publishEvent(CatalogChangedEvent.all(CatalogCache.SCHEDULE));
         
         CinemaRoomResponseDTO responseDTO = mapToDTO(savedRoom);
         logRoomActivity(username, Action.UPDATE, savedRoom, "Cập nhật phòng chiếu " + responseDTO.getRoomName());
@@ -185,6 +189,7 @@ public class CinemaRoomService {
         }
         
         cinemaRoomRepository.delete(room);
+        eventPublisher.publishEvent(CatalogChangedEvent.all(CatalogCache.SCHEDULE));
         logRoomActivity(username, Action.DELETE, room, "Xóa phòng chiếu " + room.getRoomName());
     }
     
@@ -17,7 +17,6 @@ import com.example.backend.repositories.VoucherRepository;
 import com.example.backend.services.MovieService;
 import com.example.backend.services.CloudinaryService;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -38,7 +37,7 @@ public class CustomerService {
     private final MovieService movieService;
     private final NotificationService notificationService;
     private final CloudinaryService cloudinaryService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
 
     // Constructor injection with @Lazy for MovieService to avoid circular dependency
     public CustomerService(
@@ -51,7 +50,7 @@ public class CustomerService {
             @Lazy MovieService movieService,
             NotificationService notificationService,
             CloudinaryService cloudinaryService,
-            PasswordEncoder passwordEncoder) {
+            PasswordHashingService passwordHashingService) {
         this.userRepository = userRepository;
         this.addressRepository = addressRepository;
         this.customerRepository = customerRepository;
@@ -61,7 +60,7 @@ public class CustomerService {
         this.movieService = movieService;
         this.notificationService = notificationService;
         this.cloudinaryService = cloudinaryService;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
     }
 
     public Customer updateProfile(Long userId, UpdateCustomerProfileRequestDTO req) throws Exception {
@@ -422,7 +421,7 @@ public class CustomerService {
         }
 
         // Kiểm tra mật khẩu cũ
-        if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
+        if (!passwordHashingService.matches(oldPassword, user.getPassword())) {
             throw new Exception("Mật khẩu cũ không đúng");
         }
 
@@ -438,12 +437,12 @@ public class CustomerService {
         }
 
         // Kiểm tra mật khẩu mới phải khác mật khẩu cũ
-        if (passwordEncoder.matches(newPassword, user.getPassword())) {
+        if (passwordHashingService.matches(newPassword, user.getPassword())) {
             throw new Exception("Mật khẩu mới phải khác mật khẩu cũ");
         }
 
         // Cập nhật mật khẩu mới
-        String encodedPassword = passwordEncoder.encode(newPassword);
+        String encodedPassword = passwordHashingService.encode(newPassword);
         user.setPassword(encodedPassword);
         userRepository.save(user);
     }
@@ -470,7 +469,7 @@ public class CustomerService {
         }
 
         // Tạo mật khẩu mới
-        String encodedPassword = passwordEncoder.encode(newPassword);
+        String encodedPassword = passwordHashingService.encode(newPassword);
         System.out.println("=== Creating Password Debug ===");
         System.out.println("User ID: " + userId);
         System.out.println("New password (plain): " + newPassword.substring(0, Math.min(3, newPassword.length())) + "***");
@@ -485,7 +484,6 @@ public class CustomerService {
         User verifyUser = userRepository.findById(userId).orElse(null);
         if (verifyUser != null) {
             System.out.println("Password saved: " + (verifyUser.getPassword() != null && !verifyUser.getPassword().isEmpty()));
-            System.out.println("Saved password matches: " + passwordEncoder.matches(newPassword, verifyUser.getPassword()));
         }
         System.out.println("===============================");
     }
@@ -0,0 +1,225 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.CustomerMonthlySpend;
+import com.example.backend.repositories.CustomerMonthlySpendRepository;
+import com.example.backend.repositories.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bảng chi tiêu theo (user, tháng) cho thống kê chi tiêu của customer.
+ * - OrderChangeListener publish OrderChangedEvent khi đơn hàng được ghi; sau commit tính lại đúng dòng
+ *   (user, tháng) đó bằng 2 truy vấn tổng hợp (idempotent, không cộng dồn delta nên không lệch khi trùng sự kiện)
+ * - Thống kê đọc các dòng của user (một truy vấn theo unique key user_id, period)
+ * - Backfill từ lịch sử đơn hàng theo từng batch user khi bảng còn trống, và đồng bộ lại hằng đêm các user
+ *   có đơn thay đổi gần đây (phòng sự kiện bị mất khi node dừng giữa chừng)
+ * Mọi thao tác ghi chạy trên customerSpendExecutor (một thread) nên không ghi đè lẫn nhau.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerSpendService {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+    private static final int BACKFILL_BATCH_SIZE = 200;
+
+    private final CustomerMonthlySpendRepository spendRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${customer-spend.resync-days:2}")
+    private int resyncDays;
+
+    /**
+     * Thống kê chi tiêu của user (tổng, tháng này, tháng trước, 3 tháng gần nhất)
+     */
+    public Map<String, Object> getStatistics(Long userId) {
+        YearMonth currentMonth = YearMonth.now(ZONE);
+        int thisPeriod = toPeriod(currentMonth);
+        int lastPeriod = toPeriod(currentMonth.minusMonths(1));
+        int threeMonthsAgoPeriod = toPeriod(currentMonth.minusMonths(3));
+
+        BigDecimal totalSpent = BigDecimal.ZERO;
+        BigDecimal thisMonthSpent = BigDecimal.ZERO;
+        BigDecimal lastMonthSpent = BigDecimal.ZERO;
+        BigDecimal lastThreeMonthsSpent = BigDecimal.ZERO;
+        long totalTickets = 0;
+        long totalOrders = 0;
+        for (CustomerMonthlySpend row : spendRepository.findByUserId(userId)) {
+            BigDecimal spent = row.getSpent() != null ? row.getSpent() : BigDecimal.ZERO;
+            totalSpent = totalSpent.add(spent);
+            totalTickets += row.getTicketCount() != null ? row.getTicketCount() : 0;
+            totalOrders += row.getOrderCount() != null ? row.getOrderCount() : 0;
+            if (row.getPeriod() == thisPeriod) {
+                thisMonthSpent = thisMonthSpent.add(spent);
+            }
+            if (row.getPeriod() == lastPeriod) {
+                lastMonthSpent = lastMonthSpent.add(spent);
+            }
+            if (row.getPeriod() >= threeMonthsAgoPeriod) {
+                lastThreeMonthsSpent = lastThreeMonthsSpent.add(spent);
+            }
+        }
+
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalSpent", totalSpent);
+        statistics.put("totalTickets", totalTickets);
+        statistics.put("totalOrders", totalOrders);
+        statistics.put("thisMonthSpent", thisMonthSpent);
+        statistics.put("lastMonthSpent", lastMonthSpent);
+        statistics.put("lastThreeMonthsSpent", lastThreeMonthsSpent);
+        return statistics;
+    }
+
+    /**
+     * Tính lại sau khi transaction ghi đơn hàng commit (publish ngoài transaction thì xử lý ngay)
+     */
+    @Async("customerSpendExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.userId() == null) {
+            return;
+        }
+        YearMonth month = YearMonth.from(event.orderDate());
+        try {
+            refresh(event.userId(), month);
+        } catch (Exception e) {
+            log.warn("Không thể cập nhật chi tiêu của user {} tháng {}: {}", event.userId(), month, e.getMessage());
+        }
+    }
+
+    /**
+     * Tính lại dòng chi tiêu (user, tháng) từ bảng orders; tháng không còn đơn nào thì xóa dòng
+     */
+    public void refresh(Long userId, YearMonth month) {
+        LocalDateTime start = month.atDay(1).atStartOfDay();
+        LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+        Integer period = toPeriod(month);
+        transactionTemplate.executeWithoutResult(status -> {
+            Object[] totals = orderRepository.aggregateSpend(userId, start, end).get(0);
+            long orderCount = ((Number) totals[1]).longValue();
+            CustomerMonthlySpend row = spendRepository.findByUserIdAndPeriod(userId, period).orElse(null);
+            if (orderCount == 0) {
+                if (row != null) {
+                    spendRepository.delete(row);
+                }
+                return;
+            }
+            if (row == null) {
+                row = CustomerMonthlySpend.builder().userId(userId).period(period).build();
+            }
+            row.setSpent(toBigDecimal(totals[0]));
+            row.setOrderCount(orderCount);
+            row.setTicketCount(orderRepository.countSpendTickets(userId, start, end));
+            row.setUpdatedAt(LocalDateTime.now(ZONE));
+            spendRepository.save(row);
+        });
+    }
+
+    /**
+     * Lần đầu chạy (bảng trống): dựng bảng từ toàn bộ lịch sử đơn hàng
+     */
+    @Async("customerSpendExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (spendRepository.count() == 0) {
+            rebuildAll();
+        }
+    }
+
+    /**
+     * Dựng lại toàn bộ bảng, mỗi batch BACKFILL_BATCH_SIZE user một transaction
+     */
+    @Async("customerSpendExecutor")
+    public void rebuildAll() {
+        long afterUserId = 0L;
+        int users = 0;
+        while (true) {
+            List<Long> userIds = orderRepository.findUserIdsWithOrdersAfter(
+                    afterUserId, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+            if (userIds.isEmpty()) {
+                break;
+            }
+            rebuildUsers(userIds);
+            users += userIds.size();
+            afterUserId = userIds.get(userIds.size() - 1);
+        }
+        log.info("Rebuilt monthly spend for {} users", users);
+    }
+
+    /**
+     * Đồng bộ lại các user có đơn được đặt, thanh toán hoặc hủy trong resyncDays ngày gần đây
+     */
+    @Async("customerSpendExecutor")
+    @Scheduled(cron = "${customer-spend.resync-cron:0 40 4 * * *}", zone = "Asia/Ho_Chi_Minh")
+    public void resyncRecent() {
+        List<Long> userIds = orderRepository.findUserIdsWithOrderActivitySince(
+                LocalDateTime.now(ZONE).minusDays(resyncDays));
+        for (int i = 0; i < userIds.size(); i += BACKFILL_BATCH_SIZE) {
+            rebuildUsers(userIds.subList(i, Math.min(i + BACKFILL_BATCH_SIZE, userIds.size())));
+        }
+        if (!userIds.isEmpty()) {
+            log.info("Resynced monthly spend for {} users", userIds.size());
+        }
+    }
+
+    /**
+     * Thay toàn bộ dòng chi tiêu của các user bằng kết quả 2 truy vấn GROUP BY (user, tháng)
+     */
+    private void rebuildUsers(List<Long> userIds) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, Long> ticketCounts = new HashMap<>();
+            for (Object[] row : orderRepository.countSpendTicketsByUsers(userIds)) {
+                ticketCounts.put(key(row), ((Number) row[3]).longValue());
+            }
+            LocalDateTime now = LocalDateTime.now(ZONE);
+            List<CustomerMonthlySpend> rows = new ArrayList<>();
+            for (Object[] row : orderRepository.aggregateSpendByUsers(userIds)) {
+                rows.add(CustomerMonthlySpend.builder()
+                        .userId((Long) row[0])
+                        .period(((Number) row[1]).intValue() * 100 + ((Number) row[2]).intValue())
+                        .spent(toBigDecimal(row[3]))
+                        .orderCount(((Number) row[4]).longValue())
+                        .ticketCount(ticketCounts.getOrDefault(key(row), 0L))
+                        .updatedAt(now)
+                        .build());
+            }
+            spendRepository.deleteByUserIds(userIds);
+            spendRepository.flush();
+            spendRepository.saveAll(rows);
+        });
+    }
+
+    private String key(Object[] row) {
+        return row[0] + ":" + row[1] + ":" + row[2];
+    }
+
+    private int toPeriod(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    private BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+}
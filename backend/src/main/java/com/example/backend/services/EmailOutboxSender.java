@@ -0,0 +1,442 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.EmailOutbox;
+import com.example.backend.entities.enums.EmailOutboxStatus;
+import com.example.backend.repositories.EmailOutboxRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gửi email trong bảng email_outbox:
+ * - Claim một batch PENDING đã tới hạn bằng SELECT ... FOR UPDATE SKIP LOCKED (nhiều node không gửi trùng)
+ * - Chia batch cho các sender, mỗi sender gửi cả phần của mình trên một kết nối SMTP lấy từ SmtpTransportPool
+ * - Email lỗi được retry với backoff tăng gấp đôi, hết max-attempts thì chuyển FAILED
+ * Email được đánh thức gửi ngay sau khi enqueue commit, poll định kỳ chỉ để nhặt retry và email bị sót.
+ */
+@Component
+@Slf4j
+public class EmailOutboxSender {
+
+    private static final String SELECT_DUE_SQL =
+            "SELECT outbox_id FROM email_outbox " +
+            "WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY priority, outbox_id LIMIT :limit FOR UPDATE SKIP LOCKED";
+
+    private static final String MARK_SENDING_SQL =
+            "UPDATE email_outbox SET status = 'SENDING', claimed_at = :now WHERE outbox_id IN (:ids)";
+
+    private static final String MARK_SENT_SQL =
+            "UPDATE email_outbox SET status = 'SENT', sent_at = :now, claimed_at = NULL, last_error = NULL, " +
+            "attempts = attempts + 1 WHERE outbox_id IN (:ids)";
+
+    private static final String MARK_FAILED_SQL =
+            "UPDATE email_outbox SET status = ?, attempts = ?, next_attempt_at = ?, claimed_at = NULL, last_error = ? " +
+            "WHERE outbox_id = ?";
+
+    // Node chết giữa lúc gửi: trả các email SENDING quá lâu về PENDING (có thể gửi lặp, ưu tiên không mất email)
+    private static final String RELEASE_STUCK_SQL =
+            "UPDATE email_outbox SET status = 'PENDING', claimed_at = NULL " +
+            "WHERE status = 'SENDING' AND claimed_at < :before";
+
+    // Email đã gửi (SENT) và email hết retry (FAILED) giữ nội dung HTML + ảnh QR base64, xóa dần theo batch
+    private static final String PURGE_SQL =
+            "DELETE FROM email_outbox WHERE status = :status AND created_at < :before LIMIT :limit";
+
+    private final EmailOutboxRepository outboxRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JavaMailSender mailSender;
+    private final SmtpTransportPool transportPool;
+    private final ObjectMapper objectMapper;
+    private final Executor executor;
+
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicBoolean wakeRequested = new AtomicBoolean(false);
+    private final AtomicBoolean purging = new AtomicBoolean(false);
+
+    private final AtomicLong sentTotal = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong purgedTotal = new AtomicLong();
+    private volatile long lastBatchSize;
+    private volatile long lastBatchDurationMs;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${email.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${email.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${email.outbox.senders:3}")
+    private int senders;
+
+    @Value("${email.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.retry-base-delay-ms:30000}")
+    private long retryBaseDelayMs;
+
+    @Value("${email.outbox.retry-max-delay-ms:3600000}")
+    private long retryMaxDelayMs;
+
+    @Value("${email.outbox.stuck-timeout-ms:600000}")
+    private long stuckTimeoutMs;
+
+    @Value("${email.outbox.borrow-timeout-ms:30000}")
+    private long borrowTimeoutMs;
+
+    @Value("${email.outbox.retention.sent-days:7}")
+    private int sentRetentionDays;
+
+    @Value("${email.outbox.retention.failed-days:30}")
+    private int failedRetentionDays;
+
+    @Value("${email.outbox.retention.batch-size:1000}")
+    private int purgeBatchSize;
+
+    public EmailOutboxSender(EmailOutboxRepository outboxRepository,
+                             NamedParameterJdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             JavaMailSender mailSender,
+                             SmtpTransportPool transportPool,
+                             ObjectMapper objectMapper,
+                             @Qualifier("emailOutboxExecutor") Executor executor) {
+        this.outboxRepository = outboxRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.mailSender = mailSender;
+        this.transportPool = transportPool;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+    }
+
+    /**
+     * Mỗi sender giữ một kết nối SMTP suốt phần batch của mình: pool nhỏ hơn số sender thì các sender
+     * thừa chỉ chờ borrow-timeout-ms rồi đánh lỗi cả phần email
+     */
+    @PostConstruct
+    public void validatePoolSize() {
+        if (transportPool.getPoolSize() < senders) {
+            throw new IllegalStateException("email.outbox.smtp-pool-size (" + transportPool.getPoolSize()
+                    + ") phải >= email.outbox.senders (" + senders + ")");
+        }
+    }
+
+    /**
+     * Nhặt email tới hạn retry và email enqueue mà chưa được đánh thức (ví dụ node restart)
+     */
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    /**
+     * Yêu cầu gửi ngay; nếu đang có vòng gửi thì vòng đó sẽ chạy thêm một lượt nữa
+     */
+    public void wakeUp() {
+        if (!enabled) {
+            return;
+        }
+        wakeRequested.set(true);
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException e) {
+                draining.set(false);
+                log.warn("Cannot schedule email outbox drain: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Xóa email SENT cũ hơn sent-days ngày và FAILED cũ hơn failed-days ngày (chạy trên emailOutboxExecutor,
+     * không giữ thread scheduler)
+     */
+    @Scheduled(cron = "${email.outbox.retention.cron:0 10 4 * * *}", zone = "Asia/Ho_Chi_Minh")
+    public void purge() {
+        if (!purging.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    purgeExpired();
+                } finally {
+                    purging.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            purging.set(false);
+            log.warn("Cannot schedule email outbox purge: {}", e.getMessage());
+        }
+    }
+
+    private void purgeExpired() {
+        long startedAt = System.currentTimeMillis();
+        long deleted = purgeStatus(EmailOutboxStatus.SENT, sentRetentionDays)
+                + purgeStatus(EmailOutboxStatus.FAILED, failedRetentionDays);
+        purgedTotal.addAndGet(deleted);
+        if (deleted > 0) {
+            log.info("Email outbox purge: {} rows deleted in {} ms", deleted, System.currentTimeMillis() - startedAt);
+        }
+    }
+
+    private long purgeStatus(EmailOutboxStatus status, int retentionDays) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("status", status.name())
+                .addValue("before", Timestamp.valueOf(now().minusDays(retentionDays)))
+                .addValue("limit", purgeBatchSize);
+        long deleted = 0;
+        try {
+            int batch;
+            do {
+                batch = jdbcTemplate.update(PURGE_SQL, params);
+                deleted += batch;
+            } while (batch >= purgeBatchSize);
+        } catch (Exception e) {
+            log.error("Email outbox purge of {} rows failed after {} deleted: {}", status, deleted, e.getMessage(), e);
+        }
+        return deleted;
+    }
+
+    private void drain() {
+        try {
+            jdbcTemplate.update(RELEASE_STUCK_SQL, new MapSqlParameterSource(
+                    "before", Timestamp.valueOf(now().minusNanos(stuckTimeoutMs * 1_000_000L))));
+
+            while (wakeRequested.getAndSet(false)) {
+                int processed;
+                do {
+                    processed = sendBatch();
+                } while (processed >= batchSize);
+            }
+        } catch (Exception e) {
+            log.error("Email outbox drain failed: {}", e.getMessage(), e);
+        } finally {
+            draining.set(false);
+            // wakeUp() gọi đúng lúc vòng gửi vừa kết thúc sẽ không schedule được, chạy lại ở đây
+            if (wakeRequested.get()) {
+                wakeUp();
+            }
+        }
+    }
+
+    /**
+     * Claim và gửi một batch
+     * @return số email đã claim
+     */
+    private int sendBatch() {
+        List<Long> ids = transactionTemplate.execute(status -> claim());
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+
+        long startNanos = System.nanoTime();
+        List<EmailOutbox> emails = outboxRepository.findAllById(ids);
+        List<Long> sentIds = Collections.synchronizedList(new ArrayList<>());
+        Map<Long, Exception> failures = new ConcurrentHashMap<>();
+
+        // Chia đều cho các sender, mỗi phần dùng chung một kết nối SMTP
+        int parts = Math.max(1, Math.min(senders, emails.size()));
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int p = 0; p < parts; p++) {
+            List<EmailOutbox> part = new ArrayList<>();
+            for (int i = p; i < emails.size(); i += parts) {
+                part.add(emails.get(i));
+            }
+            futures.add(CompletableFuture.runAsync(() -> sendPart(part, sentIds, failures), executor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        recordResults(emails, sentIds, failures);
+
+        lastBatchSize = emails.size();
+        lastBatchDurationMs = (System.nanoTime() - startNanos) / 1_000_000L;
+        batches.incrementAndGet();
+        log.info("Email outbox batch: {} sent, {} failed in {} ms", sentIds.size(), failures.size(), lastBatchDurationMs);
+        return ids.size();
+    }
+
+    private List<Long> claim() {
+        Timestamp now = Timestamp.valueOf(now());
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_DUE_SQL,
+                new MapSqlParameterSource()
+                        .addValue("now", now)
+                        .addValue("limit", batchSize),
+                Long.class);
+        if (!ids.isEmpty()) {
+            jdbcTemplate.update(MARK_SENDING_SQL, new MapSqlParameterSource()
+                    .addValue("ids", ids)
+                    .addValue("now", now));
+        }
+        return ids;
+    }
+
+    private void sendPart(List<EmailOutbox> part, List<Long> sentIds, Map<Long, Exception> failures) {
+        SmtpTransportPool.PooledTransport pooled = null;
+        try {
+            for (EmailOutbox email : part) {
+                try {
+                    MimeMessage message = buildMessage(email);
+                    if (pooled == null) {
+                        pooled = transportPool.borrow(borrowTimeoutMs);
+                    }
+                    pooled.getTransport().sendMessage(message, message.getAllRecipients());
+                    sentIds.add(email.getOutboxId());
+                } catch (SendFailedException e) {
+                    // Lỗi địa chỉ người nhận, kết nối vẫn dùng tiếp được
+                    failures.put(email.getOutboxId(), e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failures.put(email.getOutboxId(), e);
+                    return;
+                } catch (Exception e) {
+                    failures.put(email.getOutboxId(), e);
+                    // Kết nối có thể đã hỏng, email tiếp theo sẽ lấy kết nối mới
+                    if (pooled != null) {
+                        transportPool.release(pooled, true);
+                        pooled = null;
+                    }
+                }
+            }
+        } finally {
+            if (pooled != null) {
+                transportPool.release(pooled, false);
+            }
+            // Email chưa kịp gửi do bị interrupt sẽ được trả về PENDING ở recordResults
+            for (EmailOutbox email : part) {
+                if (!sentIds.contains(email.getOutboxId()) && !failures.containsKey(email.getOutboxId())) {
+                    failures.put(email.getOutboxId(), new MessagingException("Chưa gửi do sender bị dừng"));
+                }
+            }
+        }
+    }
+
+    private MimeMessage buildMessage(EmailOutbox email) throws Exception {
+        Map<String, String> inlineImages = email.getInlineImages() != null && !email.getInlineImages().isEmpty()
+                ? objectMapper.readValue(email.getInlineImages(), new TypeReference<Map<String, String>>() {})
+                : Collections.emptyMap();
+
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, !inlineImages.isEmpty(), "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(email.getToEmail());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), Boolean.TRUE.equals(email.getHtml()));
+        for (Map.Entry<String, String> image : inlineImages.entrySet()) {
+            byte[] bytes = Base64.getDecoder().decode(image.getValue());
+            helper.addInline(image.getKey(), () -> new ByteArrayInputStream(bytes), "image/png");
+        }
+        message.saveChanges();
+        return message;
+    }
+
+    private void recordResults(List<EmailOutbox> emails, List<Long> sentIds, Map<Long, Exception> failures) {
+        LocalDateTime now = now();
+        if (!sentIds.isEmpty()) {
+            jdbcTemplate.update(MARK_SENT_SQL, new MapSqlParameterSource()
+                    .addValue("ids", sentIds)
+                    .addValue("now", Timestamp.valueOf(now)));
+            sentTotal.addAndGet(sentIds.size());
+        }
+        if (failures.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        for (EmailOutbox email : emails) {
+            Exception error = failures.get(email.getOutboxId());
+            if (error == null) {
+                continue;
+            }
+            int attempts = email.getAttempts() + 1;
+            // Địa chỉ người nhận không hợp lệ thì retry cũng vô ích
+            boolean dead = attempts >= maxAttempts || error instanceof SendFailedException;
+            long delayMs = Math.min(retryMaxDelayMs, retryBaseDelayMs << Math.min(attempts - 1, 20));
+            String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+
+            rows.add(new Object[]{
+                    (dead ? EmailOutboxStatus.FAILED : EmailOutboxStatus.PENDING).name(),
+                    attempts,
+                    Timestamp.valueOf(now.plusNanos(delayMs * 1_000_000L)),
+                    message.length() > 1000 ? message.substring(0, 1000) : message,
+                    email.getOutboxId()
+            });
+            failedAttempts.incrementAndGet();
+            if (dead) {
+                deadLettered.incrementAndGet();
+                log.error("Email {} ({}) to {} failed permanently after {} attempts: {}",
+                        email.getOutboxId(), email.getEmailType(), email.getToEmail(), attempts, message);
+            } else {
+                log.warn("Email {} ({}) to {} failed (attempt {}), retry in {} ms: {}",
+                        email.getOutboxId(), email.getEmailType(), email.getToEmail(), attempts, delayMs, message);
+            }
+        }
+        jdbcTemplate.getJdbcTemplate().batchUpdate(MARK_FAILED_SQL, rows);
+    }
+
+    public long getSentTotal() {
+        return sentTotal.get();
+    }
+
+    public long getFailedAttempts() {
+        return failedAttempts.get();
+    }
+
+    public long getDeadLettered() {
+        return deadLettered.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public long getPurgedTotal() {
+        return purgedTotal.get();
+    }
+
+    public long getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public long getLastBatchDurationMs() {
+        return lastBatchDurationMs;
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
+    }
+}
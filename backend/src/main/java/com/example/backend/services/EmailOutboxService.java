@@ -0,0 +1,159 @@
+package com.example.backend.services;
+
+import com.example.backend.dtos.EmailOutboxStatsDTO;
+import com.example.backend.entities.EmailOutbox;
+import com.example.backend.entities.enums.EmailOutboxStatus;
+import com.example.backend.repositories.EmailOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Ghi email vào outbox. Caller chỉ tốn một lần INSERT, việc gửi qua SMTP do EmailOutboxSender đảm nhận.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxService {
+
+    public static final int PRIORITY_HIGH = 0;     // OTP: người dùng đang chờ trên màn hình
+    public static final int PRIORITY_NORMAL = 5;   // Email xác nhận giao dịch
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailOutboxSender outboxSender;
+    private final SmtpTransportPool transportPool;
+    private final ObjectMapper objectMapper;
+
+    public EmailOutbox enqueueText(String emailType, String toEmail, String subject, String body, int priority) {
+        return enqueue(emailType, null, toEmail, subject, body, false, null, priority);
+    }
+
+    /**
+     * @param inlineImages cid -> ảnh PNG base64, được nhúng vào email để hiển thị qua "cid:..."
+     */
+    public EmailOutbox enqueueHtml(String emailType, Long referenceId, String toEmail, String subject,
+                                   String html, Map<String, String> inlineImages) {
+        return enqueue(emailType, referenceId, toEmail, subject, html, true, inlineImages, PRIORITY_NORMAL);
+    }
+
+    public EmailOutboxStatsDTO getStats() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (EmailOutboxStatus status : EmailOutboxStatus.values()) {
+            counts.put(status.name(), 0L);
+        }
+        for (Object[] row : outboxRepository.countGroupByStatus()) {
+            counts.put(((EmailOutboxStatus) row[0]).name(), (Long) row[1]);
+        }
+        return EmailOutboxStatsDTO.builder()
+                .countsByStatus(counts)
+                .sentTotal(outboxSender.getSentTotal())
+                .failedAttempts(outboxSender.getFailedAttempts())
+                .deadLettered(outboxSender.getDeadLettered())
+                .batches(outboxSender.getBatches())
+                .lastBatchSize(outboxSender.getLastBatchSize())
+                .lastBatchDurationMs(outboxSender.getLastBatchDurationMs())
+                .purgedTotal(outboxSender.getPurgedTotal())
+                .openTransports(transportPool.getOpenCount())
+                .build();
+    }
+
+    /**
+     * Danh sách email FAILED mới nhất (không kèm nội dung để response gọn)
+     */
+    public List<Map<String, Object>> getFailedEmails(int limit) {
+        return outboxRepository.findByStatusOrderByCreatedAtDesc(EmailOutboxStatus.FAILED,
+                        PageRequest.of(0, Math.max(1, Math.min(limit, 200)))).stream()
+                .map(email -> {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("outboxId", email.getOutboxId());
+                    item.put("emailType", email.getEmailType());
+                    item.put("referenceId", email.getReferenceId());
+                    item.put("toEmail", email.getToEmail());
+                    item.put("subject", email.getSubject());
+                    item.put("attempts", email.getAttempts());
+                    item.put("lastError", email.getLastError());
+                    item.put("createdAt", email.getCreatedAt());
+                    return item;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Admin gửi lại email FAILED: reset số lần thử và đưa về PENDING
+     */
+    @Transactional
+    public void retry(Long outboxId) {
+        EmailOutbox email = outboxRepository.findById(outboxId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy email với ID: " + outboxId));
+        if (email.getStatus() != EmailOutboxStatus.FAILED) {
+            throw new RuntimeException("Chỉ có thể gửi lại email ở trạng thái FAILED");
+        }
+        email.setStatus(EmailOutboxStatus.PENDING);
+        email.setAttempts(0);
+        email.setNextAttemptAt(now());
+        outboxRepository.save(email);
+        wakeUpAfterCommit();
+    }
+
+    private EmailOutbox enqueue(String emailType, Long referenceId, String toEmail, String subject,
+                                String body, boolean html, Map<String, String> inlineImages, int priority) {
+        String inlineImagesJson = null;
+        if (inlineImages != null && !inlineImages.isEmpty()) {
+            try {
+                inlineImagesJson = objectMapper.writeValueAsString(inlineImages);
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Không thể lưu ảnh đính kèm email: " + e.getMessage());
+            }
+        }
+
+        LocalDateTime now = now();
+        EmailOutbox email = outboxRepository.save(EmailOutbox.builder()
+                .emailType(emailType)
+                .referenceId(referenceId)
+                .toEmail(toEmail)
+                .subject(subject)
+                .body(body)
+                .html(html)
+                .inlineImages(inlineImagesJson)
+                .priority(priority)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+        log.debug("Queued {} email {} to {}", emailType, email.getOutboxId(), toEmail);
+        wakeUpAfterCommit();
+        return email;
+    }
+
+    /**
+     * Nếu caller đang trong transaction, chỉ đánh thức sender sau khi commit (lúc đó row mới thấy được)
+     */
+    private void wakeUpAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxSender.wakeUp();
+                }
+            });
+        } else {
+            outboxSender.wakeUp();
+        }
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
+    }
+}
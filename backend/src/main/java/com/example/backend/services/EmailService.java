@@ -3,27 +3,19 @@ package com.example.backend.services;
 import com.example.backend.entities.*;
 import com.example.backend.repositories.CinemaComplexRepository;
 import com.example.backend.repositories.OrderRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.EncodeHintType;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
-import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.example.backend.utils.ExpiringDedupSet;
 import jakarta.annotation.PostConstruct;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -35,6 +27,10 @@ public class EmailService {
     private final JavaMailSender mailSender;
     private final CinemaComplexRepository cinemaComplexRepository;
     private final OrderRepository orderRepository;
+    private final EmailTemplateRenderer emailTemplateRenderer;
+    private final EmailOutboxService emailOutboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final QrCodeService qrCodeService;
     
     
     @Value("${spring.mail.username}")
@@ -46,8 +42,15 @@ public class EmailService {
     @Value("${spring.mail.port:}")
     private String mailPort;
     
+    @Value("${email.booking-dedup.ttl-ms:300000}")
+    private long bookingDedupTtlMs;
+    
+    @Value("${email.booking-dedup.max-entries:10000}")
+    private int bookingDedupMaxEntries;
+    
     @PostConstruct
     public void init() {
+        recentBookingEmails = new ExpiringDedupSet<>(bookingDedupTtlMs, bookingDedupMaxEntries);
         System.out.println("=== EmailService Configuration ===");
         System.out.println("Mail Host: " + (mailHost != null && !mailHost.isEmpty() ? mailHost : "NOT SET"));
         System.out.println("Mail Port: " + (mailPort != null && !mailPort.isEmpty() ? mailPort : "NOT SET"));
@@ -76,16 +79,12 @@ public class EmailService {
                 throw new RuntimeException("Email người gửi chưa được cấu hình");
             }
             
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Mã OTP đăng ký tài khoản Cinesmart");
-            message.setText(buildOtpEmailContent(otpCode));
-            
-            mailSender.send(message);
-            System.out.println("EmailService - OTP email sent successfully to " + toEmail);
+            // Chỉ ghi vào outbox, request không phải chờ SMTP
+            emailOutboxService.enqueueText("OTP", toEmail, "Mã OTP đăng ký tài khoản Cinesmart",
+                    buildOtpEmailContent(otpCode), EmailOutboxService.PRIORITY_HIGH);
+            System.out.println("EmailService - OTP email queued for " + toEmail);
         } catch (Exception e) {
-            System.err.println("EmailService - Exception sending OTP to " + toEmail + ": " + e.getMessage());
+            System.err.println("EmailService - Exception queueing OTP to " + toEmail + ": " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException("Không thể gửi email OTP: " + e.getMessage());
         }
@@ -105,16 +104,11 @@ public class EmailService {
                 throw new RuntimeException("Email người gửi chưa được cấu hình");
             }
             
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Mã OTP đặt lại mật khẩu Cinesmart");
-            message.setText(buildForgotPasswordOtpContent(otpCode));
-            
-            mailSender.send(message);
-            System.out.println("EmailService - Forgot password OTP email sent successfully to " + toEmail);
+            emailOutboxService.enqueueText("FORGOT_PASSWORD_OTP", toEmail, "Mã OTP đặt lại mật khẩu Cinesmart",
+                    buildForgotPasswordOtpContent(otpCode), EmailOutboxService.PRIORITY_HIGH);
+            System.out.println("EmailService - Forgot password OTP email queued for " + toEmail);
         } catch (Exception e) {
-            System.err.println("EmailService - Exception sending forgot password OTP to " + toEmail + ": " + e.getMessage());
+            System.err.println("EmailService - Exception queueing forgot password OTP to " + toEmail + ": " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException("Không thể gửi email OTP: " + e.getMessage());
         }
@@ -125,13 +119,8 @@ public class EmailService {
      */
     public void sendPasswordResetConfirmationEmail(String toEmail) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Mật khẩu của bạn đã được đặt lại thành công");
-            message.setText(buildPasswordResetConfirmationContent());
-            
-            mailSender.send(message);
+            emailOutboxService.enqueueText("PASSWORD_RESET", toEmail, "Mật khẩu của bạn đã được đặt lại thành công",
+                    buildPasswordResetConfirmationContent(), EmailOutboxService.PRIORITY_NORMAL);
         } catch (Exception e) {
             // Log error but don't throw exception
             System.err.println("Không thể gửi email xác nhận: " + e.getMessage());
@@ -183,8 +172,9 @@ public class EmailService {
                 """;
     }
     
-    // Track emails đã gửi trong session để tránh duplicate
-    private final java.util.concurrent.ConcurrentHashMap<Long, Long> sentEmailOrders = new java.util.concurrent.ConcurrentHashMap<>();
+    // Lọc nhanh các lần gọi trùng trên node này (nhiều callback thanh toán cho cùng một order);
+    // dedup chính là cột Order.emailSentAt
+    private ExpiringDedupSet<Long> recentBookingEmails;
     
     /**
      * Gửi email xác nhận đặt vé với QR code (hoặc chỉ đồ ăn)
@@ -222,19 +212,10 @@ public class EmailService {
             System.out.println("EmailService - mailHost: " + mailHost);
         }
         
-        // Kiểm tra đã gửi email cho order này chưa (trong vòng 5 phút)
-        // Sử dụng synchronized để tránh race condition
-        synchronized (sentEmailOrders) {
-            Long currentTime = System.currentTimeMillis();
-            Long lastSentTime = sentEmailOrders.get(orderId);
-            
-            if (lastSentTime != null && (currentTime - lastSentTime) < 5 * 60 * 1000) {
-                System.out.println("EmailService - Order " + orderId + " email already sent recently, skipping");
-                return; // Đã gửi trong vòng 5 phút, không gửi lại
-            }
-            
-            // Đánh dấu đã gửi TRƯỚC KHI thực sự gửi để tránh duplicate
-            sentEmailOrders.put(orderId, currentTime);
+        // Đánh dấu đang xử lý TRƯỚC KHI load order để các lần gọi trùng bỏ qua ngay
+        if (!recentBookingEmails.tryAdd(orderId)) {
+            System.out.println("EmailService - Order " + orderId + " email already sent recently, skipping");
+            return;
         }
         
         String toEmail = null; // Khai báo bên ngoài try-catch để có thể dùng trong catch
@@ -250,6 +231,11 @@ public class EmailService {
             order = orderWithDetailsOpt.get();
             System.out.println("EmailService - Step 1: Order loaded successfully");
             
+            if (order.getEmailSentAt() != null) {
+                System.out.println("EmailService - Order " + orderId + " email already sent at " + order.getEmailSentAt() + ", skipping");
+                return;
+            }
+            
             // Check if order has tickets
             boolean hasTickets = order.getTickets() != null && !order.getTickets().isEmpty();
             System.out.println("EmailService - Step 2: Checking tickets - hasTickets: " + hasTickets);
@@ -340,31 +326,10 @@ public class EmailService {
                         .sorted()
                         .collect(Collectors.toList());
                     
-                    // Tạo booking ID
-                    String bookingId = String.format("%d-%d-%s", 
-                        order.getOrderId(),
-                        st.getShowtimeId(),
-                        st.getStartTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"))
-                    );
+                    String bookingId = qrCodeService.buildBookingId(order, st);
                     
-                    // Tạo dữ liệu cho QR code (sử dụng LinkedHashMap để giữ thứ tự giống frontend)
-                    Map<String, Object> qrData = new LinkedHashMap<>();
-                    // Thứ tự: bookingId, orderId, movie, cinema, date, time, seats, format (giống frontend)
-                    qrData.put("bookingId", bookingId);
-                    qrData.put("orderId", order.getOrderId().toString()); // Convert to string để giống frontend
-                    qrData.put("movie", movie.getTitle());
-                    qrData.put("cinema", cinema.getName() + (cinema.getAddress() != null ? 
-                        " (" + (cinema.getAddress().getProvince() != null ? 
-                            cinema.getAddress().getDescription() + ", " + cinema.getAddress().getProvince() 
-                            : cinema.getAddress().getDescription()) + ")" 
-                        : ""));
-                    qrData.put("date", st.getStartTime().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
-                    qrData.put("time", st.getStartTime().format(DateTimeFormatter.ofPattern("HH:mm")));
-                    qrData.put("seats", seatIds);
-                    qrData.put("format", mapRoomType(movieVersion.getRoomType()));
-                    
-                    // Tạo QR code
-                    String qrCodeBase64 = generateQRCode(qrData);
+                    // Tạo QR code: token có chữ ký của các vé (giống endpoint /api/tickets/{id}/qr.png)
+                    String qrCodeBase64 = generateQRCode(qrCodeService.buildTicketGroupContent(tickets));
                     qrCodeBase64List.add(qrCodeBase64);
                     
                     // Tính tổng giá cho nhóm vé này
@@ -438,52 +403,39 @@ public class EmailService {
             
             String htmlContent = buildBookingEmailHtml(bookingInfoList, qrCodeCids, order, hasTickets, hasCombos);
             
-            // Gửi email
-            System.out.println("EmailService - Step 6: Creating MimeMessage...");
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            System.out.println("EmailService - Step 7: Setting email properties...");
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject(emailSubject);
-            helper.setText(htmlContent, true);
-            
             // Embed QR code images inline using CID
-            System.out.println("EmailService - Step 8: Embedding QR codes (" + qrCodeBase64List.size() + " images)...");
+            Map<String, String> inlineImages = new LinkedHashMap<>();
             for (int i = 0; i < qrCodeBase64List.size(); i++) {
                 String base64 = qrCodeBase64List.get(i);
                 if (base64 != null && !base64.isEmpty()) {
-                    byte[] qrCodeBytes = Base64.getDecoder().decode(base64);
-                    helper.addInline(qrCodeCids.get(i), 
-                        () -> new java.io.ByteArrayInputStream(qrCodeBytes),
-                        "image/png");
+                    inlineImages.put(qrCodeCids.get(i), base64);
                 }
             }
             
-            System.out.println("EmailService - Step 9: Sending email via mailSender.send()...");
-            mailSender.send(message);
+            // Ghi vào outbox, EmailOutboxSender sẽ gửi qua SMTP (có retry).
+            // Đánh dấu emailSentAt cùng transaction: node khác đã đánh dấu trước thì không enqueue nữa
+            System.out.println("EmailService - Step 6: Queueing email (" + inlineImages.size() + " QR images)...");
+            final String recipient = toEmail;
+            final Long queuedOrderId = order.getOrderId();
+            Boolean queued = transactionTemplate.execute(status -> {
+                if (orderRepository.markEmailSent(queuedOrderId, LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"))) == 0) {
+                    return false;
+                }
+                emailOutboxService.enqueueHtml("BOOKING_CONFIRMATION", queuedOrderId, recipient,
+                        emailSubject, htmlContent, inlineImages);
+                return true;
+            });
+            if (!Boolean.TRUE.equals(queued)) {
+                System.out.println("EmailService - Order " + orderId + " email already queued by another node, skipping");
+                return;
+            }
             System.out.println("========================================");
-            System.out.println("EmailService - SUCCESS: Email sent successfully to " + toEmail + 
+            System.out.println("EmailService - SUCCESS: Email queued for " + toEmail + 
                              " for Order ID: " + order.getOrderId());
             System.out.println("========================================");
-        } catch (jakarta.mail.MessagingException me) {
-            System.err.println("========================================");
-            System.err.println("EmailService - MESSAGING EXCEPTION for Order ID: " + orderId);
-            System.err.println("Error type: " + me.getClass().getName());
-            System.err.println("Error message: " + me.getMessage());
-            System.err.println("From email: " + fromEmail);
-            System.err.println("To email: " + toEmail);
-            System.err.println("Mail host: " + mailHost);
-            System.err.println("Mail port: " + mailPort);
-            me.printStackTrace();
-            // Log full stack trace
-            StackTraceElement[] stackTrace = me.getStackTrace();
-            for (int i = 0; i < Math.min(stackTrace.length, 20); i++) {
-                System.err.println("Stack[" + i + "]: " + stackTrace[i]);
-            }
-            System.err.println("========================================");
         } catch (Exception e) {
+            // Cho phép gọi lại để gửi email cho order này
+            recentBookingEmails.remove(orderId);
             System.err.println("========================================");
             System.err.println("EmailService - GENERAL EXCEPTION for Order ID: " + orderId);
             System.err.println("Error type: " + e.getClass().getName());
@@ -518,34 +470,18 @@ public class EmailService {
      */
     private String generateQRCode(Map<String, Object> data) {
         try {
-            // Convert data to JSON string - COMPACT format (không có spaces, giống JSON.stringify)
-            ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.configure(com.fasterxml.jackson.databind.SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, false);
-            objectMapper.configure(com.fasterxml.jackson.core.JsonGenerator.Feature.QUOTE_FIELD_NAMES, true);
-            // Tắt pretty printing để có format compact
-            objectMapper.configure(com.fasterxml.jackson.core.JsonGenerator.Feature.IGNORE_UNKNOWN, true);
-            String jsonData = objectMapper.writeValueAsString(data);
-            
-            System.out.println("=== Backend QR Code Data ===");
-            System.out.println("JSON: " + jsonData);
-            System.out.println("===========================");
-            
-            // Tạo QR code - Tăng kích thước lên 400x400 để đảm bảo chứa đủ dữ liệu
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            Map<EncodeHintType, Object> hints = new HashMap<>();
-            hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M); // Giảm xuống M để chứa nhiều dữ liệu hơn nếu cần
-            hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
-            hints.put(EncodeHintType.MARGIN, 1);
-            
-            BitMatrix bitMatrix = qrCodeWriter.encode(jsonData, BarcodeFormat.QR_CODE, 400, 400, hints);
-            
-            // Convert to PNG
-            ByteArrayOutputStream pngOutputStream = new ByteArrayOutputStream();
-            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", pngOutputStream);
-            byte[] pngData = pngOutputStream.toByteArray();
-            
-            // Convert to base64
-            return Base64.getEncoder().encodeToString(pngData);
+            // QrCodeService cache PNG theo nội dung, gửi lại email không phải encode lại
+            return Base64.getEncoder().encodeToString(qrCodeService.render(data).png());
+        } catch (Exception e) {
+            System.err.println("Error generating QR code: " + e.getMessage());
+            e.printStackTrace();
+            return "";
+        }
+    }
+    
+    private String generateQRCode(String content) {
+        try {
+            return Base64.getEncoder().encodeToString(qrCodeService.render(content).png());
         } catch (Exception e) {
             System.err.println("Error generating QR code: " + e.getMessage());
             e.printStackTrace();
@@ -554,351 +490,94 @@ public class EmailService {
     }
     
     /**
-     * Tạo HTML email template
+     * Tạo HTML email từ template email/booking-confirmation.mustache (đã compile sẵn)
      */
     private String buildBookingEmailHtml(List<BookingInfo> bookingInfoList, 
                                          List<String> qrCodeCids, 
                                          Order order,
                                          boolean hasTickets,
                                          boolean hasCombos) {
-        StringBuilder html = new StringBuilder();
-        html.append("""
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                <style>
-                    body {
-                        font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif;
-                        margin: 0;
-                        padding: 0;
-                        background-color: #f5f5f5;
-                    }
-                    .email-container {
-                        max-width: 600px;
-                        margin: 0 auto;
-                        background-color: #ffffff;
-                    }
-                    .header {
-                        background: linear-gradient(135deg, #e83b41 0%, #c92e33 100%);
-                        padding: 30px 24px;
-                        text-align: center;
-                        color: #ffffff;
-                    }
-                    .header h1 {
-                        margin: 0;
-                        font-size: 32px;
-                        font-weight: 800;
-                        margin-bottom: 8px;
-                    }
-                    .header p {
-                        margin: 0;
-                        font-size: 14px;
-                        opacity: 0.9;
-                    }
-                    .content {
-                        padding: 24px;
-                    }
-                    .ticket-section {
-                        margin-bottom: 30px;
-                        border: 1px solid #e0e0e0;
-                        border-radius: 12px;
-                        overflow: hidden;
-                    }
-                    .movie-info {
-                        background-color: #2a2a2a;
-                        padding: 20px;
-                        text-align: center;
-                        color: #ffffff;
-                    }
-                    .movie-title {
-                        font-size: 24px;
-                        font-weight: 800;
-                        margin: 0 0 8px 0;
-                        color: #ffffff;
-                    }
-                    .cinema-name {
-                        font-size: 14px;
-                        color: #cccccc;
-                        margin: 0;
-                    }
-                    .ticket-details {
-                        padding: 20px;
-                        background-color: #fafafa;
-                    }
-                    .details-grid {
-                        display: grid;
-                        grid-template-columns: 1fr 1fr;
-                        gap: 16px;
-                        margin-bottom: 20px;
-                    }
-                    .detail-item {
-                        font-size: 13px;
-                    }
-                    .detail-label {
-                        color: #555;
-                        font-weight: 600;
-                        margin-bottom: 4px;
-                    }
-                    .detail-value {
-                        color: #000;
-                        font-weight: 700;
-                        font-size: 16px;
-                    }
-                    .detail-value.price {
-                        color: #e83b41;
-                        font-size: 20px;
-                        font-weight: 800;
-                    }
-                    .qr-section {
-                        text-align: center;
-                        padding: 20px;
-                        background-color: #fff;
-                        border-top: 2px dashed #ddd;
-                    }
-                    .qr-code {
-                        display: inline-block;
-                        padding: 16px;
-                        background-color: #fff;
-                        border-radius: 8px;
-                        border: 1px solid #eee;
-                    }
-                    .qr-code img {
-                        width: 200px;
-                        height: 200px;
-                        display: block;
-                    }
-                    .qr-label {
-                        font-size: 14px;
-                        color: #333;
-                        margin-bottom: 12px;
-                        font-weight: 600;
-                    }
-                    .booking-id {
-                        font-size: 12px;
-                        color: #555;
-                        margin-top: 12px;
-                        font-weight: 500;
-                    }
-                    .footer {
-                        padding: 16px 24px;
-                        background-color: #f5f5f5;
-                        border-radius: 0 0 12px 12px;
-                        font-size: 13px;
-                        color: #333;
-                        text-align: center;
-                    }
-                    .footer-info {
-                        margin-bottom: 4px;
-                    }
-                    .footer-note {
-                        margin-top: 8px;
-                        font-size: 12px;
-                        color: #555;
-                    }
-                    .order-info {
-                        background-color: #f9f9f9;
-                        padding: 16px;
-                        border-radius: 8px;
-                        margin-bottom: 20px;
-                        font-size: 13px;
-                        color: #333;
-                    }
-                    .order-info-item {
-                        margin-bottom: 8px;
-                    }
-                    .order-info-item:last-child {
-                        margin-bottom: 0;
-                    }
-                    .food-section {
-                        margin-top: 20px;
-                        padding: 20px;
-                        background-color: #fefef2;
-                        border-radius: 8px;
-                        border-left: 4px solid #fbbf24;
-                    }
-                    .section-title {
-                        margin-top: 0;
-                        margin-bottom: 12px;
-                        font-size: 16px;
-                        color: #333;
-                        font-weight: 700;
-                    }
-                    .food-item {
-                        background-color: #ffffff;
-                        padding: 12px;
-                        margin-bottom: 8px;
-                        border-radius: 6px;
-                        border-left: 3px solid #fbbf24;
-                        box-shadow: 0 1px 3px rgba(0,0,0,0.08);
-                    }
-                    .food-name {
-                        font-weight: 600;
-                        color: #333;
-                        margin-bottom: 4px;
-                    }
-                    .food-details {
-                        font-size: 12px;
-                        color: #666;
-                    }
-                </style>
-            </head>
-            <body>
-                <div class="email-container">
-                    <div class="header">
-                        <h1>""");
+        Map<String, Object> model = new HashMap<>();
         // Xác định header theo loại đơn hàng
         if (hasTickets && hasCombos) {
-            html.append("VÉ XEM PHIM & ĐỒ ĂN");
+            model.put("headerTitle", "VÉ XEM PHIM & ĐỒ ĂN");
         } else if (hasTickets) {
-            html.append("VÉ XEM PHIM");
+            model.put("headerTitle", "VÉ XEM PHIM");
         } else {
-            html.append("ĐƠN HÀNG ĐỒ ĂN");
+            model.put("headerTitle", "ĐƠN HÀNG ĐỒ ĂN");
         }
-        html.append("</h1>");
-        html.append("<p>Cinesmart Cinema</p>");
-        html.append("</div>");
-        html.append("<div class=\"content\">");
-        html.append("""
-                        <div class="order-info">
-                            <div class="order-info-item"><strong>Mã đơn hàng:</strong> #""");
-        html.append(order.getOrderId());
-        html.append("</div>");
-        html.append("<div class=\"order-info-item\"><strong>Ngày đặt:</strong> ");
-        html.append(order.getOrderDate() != null ? 
+        model.put("orderId", order.getOrderId());
+        model.put("orderDateTime", order.getOrderDate() != null ?
             order.getOrderDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")) : "");
-        html.append("</div>");
-        html.append("<div class=\"order-info-item\"><strong>Tổng tiền:</strong> ");
-        html.append(formatPrice(order.getTotalAmount()));
-        html.append("</div>");
-        html.append("</div>");
-        
+        model.put("orderDate", order.getOrderDate() != null ?
+            order.getOrderDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) : "");
+        model.put("totalAmount", formatPrice(order.getTotalAmount()));
+
         // Tạo ticket cho mỗi booking (chỉ hiển thị nếu có vé)
-        if (hasTickets && !bookingInfoList.isEmpty()) {
-        for (int i = 0; i < bookingInfoList.size(); i++) {
-            BookingInfo info = bookingInfoList.get(i);
-            String qrCodeCid = i < qrCodeCids.size() ? qrCodeCids.get(i) : "";
-            
-            html.append("""
-                <div class="ticket-section">
-                    <div class="movie-info">
-                        <h2 class="movie-title">""");
-            html.append(escapeHtml(info.movieTitle));
-            html.append("</h2>");
-            html.append("<p class=\"cinema-name\">");
-            html.append(escapeHtml(info.cinemaName));
-            if (!info.cinemaAddress.isEmpty()) {
-                html.append(" (").append(escapeHtml(info.cinemaAddress)).append(")");
+        List<Map<String, Object>> tickets = new ArrayList<>();
+        if (hasTickets) {
+            for (int i = 0; i < bookingInfoList.size(); i++) {
+                BookingInfo info = bookingInfoList.get(i);
+                Map<String, Object> ticket = new HashMap<>();
+                ticket.put("movieTitle", info.movieTitle);
+                ticket.put("cinemaName", info.cinemaName);
+                ticket.put("cinemaAddress", info.cinemaAddress);
+                ticket.put("date", info.date);
+                ticket.put("time", info.time);
+                ticket.put("format", info.format);
+                ticket.put("seats", String.join(", ", info.seats));
+                ticket.put("price", formatPrice(info.price));
+                ticket.put("bookingId", info.bookingId);
+                // QR Code sử dụng CID để hiển thị inline
+                ticket.put("qrCid", i < qrCodeCids.size() ? qrCodeCids.get(i) : "");
+                tickets.add(ticket);
             }
-            html.append("</p>");
-            html.append("</div>");
-            html.append("<div class=\"ticket-details\">");
-            html.append("<div class=\"details-grid\">");
-            html.append("<div class=\"detail-item\">");
-            html.append("<div class=\"detail-label\">Ngày chiếu</div>");
-            html.append("<div class=\"detail-value\">").append(info.date).append("</div>");
-            html.append("</div>");
-            html.append("<div class=\"detail-item\">");
-            html.append("<div class=\"detail-label\">Giờ chiếu</div>");
-            html.append("<div class=\"detail-value\">").append(info.time).append("</div>");
-            html.append("</div>");
-            html.append("<div class=\"detail-item\">");
-            html.append("<div class=\"detail-label\">Định dạng</div>");
-            html.append("<div class=\"detail-value\">").append(info.format).append("</div>");
-            html.append("</div>");
-            html.append("<div class=\"detail-item\">");
-            html.append("<div class=\"detail-label\">Ghế</div>");
-            html.append("<div class=\"detail-value\">").append(String.join(", ", info.seats)).append("</div>");
-            html.append("</div>");
-            html.append("<div class=\"detail-item\" style=\"grid-column: 1 / -1;\">");
-            html.append("<div class=\"detail-label\">Tổng tiền</div>");
-            html.append("<div class=\"detail-value price\">").append(formatPrice(info.price)).append("</div>");
-            html.append("</div>");
-            html.append("</div>");
-            html.append("</div>");
-            
-            // QR Code section - sử dụng CID để hiển thị inline
-            html.append("<div class=\"qr-section\">");
-            html.append("<div class=\"qr-label\">Mã QR Code - Vui lòng quét tại rạp</div>");
-            if (!qrCodeCid.isEmpty()) {
-                html.append("<div class=\"qr-code\">");
-                html.append("<img src=\"cid:").append(qrCodeCid).append("\" alt=\"QR Code\" />");
-                html.append("</div>");
-            }
-            html.append("<div class=\"booking-id\">Booking ID: ").append(info.bookingId).append("</div>");
-            html.append("</div>");
-            html.append("<div class=\"footer\">");
-            html.append("<div class=\"footer-info\">Ngày đặt: ");
-            html.append(order.getOrderDate() != null ? 
-                order.getOrderDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) : "");
-            html.append("</div>");
-            html.append("<div class=\"footer-note\">Vui lòng đến rạp trước giờ chiếu 15 phút</div>");
-            html.append("</div>");
-            html.append("</div>");
         }
+        model.put("tickets", tickets);
+
+        if (order.getVoucher() != null) {
+            Map<String, Object> voucher = new HashMap<>();
+            voucher.put("code", order.getVoucher().getCode());
+            voucher.put("name", order.getVoucher().getName());
+            model.put("voucher", voucher);
         }
-        
+
         // Thêm mục đồ ăn nếu có (hiển thị ngay cả khi chỉ mua đồ ăn)
-        if (hasCombos && order.getOrderCombos() != null && !order.getOrderCombos().isEmpty()) {
-            html.append("<div class=\"food-section\">");
-            html.append("<h3 class=\"section-title\">🍿 Đồ ăn & Nước uống</h3>");
-            
+        boolean showCombos = hasCombos && order.getOrderCombos() != null && !order.getOrderCombos().isEmpty();
+        model.put("hasCombos", showCombos);
+        if (showCombos) {
             // Hiển thị cụm rạp cho đơn hàng đồ ăn (nếu chỉ có đồ ăn, không có vé)
             if (!hasTickets && order.getCinemaComplexId() != null) {
                 try {
-                    CinemaComplex cinema = cinemaComplexRepository.findByComplexId(order.getCinemaComplexId())
-                        .orElse(null);
-                    if (cinema != null) {
-                        html.append("<div style=\"background-color: #fff; padding: 12px; margin-bottom: 12px; border-radius: 6px; border-left: 3px solid #fbbf24; box-shadow: 0 1px 3px rgba(0,0,0,0.08);\">");
-                        html.append("<div style=\"font-weight: 600; color: #555; margin-bottom: 4px; font-size: 13px;\">Cụm rạp:</div>");
-                        html.append("<div style=\"font-weight: 600; color: #333; font-size: 15px;\">").append(escapeHtml(cinema.getName())).append("</div>");
-                        html.append("</div>");
-                    }
+                    cinemaComplexRepository.findByComplexId(order.getCinemaComplexId())
+                        .ifPresent(cinema -> model.put("comboCinemaName", cinema.getName()));
                 } catch (Exception e) {
                     // Nếu không tìm thấy cụm rạp, bỏ qua
                     System.err.println("Error loading cinema complex for order " + order.getOrderId() + ": " + e.getMessage());
                 }
             }
-            
+
+            List<Map<String, Object>> combos = new ArrayList<>();
             for (OrderCombo combo : order.getOrderCombos()) {
                 if (combo.getFoodCombo() != null) {
                     FoodCombo food = combo.getFoodCombo();
-                    html.append("<div class=\"food-item\">");
-                    html.append("<div class=\"food-name\">").append(escapeHtml(food.getName())).append("</div>");
-                    html.append("<div class=\"food-details\">");
-                    html.append("Số lượng: ").append(combo.getQuantity());
-                    html.append(" | Đơn giá: ").append(formatPrice(food.getPrice()));
-                    BigDecimal totalCombo = food.getPrice().multiply(BigDecimal.valueOf(combo.getQuantity()));
-                    html.append(" | Thành tiền: ").append(formatPrice(totalCombo));
-                    html.append("</div>");
-                    html.append("</div>");
+                    Map<String, Object> item = new HashMap<>();
+                    item.put("name", food.getName());
+                    item.put("quantity", combo.getQuantity());
+                    item.put("unitPrice", formatPrice(food.getPrice()));
+                    item.put("lineTotal", formatPrice(food.getPrice().multiply(BigDecimal.valueOf(combo.getQuantity()))));
+                    combos.add(item);
                 }
             }
-            
-            // Nếu chỉ có đồ ăn (không có vé), thêm QR code cho đơn hàng đồ ăn
+            model.put("combos", combos);
+
+            // Nếu chỉ có đồ ăn (không có vé), QR code đầu tiên là cho đơn hàng đồ ăn
             if (!hasTickets && !qrCodeCids.isEmpty()) {
-                String foodQrCid = qrCodeCids.get(0); // QR code đầu tiên là cho đơn hàng đồ ăn
-                html.append("<div class=\"qr-section\" style=\"margin-top: 20px; padding-top: 20px; border-top: 2px dashed #ddd;\">");
-                html.append("<div class=\"qr-label\">Mã QR Code - Vui lòng quét tại rạp</div>");
-                html.append("<div class=\"qr-code\">");
-                html.append("<img src=\"cid:").append(foodQrCid).append("\" alt=\"QR Code\" />");
-                html.append("</div>");
-                html.append("<div class=\"booking-id\">Order ID: ").append(order.getOrderId()).append("</div>");
-                html.append("</div>");
+                model.put("foodQrCid", qrCodeCids.get(0));
             }
-            
-            html.append("</div>");
         }
-        
-        html.append("""
-                    </div>
-                </div>
-            </body>
-            </html>
-            """);
-        
-        return html.toString();
+
+        return emailTemplateRenderer.render("email/booking-confirmation", model);
     }
     
     private String formatPrice(BigDecimal price) {
@@ -921,16 +600,9 @@ public class EmailService {
             String htmlContent = buildTopUpEmailHtml(userName, amount, newBalance, transactionRef, 
                                                      transactionTime, paymentMethod);
             
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("Nạp tiền thành công vào Ví Cinesmart - Cinesmart Cinema");
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            System.out.println("Top-up confirmation email sent to: " + toEmail);
+            emailOutboxService.enqueueHtml("TOP_UP", null, toEmail,
+                    "Nạp tiền thành công vào Ví Cinesmart - Cinesmart Cinema", htmlContent, null);
+            System.out.println("Top-up confirmation email queued for: " + toEmail);
         } catch (Exception e) {
             System.err.println("Error sending top-up confirmation email: " + e.getMessage());
             e.printStackTrace();
@@ -0,0 +1,59 @@
+package com.example.backend.services;
+
+import com.samskivert.mustache.Mustache;
+import com.samskivert.mustache.Template;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Render email HTML từ template Mustache trong classpath:templates/.
+ * Mỗi template (kể cả partial {{> ...}}) chỉ được đọc và compile một lần, sau đó dùng lại cho mọi email;
+ * Template của JMustache thread-safe nên emailExecutor có thể render song song.
+ * Giá trị {{var}} được escape HTML sẵn, không cần escapeHtml thủ công.
+ */
+@Component
+@Slf4j
+public class EmailTemplateRenderer {
+
+    private static final String TEMPLATE_PREFIX = "templates/";
+    private static final String TEMPLATE_SUFFIX = ".mustache";
+
+    private final ConcurrentMap<String, Template> templates = new ConcurrentHashMap<>();
+
+    private final Mustache.Compiler compiler = Mustache.compiler()
+            .defaultValue("")
+            .emptyStringIsFalse(true)
+            .withLoader(this::openTemplate);
+
+    /**
+     * @param name tên template không có đuôi, ví dụ "email/booking-confirmation"
+     * @param context Map/bean chứa dữ liệu cho template
+     */
+    public String render(String name, Object context) {
+        return templates.computeIfAbsent(name, this::compile).execute(context);
+    }
+
+    private Template compile(String name) {
+        try (Reader reader = openTemplate(name)) {
+            Template template = compiler.compile(reader);
+            log.info("Compiled email template {}", name);
+            return template;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không đọc được email template: " + name, e);
+        }
+    }
+
+    private Reader openTemplate(String name) throws IOException {
+        ClassPathResource resource = new ClassPathResource(TEMPLATE_PREFIX + name + TEMPLATE_SUFFIX);
+        return new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.backend.services;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * OtpStore trong bộ nhớ của node (chỉ phù hợp khi chạy một node hoặc có sticky session).
+ * Entry hết hạn được bỏ qua khi đọc và dọn định kỳ.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<Entry> get(String namespace, String key) {
+        Entry entry = entries.get(key(namespace, key));
+        if (entry == null || entry.isExpired(System.currentTimeMillis())) {
+            return Optional.empty();
+        }
+        return Optional.of(entry);
+    }
+
+    @Override
+    public void put(String namespace, String key, Entry entry) {
+        entries.put(key(namespace, key), entry);
+    }
+
+    @Override
+    public Optional<Entry> remove(String namespace, String key) {
+        Entry entry = entries.remove(key(namespace, key));
+        if (entry == null || entry.isExpired(System.currentTimeMillis())) {
+            return Optional.empty();
+        }
+        return Optional.of(entry);
+    }
+
+    @Override
+    public Entry compute(String namespace, String key, UnaryOperator<Entry> function) {
+        return entries.compute(key(namespace, key), (k, current) -> {
+            if (current != null && current.isExpired(System.currentTimeMillis())) {
+                current = null;
+            }
+            return function.apply(current);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${otp.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private String key(String namespace, String key) {
+        return namespace + ':' + key;
+    }
+}
@@ -2,9 +2,11 @@ package com.example.backend.services;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,6 +14,7 @@ import com.example.backend.dtos.CreateMovieDTO;
 import com.example.backend.dtos.MovieResponseDTO;
 import com.example.backend.dtos.UpdateMovieDTO;
 import com.example.backend.entities.Movie;
+import com.example.backend.entities.MovieSummary;
 import com.example.backend.entities.MovieVersion;
 import com.example.backend.entities.enums.Language;
 import com.example.backend.entities.enums.MovieStatus;
@@ -38,12 +41,15 @@ public class MovieService {
     private final ShowtimeRepository showtimeRepository;
     private final TicketRepository ticketRepository;
     private final ActivityLogService activityLogService;
+    private final MovieSummaryService movieSummaryService;
+    private final CatalogCache catalogCache;
+    private final ApplicationEventPublisher eventPublisher;
     
     
     @Transactional
     public MovieResponseDTO createMovie(CreateMovieDTO createMovieDTO, String username) {
-        // Tính status tự động từ showtime sớm nhất (mặc định là COMING_SOON nếu chưa có showtime)
-        MovieStatus calculatedStatus = calculateMovieStatus(null);
+        // Phim mới chưa có showtime -> COMING_SOON
+        MovieStatus calculatedStatus = MovieStatus.COMING_SOON;
         
         Movie movie = Movie.builder()
                 .title(createMovieDTO.getTitle())
@@ -94,7 +100,8 @@ public class MovieService {
             movieVersionRepository.saveAll(versions);
         }
         
-        return convertToDTO(savedMovie);
+        eventPublisher.publishEvent(CatalogChangedEvent.movie(savedMovie.getMovieId()));
+        return convertToDTO(savedMovie, movieSummaryService.refresh(savedMovie.getMovieId()));
     }
     
     @Transactional
@@ -184,7 +191,8 @@ public class MovieService {
         } else {
             // Nếu không có status trong DTO (bỏ đánh dấu ENDED), tính lại status từ showtime
             // Bỏ qua logic giữ nguyên ENDED để cho phép bỏ đánh dấu
-            MovieStatus calculatedStatus = calculateMovieStatusWithoutPreservingEnded(movie);
+            MovieStatus calculatedStatus = movieSummaryService.resolveStatus(
+                    movie.getStatus(), movieSummaryService.getSummary(movieId), false);
             movie.setStatus(calculatedStatus);
         }
         
@@ -249,7 +257,10 @@ public class MovieService {
             }
         }
         
-        return convertToDTO(updatedMovie);
+        // Định dạng/ngôn ngữ có thể đã đổi (xóa version thì showtime của version đó cũng bị xóa)
+        eventPublisher.publishEvent(CatalogChangedEvent.movie(movieId));
+        eventPublisher.publishEvent(CatalogChangedEvent.all(CatalogCache.SCHEDULE));
+        return convertToDTO(updatedMovie, movieSummaryService.refresh(movieId));
     }
     
     @Transactional
@@ -270,6 +281,9 @@ public class MovieService {
         }
         
         movieRepository.delete(movie);
+        movieSummaryService.remove(movieId);
+        eventPublisher.publishEvent(CatalogChangedEvent.movie(movieId));
+        eventPublisher.publishEvent(CatalogChangedEvent.all(CatalogCache.SCHEDULE));
         
         // Log activity - username được truyền từ controller
         if (username != null && !username.isEmpty()) {
@@ -290,151 +304,53 @@ public class MovieService {
     }
     
     public MovieResponseDTO getMovieById(Long movieId) {
-        Movie movie = movieRepository.findById(movieId)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy phim với ID: " + movieId));
-        
-        return convertToDTO(movie);
+        return catalogCache.get(CatalogCache.MOVIES, movieId, () -> {
+            Movie movie = movieRepository.findById(movieId)
+                    .orElseThrow(() -> new RuntimeException("Không tìm thấy phim với ID: " + movieId));
+            
+            return convertToDTO(movie, movieSummaryService.getSummary(movieId));
+        });
     }
     
     public List<MovieResponseDTO> getAllMovies() {
-        return movieRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return catalogCache.get(CatalogCache.MOVIES, "all",
+                () -> convertToDTOs(movieRepository.findAll()));
     }
     
     
     public List<MovieResponseDTO> getNowShowingMovies() {
-        List<Movie> movies = movieRepository.findNowShowingMovies();
-        return movies.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return catalogCache.get(CatalogCache.MOVIES, "now-showing",
+                () -> convertToDTOs(movieRepository.findNowShowingMovies()));
     }
     
     public List<MovieResponseDTO> getComingSoonMovies() {
-        List<Movie> movies = movieRepository.findComingSoonMovies();
-        return movies.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return catalogCache.get(CatalogCache.MOVIES, "coming-soon",
+                () -> convertToDTOs(movieRepository.findComingSoonMovies()));
     }
     
     public List<MovieResponseDTO> getMoviesByStatus(MovieStatus status) {
-        List<Movie> movies = movieRepository.findByStatus(status);
-        return movies.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return catalogCache.get(CatalogCache.MOVIES, "status:" + status,
+                () -> convertToDTOs(movieRepository.findByStatus(status)));
     }
     
     
     /**
-     * Tính status của phim dựa trên showtime sớm nhất
-     * - COMING_SOON: Nếu chưa có showtime hoặc showtime sớm nhất trong tương lai
-     * - NOW_SHOWING: Nếu có showtime đã bắt đầu hoặc đang diễn ra
-     * - ENDED: CHỈ được set thủ công bởi admin, KHÔNG tự động tính
-     */
-    private MovieStatus calculateMovieStatus(Movie movie) {
-        if (movie == null || movie.getMovieId() == null) {
-            // Phim mới chưa có ID, mặc định là COMING_SOON
-            return MovieStatus.COMING_SOON;
-        }
-        
-        // Nếu status hiện tại là ENDED, giữ nguyên (chỉ admin mới có thể set ENDED)
-        if (movie.getStatus() == MovieStatus.ENDED) {
-            return MovieStatus.ENDED;
-        }
-        
-        // Lấy tất cả showtimes của phim
-        List<Showtime> showtimes = showtimeRepository.findAllByMovieId(movie.getMovieId());
-        
-        if (showtimes.isEmpty()) {
-            // Chưa có showtime, mặc định là COMING_SOON
-            return MovieStatus.COMING_SOON;
-        }
-        
-        LocalDateTime now = LocalDateTime.now();
-        
-        // Tìm showtime sớm nhất và muộn nhất
-        Optional<Showtime> earliestShowtime = showtimes.stream()
-                .min((s1, s2) -> s1.getStartTime().compareTo(s2.getStartTime()));
-        Optional<Showtime> latestShowtime = showtimes.stream()
-                .max((s1, s2) -> s1.getEndTime().compareTo(s2.getEndTime()));
-        
-        if (earliestShowtime.isPresent() && latestShowtime.isPresent()) {
-            LocalDateTime earliestStart = earliestShowtime.get().getStartTime();
-            LocalDateTime latestEnd = latestShowtime.get().getEndTime();
-            
-            if (now.isBefore(earliestStart)) {
-                // Tất cả showtime đều trong tương lai
-                return MovieStatus.COMING_SOON;
-            } else {
-                // Có showtime đã bắt đầu hoặc đang diễn ra -> NOW_SHOWING
-                // KHÔNG tự động set ENDED ngay cả khi tất cả showtime đã kết thúc
-                return MovieStatus.NOW_SHOWING;
-            }
-        }
-        
-        // Fallback
-        return MovieStatus.COMING_SOON;
-    }
-    
-    /**
-     * Tính status của phim dựa trên showtime mà KHÔNG giữ nguyên ENDED
-     * Dùng khi admin bỏ đánh dấu ENDED để tính lại status từ showtime
+     * Danh sách phim: tóm tắt (status, định dạng, ngôn ngữ) của tất cả phim lấy trong một truy vấn
      */
-    private MovieStatus calculateMovieStatusWithoutPreservingEnded(Movie movie) {
-        if (movie == null || movie.getMovieId() == null) {
-            return MovieStatus.COMING_SOON;
-        }
-        
-        // Lấy tất cả showtimes của phim
-        List<Showtime> showtimes = showtimeRepository.findAllByMovieId(movie.getMovieId());
-        
-        if (showtimes.isEmpty()) {
-            return MovieStatus.COMING_SOON;
-        }
-        
-        LocalDateTime now = LocalDateTime.now();
-        
-        // Tìm showtime sớm nhất và muộn nhất
-        Optional<Showtime> earliestShowtime = showtimes.stream()
-                .min((s1, s2) -> s1.getStartTime().compareTo(s2.getStartTime()));
-        Optional<Showtime> latestShowtime = showtimes.stream()
-                .max((s1, s2) -> s1.getEndTime().compareTo(s2.getEndTime()));
-        
-        if (earliestShowtime.isPresent() && latestShowtime.isPresent()) {
-            LocalDateTime earliestStart = earliestShowtime.get().getStartTime();
-            LocalDateTime latestEnd = latestShowtime.get().getEndTime();
-            
-            if (now.isBefore(earliestStart)) {
-                // Tất cả showtime đều trong tương lai
-                return MovieStatus.COMING_SOON;
-            } else if (now.isAfter(latestEnd)) {
-                // Tất cả showtime đã kết thúc
-                // Nhưng không tự động set ENDED, để admin quyết định
-                return MovieStatus.NOW_SHOWING;
-            } else {
-                // Có showtime đang diễn ra hoặc sắp diễn ra
-                return MovieStatus.NOW_SHOWING;
-            }
-        }
-        
-        return MovieStatus.COMING_SOON;
+    private List<MovieResponseDTO> convertToDTOs(List<Movie> movies) {
+        Map<Long, MovieSummary> summaries = movieSummaryService.getSummaries(
+                movies.stream().map(Movie::getMovieId).collect(Collectors.toList()));
+        return movies.stream()
+                .map(movie -> convertToDTO(movie, summaries.get(movie.getMovieId())))
+                .collect(Collectors.toList());
     }
     
-    private MovieResponseDTO convertToDTO(Movie movie) {
-        List<MovieVersion> versions = movieVersionRepository.findByMovie(movie);
-        
-        List<RoomType> formats = versions.stream()
-                .map(MovieVersion::getRoomType)
-                .distinct()
-                .collect(Collectors.toList());
-        
-        List<Language> languages = versions.stream()
-                .map(MovieVersion::getLanguage)
-                .distinct()
-                .collect(Collectors.toList());
+    private MovieResponseDTO convertToDTO(Movie movie, MovieSummary summary) {
+        List<RoomType> formats = movieSummaryService.getFormats(summary);
+        List<Language> languages = movieSummaryService.getLanguages(summary);
         
         // Tính lại status từ showtime sớm nhất, nhưng giữ nguyên ENDED nếu đã được set thủ công
-        MovieStatus calculatedStatus = calculateMovieStatus(movie);
+        MovieStatus calculatedStatus = movieSummaryService.resolveStatus(movie.getStatus(), summary, true);
         
         return MovieResponseDTO.builder()
                 .movieId(movie.getMovieId())
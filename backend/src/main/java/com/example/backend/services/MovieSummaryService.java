@@ -0,0 +1,198 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.Movie;
+import com.example.backend.entities.MovieSummary;
+import com.example.backend.entities.enums.Language;
+import com.example.backend.entities.enums.MovieStatus;
+import com.example.backend.entities.enums.RoomType;
+import com.example.backend.repositories.MovieRepository;
+import com.example.backend.repositories.MovieSummaryRepository;
+import com.example.backend.repositories.MovieVersionRepository;
+import com.example.backend.repositories.ShowtimeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bảng tóm tắt theo phim (movie_summaries): suất chiếu sớm nhất/muộn nhất, số suất, định dạng, ngôn ngữ.
+ * - refresh(movieId) được gọi trong cùng transaction khi thêm/sửa/xóa suất chiếu hoặc phiên bản phim
+ *   (2 truy vấn tổng hợp theo một phim, không tải entity showtime)
+ * - Danh sách phim đọc tóm tắt bằng một truy vấn findAllById và tính status tại thời điểm đọc
+ * - Dựng lại toàn bộ khi khởi động và theo lịch để đồng bộ lại nếu có thay đổi ngoài luồng trên
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MovieSummaryService {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+
+    private final MovieSummaryRepository movieSummaryRepository;
+    private final MovieRepository movieRepository;
+    private final MovieVersionRepository movieVersionRepository;
+    private final ShowtimeRepository showtimeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Tính lại tóm tắt của một phim (gọi sau khi đã save/delete showtime hoặc movie version)
+     */
+    @Transactional
+    public MovieSummary refresh(Long movieId) {
+        MovieSummary summary = movieSummaryRepository.findById(movieId)
+                .orElseGet(() -> MovieSummary.builder().movieId(movieId).build());
+
+        List<Object[]> times = showtimeRepository.aggregateTimesByMovieId(movieId);
+        applyTimes(summary, times.isEmpty() ? null : times.get(0), 0);
+
+        Set<RoomType> formats = EnumSet.noneOf(RoomType.class);
+        Set<Language> languages = EnumSet.noneOf(Language.class);
+        for (Object[] row : movieVersionRepository.findFormatRowsByMovieId(movieId)) {
+            addFormat(formats, languages, row[0], row[1]);
+        }
+        summary.setFormats(join(formats));
+        summary.setLanguages(join(languages));
+        summary.setUpdatedAt(LocalDateTime.now(ZONE));
+        return movieSummaryRepository.save(summary);
+    }
+
+    @Transactional
+    public void remove(Long movieId) {
+        if (movieSummaryRepository.existsById(movieId)) {
+            movieSummaryRepository.deleteById(movieId);
+        }
+    }
+
+    public MovieSummary getSummary(Long movieId) {
+        return movieSummaryRepository.findById(movieId).orElse(null);
+    }
+
+    /**
+     * Tóm tắt của nhiều phim trong một truy vấn
+     */
+    public Map<Long, MovieSummary> getSummaries(Collection<Long> movieIds) {
+        if (movieIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return movieSummaryRepository.findAllById(movieIds).stream()
+                .collect(Collectors.toMap(MovieSummary::getMovieId, Function.identity()));
+    }
+
+    /**
+     * Status của phim theo suất chiếu sớm nhất
+     * - ENDED: giữ nguyên nếu preserveEnded (chỉ admin mới đánh dấu ENDED)
+     * - COMING_SOON: chưa có suất chiếu hoặc suất sớm nhất còn ở tương lai
+     * - NOW_SHOWING: đã có suất chiếu bắt đầu (không tự chuyển sang ENDED)
+     */
+    public MovieStatus resolveStatus(MovieStatus currentStatus, MovieSummary summary, boolean preserveEnded) {
+        if (preserveEnded && currentStatus == MovieStatus.ENDED) {
+            return MovieStatus.ENDED;
+        }
+        if (summary == null || summary.getFirstShowtimeStart() == null) {
+            return MovieStatus.COMING_SOON;
+        }
+        return LocalDateTime.now(ZONE).isBefore(summary.getFirstShowtimeStart())
+                ? MovieStatus.COMING_SOON
+                : MovieStatus.NOW_SHOWING;
+    }
+
+    public List<RoomType> getFormats(MovieSummary summary) {
+        return split(summary != null ? summary.getFormats() : null, RoomType::valueOf);
+    }
+
+    public List<Language> getLanguages(MovieSummary summary) {
+        return split(summary != null ? summary.getLanguages() : null, Language::valueOf);
+    }
+
+    /**
+     * Dựng lại toàn bộ bảng tóm tắt bằng 3 truy vấn tổng hợp
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${movie-summary.rebuild-cron:0 20 4 * * *}", zone = "Asia/Ho_Chi_Minh")
+    public void rebuildAll() {
+        Map<Long, Object[]> timesByMovie = new HashMap<>();
+        for (Object[] row : showtimeRepository.aggregateTimesGroupByMovie()) {
+            timesByMovie.put((Long) row[0], row);
+        }
+        Map<Long, Set<RoomType>> formatsByMovie = new HashMap<>();
+        Map<Long, Set<Language>> languagesByMovie = new HashMap<>();
+        for (Object[] row : movieVersionRepository.findAllFormatRows()) {
+            Long movieId = (Long) row[0];
+            addFormat(formatsByMovie.computeIfAbsent(movieId, k -> EnumSet.noneOf(RoomType.class)),
+                    languagesByMovie.computeIfAbsent(movieId, k -> EnumSet.noneOf(Language.class)),
+                    row[1], row[2]);
+        }
+
+        Map<Long, MovieSummary> existing = movieSummaryRepository.findAll().stream()
+                .collect(Collectors.toMap(MovieSummary::getMovieId, Function.identity()));
+        LocalDateTime now = LocalDateTime.now(ZONE);
+        List<MovieSummary> summaries = new ArrayList<>();
+        for (Movie movie : movieRepository.findAll()) {
+            Long movieId = movie.getMovieId();
+            MovieSummary summary = existing.remove(movieId);
+            if (summary == null) {
+                summary = MovieSummary.builder().movieId(movieId).build();
+            }
+            applyTimes(summary, timesByMovie.get(movieId), 1);
+            summary.setFormats(join(formatsByMovie.getOrDefault(movieId, Collections.emptySet())));
+            summary.setLanguages(join(languagesByMovie.getOrDefault(movieId, Collections.emptySet())));
+            summary.setUpdatedAt(now);
+            summaries.add(summary);
+        }
+        movieSummaryRepository.saveAll(summaries);
+        // Phim đã bị xóa
+        movieSummaryRepository.deleteAll(existing.values());
+        eventPublisher.publishEvent(CatalogChangedEvent.all(CatalogCache.MOVIES));
+        log.info("Rebuilt {} movie summaries", summaries.size());
+    }
+
+    /**
+     * @param offset vị trí cột min startTime trong row (0 với truy vấn theo một phim, 1 khi có cột movieId)
+     */
+    private void applyTimes(MovieSummary summary, Object[] row, int offset) {
+        long count = row != null && row[offset + 3] != null ? ((Number) row[offset + 3]).longValue() : 0;
+        summary.setShowtimeCount(count);
+        summary.setFirstShowtimeStart(count > 0 ? (LocalDateTime) row[offset] : null);
+        summary.setLastShowtimeStart(count > 0 ? (LocalDateTime) row[offset + 1] : null);
+        summary.setLastShowtimeEnd(count > 0 ? (LocalDateTime) row[offset + 2] : null);
+    }
+
+    private void addFormat(Set<RoomType> formats, Set<Language> languages, Object roomType, Object language) {
+        if (roomType != null) {
+            formats.add((RoomType) roomType);
+        }
+        if (language != null) {
+            languages.add((Language) language);
+        }
+    }
+
+    private String join(Set<? extends Enum<?>> values) {
+        return values.isEmpty() ? null : values.stream().map(Enum::name).collect(Collectors.joining(","));
+    }
+
+    private <E> List<E> split(String value, Function<String, E> parser) {
+        if (value == null || value.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return Arrays.stream(value.split(",")).map(parser).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.backend.services;
+
+import com.example.backend.dtos.NotificationDTO;
+import com.example.backend.entities.NotificationCampaign;
+import com.example.backend.entities.enums.CampaignStatus;
+import com.example.backend.repositories.CustomerRepository;
+import com.example.backend.repositories.NotificationCampaignRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chạy notification campaign theo từng chunk:
+ * - Lấy userId theo keyset (userId > checkpoint), bộ nhớ cố định theo chunk-size
+ * - Batch insert notifications + cập nhật checkpoint trong cùng một transaction
+ * - Nghỉ chunk-delay-ms giữa các chunk để không chiếm hết connection pool
+ * Nếu bị ngắt giữa chừng (deploy/restart), campaign chạy tiếp từ lastUserId.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationCampaignRunner {
+
+    public static final String BROADCAST_DESTINATION = "/topic/notifications/campaigns";
+
+    private static final String INSERT_NOTIFICATION_SQL =
+            "INSERT INTO notifications (user_id, type, title, message, timestamp, data, is_read, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, false, ?)";
+
+    private final NotificationCampaignRepository campaignRepository;
+    private final CustomerRepository customerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final NotificationUnreadCounter unreadCounter;
+
+    // Các campaign đang chạy trên node này, tránh chạy trùng một campaign
+    private final Set<Long> runningCampaigns = ConcurrentHashMap.newKeySet();
+
+    @Value("${notification.campaign.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${notification.campaign.chunk-delay-ms:200}")
+    private long chunkDelayMs;
+
+    @Async("campaignExecutor")
+    public void run(Long campaignId) {
+        if (!runningCampaigns.add(campaignId)) {
+            log.info("Campaign {} is already running on this node", campaignId);
+            return;
+        }
+        try {
+            execute(campaignId);
+        } finally {
+            runningCampaigns.remove(campaignId);
+        }
+    }
+
+    private void execute(Long campaignId) {
+        NotificationCampaign campaign = campaignRepository.findById(campaignId).orElse(null);
+        if (campaign == null) {
+            log.warn("Campaign {} not found", campaignId);
+            return;
+        }
+        if (campaign.getStatus() == CampaignStatus.COMPLETED || campaign.getStatus() == CampaignStatus.CANCELLED) {
+            return;
+        }
+
+        boolean resumed = campaign.getStatus() == CampaignStatus.RUNNING || campaign.getLastUserId() > 0;
+        // Chỉ đổi trạng thái bằng UPDATE có điều kiện, không save cả entity (ghi đè CANCELLED/checkpoint của node khác)
+        Integer claimed = transactionTemplate.execute(status -> campaignRepository.markRunning(campaignId, now()));
+        if (claimed == null || claimed == 0) {
+            log.info("Campaign {} was finished or cancelled before it started", campaignId);
+            return;
+        }
+        log.info("Campaign {} {} from userId > {}", campaignId, resumed ? "resumed" : "started", campaign.getLastUserId());
+
+        long afterUserId = campaign.getLastUserId();
+        long sent = campaign.getSentCount();
+        try {
+            while (true) {
+                CampaignStatus currentStatus = campaignRepository.findStatusById(campaignId);
+                if (currentStatus == CampaignStatus.CANCELLED) {
+                    log.info("Campaign {} cancelled at userId {} ({} sent)", campaignId, afterUserId, sent);
+                    return;
+                }
+
+                List<Long> userIds = fetchChunk(campaign, afterUserId);
+                if (userIds.isEmpty()) {
+                    break;
+                }
+
+                long lastUserId = userIds.get(userIds.size() - 1);
+                if (!writeChunk(campaign, userIds, afterUserId, lastUserId)) {
+                    // Checkpoint đã bị node khác đẩy lên (hoặc campaign vừa bị hủy): chunk đã rollback, dừng ở node này
+                    log.info("Campaign {} checkpoint moved past userId {} elsewhere, stopping on this node",
+                            campaignId, afterUserId);
+                    return;
+                }
+                userIds.forEach(unreadCounter::increment);
+                afterUserId = lastUserId;
+                sent += userIds.size();
+
+                if (userIds.size() < chunkSize) {
+                    break;
+                }
+                if (chunkDelayMs > 0) {
+                    Thread.sleep(chunkDelayMs);
+                }
+            }
+
+            Integer completed = transactionTemplate.execute(status -> campaignRepository.markCompleted(campaignId, now()));
+            if (completed != null && completed > 0) {
+                // Inbox của từng user đã được ghi xong, gửi một message duy nhất cho tất cả user đang online
+                broadcast(campaign);
+                log.info("Campaign {} completed: {} notifications written", campaignId, sent);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Giữ trạng thái RUNNING để lần khởi động sau chạy tiếp từ checkpoint
+            log.warn("Campaign {} interrupted at userId {}, will resume on next startup", campaignId, afterUserId);
+        } catch (Exception e) {
+            log.error("Campaign {} failed at userId {}: {}", campaignId, afterUserId, e.getMessage(), e);
+            transactionTemplate.executeWithoutResult(status -> campaignRepository.markFailed(campaignId, e.getMessage()));
+        }
+    }
+
+    private List<Long> fetchChunk(NotificationCampaign campaign, long afterUserId) {
+        PageRequest page = PageRequest.of(0, chunkSize);
+        switch (campaign.getSegment()) {
+            case PROVINCE:
+                return customerRepository.findActiveIdsByProvinceAfter(campaign.getSegmentValue(), afterUserId, page);
+            case VOUCHER_HOLDERS:
+                return customerRepository.findActiveIdsByVoucherAfter(
+                        Long.valueOf(campaign.getSegmentValue()), afterUserId, page);
+            case ALL_CUSTOMERS:
+            default:
+                return customerRepository.findActiveIdsAfter(afterUserId, page);
+        }
+    }
+
+    /**
+     * Ghi notifications của một chunk bằng JDBC batch (IDENTITY id khiến Hibernate không batch insert được)
+     * và lưu checkpoint trong cùng transaction, nên restart không tạo trùng hay bỏ sót.
+     * Checkpoint là compare-and-set từ afterUserId: nếu hai node cùng chạy tiếp một campaign thì chỉ một node
+     * ghi được chunk, node còn lại rollback và trả về false.
+     */
+    private boolean writeChunk(NotificationCampaign campaign, List<Long> userIds, long afterUserId, long lastUserId) {
+        Timestamp timestamp = Timestamp.valueOf(now());
+        Boolean written = transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate(INSERT_NOTIFICATION_SQL, userIds, userIds.size(), (ps, userId) -> {
+                ps.setLong(1, userId);
+                ps.setString(2, campaign.getType());
+                ps.setString(3, campaign.getTitle());
+                ps.setString(4, campaign.getMessage());
+                ps.setTimestamp(5, timestamp);
+                ps.setString(6, campaign.getData());
+                ps.setTimestamp(7, timestamp);
+            });
+            int updated = campaignRepository.updateCheckpoint(
+                    campaign.getCampaignId(), afterUserId, lastUserId, userIds.size());
+            if (updated == 0) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(written);
+    }
+
+    private void broadcast(NotificationCampaign campaign) {
+        try {
+            Map<String, Object> data = new HashMap<>();
+            if (campaign.getData() != null) {
+                try {
+                    data.putAll(objectMapper.readValue(campaign.getData(), Map.class));
+                } catch (JsonProcessingException e) {
+                    log.warn("Failed to deserialize campaign data: {}", e.getMessage());
+                }
+            }
+            data.put("campaignId", campaign.getCampaignId());
+            data.put("segment", campaign.getSegment().name());
+            if (campaign.getSegmentValue() != null) {
+                data.put("segmentValue", campaign.getSegmentValue());
+            }
+
+            NotificationDTO notification = NotificationDTO.builder()
+                    .type(campaign.getType())
+                    .title(campaign.getTitle())
+                    .message(campaign.getMessage())
+                    .timestamp(now().atZone(ZoneId.of("Asia/Ho_Chi_Minh"))
+                        .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME))
+                    .data(data)
+                    .isRead(false)
+                    .build();
+            messagingTemplate.convertAndSend(BROADCAST_DESTINATION, notification);
+        } catch (Exception e) {
+            log.error("Error broadcasting campaign {}: {}", campaign.getCampaignId(), e.getMessage(), e);
+        }
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
+    }
+}
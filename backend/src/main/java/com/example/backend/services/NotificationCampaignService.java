@@ -0,0 +1,170 @@
+package com.example.backend.services;
+
+import com.example.backend.dtos.CreateNotificationCampaignDTO;
+import com.example.backend.dtos.NotificationCampaignResponseDTO;
+import com.example.backend.entities.NotificationCampaign;
+import com.example.backend.entities.enums.CampaignSegment;
+import com.example.backend.entities.enums.CampaignStatus;
+import com.example.backend.repositories.NotificationCampaignRepository;
+import com.example.backend.repositories.VoucherRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationCampaignService {
+
+    private final NotificationCampaignRepository campaignRepository;
+    private final VoucherRepository voucherRepository;
+    private final NotificationCampaignRunner campaignRunner;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Tạo campaign và bắt đầu gửi bất đồng bộ
+     */
+    public NotificationCampaignResponseDTO createCampaign(CreateNotificationCampaignDTO dto, String username) {
+        String segmentValue = validateSegment(dto.getSegment(), dto.getSegmentValue());
+
+        NotificationCampaign campaign = NotificationCampaign.builder()
+                .type(dto.getType() != null && !dto.getType().isBlank() ? dto.getType().trim() : "PROMOTION")
+                .title(dto.getTitle().trim())
+                .message(dto.getMessage().trim())
+                .segment(dto.getSegment())
+                .segmentValue(segmentValue)
+                .createdBy(username)
+                .createdAt(LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")))
+                .build();
+        campaign = campaignRepository.save(campaign);
+
+        // Gắn campaignId vào data để inbox của từng user liên kết được với campaign
+        Map<String, Object> data = new HashMap<>();
+        if (dto.getData() != null) {
+            data.putAll(dto.getData());
+        }
+        data.put("campaignId", campaign.getCampaignId());
+        try {
+            campaign.setData(objectMapper.writeValueAsString(data));
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize campaign data: {}", e.getMessage());
+        }
+        campaign = campaignRepository.save(campaign);
+
+        log.info("Campaign {} created by {} for segment {} ({})",
+                campaign.getCampaignId(), username, campaign.getSegment(), segmentValue);
+        campaignRunner.run(campaign.getCampaignId());
+        return convertToDTO(campaign);
+    }
+
+    public List<NotificationCampaignResponseDTO> getAllCampaigns() {
+        return campaignRepository.findAllByOrderByCreatedAtDesc().stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    public NotificationCampaignResponseDTO getCampaignById(Long campaignId) {
+        NotificationCampaign campaign = campaignRepository.findById(campaignId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy campaign với ID: " + campaignId));
+        return convertToDTO(campaign);
+    }
+
+    @Transactional
+    public NotificationCampaignResponseDTO cancelCampaign(Long campaignId) {
+        NotificationCampaign campaign = campaignRepository.findById(campaignId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy campaign với ID: " + campaignId));
+        if (campaign.getStatus() == CampaignStatus.COMPLETED) {
+            throw new RuntimeException("Campaign đã gửi xong, không thể hủy");
+        }
+        // UPDATE có điều kiện: không ghi đè checkpoint mà runner đang cập nhật song song
+        if (campaignRepository.markCancelled(campaignId, LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"))) == 0
+                && campaignRepository.findStatusById(campaignId) == CampaignStatus.COMPLETED) {
+            throw new RuntimeException("Campaign đã gửi xong, không thể hủy");
+        }
+        return convertToDTO(campaignRepository.findById(campaignId).orElseThrow());
+    }
+
+    /**
+     * Chạy tiếp campaign FAILED từ checkpoint
+     */
+    public NotificationCampaignResponseDTO resumeCampaign(Long campaignId) {
+        NotificationCampaign campaign = campaignRepository.findById(campaignId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy campaign với ID: " + campaignId));
+        if (campaign.getStatus() == CampaignStatus.COMPLETED || campaign.getStatus() == CampaignStatus.CANCELLED) {
+            throw new RuntimeException("Campaign đã kết thúc, không thể chạy tiếp");
+        }
+        campaignRunner.run(campaignId);
+        return convertToDTO(campaign);
+    }
+
+    /**
+     * Sau khi khởi động, chạy tiếp các campaign bị ngắt bởi lần deploy/restart trước
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedCampaigns() {
+        List<NotificationCampaign> interrupted = campaignRepository.findByStatusIn(
+                List.of(CampaignStatus.PENDING, CampaignStatus.RUNNING));
+        for (NotificationCampaign campaign : interrupted) {
+            log.info("Resuming campaign {} from userId > {}", campaign.getCampaignId(), campaign.getLastUserId());
+            campaignRunner.run(campaign.getCampaignId());
+        }
+    }
+
+    private String validateSegment(CampaignSegment segment, String segmentValue) {
+        switch (segment) {
+            case PROVINCE:
+                if (segmentValue == null || segmentValue.isBlank()) {
+                    throw new RuntimeException("Vui lòng chọn tỉnh/thành phố");
+                }
+                return segmentValue.trim();
+            case VOUCHER_HOLDERS:
+                if (segmentValue == null || segmentValue.isBlank()) {
+                    throw new RuntimeException("Vui lòng chọn voucher");
+                }
+                Long voucherId;
+                try {
+                    voucherId = Long.valueOf(segmentValue.trim());
+                } catch (NumberFormatException e) {
+                    throw new RuntimeException("Voucher ID không hợp lệ: " + segmentValue);
+                }
+                if (!voucherRepository.existsById(voucherId)) {
+                    throw new RuntimeException("Không tìm thấy voucher với ID: " + voucherId);
+                }
+                return voucherId.toString();
+            case ALL_CUSTOMERS:
+            default:
+                return null;
+        }
+    }
+
+    private NotificationCampaignResponseDTO convertToDTO(NotificationCampaign campaign) {
+        return NotificationCampaignResponseDTO.builder()
+                .campaignId(campaign.getCampaignId())
+                .type(campaign.getType())
+                .title(campaign.getTitle())
+                .message(campaign.getMessage())
+                .segment(campaign.getSegment())
+                .segmentValue(campaign.getSegmentValue())
+                .status(campaign.getStatus())
+                .lastUserId(campaign.getLastUserId())
+                .sentCount(campaign.getSentCount())
+                .createdBy(campaign.getCreatedBy())
+                .lastError(campaign.getLastError())
+                .createdAt(campaign.getCreatedAt())
+                .startedAt(campaign.getStartedAt())
+                .completedAt(campaign.getCompletedAt())
+                .build();
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.backend.services;
+
+import com.example.backend.dtos.NotificationRetentionReportDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Dọn bảng notifications: notification đã đọc và cũ hơn max-age-days được chuyển sang
+ * notifications_archive (mode ARCHIVE) hoặc xóa hẳn (mode DELETE).
+ * Mỗi batch là một transaction nhỏ để không giữ lock lâu, chạy vào khung giờ thấp điểm theo cron.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationRetentionService {
+
+    private static final String SELECT_BATCH_SQL =
+            "SELECT notification_id FROM notifications " +
+            "WHERE is_read = true AND timestamp < :cutoff " +
+            "ORDER BY timestamp LIMIT :limit";
+
+    private static final String ARCHIVE_BATCH_SQL =
+            "INSERT IGNORE INTO notifications_archive " +
+            "(notification_id, user_id, type, title, message, data, timestamp, archived_at) " +
+            "SELECT notification_id, user_id, type, title, message, data, timestamp, :archivedAt " +
+            "FROM notifications WHERE notification_id IN (:ids)";
+
+    private static final String DELETE_BATCH_SQL =
+            "DELETE FROM notifications WHERE notification_id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile NotificationRetentionReportDTO lastReport;
+
+    @Value("${notification.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notification.retention.mode:ARCHIVE}")
+    private String mode;
+
+    @Value("${notification.retention.max-age-days:90}")
+    private int maxAgeDays;
+
+    @Value("${notification.retention.batch-size:500}")
+    private int batchSize;
+
+    @Value("${notification.retention.batch-delay-ms:100}")
+    private long batchDelayMs;
+
+    @Value("${notification.retention.max-duration-ms:1800000}")
+    private long maxDurationMs;
+
+    /**
+     * Chạy theo lịch vào giờ thấp điểm (mặc định 3h30 sáng), trên executor riêng để không giữ thread scheduler
+     */
+    @Async("notificationRetentionExecutor")
+    @Scheduled(cron = "${notification.retention.cron:0 30 3 * * *}", zone = "Asia/Ho_Chi_Minh")
+    public void scheduledRetention() {
+        if (!enabled) {
+            return;
+        }
+        runRetention();
+    }
+
+    /**
+     * Chạy retention ngay (admin trigger hoặc scheduler)
+     * @return report của lần chạy, null nếu đang có lần chạy khác
+     */
+    public NotificationRetentionReportDTO runRetention() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Notification retention is already running, skipping");
+            return null;
+        }
+
+        boolean deleteOnly = "DELETE".equalsIgnoreCase(mode);
+        LocalDateTime startedAt = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
+        LocalDateTime cutoff = startedAt.minusDays(maxAgeDays);
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + maxDurationMs * 1_000_000L;
+        long rowsMoved = 0;
+        int batches = 0;
+        boolean completed = false;
+        String error = null;
+
+        log.info("Notification retention started: mode={}, cutoff={}, batchSize={}",
+                deleteOnly ? "DELETE" : "ARCHIVE", cutoff, batchSize);
+        try {
+            while (System.nanoTime() < deadlineNanos) {
+                Integer moved = transactionTemplate.execute(status -> processBatch(cutoff, deleteOnly));
+                if (moved == null || moved == 0) {
+                    completed = true;
+                    break;
+                }
+                rowsMoved += moved;
+                batches++;
+                if (moved < batchSize) {
+                    completed = true;
+                    break;
+                }
+                if (batchDelayMs > 0) {
+                    Thread.sleep(batchDelayMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Interrupted";
+        } catch (Exception e) {
+            log.error("Notification retention failed after {} rows: {}", rowsMoved, e.getMessage(), e);
+            error = e.getMessage();
+        } finally {
+            running.set(false);
+        }
+
+        long durationMs = (System.nanoTime() - startNanos) / 1_000_000L;
+        NotificationRetentionReportDTO report = NotificationRetentionReportDTO.builder()
+                .mode(deleteOnly ? "DELETE" : "ARCHIVE")
+                .cutoff(cutoff)
+                .rowsMoved(rowsMoved)
+                .batches(batches)
+                .durationMs(durationMs)
+                .completed(completed)
+                .startedAt(startedAt)
+                .finishedAt(LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")))
+                .error(error)
+                .build();
+        lastReport = report;
+
+        log.info("Notification retention finished: {} rows {} in {} batches, {} ms{}",
+                rowsMoved, deleteOnly ? "deleted" : "archived", batches, durationMs,
+                completed ? "" : " (stopped before finishing, will continue next run)");
+        return report;
+    }
+
+    /**
+     * Admin trigger: chạy nền để request không phải chờ tới khi dọn xong
+     */
+    @Async("notificationRetentionExecutor")
+    public void runRetentionAsync() {
+        runRetention();
+    }
+
+    public NotificationRetentionReportDTO getLastReport() {
+        return lastReport;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private int processBatch(LocalDateTime cutoff, boolean deleteOnly) {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_BATCH_SQL,
+                new MapSqlParameterSource()
+                        .addValue("cutoff", Timestamp.valueOf(cutoff))
+                        .addValue("limit", batchSize),
+                Long.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        if (!deleteOnly) {
+            jdbcTemplate.update(ARCHIVE_BATCH_SQL, new MapSqlParameterSource()
+                    .addValue("ids", ids)
+                    .addValue("archivedAt", Timestamp.valueOf(LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")))));
+        }
+        return jdbcTemplate.update(DELETE_BATCH_SQL, new MapSqlParameterSource("ids", ids));
+    }
+}
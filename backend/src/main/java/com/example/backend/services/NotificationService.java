@@ -1,6 +1,7 @@
 package com.example.backend.services;
 
 import com.example.backend.dtos.NotificationDTO;
+import com.example.backend.dtos.NotificationPageDTO;
 import com.example.backend.entities.Notification;
 import com.example.backend.entities.Order;
 import com.example.backend.entities.User;
@@ -11,6 +12,10 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -18,9 +23,14 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.annotation.Propagation;
 
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -35,6 +45,15 @@ public class NotificationService {
     private final UserRepository userRepository;
     private final OrderRepository orderRepository;
     private final ObjectMapper objectMapper;
+    private final NotificationUnreadCounter unreadCounter;
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    private static final String INSERT_IGNORE_NOTIFICATION_SQL =
+            "INSERT IGNORE INTO notifications (user_id, type, title, message, timestamp, data, is_read, created_at, dedup_key) " +
+            "VALUES (?, ?, ?, ?, ?, ?, false, ?, ?)";
 
     /**
      * Gửi thông báo đến một user cụ thể
@@ -69,6 +88,7 @@ public class NotificationService {
                     .build();
             
             Notification savedNotification = notificationRepository.save(notificationEntity);
+            unreadCounter.increment(userId);
             log.info("Notification saved to database for user {}: {}", userId, notification.getType());
             
             // Cập nhật notification DTO với ID từ database
@@ -90,25 +110,57 @@ public class NotificationService {
     }
     
     /**
-     * Lấy tất cả thông báo của user
+     * Lấy tất cả thông báo của user (giữ lại để tương thích, nên dùng getInbox)
      */
     public List<NotificationDTO> getUserNotifications(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-        
-        List<Notification> notifications = notificationRepository.findByUserOrderByTimestampDesc(user);
+        List<Notification> notifications = notificationRepository.findByUserIdOrderByTimestampDesc(userId);
         return notifications.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
     
     /**
-     * Lấy số lượng thông báo chưa đọc
+     * Lấy một trang inbox theo cursor (timestamp, notificationId) của item cuối trang trước
+     * @param cursor null để lấy trang đầu tiên
+     */
+    public NotificationPageDTO getInbox(Long userId, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        // Lấy dư 1 item để biết còn trang sau hay không
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<Notification> notifications;
+        if (cursor == null || cursor.isBlank()) {
+            notifications = notificationRepository.findInboxFirstPage(userId, limit);
+        } else {
+            String[] parts = decodeCursor(cursor);
+            notifications = notificationRepository.findInboxPageAfter(
+                    userId, LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]), limit);
+        }
+
+        boolean hasMore = notifications.size() > pageSize;
+        if (hasMore) {
+            notifications = notifications.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Notification last = notifications.get(notifications.size() - 1);
+            nextCursor = encodeCursor(last);
+        }
+
+        return NotificationPageDTO.builder()
+                .items(notifications.stream().map(this::convertToDTO).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .unreadCount(unreadCounter.get(userId))
+                .build();
+    }
+    
+    /**
+     * Lấy số lượng thông báo chưa đọc (từ counter cache, không query khi đã có trong cache)
      */
     public Long getUnreadCount(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-        return notificationRepository.countUnreadByUser(user);
+        return unreadCounter.get(userId);
     }
     
     /**
@@ -123,8 +175,12 @@ public class NotificationService {
             throw new RuntimeException("Unauthorized: Notification does not belong to user");
         }
         
+        if (Boolean.TRUE.equals(notification.getIsRead())) {
+            return;
+        }
         notification.setIsRead(true);
         notificationRepository.save(notification);
+        unreadCounter.decrement(userId);
     }
     
     /**
@@ -132,9 +188,8 @@ public class NotificationService {
      */
     @Transactional
     public void markAllAsRead(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-        notificationRepository.markAllAsReadByUser(user);
+        notificationRepository.markAllAsReadByUserId(userId);
+        unreadCounter.reset(userId);
     }
     
     /**
@@ -150,6 +205,29 @@ public class NotificationService {
         }
         
         notificationRepository.delete(notification);
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            unreadCounter.decrement(userId);
+        }
+    }
+    
+    private String encodeCursor(Notification notification) {
+        String raw = notification.getTimestamp() + "|" + notification.getNotificationId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(raw);
+            }
+            LocalDateTime.parse(parts[0]);
+            Long.valueOf(parts[1]);
+            return parts;
+        } catch (Exception e) {
+            throw new RuntimeException("Cursor không hợp lệ");
+        }
     }
     
     /**
@@ -230,54 +308,23 @@ public class NotificationService {
     /**
      * Gửi thông báo đặt vé thành công
      * Sử dụng method này sau khi tạo booking/order thành công
-     * Có check duplicate để tránh tạo notification nhiều lần
+     * Chống trùng bằng dedup_key (TYPE:userId:orderId) + unique constraint, nên các thread
+     * xử lý order khác nhau chạy song song, không cần lock chung
      * Sử dụng REQUIRES_NEW để tạo transaction mới (cho phép chạy async)
      */
     @Transactional(propagation = org.springframework.transaction.annotation.Propagation.REQUIRES_NEW)
     public void notifyBookingSuccess(Long userId, Long orderId, String totalAmount) {
         log.info("notifyBookingSuccess called for order {} and user {}", orderId, userId);
         
-        // Kiểm tra xem đã có notification cho order này chưa (tránh duplicate)
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-        
-        // Kiểm tra TOÀN BỘ notifications của user, không giới hạn thời gian
-        // Vì notification chỉ tạo 1 lần cho mỗi order
-        List<Notification> allNotifications = notificationRepository.findByUserOrderByTimestampDesc(user);
-        
-        boolean hasOrderNotification = allNotifications.stream()
-            .filter(n -> n.getType().equals("BOOKING_SUCCESS"))
-            .anyMatch(n -> {
-                // Kiểm tra message có chứa orderId - cách đơn giản nhất
-                if (n.getMessage() != null) {
-                    String message = n.getMessage();
-                    String orderIdStr = orderId.toString();
-                    if (message.contains("#" + orderId) || message.contains("#" + orderIdStr)) {
-                        log.info("Found existing notification in message for order {}", orderId);
-                        return true;
-                    }
-                }
-                // Kiểm tra data chứa orderId
-                if (n.getData() != null && !n.getData().isEmpty()) {
-                    String dataStr = n.getData();
-                    String orderIdStr = orderId.toString();
-                    if (dataStr.contains(orderIdStr)) {
-                        log.info("Found existing notification in data for order {}", orderId);
-                        return true;
-                    }
-                }
-                return false;
-            });
-        
-        if (hasOrderNotification) {
+        // Kiểm tra nhanh để khỏi load order khi đã có notification (tránh duplicate)
+        String dedupKey = buildDedupKey("BOOKING_SUCCESS", userId, orderId);
+        if (isOrderNotified(dedupKey, userId, "BOOKING_SUCCESS", orderId)) {
             log.info("Notification already exists for order {} and user {}. Skipping creation.", orderId, userId);
             // Đã có notification thì không làm gì cả, tránh duplicate
             // Frontend sẽ tự fetch list notification khi load trang
             return;
         }
         
-        log.info("Creating NEW notification for order {} and user {}", orderId, userId);
-        
         // Load order để kiểm tra xem có tickets hay chỉ có combos
         Optional<Order> orderOpt = orderRepository.findById(orderId);
         boolean hasTickets = false;
@@ -321,8 +368,9 @@ public class NotificationService {
                     .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME))
                 .data(java.util.Map.of("orderId", orderId, "totalAmount", totalAmount))
                 .build();
-        sendNotificationToUser(userId, notification);
-        log.info("Notification created and sent for order {} and user {} with title: {}", orderId, userId, title);
+        if (sendDeduplicatedNotification(userId, dedupKey, notification)) {
+            log.info("Notification created and sent for order {} and user {} with title: {}", orderId, userId, title);
+        }
     }
     
     /**
@@ -343,44 +391,16 @@ public class NotificationService {
      * Gửi thông báo hủy đơn hàng thành công
      */
     @Transactional
-    public synchronized void notifyOrderCancelled(Long userId, Long orderId, String refundAmount) {
+    public void notifyOrderCancelled(Long userId, Long orderId, String refundAmount) {
         log.info("notifyOrderCancelled called for order {} and user {}", orderId, userId);
         
         // Kiểm tra xem đã có notification cho order cancellation này chưa (tránh duplicate)
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-        
-        List<Notification> allNotifications = notificationRepository.findByUserOrderByTimestampDesc(user);
-        
-        boolean hasCancellationNotification = allNotifications.stream()
-            .filter(n -> n.getType().equals("ORDER_CANCELLED"))
-            .anyMatch(n -> {
-                if (n.getMessage() != null) {
-                    String message = n.getMessage();
-                    String orderIdStr = orderId.toString();
-                    if (message.contains("#" + orderId) || message.contains("#" + orderIdStr)) {
-                        log.info("Found existing cancellation notification for order {}", orderId);
-                        return true;
-                    }
-                }
-                if (n.getData() != null && !n.getData().isEmpty()) {
-                    String dataStr = n.getData();
-                    String orderIdStr = orderId.toString();
-                    if (dataStr.contains(orderIdStr)) {
-                        log.info("Found existing cancellation notification in data for order {}", orderId);
-                        return true;
-                    }
-                }
-                return false;
-            });
-        
-        if (hasCancellationNotification) {
+        String dedupKey = buildDedupKey("ORDER_CANCELLED", userId, orderId);
+        if (isOrderNotified(dedupKey, userId, "ORDER_CANCELLED", orderId)) {
             log.info("Cancellation notification already exists for order {} and user {}. Skipping creation.", orderId, userId);
             return;
         }
         
-        log.info("Creating NEW cancellation notification for order {} and user {}", orderId, userId);
-        
         // Tạo notification mới
         String title = "Hủy đơn hàng thành công";
         String message = "Bạn đã hủy đơn hàng #" + orderId + " thành công. Số tiền " + refundAmount + " đã được hoàn vào Ví Cinesmart.";
@@ -394,8 +414,9 @@ public class NotificationService {
                     .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME))
                 .data(java.util.Map.of("orderId", orderId, "refundAmount", refundAmount))
                 .build();
-        sendNotificationToUser(userId, notification);
-        log.info("Cancellation notification created and sent for order {} and user {}", orderId, userId);
+        if (sendDeduplicatedNotification(userId, dedupKey, notification)) {
+            log.info("Cancellation notification created and sent for order {} and user {}", orderId, userId);
+        }
     }
     
     /**
@@ -407,40 +428,12 @@ public class NotificationService {
         log.info("notifyTopUpSuccess called for order {} and user {}", orderId, userId);
         
         // Kiểm tra xem đã có notification cho order này chưa (tránh duplicate)
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-        
-        List<Notification> allNotifications = notificationRepository.findByUserOrderByTimestampDesc(user);
-        
-        boolean hasTopUpNotification = allNotifications.stream()
-            .filter(n -> n.getType().equals("TOPUP_SUCCESS"))
-            .anyMatch(n -> {
-                if (n.getMessage() != null) {
-                    String message = n.getMessage();
-                    String orderIdStr = orderId.toString();
-                    if (message.contains("#" + orderId) || message.contains("#" + orderIdStr)) {
-                        log.info("Found existing top-up notification for order {}", orderId);
-                        return true;
-                    }
-                }
-                if (n.getData() != null && !n.getData().isEmpty()) {
-                    String dataStr = n.getData();
-                    String orderIdStr = orderId.toString();
-                    if (dataStr.contains(orderIdStr)) {
-                        log.info("Found existing top-up notification in data for order {}", orderId);
-                        return true;
-                    }
-                }
-                return false;
-            });
-        
-        if (hasTopUpNotification) {
+        String dedupKey = buildDedupKey("TOPUP_SUCCESS", userId, orderId);
+        if (isOrderNotified(dedupKey, userId, "TOPUP_SUCCESS", orderId)) {
             log.info("Top-up notification already exists for order {} and user {}. Skipping creation.", orderId, userId);
             return;
         }
         
-        log.info("Creating NEW top-up notification for order {} and user {}", orderId, userId);
-        
         NotificationDTO notification = NotificationDTO.builder()
                 .type("TOPUP_SUCCESS")
                 .title("Nạp tiền thành công")
@@ -450,8 +443,80 @@ public class NotificationService {
                     .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME))
                 .data(java.util.Map.of("orderId", orderId, "amount", amount, "type", "topup"))
                 .build();
-        sendNotificationToUser(userId, notification);
-        log.info("Top-up notification created and sent for order {} and user {}", orderId, userId);
+        if (sendDeduplicatedNotification(userId, dedupKey, notification)) {
+            log.info("Top-up notification created and sent for order {} and user {}", orderId, userId);
+        }
+    }
+    
+    private String buildDedupKey(String type, Long userId, Long orderId) {
+        return type + ":" + userId + ":" + orderId;
+    }
+    
+    /**
+     * Kiểm tra nhanh (không lock) xem order đã có notification loại này chưa.
+     * Notification tạo trước khi có dedup_key được nhận diện qua orderId trong data.
+     * Đây chỉ là fast-path, chống trùng thật sự do unique constraint trên dedup_key đảm nhận.
+     */
+    private boolean isOrderNotified(String dedupKey, Long userId, String type, Long orderId) {
+        if (notificationRepository.existsByDedupKey(dedupKey)) {
+            return true;
+        }
+        String orderIdJson = "%\"orderId\":" + orderId;
+        return notificationRepository.existsLegacyOrderNotification(
+                userId, type, orderIdJson + ",%", orderIdJson + "}%");
+    }
+    
+    /**
+     * Lưu notification với dedup_key bằng INSERT IGNORE: nếu thread khác đã insert cùng key thì
+     * bỏ qua thay vì tạo bản trùng, sau đó gửi qua WebSocket
+     * @return true nếu notification mới được tạo
+     */
+    private boolean sendDeduplicatedNotification(Long userId, String dedupKey, NotificationDTO notification) {
+        String dataJson = null;
+        if (notification.getData() != null) {
+            try {
+                dataJson = objectMapper.writeValueAsString(notification.getData());
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to serialize notification data: {}", e.getMessage());
+            }
+        }
+        
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")));
+        String json = dataJson;
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int inserted = jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_IGNORE_NOTIFICATION_SQL, Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, userId);
+            ps.setString(2, notification.getType());
+            ps.setString(3, notification.getTitle());
+            ps.setString(4, notification.getMessage());
+            ps.setTimestamp(5, now);
+            ps.setString(6, json);
+            ps.setTimestamp(7, now);
+            ps.setString(8, dedupKey);
+            return ps;
+        }, keyHolder);
+        
+        if (inserted == 0) {
+            log.info("Notification {} already created by another thread. Skipping.", dedupKey);
+            return false;
+        }
+        unreadCounter.increment(userId);
+        
+        Number generatedId = keyHolder.getKey();
+        notification.setNotificationId(generatedId != null ? generatedId.longValue() : null);
+        notification.setIsRead(false);
+        
+        // Gửi qua WebSocket
+        try {
+            String destination = "/queue/notifications/" + userId;
+            messagingTemplate.convertAndSend(destination, notification);
+            log.info("Notification sent via WebSocket to user {}: {}", userId, notification.getType());
+        } catch (Exception wsError) {
+            log.error("Error sending notification via WebSocket to user {}: {}", userId, wsError.getMessage(), wsError);
+            // Không throw exception, vì notification đã được lưu vào DB
+        }
+        return true;
     }
     
     /**
@@ -0,0 +1,103 @@
+package com.example.backend.services;
+
+import com.example.backend.repositories.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache số thông báo chưa đọc theo user, để badge của chuông thông báo không phải COUNT mỗi lần refresh.
+ * - Lần đọc đầu tiên (hoặc khi hết TTL) mới COUNT từ database
+ * - create/markAsRead/markAllAsRead/delete cập nhật counter sau khi transaction commit
+ * - TTL giúp counter tự sửa nếu bị lệch (ví dụ ghi đồng thời với lần load đầu tiên)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationUnreadCounter {
+
+    private final NotificationRepository notificationRepository;
+
+    private final ConcurrentMap<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    @Value("${notification.unread-counter.max-entries:50000}")
+    private int maxEntries;
+
+    @Value("${notification.unread-counter.ttl-ms:600000}")
+    private long ttlMs;
+
+    private static final class Counter {
+        private final AtomicLong value;
+        private final long loadedAt;
+
+        private Counter(long value, long loadedAt) {
+            this.value = new AtomicLong(value);
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    public long get(Long userId) {
+        long now = System.currentTimeMillis();
+        Counter counter = counters.get(userId);
+        if (counter != null && now - counter.loadedAt < ttlMs) {
+            return Math.max(0, counter.value.get());
+        }
+
+        long count = notificationRepository.countUnreadByUserId(userId);
+        if (counters.size() >= maxEntries) {
+            // Vượt giới hạn: xóa hết, các user đang hoạt động sẽ được load lại khi cần
+            log.info("Unread counter cache reached {} entries, clearing", maxEntries);
+            counters.clear();
+        }
+        counters.put(userId, new Counter(count, now));
+        return count;
+    }
+
+    public void increment(Long userId) {
+        add(userId, 1);
+    }
+
+    public void decrement(Long userId) {
+        add(userId, -1);
+    }
+
+    /**
+     * Cộng delta vào counter đã có; user chưa có trong cache sẽ được COUNT ở lần đọc sau
+     */
+    public void add(Long userId, long delta) {
+        afterCommit(() -> {
+            Counter counter = counters.get(userId);
+            if (counter != null) {
+                counter.value.addAndGet(delta);
+            }
+        });
+    }
+
+    public void reset(Long userId) {
+        afterCommit(() -> counters.put(userId, new Counter(0, System.currentTimeMillis())));
+    }
+
+    public void evict(Long userId) {
+        afterCommit(() -> counters.remove(userId));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
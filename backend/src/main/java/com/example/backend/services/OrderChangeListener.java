@@ -0,0 +1,48 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.Order;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity listener của Order (Hibernate tạo qua Spring nên inject được bean):
+ * mọi luồng ghi đơn hàng (các callback thanh toán, hủy đơn, self-healing...) đều báo cho các bảng tổng hợp
+ * mà không phải sửa từng nơi gọi.
+ */
+public class OrderChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public OrderChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    public void onPersist(Order order) {
+        // Đơn mới tạo thường chưa thanh toán, chưa ảnh hưởng số liệu
+        if (order.getVnpPayDate() != null) {
+            publish(order);
+        }
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Order order) {
+        publish(order);
+    }
+
+    private void publish(Order order) {
+        LocalDateTime date = order.getOrderDate() != null ? order.getOrderDate() : order.getVnpPayDate();
+        if (date == null) {
+            return;
+        }
+        eventPublisher.publishEvent(new OrderChangedEvent(
+                order.getOrderId(),
+                order.getUser() != null ? order.getUser().getUserId() : null,
+                date));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.backend.services;
+
+import java.time.LocalDateTime;
+
+/**
+ * Đơn hàng vừa được tạo/cập nhật (thanh toán, hủy, hoàn tiền...), publish bởi OrderChangeListener.
+ * Các bảng tổng hợp (chi tiêu theo tháng, doanh thu/lấp đầy) tính lại phần bị ảnh hưởng sau khi transaction commit.
+ *
+ * @param orderDate ngày đặt (đơn cũ thiếu orderDate thì là ngày thanh toán)
+ * @param userId    null nếu đơn không gắn user
+ */
+public record OrderChangedEvent(Long orderId, Long userId, LocalDateTime orderDate) {
+}
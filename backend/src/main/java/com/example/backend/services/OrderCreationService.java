@@ -28,6 +28,7 @@ public class OrderCreationService {
     private final PriceRepository priceRepository;
     private final CustomerRepository customerRepository;
     private final PriceService priceService;
+    private final TicketTokenService ticketTokenService;
     
     /**
      * Tạo đơn hàng từ booking info
@@ -125,7 +126,6 @@ public class OrderCreationService {
                         .showtime(showtime)
                         .seat(seat)
                         .price(ticketPrice)
-                        .qrCode(generateQRCode(userId, showtimeId, seatId))
                         .order(order)
                         .build();
                 
@@ -171,6 +171,13 @@ public class OrderCreationService {
         
         Order savedOrder = orderRepository.save(order);
         
+        // Token QR cần ticketId nên chỉ tạo được sau khi lưu (dirty checking sẽ cập nhật khi commit)
+        if (savedOrder.getTickets() != null) {
+            for (Ticket savedTicket : savedOrder.getTickets()) {
+                savedTicket.setQrCode(ticketTokenService.issue(savedTicket));
+            }
+        }
+        
         System.out.println("=== Order Saved ===");
         System.out.println("Saved Order ID: " + savedOrder.getOrderId());
         System.out.println("Saved Order tickets count: " + (savedOrder.getTickets() != null ? savedOrder.getTickets().size() : 0));
@@ -232,13 +239,6 @@ public class OrderCreationService {
         return BigDecimal.valueOf(100000); // Giá mặc định
     }
     
-    /**
-     * Generate QR code cho ticket
-     */
-    private String generateQRCode(Long userId, Long showtimeId, String seatId) {
-        return String.format("TICKET_%d_%d_%s_%d", userId, showtimeId, seatId, System.currentTimeMillis());
-    }
-    
     /**
      * Inner class để chứa thông tin FoodCombo request
      */
@@ -0,0 +1,194 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.enums.OrderStatus;
+import com.example.backend.repositories.OrderRepository;
+import com.example.backend.repositories.OrderSearchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Supplier;
+
+/**
+ * Xuất đơn hàng / vé ra CSV cho kế toán.
+ * - Đọc bằng cursor chỉ-tiến (OrderSearchRepository.scrollOrders/scrollTickets) và ghi thẳng từng dòng ra response,
+ *   bộ nhớ không tăng theo số dòng
+ * - Cùng điều kiện lọc với màn quản lý đơn (OrderService.buildFilter)
+ * - UTF-8 có BOM để Excel mở đúng tiếng Việt; ô bắt đầu bằng = + - @ được thêm dấu ' (chặn công thức khi mở bằng Excel)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderExportService {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Đẩy dữ liệu xuống client sau mỗi FLUSH_ROWS dòng
+    private static final int FLUSH_ROWS = 1000;
+
+    private static final String[] ORDER_HEADER = {
+            "Mã đơn", "Ngày đặt", "Ngày thanh toán", "Trạng thái", "Phương thức thanh toán", "Tổng tiền",
+            "Voucher", "Mã cụm rạp", "Khách hàng", "Email", "Số điện thoại", "Nạp ví",
+            "Ngày hủy", "Tiền hoàn", "Hoàn vào ví", "Lý do hủy"};
+
+    private static final String[] TICKET_HEADER = {
+            "Mã đơn", "Ngày đặt", "Ngày thanh toán", "Trạng thái", "Phương thức thanh toán", "Email", "Số điện thoại",
+            "Mã vé", "Giá vé", "Ghế", "Loại ghế", "Suất chiếu", "Định dạng", "Phim", "Phòng", "Mã cụm rạp", "Cụm rạp"};
+
+    private final OrderRepository orderRepository;
+
+    /**
+     * Ghi CSV đơn hàng (một dòng mỗi đơn) ra out; chạy trong transaction chỉ đọc suốt thời gian stream
+     * @return số đơn đã ghi
+     */
+    @Transactional(readOnly = true)
+    public long exportOrdersCsv(OrderSearchRepository.Filter filter, OutputStream out) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        CsvWriter csv = new CsvWriter(out, ORDER_HEADER);
+        long rows = csv.write(() -> orderRepository.scrollOrders(filter, row -> csv.row(
+                row.getOrderId(),
+                row.getOrderDate(),
+                row.getVnpPayDate(),
+                resolveStatus(row.getStatus(), row.getVnpPayDate()),
+                row.getPaymentMethod(),
+                row.getTotalAmount(),
+                row.getVoucherCode(),
+                row.getCinemaComplexId(),
+                row.getUsername(),
+                row.getUserEmail(),
+                row.getUserPhone(),
+                Boolean.TRUE.equals(row.getIsTopUp()) ? "Có" : "",
+                row.getCancelledAt(),
+                row.getRefundAmount(),
+                Boolean.TRUE.equals(row.getRefundedToWallet()) ? "Có" : "",
+                row.getCancellationReason())));
+        log.info("Exported {} orders in {} ms", rows, System.currentTimeMillis() - startedAt);
+        return rows;
+    }
+
+    /**
+     * Ghi CSV vé (một dòng mỗi vé, kèm thông tin đơn) ra out
+     * @return số vé đã ghi
+     */
+    @Transactional(readOnly = true)
+    public long exportTicketsCsv(OrderSearchRepository.Filter filter, OutputStream out) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        CsvWriter csv = new CsvWriter(out, TICKET_HEADER);
+        long rows = csv.write(() -> orderRepository.scrollTickets(filter, row -> csv.row(
+                row.getOrderId(),
+                row.getOrderDate(),
+                row.getVnpPayDate(),
+                resolveStatus(row.getStatus(), row.getVnpPayDate()),
+                row.getPaymentMethod(),
+                row.getUserEmail(),
+                row.getUserPhone(),
+                row.getTicketId(),
+                row.getPrice(),
+                row.getSeatRow() != null ? row.getSeatRow() + row.getSeatColumn() : null,
+                row.getSeatType(),
+                row.getShowtimeStart(),
+                row.getRoomType(),
+                row.getMovieTitle(),
+                row.getRoomName(),
+                row.getCinemaComplexId(),
+                row.getCinemaComplexName())));
+        log.info("Exported {} tickets in {} ms", rows, System.currentTimeMillis() - startedAt);
+        return rows;
+    }
+
+    /**
+     * Đơn cũ có status null: PAID nếu đã thanh toán, ngược lại PENDING (như danh sách đơn)
+     */
+    private OrderStatus resolveStatus(OrderStatus status, LocalDateTime vnpPayDate) {
+        if (status != null) {
+            return status;
+        }
+        return vnpPayDate != null ? OrderStatus.PAID : OrderStatus.PENDING;
+    }
+
+    /**
+     * Ghi CSV qua buffer cố định, đẩy xuống client sau mỗi FLUSH_ROWS dòng
+     */
+    private static final class CsvWriter {
+
+        private final Writer writer;
+        private long rows;
+
+        private CsvWriter(OutputStream out, String[] header) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            writer.write('\uFEFF');
+            writeLine(header);
+        }
+
+        private long write(Supplier<Long> scroll) throws IOException {
+            try {
+                long count = scroll.get();
+                writer.flush();
+                return count;
+            } catch (UncheckedIOException e) {
+                // Client ngắt kết nối giữa chừng: exception thoát khỏi vòng duyệt và đóng cursor
+                throw e.getCause();
+            }
+        }
+
+        private void row(Object... values) {
+            try {
+                writeLine(values);
+                if (++rows % FLUSH_ROWS == 0) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeLine(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escape(format(values[i])));
+            }
+            writer.write("\r\n");
+        }
+
+        private static String format(Object value) {
+            if (value == null) {
+                return "";
+            }
+            if (value instanceof LocalDateTime dateTime) {
+                return dateTime.format(DATE_TIME);
+            }
+            if (value instanceof BigDecimal decimal) {
+                return decimal.toPlainString();
+            }
+            return value.toString();
+        }
+
+        private static String escape(String value) {
+            if (value.isEmpty()) {
+                return value;
+            }
+            char first = value.charAt(0);
+            if (first == '=' || first == '+' || first == '-' || first == '@') {
+                value = "'" + value;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+            return value;
+        }
+    }
+}
@@ -5,10 +5,14 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.YearMonth;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.context.annotation.Lazy;
@@ -18,25 +22,23 @@ import org.springframework.transaction.annotation.Transactional;
 import com.example.backend.dtos.CancelOrderResponseDTO;
 import com.example.backend.dtos.CancellationValidationFact;
 import com.example.backend.dtos.OrderComboDTO;
+import com.example.backend.dtos.OrderComboRow;
 import com.example.backend.dtos.OrderItemDTO;
+import com.example.backend.dtos.OrderPageDTO;
 import com.example.backend.dtos.OrderResponseDTO;
-import com.example.backend.dtos.PriceDTO;
-import com.example.backend.entities.CinemaComplex;
-import com.example.backend.entities.CinemaRoom;
+import com.example.backend.dtos.OrderSummaryRow;
+import com.example.backend.dtos.OrderTicketRow;
 import com.example.backend.entities.Customer;
-import com.example.backend.entities.FoodCombo;
-import com.example.backend.entities.Movie;
-import com.example.backend.entities.MovieVersion;
 import com.example.backend.entities.Order;
 import com.example.backend.entities.OrderCombo;
-import com.example.backend.entities.Seat;
-import com.example.backend.entities.Showtime;
+import com.example.backend.entities.Ticket;
 import com.example.backend.entities.WalletTransaction;
 import com.example.backend.entities.enums.OrderStatus;
 import com.example.backend.entities.enums.PaymentMethod;
 import com.example.backend.entities.enums.SeatType;
 import com.example.backend.repositories.CustomerRepository;
 import com.example.backend.repositories.OrderRepository;
+import com.example.backend.repositories.OrderSearchRepository;
 import com.example.backend.services.NotificationService;
 
 import org.kie.api.runtime.KieContainer;
@@ -52,222 +54,307 @@ public class OrderService {
 
     private static final int MONTHLY_CANCELLATION_LIMIT = 2;
     private static final ZoneId DEFAULT_ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int LIST_ALL_BATCH_SIZE = 500;
 
     private final OrderRepository orderRepository;
     private final PriceService priceService;
     private final MomoService momoService;
     private final WalletService walletService;
     private final KieContainer kieContainer;
+    private final TicketTokenService ticketTokenService;
     private final com.example.backend.repositories.CustomerRepository customerRepository;
+    private final CustomerSpendService customerSpendService;
     @Lazy
     private final NotificationService notificationService; // Dùng @Lazy để tránh circular dependency
 
     // ==================== Methods from HEAD (for getting orders)
     // ====================
 
+    /**
+     * Lịch sử đơn đã thanh toán của customer (không gồm đơn nạp ví), kèm thông tin hủy đơn
+     */
     @Transactional
     public List<OrderResponseDTO> getOrdersByUser(Long userId) {
-        List<Order> orders = orderRepository.findByUserUserIdWithDetails(userId);
-        System.out.println("Found " + orders.size() + " total orders for user " + userId);
-        LocalDateTime now = LocalDateTime.now(DEFAULT_ZONE);
-        int cancellationsUsed = (int) getMonthlyCancellationCount(userId);
-        int cancellationRemaining = Math.max(0, MONTHLY_CANCELLATION_LIMIT - cancellationsUsed);
+        healPendingMomoOrders(userId);
+        List<OrderResponseDTO> result = listAllOrders(customerFilter(userId, null, null, null));
+        applyCancellationInfo(userId, result);
+        return result;
+    }
 
-        // Self-healing: Check MoMo status for pending orders
-        for (Order order : orders) {
-            normalizeOrderStatus(order);
-            if (order.getVnpPayDate() == null && order.getPaymentMethod() == PaymentMethod.MOMO) {
-                try {
-                    System.out.println("Self-healing: Checking MoMo status for pending order " + order.getOrderId());
-                    Map<String, Object> response = momoService.queryTransaction(order.getVnpTxnRef());
-                    if (response != null) {
-                        Object resultCodeObj = response.get("resultCode");
-                        int resultCode = resultCodeObj != null ? Integer.parseInt(resultCodeObj.toString()) : -1;
-
-                        System.out.println("Self-healing: MoMo Check for Order " + order.getOrderId() + " ("
-                                + order.getVnpTxnRef() + ") returned resultCode: " + resultCode);
-
-                        if (resultCode == 0) {
-                            System.out.println(
-                                    "Self-healing: MoMo confirmed SUCCESS. Updating order " + order.getOrderId());
-                            order.setVnpPayDate(LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")));
-
-                            String transId = (String) response.get("transId");
-                            if (transId != null)
-                                order.setVnpTransactionNo(transId);
-
-                            orderRepository.save(order);
-                            // Không gửi notification/email ở đây để tránh duplicate và circular dependency
-                            // Chỉ cần update DB để hiển thị trong history
-                        }
-                    }
-                } catch (Exception e) {
-                    System.err.println("Self-healing failed for order " + order.getOrderId() + ": " + e.getMessage());
-                }
-            }
+    /**
+     * Một trang lịch sử đơn của customer theo cursor
+     */
+    @Transactional
+    public OrderPageDTO getOrdersPageByUser(Long userId, String status, LocalDate from, LocalDate to,
+                                            String cursor, Integer size) {
+        if (cursor == null || cursor.isBlank()) {
+            // Chỉ kiểm tra MoMo ở trang đầu, các trang sau là đơn cũ hơn
+            healPendingMomoOrders(userId);
         }
-
-        List<OrderResponseDTO> result = orders.stream()
-                // Chỉ lấy các order đã thanh toán thành công (có vnpPayDate) và không phải top-up
-                .filter(order -> {
-                    boolean isPaid = order.getVnpPayDate() != null;
-                    boolean isTopUp = Boolean.TRUE.equals(order.getIsTopUp());
-                    if (!isPaid) {
-                        System.out.println("Filtering out unpaid order ID: " + order.getOrderId());
-                    }
-                    if (isTopUp) {
-                        System.out.println("Filtering out top-up order ID: " + order.getOrderId());
-                    }
-                    return isPaid && !isTopUp;
-                })
-                .map(order -> {
-                    OrderResponseDTO dto = mapToDTO(order);
-                    dto.setMonthlyCancellationLimit(MONTHLY_CANCELLATION_LIMIT);
-                    dto.setMonthlyCancellationUsed(cancellationsUsed);
-                    dto.setMonthlyCancellationRemaining(Math.max(0, cancellationRemaining));
-                    dto.setCancellable(cancellationRemaining > 0 && canCancel(order, now));
-                    return dto;
-                })
-                .collect(Collectors.toList());
-
-        System.out.println("Returning " + result.size() + " paid orders");
-        return result;
+        OrderSearchRepository.Filter filter = buildFilter(null, null, null, status, null, from, to, null);
+        OrderPageDTO page = searchOrders(customerFilter(userId, filter.status(), filter.from(), filter.to()), cursor, size);
+        applyCancellationInfo(userId, page.getItems());
+        return page;
     }
 
     @Transactional(readOnly = true)
     public List<OrderResponseDTO> getAllOrders() {
-        List<Order> orders = orderRepository.findAllWithDetails();
-        orders.forEach(this::normalizeOrderStatus);
-        return orders.stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return listAllOrders(new OrderSearchRepository.Filter(
+                null, null, null, null, null, null, null, null, true, false));
     }
 
     @Transactional(readOnly = true)
     public List<OrderResponseDTO> getOrdersByComplexId(Long complexId) {
-        List<Order> orders = orderRepository.findByCinemaComplexIdWithDetails(complexId);
-        orders.forEach(this::normalizeOrderStatus);
-        return orders.stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return listAllOrders(new OrderSearchRepository.Filter(
+                null, complexId, null, null, null, null, null, null, true, false));
+    }
+
+    /**
+     * Filter cho màn quản lý đơn (admin/manager): chỉ đơn đã thanh toán, gồm cả đơn nạp ví như danh sách cũ
+     * @param from ngày đặt từ (bao gồm), to ngày đặt đến (bao gồm); theo giờ Việt Nam
+     */
+    public OrderSearchRepository.Filter buildFilter(Long userId, Long complexId, Long movieId, String status,
+                                                    String paymentMethod, LocalDate from, LocalDate to, String keyword) {
+        try {
+            return new OrderSearchRepository.Filter(
+                    userId,
+                    complexId,
+                    movieId,
+                    status != null && !status.isBlank() ? OrderStatus.valueOf(status.trim().toUpperCase()) : null,
+                    paymentMethod != null && !paymentMethod.isBlank()
+                            ? PaymentMethod.valueOf(paymentMethod.trim().toUpperCase()) : null,
+                    from != null ? from.atStartOfDay() : null,
+                    to != null ? to.plusDays(1).atStartOfDay() : null,
+                    keyword,
+                    true,
+                    false);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Trạng thái hoặc phương thức thanh toán không hợp lệ");
+        }
     }
 
-    private OrderResponseDTO mapToDTO(Order order) {
-        // Map tickets to items
-        List<OrderItemDTO> items = order.getTickets().stream()
-                .map(ticket -> {
-                    Showtime showtime = ticket.getShowtime();
-                    Seat seat = ticket.getSeat();
-                    MovieVersion movieVersion = showtime.getMovieVersion();
-                    Movie movie = movieVersion.getMovie();
-                    CinemaRoom room = showtime.getCinemaRoom();
-                    CinemaComplex cinema = room.getCinemaComplex();
-
-                    OrderItemDTO item = new OrderItemDTO();
-                    item.setTicketId(ticket.getTicketId());
-                    item.setMovieId(movie.getMovieId());
-                    item.setMovieTitle(movie.getTitle());
-                    item.setMoviePoster(movie.getPoster());
-                    item.setCinemaComplexId(cinema.getComplexId());
-                    item.setCinemaComplexName(cinema.getName());
-                    item.setCinemaAddress(cinema.getAddress() != null
-                            ? (cinema.getAddress().getProvince() != null
-                                    ? cinema.getAddress().getDescription() + ", " + cinema.getAddress().getProvince()
-                                    : cinema.getAddress().getDescription())
-                            : "");
-                    item.setRoomId(room.getRoomId());
-                    item.setRoomName(room.getRoomName());
-                    item.setRoomType(mapRoomType(movieVersion.getRoomType()));
-                    item.setShowtimeId(showtime.getShowtimeId());
-                    item.setShowtimeStart(showtime.getStartTime());
-                    item.setShowtimeEnd(showtime.getEndTime());
-                    item.setSeatId(seat.getSeatRow() + seat.getSeatColumn());
-                    item.setSeatRow(seat.getSeatRow());
-                    item.setSeatColumn(seat.getSeatColumn());
-                    item.setPrice(ticket.getPrice());
-
-                    // Calculate basePrice - lấy giá gốc từ database dựa trên roomType + seatType
-                    try {
-                        PriceDTO priceDTO = priceService.getPriceByRoomTypeAndSeatType(
-                                movieVersion.getRoomType(),
-                                seat.getType());
-
-                        if (priceDTO != null) {
-                            java.math.BigDecimal basePrice = priceDTO.getPrice();
-                            item.setBasePrice(basePrice);
-                        } else {
-                            // Nếu không tìm thấy giá trong database, giả sử giá hiện tại là basePrice
-                            item.setBasePrice(ticket.getPrice());
-                        }
-                    } catch (Exception e) {
-                        // Nếu có lỗi, sử dụng giá hiện tại
-                        item.setBasePrice(ticket.getPrice());
+    /**
+     * Một trang đơn hàng theo filter, phân trang keyset theo (orderDate, orderId) của đơn cuối trang trước
+     * @param cursor null để lấy trang đầu tiên
+     */
+    @Transactional(readOnly = true)
+    public OrderPageDTO searchOrders(OrderSearchRepository.Filter filter, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        LocalDateTime afterDate = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            afterDate = LocalDateTime.parse(parts[0]);
+            afterId = Long.valueOf(parts[1]);
+        }
+
+        // Lấy dư 1 dòng để biết còn trang sau hay không
+        List<OrderSummaryRow> rows = orderRepository.searchOrders(filter, afterDate, afterId, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        return OrderPageDTO.builder()
+                .items(toResponses(rows))
+                .nextCursor(hasMore ? encodeCursor(rows.get(rows.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Toàn bộ đơn khớp filter cho các API trả danh sách không phân trang (giữ tương thích),
+     * đọc theo từng trang keyset để mỗi truy vấn chỉ chạm LIST_ALL_BATCH_SIZE đơn
+     */
+    private List<OrderResponseDTO> listAllOrders(OrderSearchRepository.Filter filter) {
+        List<OrderResponseDTO> result = new ArrayList<>();
+        LocalDateTime afterDate = null;
+        Long afterId = null;
+        while (true) {
+            List<OrderSummaryRow> rows = orderRepository.searchOrders(filter, afterDate, afterId, LIST_ALL_BATCH_SIZE);
+            result.addAll(toResponses(rows));
+            if (rows.size() < LIST_ALL_BATCH_SIZE) {
+                return result;
+            }
+            OrderSummaryRow last = rows.get(rows.size() - 1);
+            if (last.getOrderDate() == null) {
+                // Đơn không có orderDate không tạo được cursor
+                return result;
+            }
+            afterDate = last.getOrderDate();
+            afterId = last.getOrderId();
+        }
+    }
+
+    private OrderSearchRepository.Filter customerFilter(Long userId, OrderStatus status, LocalDateTime from, LocalDateTime to) {
+        return new OrderSearchRepository.Filter(userId, null, null, status, null, from, to, null, true, true);
+    }
+
+    /**
+     * Self-healing: hỏi lại MoMo trạng thái các đơn MoMo chưa ghi nhận thanh toán của user
+     */
+    private void healPendingMomoOrders(Long userId) {
+        for (Order order : orderRepository.findByUserUserIdAndVnpPayDateIsNullAndPaymentMethod(userId, PaymentMethod.MOMO)) {
+            try {
+                Map<String, Object> response = momoService.queryTransaction(order.getVnpTxnRef());
+                if (response != null) {
+                    Object resultCodeObj = response.get("resultCode");
+                    int resultCode = resultCodeObj != null ? Integer.parseInt(resultCodeObj.toString()) : -1;
+                    if (resultCode == 0) {
+                        log.info("Self-healing: MoMo confirmed order {} ({})", order.getOrderId(), order.getVnpTxnRef());
+                        order.setVnpPayDate(LocalDateTime.now(DEFAULT_ZONE));
+
+                        String transId = response.get("transId") != null ? response.get("transId").toString() : null;
+                        if (transId != null)
+                            order.setVnpTransactionNo(transId);
+
+                        orderRepository.save(order);
+                        // Không gửi notification/email ở đây để tránh duplicate và circular dependency
+                        // Chỉ cần update DB để hiển thị trong history
                     }
+                }
+            } catch (Exception e) {
+                log.warn("Self-healing failed for order {}: {}", order.getOrderId(), e.getMessage());
+            }
+        }
+    }
+
+    private void applyCancellationInfo(Long userId, List<OrderResponseDTO> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now(DEFAULT_ZONE);
+        int cancellationsUsed = (int) getMonthlyCancellationCount(userId);
+        int cancellationRemaining = Math.max(0, MONTHLY_CANCELLATION_LIMIT - cancellationsUsed);
+        for (OrderResponseDTO dto : orders) {
+            dto.setMonthlyCancellationLimit(MONTHLY_CANCELLATION_LIMIT);
+            dto.setMonthlyCancellationUsed(cancellationsUsed);
+            dto.setMonthlyCancellationRemaining(cancellationRemaining);
+            dto.setCancellable(cancellationRemaining > 0 && canCancel(dto, now));
+        }
+    }
+
+    /**
+     * Ghép DTO cho một trang đơn: 2 truy vấn projection cho vé và combo (+1 cho tên customer),
+     * giá gốc lấy từ bảng giá trong bộ nhớ của PriceService
+     */
+    private List<OrderResponseDTO> toResponses(List<OrderSummaryRow> rows) {
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> orderIds = rows.stream().map(OrderSummaryRow::getOrderId).collect(Collectors.toList());
+
+        Map<Long, List<OrderItemDTO>> itemsByOrder = new HashMap<>();
+        for (OrderTicketRow ticket : orderRepository.findTicketRowsByOrderIds(orderIds)) {
+            itemsByOrder.computeIfAbsent(ticket.getOrderId(), k -> new ArrayList<>()).add(toItem(ticket));
+        }
+        Map<Long, List<OrderComboDTO>> combosByOrder = new HashMap<>();
+        for (OrderComboRow combo : orderRepository.findComboRowsByOrderIds(orderIds)) {
+            combosByOrder.computeIfAbsent(combo.getOrderId(), k -> new ArrayList<>()).add(OrderComboDTO.builder()
+                    .comboId(combo.getComboId())
+                    .comboName(combo.getComboName())
+                    .comboImage(combo.getComboImage())
+                    .quantity(combo.getQuantity())
+                    .price(combo.getPrice())
+                    .build());
+        }
+        Set<Long> userIds = rows.stream()
+                .map(OrderSummaryRow::getUserId)
+                .filter(id -> id != null)
+                .collect(Collectors.toSet());
+        Map<Long, String> customerNames = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (Object[] row : customerRepository.findNamesByUserIds(userIds)) {
+                customerNames.put((Long) row[0], (String) row[1]);
+            }
+        }
 
-                    return item;
+        return rows.stream()
+                .map(row -> {
+                    OrderResponseDTO dto = new OrderResponseDTO();
+                    dto.setOrderId(row.getOrderId());
+                    dto.setOrderDate(row.getOrderDate());
+                    dto.setTotalAmount(row.getTotalAmount());
+                    dto.setPaymentMethod(mapPaymentMethod(row.getPaymentMethod()));
+                    // Đơn cũ chưa có status: suy ra từ vnpPayDate
+                    OrderStatus status = row.getStatus() != null ? row.getStatus()
+                            : (row.getVnpPayDate() != null ? OrderStatus.PAID : OrderStatus.PENDING);
+                    dto.setStatus(status.name());
+                    dto.setItems(itemsByOrder.getOrDefault(row.getOrderId(), new ArrayList<>()));
+                    dto.setCombos(combosByOrder.getOrDefault(row.getOrderId(), new ArrayList<>()));
+                    dto.setVoucherCode(row.getVoucherCode());
+                    // cinemaComplexId lưu trực tiếp cho đơn hàng chỉ có đồ ăn
+                    dto.setCinemaComplexId(row.getCinemaComplexId());
+                    if (row.getUserId() != null) {
+                        dto.setUserId(row.getUserId());
+                        dto.setUserEmail(row.getUserEmail());
+                        dto.setUserPhone(row.getUserPhone());
+                        // Customer hiển thị tên, các loại user khác hiển thị username
+                        dto.setUserName(customerNames.containsKey(row.getUserId())
+                                ? customerNames.get(row.getUserId())
+                                : row.getUsername());
+                    }
+                    dto.setCancelledAt(row.getCancelledAt());
+                    dto.setRefundAmount(row.getRefundAmount());
+                    dto.setCancellationReason(row.getCancellationReason());
+                    dto.setRefundedToWallet(row.getRefundedToWallet());
+                    dto.setIsTopUp(row.getIsTopUp());
+                    return dto;
                 })
                 .collect(Collectors.toList());
+    }
 
-        // Map order combos - load orderCombos lazily to avoid MultipleBagFetchException
-        // Initialize orderCombos collection to trigger lazy loading
-        if (order.getOrderCombos() != null) {
-            order.getOrderCombos().size(); // Trigger lazy loading
-        }
+    private OrderItemDTO toItem(OrderTicketRow ticket) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setTicketId(ticket.getTicketId());
+        item.setMovieId(ticket.getMovieId());
+        item.setMovieTitle(ticket.getMovieTitle());
+        item.setMoviePoster(ticket.getMoviePoster());
+        item.setCinemaComplexId(ticket.getCinemaComplexId());
+        item.setCinemaComplexName(ticket.getCinemaComplexName());
+        item.setCinemaAddress(ticket.getAddressDescription() == null && ticket.getAddressProvince() == null
+                ? ""
+                : (ticket.getAddressProvince() != null
+                        ? ticket.getAddressDescription() + ", " + ticket.getAddressProvince()
+                        : ticket.getAddressDescription()));
+        item.setRoomId(ticket.getRoomId());
+        item.setRoomName(ticket.getRoomName());
+        item.setRoomType(mapRoomType(ticket.getRoomType()));
+        item.setShowtimeId(ticket.getShowtimeId());
+        item.setShowtimeStart(ticket.getShowtimeStart());
+        item.setShowtimeEnd(ticket.getShowtimeEnd());
+        item.setSeatId(ticket.getSeatRow() + ticket.getSeatColumn());
+        item.setSeatRow(ticket.getSeatRow());
+        item.setSeatColumn(ticket.getSeatColumn());
+        item.setPrice(ticket.getPrice());
+        item.setQrToken(ticketTokenService.tokenFor(ticket.getQrCode(),
+                ticket.getTicketId(), ticket.getShowtimeId(), ticket.getSeatId()));
+        // Giá gốc theo roomType + seatType; chưa cấu hình giá thì coi giá vé là giá gốc
+        BigDecimal basePrice = priceService.getBasePrice(ticket.getRoomType(), ticket.getSeatType());
+        item.setBasePrice(basePrice != null ? basePrice : ticket.getPrice());
+        return item;
+    }
 
-        List<OrderComboDTO> combos = order.getOrderCombos() != null
-                ? order.getOrderCombos().stream()
-                        .map(oc -> {
-                            // Reference đến FoodCombo gốc
-                            if (oc.getFoodCombo() != null) {
-                                FoodCombo fc = oc.getFoodCombo();
-                                OrderComboDTO combo = new OrderComboDTO();
-                                combo.setComboId(fc.getFoodComboId());
-                                combo.setComboName(fc.getName());
-                                combo.setComboImage(fc.getImage());
-                                combo.setQuantity(oc.getQuantity());
-                                combo.setPrice(oc.getPrice());
-                                return combo;
-                            }
-                            return null;
-                        })
-                        .filter(combo -> combo != null)
-                        .collect(Collectors.toList())
-                : List.of();
-
-        OrderResponseDTO dto = new OrderResponseDTO();
-        dto.setOrderId(order.getOrderId());
-        dto.setOrderDate(order.getOrderDate());
-        dto.setTotalAmount(order.getTotalAmount());
-        dto.setPaymentMethod(mapPaymentMethod(order.getPaymentMethod()));
-        dto.setStatus(order.getStatus() != null ? order.getStatus().name() : null);
-        dto.setItems(items);
-        dto.setCombos(combos);
-        dto.setVoucherCode(order.getVoucher() != null
-                ? order.getVoucher().getCode()
-                : null);
-        // Set cinemaComplexId từ Order entity (cho đơn hàng chỉ có đồ ăn)
-        // Với đơn hàng có vé phim, có thể lấy từ items[0].cinemaComplexId
-        dto.setCinemaComplexId(order.getCinemaComplexId());
-        // Set user info
-        if (order.getUser() != null) {
-            dto.setUserId(order.getUser().getUserId());
-            dto.setUserEmail(order.getUser().getEmail());
-            dto.setUserPhone(order.getUser().getPhone());
-            // Get user name if Customer
-            if (order.getUser() instanceof com.example.backend.entities.Customer) {
-                com.example.backend.entities.Customer customer = (com.example.backend.entities.Customer) order
-                        .getUser();
-                dto.setUserName(customer.getName());
-            } else {
-                dto.setUserName(order.getUser().getUsername());
+    private String encodeCursor(OrderSummaryRow row) {
+        String raw = row.getOrderDate() + "|" + row.getOrderId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(raw);
             }
+            LocalDateTime.parse(parts[0]);
+            Long.valueOf(parts[1]);
+            return parts;
+        } catch (Exception e) {
+            throw new RuntimeException("Cursor không hợp lệ");
         }
-        dto.setCancelledAt(order.getCancelledAt());
-        dto.setRefundAmount(order.getRefundAmount());
-        dto.setCancellationReason(order.getCancellationReason());
-        dto.setRefundedToWallet(order.getRefundedToWallet());
-        dto.setIsTopUp(order.getIsTopUp());
-        return dto;
     }
 
     private String mapRoomType(com.example.backend.entities.enums.RoomType roomType) {
@@ -358,6 +445,7 @@ public class OrderService {
 
         order.setStatus(OrderStatus.CANCELLED);
         order.setCancelledAt(now);
+        revokeTickets(order);
         order.setCancellationReason(normalizedReason);
         order.setRefundAmount(refundAmount);
         order.setRefundedToWallet(Boolean.TRUE);
@@ -499,6 +587,7 @@ public class OrderService {
 
         order.setStatus(OrderStatus.CANCELLED);
         order.setCancelledAt(now);
+        revokeTickets(order);
         order.setCancellationReason(normalizedReason);
         order.setRefundAmount(refundAmount);
         order.setRefundedToWallet(Boolean.TRUE);
@@ -515,6 +604,17 @@ public class OrderService {
                 .build();
     }
 
+    /**
+     * Vé của đơn đã hủy không còn được quét vào rạp
+     */
+    private void revokeTickets(Order order) {
+        if (order.getTickets() != null && !order.getTickets().isEmpty()) {
+            ticketTokenService.revoke(order.getTickets().stream()
+                    .map(Ticket::getTicketId)
+                    .collect(Collectors.toList()));
+        }
+    }
+
     private void normalizeOrderStatus(Order order) {
         if (order.getStatus() != null) {
             return;
@@ -528,25 +628,17 @@ public class OrderService {
         }
     }
 
-    private boolean canCancel(Order order, LocalDateTime now) {
-        if (order == null)
-            return false;
-        if (order.getVnpPayDate() == null)
-            return false;
-        if (order.getStatus() == OrderStatus.CANCELLED)
+    private boolean canCancel(OrderResponseDTO order, LocalDateTime now) {
+        if (OrderStatus.CANCELLED.name().equals(order.getStatus()))
             return false;
 
-        if (order.getTickets() != null && !order.getTickets().isEmpty()) {
-            LocalDateTime earliestShowtime = order.getTickets().stream()
-                    .map(ticket -> ticket.getShowtime() != null ? ticket.getShowtime().getStartTime() : null)
-                    .filter(start -> start != null)
-                    .min(LocalDateTime::compareTo)
-                    .orElse(null);
-            if (earliestShowtime != null && !earliestShowtime.isAfter(now)) {
-                return false;
-            }
-        }
-        return true;
+        // Không hủy được khi suất chiếu sớm nhất của đơn đã bắt đầu
+        LocalDateTime earliestShowtime = order.getItems().stream()
+                .map(OrderItemDTO::getShowtimeStart)
+                .filter(start -> start != null)
+                .min(LocalDateTime::compareTo)
+                .orElse(null);
+        return earliestShowtime == null || earliestShowtime.isAfter(now);
     }
 
     private long getMonthlyCancellationCount(Long userId) {
@@ -591,173 +683,8 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public Map<String, Object> getExpenseStatistics(Long userId) {
-        List<Order> orders = orderRepository.findByUserUserIdWithDetails(userId);
-
-        System.out.println("DEBUG: Total orders found for user " + userId + ": " + orders.size());
-
-        // Chỉ tính các orders đã thanh toán thành công (có vnpPayDate)
-        // Và chỉ tính orders thanh toán bằng VNPAY, MOMO, ZALOPAY (không tính WALLET)
-        // Bao gồm cả orders nạp tiền vào ví (isTopUp = true)
-        List<Order> paidOrders = orders.stream()
-                .filter(order -> {
-                    boolean isPaid = order.getVnpPayDate() != null;
-                    if (!isPaid) {
-                        System.out.println("DEBUG: Order " + order.getOrderId() + " not paid (vnpPayDate is null)");
-                        return false;
-                    }
-                    
-                    // Chỉ tính orders thanh toán bằng VNPAY, MOMO, ZALOPAY (không tính WALLET)
-                    // Trừ khi là top-up order (nạp tiền vào ví)
-                    PaymentMethod paymentMethod = order.getPaymentMethod();
-                    boolean isWalletPayment = paymentMethod == PaymentMethod.WALLET;
-                    boolean isTopUp = Boolean.TRUE.equals(order.getIsTopUp());
-                    
-                    // Nếu là thanh toán bằng ví và không phải top-up, không tính
-                    if (isWalletPayment && !isTopUp) {
-                        System.out.println("DEBUG: Order " + order.getOrderId() + " paid by WALLET (not top-up), excluding from expenses");
-                        return false;
-                    }
-                    
-                    // Tính các orders thanh toán bằng VNPAY, MOMO, ZALOPAY
-                    // Và các orders top-up (nạp tiền vào ví)
-                    return true;
-                })
-                .collect(Collectors.toList());
-
-        System.out.println("DEBUG: Paid orders count (excluding wallet payments): " + paidOrders.size());
-
-        // Tính tổng chi tiêu
-        // Nếu order bị CANCELLED, trừ đi refundAmount
-        BigDecimal totalSpent = paidOrders.stream()
-                .map(order -> {
-                    BigDecimal amount = order.getTotalAmount();
-                    if (amount == null) {
-                        return BigDecimal.ZERO;
-                    }
-                    
-                    // Nếu order bị hủy, trừ đi số tiền đã hoàn
-                    if (order.getStatus() == OrderStatus.CANCELLED && order.getRefundAmount() != null) {
-                        BigDecimal netAmount = amount.subtract(order.getRefundAmount());
-                        System.out.println("DEBUG: Order " + order.getOrderId() + " was cancelled. Amount: " + amount + ", Refund: " + order.getRefundAmount() + ", Net: " + netAmount);
-                        return netAmount;
-                    }
-                    
-                    System.out.println("DEBUG: Order " + order.getOrderId() + " amount: " + amount);
-                    return amount;
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        System.out.println("DEBUG: Total spent: " + totalSpent);
-
-        // Đếm tổng số vé (tổng số tickets)
-        long totalTickets = paidOrders.stream()
-                .mapToLong(order -> {
-                    long ticketCount = order.getTickets() != null ? order.getTickets().size() : 0;
-                    System.out.println("DEBUG: Order " + order.getOrderId() + " ticket count: " + ticketCount);
-                    return ticketCount;
-                })
-                .sum();
-
-        System.out.println("DEBUG: Total tickets: " + totalTickets);
-
-        // Tính chi tiêu trung bình/vé
-        BigDecimal averagePerTicket = totalTickets > 0
-                ? totalSpent.divide(BigDecimal.valueOf(totalTickets), 2, java.math.RoundingMode.HALF_UP)
-                : BigDecimal.ZERO;
-
-        // Tính chi tiêu theo tháng
-        LocalDate now = LocalDate.now();
-        YearMonth currentMonth = YearMonth.from(now);
-        YearMonth lastMonth = currentMonth.minusMonths(1);
-        YearMonth threeMonthsAgo = currentMonth.minusMonths(3);
-
-        LocalDate currentMonthStart = currentMonth.atDay(1);
-        LocalDate currentMonthEnd = currentMonth.atEndOfMonth();
-        LocalDate lastMonthStart = lastMonth.atDay(1);
-        LocalDate lastMonthEnd = lastMonth.atEndOfMonth();
-        LocalDate threeMonthsAgoStart = threeMonthsAgo.atDay(1);
-
-        BigDecimal thisMonthSpent = paidOrders.stream()
-                .filter(order -> {
-                    if (order.getOrderDate() == null)
-                        return false;
-                    LocalDate orderDate = order.getOrderDate().toLocalDate();
-                    return !orderDate.isBefore(currentMonthStart) && !orderDate.isAfter(currentMonthEnd);
-                })
-                .map(order -> {
-                    BigDecimal amount = order.getTotalAmount();
-                    if (amount == null) {
-                        return BigDecimal.ZERO;
-                    }
-                    // Nếu order bị hủy, trừ đi số tiền đã hoàn
-                    if (order.getStatus() == OrderStatus.CANCELLED && order.getRefundAmount() != null) {
-                        return amount.subtract(order.getRefundAmount());
-                    }
-                    return amount;
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal lastMonthSpent = paidOrders.stream()
-                .filter(order -> {
-                    if (order.getOrderDate() == null)
-                        return false;
-                    LocalDate orderDate = order.getOrderDate().toLocalDate();
-                    return !orderDate.isBefore(lastMonthStart) && !orderDate.isAfter(lastMonthEnd);
-                })
-                .map(order -> {
-                    BigDecimal amount = order.getTotalAmount();
-                    if (amount == null) {
-                        return BigDecimal.ZERO;
-                    }
-                    // Nếu order bị hủy, trừ đi số tiền đã hoàn
-                    if (order.getStatus() == OrderStatus.CANCELLED && order.getRefundAmount() != null) {
-                        return amount.subtract(order.getRefundAmount());
-                    }
-                    return amount;
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal lastThreeMonthsSpent = paidOrders.stream()
-                .filter(order -> {
-                    if (order.getOrderDate() == null)
-                        return false;
-                    LocalDate orderDate = order.getOrderDate().toLocalDate();
-                    return !orderDate.isBefore(threeMonthsAgoStart);
-                })
-                .map(order -> {
-                    BigDecimal amount = order.getTotalAmount();
-                    if (amount == null) {
-                        return BigDecimal.ZERO;
-                    }
-                    // Nếu order bị hủy, trừ đi số tiền đã hoàn
-                    if (order.getStatus() == OrderStatus.CANCELLED && order.getRefundAmount() != null) {
-                        return amount.subtract(order.getRefundAmount());
-                    }
-                    return amount;
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Đếm tổng số đơn hàng đã thanh toán
-        long totalOrders = paidOrders.size();
-
-        System.out.println("DEBUG: Total orders: " + totalOrders);
-        System.out.println("DEBUG: This month spent: " + thisMonthSpent);
-        System.out.println("DEBUG: Last month spent: " + lastMonthSpent);
-        System.out.println("DEBUG: Last 3 months spent: " + lastThreeMonthsSpent);
-
-        Map<String, Object> statistics = new HashMap<>();
-        statistics.put("totalSpent", totalSpent);
-        statistics.put("totalTickets", totalTickets);
-        statistics.put("totalOrders", totalOrders);
-        statistics.put("thisMonthSpent", thisMonthSpent);
-        statistics.put("lastMonthSpent", lastMonthSpent);
-        statistics.put("lastThreeMonthsSpent", lastThreeMonthsSpent);
-
-        System.out.println("DEBUG: Returning statistics map: " + statistics);
-        System.out.println("DEBUG: Statistics values - totalSpent: " + totalSpent + " (type: "
-                + totalSpent.getClass().getName() + ")");
-
-        return statistics;
+        // Đọc từ bảng chi tiêu theo tháng (CustomerSpendService), không tải lại toàn bộ đơn hàng
+        return customerSpendService.getStatistics(userId);
     }
 
     /**
@@ -0,0 +1,53 @@
+package com.example.backend.services;
+
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * Nơi lưu OTP, reset token và thời điểm gửi (cooldown) theo email, thay cho HttpSession.
+ * Mặc định là InMemoryOtpStore (otp.store=memory); chạy nhiều node thì cung cấp bean khác
+ * (Redis, database...) và đặt otp.store tương ứng để các node dùng chung.
+ */
+public interface OtpStore {
+
+    /**
+     * @param value mã OTP, hoặc email với reset token; null khi mã đã bị hủy (chỉ còn giữ cooldown)
+     * @param attempts số lần nhập sai
+     */
+    record Entry(String value, long expiresAtMillis, long lastSentAtMillis, int attempts) {
+
+        public boolean isExpired(long nowMillis) {
+            return nowMillis > expiresAtMillis;
+        }
+
+        public boolean isRevoked() {
+            return value == null;
+        }
+
+        public Entry withAttempts(int attempts) {
+            return new Entry(value, expiresAtMillis, lastSentAtMillis, attempts);
+        }
+
+        /**
+         * Hủy mã nhưng giữ lastSentAtMillis tới khi hết hạn, để không gửi lại được trước cooldown
+         */
+        public Entry revoked() {
+            return new Entry(null, expiresAtMillis, lastSentAtMillis, attempts);
+        }
+    }
+
+    Optional<Entry> get(String namespace, String key);
+
+    void put(String namespace, String key, Entry entry);
+
+    /**
+     * Xóa và trả về entry (dùng một lần, ví dụ reset token)
+     */
+    Optional<Entry> remove(String namespace, String key);
+
+    /**
+     * Cập nhật nguyên tử: hàm nhận entry hiện tại (null nếu chưa có hoặc đã hết hạn), trả về null để xóa.
+     * Exception ném ra trong hàm giữ nguyên entry cũ.
+     */
+    Entry compute(String namespace, String key, UnaryOperator<Entry> function);
+}
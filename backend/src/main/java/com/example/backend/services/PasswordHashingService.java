@@ -0,0 +1,132 @@
+package com.example.backend.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chạy BCrypt (encode/matches) trên passwordHashExecutor thay vì thread của Tomcat.
+ * - Executor có số thread và hàng đợi giới hạn: khi đầy thì từ chối ngay (429) thay vì để request xếp hàng
+ *   chiếm hết thread của servlet pool (ví dụ lúc mở bán, nhiều người đăng nhập cùng lúc)
+ * - Chờ quá timeout-ms cũng trả 429, task còn trong hàng đợi bị hủy
+ * - Cost factor cấu hình ở security.bcrypt.strength (SecurityConfig), hash cũ được nâng cấp khi đăng nhập
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor executor;
+    private final long timeoutMs;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalHashNanos = new AtomicLong();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Qualifier("passwordHashExecutor") ThreadPoolTaskExecutor executor,
+                                  @Value("${security.password-hash.timeout-ms:5000}") long timeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public String encode(String rawPassword) {
+        return execute(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return execute(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hash được tạo với cost thấp hơn cấu hình hiện tại (cần hash lại khi người dùng đăng nhập thành công)
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    public Map<String, Object> getMetrics() {
+        long count = completed.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("completed", count);
+        metrics.put("rejected", rejected.get());
+        metrics.put("timedOut", timedOut.get());
+        metrics.put("avgHashMs", count > 0 ? totalHashNanos.get() / count / 1_000_000.0 : 0);
+        metrics.put("maxHashMs", maxHashNanos.get() / 1_000_000.0);
+        metrics.put("avgQueueWaitMs", count > 0 ? totalQueueWaitNanos.get() / count / 1_000_000.0 : 0);
+        metrics.put("maxQueueWaitMs", maxQueueWaitNanos.get() / 1_000_000.0);
+        metrics.put("activeThreads", executor.getActiveCount());
+        metrics.put("queueSize", executor.getQueueSize());
+        return metrics;
+    }
+
+    private <T> T execute(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    long finishedAt = System.nanoTime();
+                    record(startedAt - submittedAt, finishedAt - startedAt);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            rejected.incrementAndGet();
+            throw busy();
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut.incrementAndGet();
+            future.cancel(false);
+            throw busy();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw busy();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private void record(long queueWaitNanos, long hashNanos) {
+        completed.incrementAndGet();
+        totalQueueWaitNanos.addAndGet(queueWaitNanos);
+        totalHashNanos.addAndGet(hashNanos);
+        maxQueueWaitNanos.accumulateAndGet(queueWaitNanos, Math::max);
+        maxHashNanos.accumulateAndGet(hashNanos, Math::max);
+    }
+
+    private ResponseStatusException busy() {
+        return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                "Hệ thống đang bận, vui lòng thử lại sau ít giây");
+    }
+}
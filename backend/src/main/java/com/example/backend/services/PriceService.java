@@ -9,12 +9,19 @@ import com.example.backend.entities.enums.SeatType;
 import com.example.backend.repositories.PriceRepository;
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,10 +30,20 @@ public class PriceService {
     private final PriceRepository priceRepository;
     private final KieContainer kieContainer;
     
+    // Bảng giá gốc trong bộ nhớ (vài chục dòng), null = cần nạp lại; bị xóa sau khi thay đổi giá commit
+    // trên node này, và hết hạn sau base-prices-ttl-ms để nhận thay đổi giá từ node khác
+    private volatile BasePrices basePrices;
+    private final AtomicLong basePricesVersion = new AtomicLong();
+    private final long basePricesTtlMs;
+    
+    private record BasePrices(Map<RoomType, Map<SeatType, BigDecimal>> table, long loadedAt) {}
+    
     // Constructor for dependency injection
-    public PriceService(PriceRepository priceRepository, KieContainer kieContainer) {
+    public PriceService(PriceRepository priceRepository, KieContainer kieContainer,
+                        @Value("${price.base-prices-ttl-ms:60000}") long basePricesTtlMs) {
         this.priceRepository = priceRepository;
         this.kieContainer = kieContainer;
+        this.basePricesTtlMs = basePricesTtlMs;
     }
     
     /**
@@ -45,6 +62,64 @@ public class PriceService {
                 .orElse(null);
     }
     
+    /**
+     * Giá gốc theo loại phòng + loại ghế, đọc từ bảng giá trong bộ nhớ (không truy vấn DB mỗi lần gọi)
+     * @return null nếu chưa cấu hình giá
+     */
+    public BigDecimal getBasePrice(RoomType roomType, SeatType seatType) {
+        if (roomType == null || seatType == null) {
+            return null;
+        }
+        BasePrices current = basePrices;
+        Map<RoomType, Map<SeatType, BigDecimal>> table = isFresh(current) ? current.table() : loadBasePrices();
+        return table.getOrDefault(roomType, Collections.emptyMap()).get(seatType);
+    }
+    
+    private boolean isFresh(BasePrices current) {
+        return current != null && System.currentTimeMillis() - current.loadedAt() < basePricesTtlMs;
+    }
+    
+    private synchronized Map<RoomType, Map<SeatType, BigDecimal>> loadBasePrices() {
+        BasePrices current = basePrices;
+        if (isFresh(current)) {
+            return current.table();
+        }
+        long version = basePricesVersion.get();
+        Map<RoomType, Map<SeatType, BigDecimal>> table = new EnumMap<>(RoomType.class);
+        for (Price price : priceRepository.findAll()) {
+            if (price.getRoomType() != null && price.getSeatType() != null) {
+                table.computeIfAbsent(price.getRoomType(), k -> new EnumMap<>(SeatType.class))
+                        .put(price.getSeatType(), price.getPrice());
+            }
+        }
+        // Giá vừa đổi trong lúc đang nạp thì không lưu bảng cũ, lần đọc sau nạp lại
+        if (version == basePricesVersion.get()) {
+            basePrices = new BasePrices(table, System.currentTimeMillis());
+        }
+        return table;
+    }
+    
+    /**
+     * Bỏ bảng giá trong bộ nhớ sau khi transaction sửa giá commit, lần đọc sau nạp lại
+     */
+    private void invalidateBasePricesAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clearBasePrices();
+                }
+            });
+        } else {
+            clearBasePrices();
+        }
+    }
+    
+    private void clearBasePrices() {
+        basePricesVersion.incrementAndGet();
+        basePrices = null;
+    }
+    
     @Transactional
     public List<PriceDTO> updatePrices(UpdatePricesRequestDTO request) {
         List<PriceDTO> priceDTOs = request.getPrices();
@@ -110,6 +185,7 @@ public class PriceService {
             }
         }
         
+        invalidateBasePricesAfterCommit();
         return getAllPrices();
     }
     
@@ -124,6 +200,7 @@ public class PriceService {
         }
         
         Optional<Price> existingPrice = priceRepository.findByRoomTypeAndSeatType(roomType, seatType);
+        invalidateBasePricesAfterCommit();
         
         if (existingPrice.isPresent()) {
             Price priceEntity = existingPrice.get();
@@ -145,6 +222,7 @@ public class PriceService {
             throw new RuntimeException("Không tìm thấy bảng giá với ID: " + id);
         }
         priceRepository.deleteById(id);
+        invalidateBasePricesAfterCommit();
     }
     
     private PriceDTO convertToDTO(Price price) {
@@ -0,0 +1,57 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.Address;
+import com.example.backend.repositories.AddressRepository;
+import com.example.backend.utils.ProvinceKeys;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Điền Address.provinceKey cho dữ liệu có trước khi thêm cột (địa chỉ mới được điền trong @PrePersist/@PreUpdate).
+ * Chạy khi khởi động, mỗi batch một transaction; hết địa chỉ thiếu key thì dừng.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProvinceKeyBackfillService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final AddressRepository addressRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int total = 0;
+        while (true) {
+            Integer updated = transactionTemplate.execute(status -> {
+                List<Address> addresses = addressRepository.findMissingProvinceKey(
+                        PageRequest.of(0, BATCH_SIZE));
+                int count = 0;
+                for (Address address : addresses) {
+                    String key = ProvinceKeys.normalize(address.getProvince());
+                    if (key != null) {
+                        address.setProvinceKey(key);
+                        count++;
+                    }
+                }
+                return addresses.isEmpty() ? -1 : count;
+            });
+            // Hết địa chỉ thiếu key, hoặc batch chỉ còn province không chuẩn hóa được (chỉ có ký tự đặc biệt)
+            if (updated == null || updated <= 0) {
+                break;
+            }
+            total += updated;
+        }
+        if (total > 0) {
+            log.info("Backfilled province key for {} addresses", total);
+        }
+    }
+}
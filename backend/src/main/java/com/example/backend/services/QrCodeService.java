@@ -0,0 +1,212 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.Order;
+import com.example.backend.entities.Showtime;
+import com.example.backend.entities.Ticket;
+import com.example.backend.entities.enums.OrderStatus;
+import com.example.backend.repositories.TicketRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Render QR code (PNG) cho email và endpoint /api/tickets/{id}/qr.png.
+ * Nội dung QR của vé là token có chữ ký (TicketTokenService), đơn đồ ăn vẫn dùng JSON.
+ * - PNG được cache theo SHA-256 của nội dung QR (LRU, giới hạn số phần tử), gửi lại email hay mở lại vé không phải encode lại
+ * - Mỗi thread giữ sẵn ảnh, mảng pixel và buffer PNG để không cấp phát lại cho mỗi lần render
+ */
+@Service
+@Slf4j
+public class QrCodeService {
+
+    private static final int QR_SIZE = 400;
+
+    private static final Map<EncodeHintType, Object> HINTS;
+    static {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M);
+        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
+        hints.put(EncodeHintType.MARGIN, 1);
+        HINTS = Collections.unmodifiableMap(hints);
+    }
+
+    // QRCodeWriter không giữ state nên dùng chung được
+    private static final QRCodeWriter QR_WRITER = new QRCodeWriter();
+
+    private static final ThreadLocal<RenderBuffers> BUFFERS = ThreadLocal.withInitial(RenderBuffers::new);
+
+    /**
+     * JSON compact, giữ thứ tự LinkedHashMap (giống JSON.stringify ở frontend)
+     */
+    private final ObjectMapper qrObjectMapper = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, false);
+
+    private final TicketRepository ticketRepository;
+    private final TicketTokenService ticketTokenService;
+    private final Map<String, byte[]> pngCache;
+
+    public record QrImage(String hash, byte[] png) {}
+
+    private static final class RenderBuffers {
+        private BufferedImage image;
+        private int[] row;
+        private final ByteArrayOutputStream png = new ByteArrayOutputStream(8 * 1024);
+
+        private BufferedImage image(int width, int height) {
+            if (image == null || image.getWidth() != width || image.getHeight() != height) {
+                image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+                row = new int[width];
+            }
+            return image;
+        }
+    }
+
+    public QrCodeService(TicketRepository ticketRepository,
+                         TicketTokenService ticketTokenService,
+                         @Value("${qr.cache.max-entries:2000}") int maxEntries) {
+        this.ticketRepository = ticketRepository;
+        this.ticketTokenService = ticketTokenService;
+        this.pngCache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Nội dung QR cho một nhóm vé cùng suất chiếu: token có chữ ký của từng vé (sắp theo ghế), cách nhau bởi dấu cách.
+     * Email và endpoint dùng chung nên ảnh giống nhau.
+     */
+    public String buildTicketGroupContent(List<Ticket> tickets) {
+        return tickets.stream()
+            .sorted(Comparator.comparing((Ticket t) -> t.getSeat().getSeatRow())
+                .thenComparing(t -> t.getSeat().getSeatColumn()))
+            .map(ticketTokenService::tokenFor)
+            .collect(Collectors.joining(" "));
+    }
+
+    public String buildBookingId(Order order, Showtime st) {
+        return String.format("%d-%d-%s",
+            order.getOrderId(),
+            st.getShowtimeId(),
+            st.getStartTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
+    }
+
+    /**
+     * QR của vé (cùng ảnh với email xác nhận); chỉ cấp cho đơn đã thanh toán vì QR là vé vào cổng
+     * @param username người gọi; chỉ chủ đơn hàng hoặc staff (privileged) mới xem được
+     * @param cinemaComplexId cụm rạp của quản lý; null = admin hoặc khách hàng
+     */
+    public QrImage renderTicketQr(Long ticketId, String username, boolean privileged, Long cinemaComplexId) {
+        Ticket ticket = ticketRepository.findByIdWithDetails(ticketId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy vé với ID: " + ticketId));
+        Order order = ticket.getOrder();
+        if (!privileged && (order.getUser() == null || !order.getUser().getUsername().equals(username))) {
+            throw new SecurityException("Bạn không có quyền xem vé này");
+        }
+        if (privileged && cinemaComplexId != null
+                && !cinemaComplexId.equals(ticket.getShowtime().getCinemaRoom().getCinemaComplex().getComplexId())) {
+            throw new SecurityException("Bạn chỉ được xem vé của cụm rạp mình quản lý");
+        }
+        if (order.getStatus() == OrderStatus.CANCELLED) {
+            throw new RuntimeException("Đơn hàng đã bị hủy");
+        }
+        if (order.getVnpPayDate() == null) {
+            throw new RuntimeException("Đơn hàng chưa được thanh toán");
+        }
+
+        List<Ticket> group = ticketRepository.findByOrderIdAndShowtimeId(
+                order.getOrderId(), ticket.getShowtime().getShowtimeId());
+        return render(buildTicketGroupContent(group));
+    }
+
+    /**
+     * Render QR từ dữ liệu (serialize sang JSON compact); lấy từ cache nếu nội dung đã render trước đó
+     */
+    public QrImage render(Map<String, Object> data) {
+        try {
+            return render(qrObjectMapper.writeValueAsString(data));
+        } catch (IOException e) {
+            throw new RuntimeException("Không thể tạo QR code: " + e.getMessage(), e);
+        }
+    }
+
+    public QrImage render(String content) {
+        String hash = sha256(content);
+        byte[] png = pngCache.get(hash);
+        if (png == null) {
+            png = encode(content);
+            pngCache.put(hash, png);
+        }
+        return new QrImage(hash, png);
+    }
+
+    public int getCacheSize() {
+        return pngCache.size();
+    }
+
+    private byte[] encode(String content) {
+        try {
+            BitMatrix matrix = QR_WRITER.encode(content, BarcodeFormat.QR_CODE, QR_SIZE, QR_SIZE, HINTS);
+            int width = matrix.getWidth();
+            int height = matrix.getHeight();
+
+            RenderBuffers buffers = BUFFERS.get();
+            BufferedImage image = buffers.image(width, height);
+            WritableRaster raster = image.getRaster();
+            int[] row = buffers.row;
+            // TYPE_BYTE_BINARY: sample 0 = đen, 1 = trắng
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    row[x] = matrix.get(x, y) ? 0 : 1;
+                }
+                raster.setPixels(0, y, width, 1, row);
+            }
+
+            ByteArrayOutputStream out = buffers.png;
+            out.reset();
+            if (!ImageIO.write(image, "PNG", out)) {
+                throw new IOException("Không có PNG writer");
+            }
+            return out.toByteArray();
+        } catch (WriterException | IOException e) {
+            throw new RuntimeException("Không thể tạo QR code: " + e.getMessage(), e);
+        }
+    }
+
+    private String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
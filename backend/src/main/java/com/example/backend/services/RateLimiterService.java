@@ -0,0 +1,142 @@
+package com.example.backend.services;
+
+import com.example.backend.config.RateLimitProperties;
+import com.example.backend.utils.TokenBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limit theo rule (RateLimitProperties) x user/IP, dùng bởi RateLimitFilter.
+ * - Mỗi key một TokenBucket (không khóa), tạo khi có request đầu tiên
+ * - Request khớp nhiều rule chỉ bị trừ token khi qua được mọi rule: rule sau từ chối thì
+ *   token đã lấy ở các rule trước được trả lại
+ * - Bucket đã hồi đầy được dọn định kỳ (không mất trạng thái), map bị giới hạn bởi rate-limit.max-keys
+ * Giới hạn tính trên từng node; chạy nhiều node thì capacity thực tế nhân theo số node.
+ */
+@Service
+@Slf4j
+public class RateLimiterService {
+
+    private final RateLimitProperties properties;
+
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> allowedByRule = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> rejectedByRule = new ConcurrentHashMap<>();
+
+    public record Decision(boolean allowed, String rule, long retryAfterSeconds) {
+        static final Decision ALLOWED = new Decision(true, null, 0);
+    }
+
+    public RateLimiterService(RateLimitProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @param username null nếu chưa đăng nhập
+     */
+    public Decision check(String method, String path, String username, String clientIp) {
+        if (!properties.isEnabled()) {
+            return Decision.ALLOWED;
+        }
+        List<RateLimitProperties.Rule> passed = null;
+        List<TokenBucket> acquired = null;
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            if (!rule.matches(method, path)) {
+                continue;
+            }
+            String subject = rule.getKey() == RateLimitProperties.KeyType.USER && username != null
+                    ? "u:" + username
+                    : "ip:" + clientIp;
+            TokenBucket bucket = bucket(rule, rule.getName() + "|" + subject);
+            long waitNanos = bucket.tryAcquire();
+            if (waitNanos > 0) {
+                if (acquired != null) {
+                    acquired.forEach(TokenBucket::refund);
+                }
+                rejectedByRule.computeIfAbsent(rule.getName(), k -> new AtomicLong()).incrementAndGet();
+                long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+                return new Decision(false, rule.getName(), retryAfterSeconds);
+            }
+            if (acquired == null) {
+                passed = new ArrayList<>(2);
+                acquired = new ArrayList<>(2);
+            }
+            passed.add(rule);
+            acquired.add(bucket);
+        }
+        if (passed != null) {
+            for (RateLimitProperties.Rule rule : passed) {
+                allowedByRule.computeIfAbsent(rule.getName(), k -> new AtomicLong()).incrementAndGet();
+            }
+        }
+        return Decision.ALLOWED;
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.cleanup-interval-ms:60000}")
+    public void evictFullBuckets() {
+        buckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> rules = new LinkedHashMap<>();
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            Map<String, Object> ruleMetrics = new LinkedHashMap<>();
+            ruleMetrics.put("capacity", rule.getCapacity());
+            ruleMetrics.put("periodMs", rule.getPeriodMs());
+            ruleMetrics.put("key", rule.getKey());
+            ruleMetrics.put("allowed", counter(allowedByRule, rule.getName()));
+            ruleMetrics.put("rejected", counter(rejectedByRule, rule.getName()));
+            rules.put(rule.getName(), ruleMetrics);
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", properties.isEnabled());
+        metrics.put("activeBuckets", buckets.size());
+        metrics.put("maxKeys", properties.getMaxKeys());
+        metrics.put("rules", rules);
+        return metrics;
+    }
+
+    private TokenBucket bucket(RateLimitProperties.Rule rule, String key) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= properties.getMaxKeys()) {
+            trim();
+        }
+        return buckets.computeIfAbsent(key,
+                k -> new TokenBucket(rule.getCapacity(), TimeUnit.MILLISECONDS.toNanos(rule.getPeriodMs())));
+    }
+
+    /**
+     * Map đầy: bỏ bucket đã hồi đầy trước, vẫn vượt thì bỏ bớt bucket bất kỳ
+     * (key bị bỏ được cấp lại bucket đầy - chấp nhận được khi đang bị quét quá nhiều IP)
+     */
+    private void trim() {
+        evictFullBuckets();
+        if (buckets.size() >= properties.getMaxKeys()) {
+            log.warn("Rate limiter reached {} buckets, dropping entries", buckets.size());
+            Iterator<String> iterator = buckets.keySet().iterator();
+            while (buckets.size() >= properties.getMaxKeys() * 9L / 10 && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    private long counter(ConcurrentMap<String, AtomicLong> counters, String rule) {
+        AtomicLong counter = counters.get(rule);
+        return counter != null ? counter.get() : 0;
+    }
+}
@@ -0,0 +1,430 @@
+package com.example.backend.services;
+
+import com.example.backend.dtos.OccupancyReportRowDTO;
+import com.example.backend.dtos.SalesReportRowDTO;
+import com.example.backend.entities.CinemaComplex;
+import com.example.backend.entities.CinemaRoom;
+import com.example.backend.entities.HourlySales;
+import com.example.backend.entities.Movie;
+import com.example.backend.entities.ShowtimeSales;
+import com.example.backend.entities.enums.OrderStatus;
+import com.example.backend.repositories.CinemaComplexRepository;
+import com.example.backend.repositories.CinemaRoomRepository;
+import com.example.backend.repositories.HourlySalesReportRepository;
+import com.example.backend.repositories.HourlySalesRepository;
+import com.example.backend.repositories.MovieRepository;
+import com.example.backend.repositories.ShowtimeSalesReportRepository;
+import com.example.backend.repositories.ShowtimeSalesRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bảng tổng hợp doanh thu (hourly_sales: theo giờ đặt đơn + cụm rạp) và lấp đầy (showtime_sales: theo suất chiếu)
+ * cho báo cáo của admin/manager.
+ * - Sau khi đơn hàng commit (OrderChangedEvent) tính lại giờ chứa đơn đó và các suất chiếu có vé trong đơn;
+ *   thêm/sửa/xóa suất chiếu (CatalogChangedEvent vùng SCHEDULE) tính lại các suất chiếu của ngày đó.
+ *   Luôn tính lại từ dữ liệu gốc nên chạy trùng sự kiện không làm lệch số liệu.
+ * - Báo cáo chỉ đọc hai bảng tổng hợp (GROUP BY theo giờ/ngày/cụm rạp/phòng/phim/suất), không quét orders/tickets
+ * - Backfill/đồng bộ lại chia theo ngày, các ngày chạy song song trên analyticsBackfillExecutor;
+ *   tự chạy khi bảng còn trống và hằng đêm cho vài ngày gần đây
+ * Cập nhật tăng dần và điều phối backfill chạy trên analyticsExecutor (một thread) nên không ghi đè lẫn nhau.
+ */
+@Service
+@Slf4j
+public class SalesAnalyticsService {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+    private static final int SHOWTIME_CHUNK_SIZE = 500;
+    // Số ngày đưa vào pool mỗi đợt khi backfill (giới hạn hàng đợi của pool)
+    private static final int BACKFILL_WAVE_DAYS = 16;
+    public static final int MAX_REPORT_DAYS = 400;
+
+    private final ShowtimeSalesRepository showtimeSalesRepository;
+    private final HourlySalesRepository hourlySalesRepository;
+    private final MovieRepository movieRepository;
+    private final CinemaComplexRepository cinemaComplexRepository;
+    private final CinemaRoomRepository cinemaRoomRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor backfillExecutor;
+    private final int resyncDays;
+
+    public SalesAnalyticsService(ShowtimeSalesRepository showtimeSalesRepository,
+                                 HourlySalesRepository hourlySalesRepository,
+                                 MovieRepository movieRepository,
+                                 CinemaComplexRepository cinemaComplexRepository,
+                                 CinemaRoomRepository cinemaRoomRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 @Qualifier("analyticsBackfillExecutor") Executor backfillExecutor,
+                                 @Value("${analytics.resync-days:2}") int resyncDays) {
+        this.showtimeSalesRepository = showtimeSalesRepository;
+        this.hourlySalesRepository = hourlySalesRepository;
+        this.movieRepository = movieRepository;
+        this.cinemaComplexRepository = cinemaComplexRepository;
+        this.cinemaRoomRepository = cinemaRoomRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.backfillExecutor = backfillExecutor;
+        this.resyncDays = resyncDays;
+    }
+
+    // ==================== Báo cáo ====================
+
+    /**
+     * Doanh thu trong [from, to] (ngày đặt đơn), nhóm theo HOUR / DAY / COMPLEX
+     */
+    public List<SalesReportRowDTO> getSalesReport(LocalDate from, LocalDate to, String groupBy, Long complexId) {
+        LocalDate[] range = resolveRange(from, to);
+        HourlySalesReportRepository.GroupBy dimension = parseEnum(HourlySalesReportRepository.GroupBy.class, groupBy,
+                HourlySalesReportRepository.GroupBy.DAY);
+        List<SalesReportRowDTO> rows = hourlySalesRepository.reportSales(new HourlySalesReportRepository.Filter(
+                range[0].atStartOfDay(), range[1].plusDays(1).atStartOfDay(), complexId), dimension);
+
+        Map<Long, String> labels = dimension == HourlySalesReportRepository.GroupBy.COMPLEX
+                ? complexNames(ids(rows, SalesReportRowDTO::getKey))
+                : Map.of();
+        for (SalesReportRowDTO row : rows) {
+            if (dimension == HourlySalesReportRepository.GroupBy.COMPLEX) {
+                row.setLabel(row.getKey() == null ? "Không gắn cụm rạp" : labels.get(Long.valueOf(row.getKey())));
+            } else {
+                row.setLabel(row.getKey());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Lấp đầy của các suất chiếu bắt đầu trong [from, to], nhóm theo SHOWTIME / ROOM / COMPLEX / MOVIE / DAY
+     */
+    public List<OccupancyReportRowDTO> getOccupancyReport(LocalDate from, LocalDate to, String groupBy,
+                                                          Long complexId, Long movieId) {
+        LocalDate[] range = resolveRange(from, to);
+        ShowtimeSalesReportRepository.GroupBy dimension = parseEnum(ShowtimeSalesReportRepository.GroupBy.class,
+                groupBy, ShowtimeSalesReportRepository.GroupBy.MOVIE);
+        List<OccupancyReportRowDTO> rows = showtimeSalesRepository.reportOccupancy(
+                new ShowtimeSalesReportRepository.Filter(range[0].atStartOfDay(), range[1].plusDays(1).atStartOfDay(),
+                        complexId, movieId),
+                dimension);
+
+        Set<Long> keys = ids(rows, OccupancyReportRowDTO::getKey);
+        Map<Long, String> labels = switch (dimension) {
+            case COMPLEX -> complexNames(keys);
+            case MOVIE -> movieRepository.findAllById(keys).stream()
+                    .collect(Collectors.toMap(Movie::getMovieId, Movie::getTitle));
+            case ROOM -> cinemaRoomRepository.findAllById(keys).stream()
+                    .collect(Collectors.toMap(CinemaRoom::getRoomId, CinemaRoom::getRoomName));
+            case SHOWTIME -> showtimeSalesRepository.findAllById(keys).stream()
+                    .collect(Collectors.toMap(ShowtimeSales::getShowtimeId, sales -> sales.getStartTime().toString()));
+            case DAY -> Map.of();
+        };
+        for (OccupancyReportRowDTO row : rows) {
+            row.setLabel(dimension == ShowtimeSalesReportRepository.GroupBy.DAY
+                    ? row.getKey()
+                    : labels.get(Long.valueOf(row.getKey())));
+        }
+        return rows;
+    }
+
+    // ==================== Cập nhật tăng dần ====================
+
+    @Async("analyticsExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        try {
+            LocalDateTime hour = event.orderDate().truncatedTo(ChronoUnit.HOURS);
+            refreshHours(hour, hour.plusHours(1));
+            refreshShowtimes(showtimeSalesRepository.findShowtimeIdsByOrderId(event.orderId()));
+        } catch (Exception e) {
+            log.warn("Không thể cập nhật số liệu doanh thu cho order {}: {}", event.orderId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Suất chiếu được thêm/sửa/xóa: tính lại các suất của ngày đó (cả sức chứa khi đổi phòng);
+     * thay đổi không rõ ngày (sửa phòng, cụm rạp) thì tính lại các suất từ hôm nay trở đi trong lịch chiếu
+     */
+    @Async("analyticsExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!CatalogCache.SCHEDULE.equals(event.region())) {
+            return;
+        }
+        try {
+            if (event.key() instanceof LocalDate date) {
+                refreshShowtimesStartingOn(date, date.plusDays(1));
+            } else {
+                LocalDate today = LocalDate.now(ZONE);
+                refreshShowtimesStartingOn(today, today.plusDays(ScheduleIndex.WINDOW_DAYS));
+            }
+        } catch (Exception e) {
+            log.warn("Không thể cập nhật số liệu lấp đầy sau thay đổi lịch chiếu: {}", e.getMessage());
+        }
+    }
+
+    // ==================== Backfill ====================
+
+    /**
+     * Lần đầu chạy (bảng trống): dựng từ ngày có đơn đầu tiên đến hết lịch chiếu hiện có
+     */
+    @Async("analyticsExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (hourlySalesRepository.count() > 0 || showtimeSalesRepository.count() > 0) {
+            return;
+        }
+        LocalDateTime firstSale = hourlySalesRepository.findFirstSalesDate();
+        if (firstSale == null) {
+            return;
+        }
+        rebuild(firstSale.toLocalDate(), LocalDate.now(ZONE).plusDays(ScheduleIndex.WINDOW_DAYS));
+    }
+
+    /**
+     * Đồng bộ lại vài ngày gần đây (phòng sự kiện bị mất khi node dừng giữa chừng) và lịch chiếu sắp tới
+     */
+    @Async("analyticsExecutor")
+    @Scheduled(cron = "${analytics.resync-cron:0 50 4 * * *}", zone = "Asia/Ho_Chi_Minh")
+    public void resyncRecent() {
+        LocalDate today = LocalDate.now(ZONE);
+        rebuild(today.minusDays(resyncDays), today.plusDays(ScheduleIndex.WINDOW_DAYS));
+    }
+
+    /**
+     * Tính lại doanh thu theo giờ của các ngày đặt đơn và lấp đầy của các suất chiếu bắt đầu trong [from, to],
+     * mỗi ngày một task (một transaction cho mỗi phần) chạy song song trên analyticsBackfillExecutor
+     */
+    @Async("analyticsExecutor")
+    public void rebuild(LocalDate from, LocalDate to) {
+        long startedAt = System.currentTimeMillis();
+        List<LocalDate> days = from.datesUntil(to.plusDays(1)).collect(Collectors.toList());
+        for (int i = 0; i < days.size(); i += BACKFILL_WAVE_DAYS) {
+            List<CompletableFuture<Void>> wave = days.subList(i, Math.min(i + BACKFILL_WAVE_DAYS, days.size())).stream()
+                    .map(day -> CompletableFuture.runAsync(() -> {
+                        refreshHours(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+                        refreshShowtimesStartingOn(day, day.plusDays(1));
+                    }, backfillExecutor))
+                    .collect(Collectors.toList());
+            try {
+                CompletableFuture.allOf(wave.toArray(new CompletableFuture[0])).join();
+            } catch (Exception e) {
+                log.warn("Rebuild analytics {} -> {} failed in a chunk: {}", from, to, e.getMessage());
+            }
+        }
+        log.info("Rebuilt analytics rollups for {} days ({} -> {}) in {} ms",
+                days.size(), from, to, System.currentTimeMillis() - startedAt);
+    }
+
+    // ==================== Tính toán ====================
+
+    /**
+     * Thay các dòng hourly_sales trong [from, to) bằng số liệu tính từ orders (3 truy vấn cho cả khoảng)
+     */
+    private void refreshHours(LocalDateTime from, LocalDateTime to) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, Object[]> ticketsByOrder = new HashMap<>();
+            for (Object[] row : hourlySalesRepository.aggregateTicketsByOrder(from, to)) {
+                ticketsByOrder.put((Long) row[0], row);
+            }
+            Map<Long, Object[]> combosByOrder = new HashMap<>();
+            for (Object[] row : hourlySalesRepository.aggregateCombosByOrder(from, to)) {
+                combosByOrder.put((Long) row[0], row);
+            }
+
+            LocalDateTime now = LocalDateTime.now(ZONE);
+            // Key: (đầu giờ, complexId)
+            Map<List<Object>, HourlySales> buckets = new HashMap<>();
+            for (Object[] order : hourlySalesRepository.findSalesOrderRows(from, to)) {
+                Long orderId = (Long) order[0];
+                LocalDateTime hour = ((LocalDateTime) order[1]).truncatedTo(ChronoUnit.HOURS);
+                Object[] tickets = ticketsByOrder.get(orderId);
+                Object[] combos = combosByOrder.get(orderId);
+                Long complexId = tickets != null ? (Long) tickets[1] : (Long) order[5];
+
+                HourlySales bucket = buckets.computeIfAbsent(Arrays.asList(hour, complexId),
+                        k -> emptyBucket(hour, complexId, now));
+                BigDecimal total = decimal(order[2]);
+                boolean cancelled = order[3] == OrderStatus.CANCELLED;
+                BigDecimal refund = cancelled ? decimal(order[4]) : BigDecimal.ZERO;
+
+                bucket.setOrderCount(bucket.getOrderCount() + 1);
+                bucket.setGrossRevenue(bucket.getGrossRevenue().add(total));
+                bucket.setRefundAmount(bucket.getRefundAmount().add(refund));
+                bucket.setNetRevenue(bucket.getNetRevenue().add(total.subtract(refund)));
+                if (cancelled) {
+                    bucket.setCancelledOrderCount(bucket.getCancelledOrderCount() + 1);
+                    continue;
+                }
+                if (tickets != null) {
+                    bucket.setTicketOrderCount(bucket.getTicketOrderCount() + 1);
+                    bucket.setTicketCount(bucket.getTicketCount() + ((Number) tickets[2]).longValue());
+                    bucket.setTicketRevenue(bucket.getTicketRevenue().add(decimal(tickets[3])));
+                    if (combos != null) {
+                        bucket.setComboAttachedOrderCount(bucket.getComboAttachedOrderCount() + 1);
+                    }
+                } else if (combos != null) {
+                    bucket.setFoodOnlyOrderCount(bucket.getFoodOnlyOrderCount() + 1);
+                }
+                if (combos != null) {
+                    bucket.setComboQuantity(bucket.getComboQuantity() + ((Number) combos[1]).longValue());
+                    bucket.setComboRevenue(bucket.getComboRevenue().add(decimal(combos[2])));
+                }
+            }
+
+            hourlySalesRepository.deleteBucketsBetween(from, to);
+            hourlySalesRepository.saveAll(buckets.values());
+        });
+    }
+
+    private void refreshShowtimesStartingOn(LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.atStartOfDay();
+        Set<Long> ids = new HashSet<>(showtimeSalesRepository.findShowtimeIdsStartingBetween(start, end));
+        // Dòng của suất chiếu đã bị xóa hoặc đã dời sang ngày khác cũng được tính lại (hoặc xóa)
+        ids.addAll(showtimeSalesRepository.findIdsStartingBetween(start, end));
+        refreshShowtimes(ids);
+    }
+
+    /**
+     * Tính lại showtime_sales của các suất chiếu, mỗi SHOWTIME_CHUNK_SIZE suất một transaction;
+     * suất không còn tồn tại thì xóa dòng tổng hợp
+     */
+    private void refreshShowtimes(Collection<Long> showtimeIds) {
+        List<Long> ids = new ArrayList<>(showtimeIds);
+        for (int i = 0; i < ids.size(); i += SHOWTIME_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(i, Math.min(i + SHOWTIME_CHUNK_SIZE, ids.size()));
+            transactionTemplate.executeWithoutResult(status -> refreshShowtimeChunk(chunk));
+        }
+    }
+
+    private void refreshShowtimeChunk(List<Long> showtimeIds) {
+        List<Object[]> showtimes = showtimeSalesRepository.findShowtimeRows(showtimeIds);
+        Map<Long, Object[]> ticketsByShowtime = new HashMap<>();
+        for (Object[] row : showtimeSalesRepository.aggregateTicketsByShowtime(showtimeIds)) {
+            ticketsByShowtime.put((Long) row[0], row);
+        }
+        Set<Long> roomIds = showtimes.stream().map(row -> (Long) row[2]).collect(Collectors.toSet());
+        Map<Long, Long> seatsByRoom = new HashMap<>();
+        if (!roomIds.isEmpty()) {
+            for (Object[] row : showtimeSalesRepository.countSeatsByRoom(roomIds)) {
+                seatsByRoom.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+        }
+        Map<Long, ShowtimeSales> existing = showtimeSalesRepository.findAllById(showtimeIds).stream()
+                .collect(Collectors.toMap(ShowtimeSales::getShowtimeId, Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now(ZONE);
+        List<ShowtimeSales> rows = new ArrayList<>();
+        for (Object[] showtime : showtimes) {
+            Long showtimeId = (Long) showtime[0];
+            ShowtimeSales sales = existing.remove(showtimeId);
+            if (sales == null) {
+                sales = ShowtimeSales.builder().showtimeId(showtimeId).build();
+            }
+            Object[] tickets = ticketsByShowtime.get(showtimeId);
+            LocalDateTime startTime = (LocalDateTime) showtime[4];
+            sales.setMovieId((Long) showtime[1]);
+            sales.setRoomId((Long) showtime[2]);
+            sales.setComplexId((Long) showtime[3]);
+            sales.setStartTime(startTime);
+            sales.setStartDate(startTime != null ? startTime.toLocalDate() : null);
+            sales.setCapacity(seatsByRoom.getOrDefault(sales.getRoomId(), 0L));
+            sales.setTicketsSold(tickets != null ? ((Number) tickets[1]).longValue() : 0L);
+            sales.setTicketRevenue(tickets != null ? decimal(tickets[2]) : BigDecimal.ZERO);
+            sales.setUpdatedAt(now);
+            rows.add(sales);
+        }
+        showtimeSalesRepository.saveAll(rows);
+        // Suất chiếu đã bị xóa
+        showtimeSalesRepository.deleteAll(existing.values());
+    }
+
+    private HourlySales emptyBucket(LocalDateTime hour, Long complexId, LocalDateTime now) {
+        return HourlySales.builder()
+                .bucketStart(hour)
+                .bucketDate(hour.toLocalDate())
+                .complexId(complexId)
+                .orderCount(0L)
+                .cancelledOrderCount(0L)
+                .grossRevenue(BigDecimal.ZERO)
+                .refundAmount(BigDecimal.ZERO)
+                .netRevenue(BigDecimal.ZERO)
+                .ticketCount(0L)
+                .ticketRevenue(BigDecimal.ZERO)
+                .comboQuantity(0L)
+                .comboRevenue(BigDecimal.ZERO)
+                .ticketOrderCount(0L)
+                .comboAttachedOrderCount(0L)
+                .foodOnlyOrderCount(0L)
+                .updatedAt(now)
+                .build();
+    }
+
+    // ==================== Tiện ích ====================
+
+    private LocalDate[] resolveRange(LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(ZONE);
+        LocalDate start = from != null ? from : end.minusDays(6);
+        if (start.isAfter(end)) {
+            throw new RuntimeException("Ngày bắt đầu phải trước ngày kết thúc");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_REPORT_DAYS) {
+            throw new RuntimeException("Khoảng thời gian báo cáo tối đa " + MAX_REPORT_DAYS + " ngày");
+        }
+        return new LocalDate[] {start, end};
+    }
+
+    private <E extends Enum<E>> E parseEnum(Class<E> type, String value, E defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("groupBy không hợp lệ: " + value);
+        }
+    }
+
+    private <T> Set<Long> ids(List<T> rows, Function<T, String> key) {
+        return rows.stream()
+                .map(key)
+                .filter(value -> value != null)
+                .map(Long::valueOf)
+                .collect(Collectors.toSet());
+    }
+
+    private Map<Long, String> complexNames(Set<Long> complexIds) {
+        return cinemaComplexRepository.findAllById(complexIds).stream()
+                .collect(Collectors.toMap(CinemaComplex::getComplexId, CinemaComplex::getName));
+    }
+
+    private BigDecimal decimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+}
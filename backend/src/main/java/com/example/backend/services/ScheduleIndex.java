@@ -0,0 +1,318 @@
+package com.example.backend.services;
+
+import com.example.backend.dtos.ScheduleListingDTO;
+import com.example.backend.entities.Address;
+import com.example.backend.entities.CinemaComplex;
+import com.example.backend.entities.CinemaRoom;
+import com.example.backend.entities.Movie;
+import com.example.backend.entities.MovieVersion;
+import com.example.backend.entities.Showtime;
+import com.example.backend.entities.enums.Language;
+import com.example.backend.entities.enums.RoomType;
+import com.example.backend.repositories.ShowtimeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Collator;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Index lịch chiếu trong bộ nhớ cho trang lịch chiếu public.
+ * - Mỗi ngày (từ hôm nay tới hết horizon) giữ danh sách suất chiếu đã sắp xếp theo phim / cụm rạp / giờ chiếu,
+ *   kèm index phụ theo movieId và cinemaId; khoảng 30 ngày (khi không chọn ngày) được gộp sẵn
+ * - Dựng lại toàn bộ khi khởi động, đầu mỗi ngày và định kỳ mỗi refresh-interval-ms (đồng bộ thay đổi
+ *   từ node khác hoặc sửa trực tiếp trong DB); sửa suất chiếu (CatalogChangedEvent vùng SCHEDULE)
+ *   chỉ nạp lại ngày bị ảnh hưởng, sửa phim/cụm rạp/phòng (event không có ngày) thì dựng lại toàn bộ
+ * - Đọc không khóa trên snapshot bất biến; ngày ngoài horizon trả null để ScheduleService truy vấn DB
+ * Trạng thái giữ trong bộ nhớ của node.
+ */
+@Service
+@Slf4j
+public class ScheduleIndex {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+    // Khi không chọn ngày: lấy suất chiếu 30 ngày tới để cover danh sách phim đang chiếu
+    public static final int WINDOW_DAYS = 30;
+
+    private final ShowtimeRepository showtimeRepository;
+    private final int days;
+    private final Comparator<ScheduleListingDTO> listingOrder;
+
+    private volatile Snapshot snapshot;
+
+    private record DayListing(List<ScheduleListingDTO> all,
+                              Map<Long, List<ScheduleListingDTO>> byMovie,
+                              Map<Long, List<ScheduleListingDTO>> byCinema) {
+
+        static DayListing of(List<ScheduleListingDTO> sorted) {
+            return new DayListing(Collections.unmodifiableList(sorted),
+                    groupBy(sorted, ScheduleListingDTO::getMovieId),
+                    groupBy(sorted, ScheduleListingDTO::getCinemaId));
+        }
+
+        private static Map<Long, List<ScheduleListingDTO>> groupBy(List<ScheduleListingDTO> sorted,
+                                                                    Function<ScheduleListingDTO, Long> key) {
+            Map<Long, List<ScheduleListingDTO>> groups = new HashMap<>();
+            for (ScheduleListingDTO listing : sorted) {
+                if (key.apply(listing) != null) {
+                    groups.computeIfAbsent(key.apply(listing), k -> new ArrayList<>()).add(listing);
+                }
+            }
+            return groups;
+        }
+    }
+
+    private record Snapshot(LocalDate firstDay, LocalDate lastDay, Map<LocalDate, DayListing> days,
+                            DayListing window, LocalDateTime builtAt) {}
+
+    public ScheduleIndex(ShowtimeRepository showtimeRepository,
+                         @Value("${schedule-index.days:30}") int days) {
+        this.showtimeRepository = showtimeRepository;
+        this.days = Math.max(days, WINDOW_DAYS);
+        // Gần với thứ tự ORDER BY m.title, cc.name, s.startTime của MySQL (không phân biệt hoa thường/dấu)
+        Collator collator = Collator.getInstance(new Locale("vi", "VN"));
+        collator.setStrength(Collator.PRIMARY);
+        Comparator<String> text = Comparator.nullsFirst(collator::compare);
+        this.listingOrder = Comparator.comparing(ScheduleListingDTO::getMovieTitle, text)
+                .thenComparing(ScheduleListingDTO::getCinemaName, text)
+                .thenComparing(ScheduleListingDTO::getStartTime, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(ScheduleListingDTO::getShowtimeId, Comparator.nullsFirst(Comparator.naturalOrder()));
+    }
+
+    /**
+     * Suất chiếu chưa bắt đầu theo ngày (null = 30 ngày tới), lọc theo phim/cụm rạp nếu có.
+     * @return null nếu ngày nằm ngoài phạm vi index (hoặc index chưa dựng xong)
+     */
+    public List<ScheduleListingDTO> find(LocalDate date, Long movieId, Long cinemaId) {
+        Snapshot current = snapshot;
+        LocalDateTime now = LocalDateTime.now(ZONE);
+        if (current == null || now.toLocalDate().isAfter(current.firstDay())) {
+            // Chưa dựng hoặc đã qua ngày mà chưa kịp dựng lại
+            return null;
+        }
+        DayListing listing;
+        if (date == null) {
+            listing = current.window();
+        } else if (date.isBefore(current.firstDay())) {
+            return new ArrayList<>();
+        } else if (date.isAfter(current.lastDay())) {
+            return null;
+        } else {
+            listing = current.days().get(date);
+            if (listing == null) {
+                return new ArrayList<>();
+            }
+        }
+
+        List<ScheduleListingDTO> candidates;
+        if (movieId != null && cinemaId != null) {
+            List<ScheduleListingDTO> byMovie = listing.byMovie().getOrDefault(movieId, Collections.emptyList());
+            List<ScheduleListingDTO> byCinema = listing.byCinema().getOrDefault(cinemaId, Collections.emptyList());
+            candidates = byMovie.size() <= byCinema.size() ? byMovie : byCinema;
+        } else if (movieId != null) {
+            candidates = listing.byMovie().getOrDefault(movieId, Collections.emptyList());
+        } else if (cinemaId != null) {
+            candidates = listing.byCinema().getOrDefault(cinemaId, Collections.emptyList());
+        } else {
+            candidates = listing.all();
+        }
+
+        List<ScheduleListingDTO> result = new ArrayList<>();
+        for (ScheduleListingDTO candidate : candidates) {
+            if ((movieId == null || movieId.equals(candidate.getMovieId()))
+                    && (cinemaId == null || cinemaId.equals(candidate.getCinemaId()))
+                    && !candidate.getStartTime().isBefore(now)) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Truy vấn DB (dùng khi dựng index và cho ngày ngoài phạm vi index)
+     */
+    public List<ScheduleListingDTO> query(LocalDateTime startTime, LocalDateTime endTime, Long movieId, Long cinemaId) {
+        return showtimeRepository.findScheduleShowtimes(startTime, endTime, movieId, cinemaId).stream()
+                .map(this::toListing)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Dựng lại toàn bộ bằng một truy vấn cho cả horizon
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        LocalDate firstDay = LocalDate.now(ZONE);
+        LocalDate lastDay = firstDay.plusDays(days - 1L);
+        List<ScheduleListingDTO> listings = query(firstDay.atStartOfDay(), lastDay.plusDays(1).atStartOfDay(), null, null);
+
+        Map<LocalDate, List<ScheduleListingDTO>> byDay = listings.stream()
+                .collect(Collectors.groupingBy(listing -> listing.getStartTime().toLocalDate()));
+        Map<LocalDate, DayListing> dayListings = new HashMap<>();
+        byDay.forEach((day, dayList) -> dayListings.put(day, DayListing.of(sorted(dayList))));
+        snapshot = newSnapshot(firstDay, lastDay, dayListings);
+        log.info("Schedule index rebuilt: {} showtimes over {} days", listings.size(), days);
+    }
+
+    /**
+     * Dựng lại theo lịch (đầu ngày + định kỳ) trên thread của index, không chiếm thread scheduler
+     */
+    @Async("scheduleIndexExecutor")
+    @Scheduled(cron = "${schedule-index.rebuild-cron:5 0 0 * * *}", zone = "Asia/Ho_Chi_Minh")
+    @Scheduled(fixedDelayString = "${schedule-index.refresh-interval-ms:300000}",
+               initialDelayString = "${schedule-index.refresh-interval-ms:300000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Scheduled schedule index rebuild failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Thay đổi suất chiếu/phim/cụm rạp/phòng sau khi commit; chạy trên một thread riêng, tuần tự
+     */
+    @Async("scheduleIndexExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!CatalogCache.SCHEDULE.equals(event.region())) {
+            return;
+        }
+        try {
+            if (event.key() instanceof LocalDate date) {
+                refreshDay(date);
+            } else {
+                rebuild();
+            }
+        } catch (RuntimeException e) {
+            // Snapshot cũ vẫn dùng được; lần dựng lại kế tiếp sẽ đồng bộ
+            log.error("Failed to update schedule index for {}: {}", event.key(), e.getMessage(), e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", current != null);
+        if (current != null) {
+            stats.put("firstDay", current.firstDay());
+            stats.put("lastDay", current.lastDay());
+            stats.put("showtimes", current.days().values().stream().mapToInt(day -> day.all().size()).sum());
+            stats.put("builtAt", current.builtAt());
+        }
+        return stats;
+    }
+
+    /**
+     * Nạp lại một ngày (một truy vấn theo ngày), các ngày khác giữ nguyên
+     */
+    private synchronized void refreshDay(LocalDate date) {
+        Snapshot current = snapshot;
+        if (current == null || date.isBefore(current.firstDay()) || date.isAfter(current.lastDay())) {
+            return;
+        }
+        List<ScheduleListingDTO> listings = query(date.atStartOfDay(), date.plusDays(1).atStartOfDay(), null, null);
+        Map<LocalDate, DayListing> dayListings = new HashMap<>(current.days());
+        if (listings.isEmpty()) {
+            dayListings.remove(date);
+        } else {
+            dayListings.put(date, DayListing.of(sorted(listings)));
+        }
+        snapshot = newSnapshot(current.firstDay(), current.lastDay(), dayListings);
+    }
+
+    private Snapshot newSnapshot(LocalDate firstDay, LocalDate lastDay, Map<LocalDate, DayListing> dayListings) {
+        LocalDate windowEnd = firstDay.plusDays(WINDOW_DAYS);
+        List<ScheduleListingDTO> window = new ArrayList<>();
+        dayListings.forEach((day, listing) -> {
+            if (day.isBefore(windowEnd)) {
+                window.addAll(listing.all());
+            }
+        });
+        return new Snapshot(firstDay, lastDay, Collections.unmodifiableMap(dayListings),
+                DayListing.of(sorted(window)), LocalDateTime.now(ZONE));
+    }
+
+    private List<ScheduleListingDTO> sorted(List<ScheduleListingDTO> listings) {
+        List<ScheduleListingDTO> copy = new ArrayList<>(listings);
+        copy.sort(listingOrder);
+        return copy;
+    }
+
+    private ScheduleListingDTO toListing(Showtime showtime) {
+        MovieVersion version = showtime.getMovieVersion();
+        Movie movie = version != null ? version.getMovie() : null;
+        CinemaRoom room = showtime.getCinemaRoom();
+        CinemaComplex complex = room != null ? room.getCinemaComplex() : null;
+
+        return ScheduleListingDTO.builder()
+            .showtimeId(showtime.getShowtimeId())
+            .movieId(movie != null ? movie.getMovieId() : null)
+            .movieTitle(movie != null ? movie.getTitle() : null)
+            .moviePoster(movie != null ? movie.getPoster() : null)
+            .cinemaId(complex != null ? complex.getComplexId() : null)
+            .cinemaName(complex != null ? complex.getName() : null)
+            .cinemaAddress(complex != null ? buildAddress(complex.getAddress()) : null)
+            .cinemaRoomId(room != null ? room.getRoomId() : null)
+            .cinemaRoomName(room != null ? room.getRoomName() : null)
+            .formatLabel(buildFormatLabel(version))
+            .startTime(showtime.getStartTime())
+            .endTime(showtime.getEndTime())
+            .build();
+    }
+
+    private String buildAddress(Address address) {
+        if (address == null) {
+            return null;
+        }
+
+        String description = address.getDescription();
+        String province = address.getProvince();
+        boolean hasDescription = description != null && !description.isBlank();
+        boolean hasProvince = province != null && !province.isBlank();
+
+        if (hasDescription && hasProvince) {
+            return description + ", " + province;
+        }
+        if (hasDescription) {
+            return description;
+        }
+        return hasProvince ? province : null;
+    }
+
+    private String buildFormatLabel(MovieVersion version) {
+        if (version == null) {
+            return "STANDARD";
+        }
+        RoomType roomType = version.getRoomType();
+        Language language = version.getLanguage();
+
+        if (roomType == null && language == null) {
+            return "STANDARD";
+        }
+
+        if (roomType != null && language != null) {
+            return roomType.name() + " • " + language.name();
+        }
+
+        return roomType != null ? roomType.name() : language.name();
+    }
+}
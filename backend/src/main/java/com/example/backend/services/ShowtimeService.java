@@ -1,33 +1,44 @@
 package com.example.backend.services;
 
 import com.example.backend.dtos.CreateShowtimeDTO;
+import com.example.backend.dtos.PriceDTO;
 import com.example.backend.dtos.ShowtimeResponseDTO;
+import com.example.backend.dtos.ShowtimeSearchRow;
 import com.example.backend.dtos.ShowtimeValidationFact;
 import com.example.backend.entities.CinemaRoom;
 import com.example.backend.entities.Movie;
+import com.example.backend.entities.MovieSummary;
 import com.example.backend.entities.MovieVersion;
 import com.example.backend.entities.Seat;
 import com.example.backend.entities.Showtime;
 import com.example.backend.entities.enums.MovieStatus;
+import com.example.backend.entities.enums.RoomType;
+import com.example.backend.entities.enums.SeatType;
 import com.example.backend.repositories.CinemaRoomRepository;
 import com.example.backend.repositories.MovieRepository;
 import com.example.backend.repositories.MovieVersionRepository;
 import com.example.backend.repositories.ShowtimeRepository;
+import com.example.backend.repositories.ShowtimeSearchRepository;
 import com.example.backend.repositories.TicketRepository;
 import com.example.backend.entities.enums.Action;
 import com.example.backend.entities.enums.ObjectType;
+import com.example.backend.utils.ProvinceKeys;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -44,6 +55,8 @@ public class ShowtimeService {
     private final ActivityLogService activityLogService;
     private final PriceService priceService;
     private final TicketRepository ticketRepository;
+    private final MovieSummaryService movieSummaryService;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * Tìm hoặc tạo MovieVersion dựa trên movie, language và roomType
@@ -113,6 +126,7 @@ public class ShowtimeService {
         
         // Cập nhật status của phim dựa trên showtime sớm nhất
         updateMovieStatus(movieVersion.getMovie());
+        eventPublisher.publishEvent(CatalogChangedEvent.scheduleDate(savedShowtime.getStartTime().toLocalDate()));
         
         ShowtimeResponseDTO responseDTO = mapToDTO(savedShowtime);
         logShowtimeActivity(
@@ -215,6 +229,8 @@ public class ShowtimeService {
                                    updateDTO.getStartTime(), updateDTO.getEndTime());
         
         // Cập nhật thông tin (chỉ cập nhật nếu chưa có vé thanh toán hoặc không thay đổi thông tin quan trọng)
+        Movie previousMovie = showtime.getMovieVersion().getMovie();
+        LocalDate previousDate = showtime.getStartTime().toLocalDate();
         showtime.setMovieVersion(movieVersion);
         showtime.setCinemaRoom(cinemaRoom);
         showtime.setStartTime(updateDTO.getStartTime());
@@ -224,6 +240,11 @@ public class ShowtimeService {
         
         // Cập nhật status của phim dựa trên showtime sớm nhất
         updateMovieStatus(movieVersion.getMovie());
+        if (movieChanged) {
+            updateMovieStatus(previousMovie);
+        }
+        eventPublisher.publishEvent(CatalogChangedEvent.scheduleDate(previousDate));
+        eventPublisher.publishEvent(CatalogChangedEvent.scheduleDate(updatedShowtime.getStartTime().toLocalDate()));
         
         ShowtimeResponseDTO responseDTO = mapToDTO(updatedShowtime);
         logShowtimeActivity(
@@ -259,6 +280,7 @@ public class ShowtimeService {
         
         // Cập nhật status của phim sau khi xóa showtime
         updateMovieStatus(movie);
+        eventPublisher.publishEvent(CatalogChangedEvent.scheduleDate(showtime.getStartTime().toLocalDate()));
         
         logShowtimeActivity(
             username,
@@ -275,7 +297,7 @@ public class ShowtimeService {
     }
     
     /**
-     * Cập nhật status của phim dựa trên showtime sớm nhất
+     * Cập nhật bảng tóm tắt và status của phim dựa trên showtime sớm nhất
      * KHÔNG tự động set ENDED - chỉ admin mới có thể đánh dấu ENDED
      */
     private void updateMovieStatus(Movie movie) {
@@ -283,46 +305,16 @@ public class ShowtimeService {
             return;
         }
         
-        // Nếu status hiện tại là ENDED, giữ nguyên (chỉ admin mới có thể set ENDED)
-        if (movie.getStatus() == MovieStatus.ENDED) {
-            return;
-        }
-        
-        // Lấy tất cả showtimes của phim
-        List<Showtime> showtimes = showtimeRepository.findAllByMovieId(movie.getMovieId());
+        // Tính lại tóm tắt bằng truy vấn tổng hợp (không tải toàn bộ showtime của phim)
+        MovieSummary summary = movieSummaryService.refresh(movie.getMovieId());
+        eventPublisher.publishEvent(CatalogChangedEvent.movie(movie.getMovieId()));
         
-        MovieStatus newStatus;
-        if (showtimes.isEmpty()) {
-            // Chưa có showtime, mặc định là COMING_SOON
-            newStatus = MovieStatus.COMING_SOON;
-        } else {
-            LocalDateTime now = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
-            
-            // Tìm showtime sớm nhất và muộn nhất
-            Optional<Showtime> earliestShowtime = showtimes.stream()
-                    .min((s1, s2) -> s1.getStartTime().compareTo(s2.getStartTime()));
-            Optional<Showtime> latestShowtime = showtimes.stream()
-                    .max((s1, s2) -> s1.getEndTime().compareTo(s2.getEndTime()));
-            
-            if (earliestShowtime.isPresent() && latestShowtime.isPresent()) {
-                LocalDateTime earliestStart = earliestShowtime.get().getStartTime();
-                
-                if (now.isBefore(earliestStart)) {
-                    // Tất cả showtime đều trong tương lai
-                    newStatus = MovieStatus.COMING_SOON;
-                } else {
-                    // Có showtime đã bắt đầu hoặc đang diễn ra -> NOW_SHOWING
-                    // KHÔNG tự động set ENDED ngay cả khi tất cả showtime đã kết thúc
-                    newStatus = MovieStatus.NOW_SHOWING;
-                }
-            } else {
-                newStatus = MovieStatus.COMING_SOON;
-            }
+        // Nếu status hiện tại là ENDED, giữ nguyên (chỉ admin mới có thể set ENDED)
+        MovieStatus newStatus = movieSummaryService.resolveStatus(movie.getStatus(), summary, true);
+        if (newStatus != movie.getStatus()) {
+            movie.setStatus(newStatus);
+            movieRepository.save(movie);
         }
-        
-        // Cập nhật status trong database
-        movie.setStatus(newStatus);
-        movieRepository.save(movie);
     }
     
     /**
@@ -425,170 +417,66 @@ public class ShowtimeService {
     
     /**
      * Lấy showtimes public theo movieId, province và date
+     * - Mọi điều kiện (phim, tỉnh/thành theo provinceKey, ngày, chưa bắt đầu, định dạng khớp phòng) chạy trong SQL
+     * - Chỉ select các cột cần trả về (ShowtimeSearchRow); giá tra một lần cho mỗi loại phòng
      */
     @Transactional(readOnly = true)
-    public List<ShowtimeResponseDTO> getPublicShowtimes(Long movieId, String province, java.time.LocalDate date) {
-        System.out.println("=== DEBUG: getPublicShowtimes START ===");
-        System.out.println("movieId: " + movieId);
-        System.out.println("province: " + province);
-        System.out.println("date: " + date);
-        
-        // First, check if movie exists and has MovieVersions
+    public List<ShowtimeResponseDTO> getPublicShowtimes(Long movieId, String province, LocalDate date) {
+        LocalDateTime startOfDay = date.atStartOfDay();
+        LocalDateTime now = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
+        
+        List<ShowtimeSearchRow> rows = showtimeRepository.searchPublicShowtimes(new ShowtimeSearchRepository.Filter(
+            movieId,
+            ProvinceKeys.normalize(province),
+            null,
+            null,
+            now.isAfter(startOfDay) ? now : startOfDay,
+            date.plusDays(1).atStartOfDay()
+        ));
+        
+        // Cùng một ngày nên giá (gốc và phụ thu cuối tuần) chỉ phụ thuộc loại phòng
+        Map<RoomType, BigDecimal[]> pricesByRoomType = new EnumMap<>(RoomType.class);
+        List<ShowtimeResponseDTO> result = new ArrayList<>(rows.size());
+        for (ShowtimeSearchRow row : rows) {
+            BigDecimal[] prices = pricesByRoomType.computeIfAbsent(row.getRoomType(),
+                roomType -> resolvePrices(roomType, row.getStartTime()));
+            result.add(ShowtimeResponseDTO.builder()
+                .showtimeId(row.getShowtimeId())
+                .movieId(row.getMovieId())
+                .movieTitle(row.getMovieTitle())
+                .movieVersionId(row.getMovieVersionId())
+                .language(row.getLanguage())
+                .roomType(row.getRoomType())
+                .cinemaRoomId(row.getCinemaRoomId())
+                .cinemaRoomName(row.getCinemaRoomName())
+                .cinemaComplexId(row.getCinemaComplexId())
+                .cinemaComplexName(row.getCinemaComplexName())
+                .province(row.getProvince())
+                .startTime(row.getStartTime())
+                .endTime(row.getEndTime())
+                .basePrice(prices[0])
+                .adjustedPrice(prices[1])
+                .build());
+        }
+        return result;
+    }
+    
+    /**
+     * Giá ghế NORMAL của loại phòng và giá sau phụ thu cuối tuần, {null, null} nếu chưa cấu hình giá
+     */
+    private BigDecimal[] resolvePrices(RoomType roomType, LocalDateTime startTime) {
         try {
-            Optional<Movie> movieOpt = movieRepository.findById(movieId);
-            if (movieOpt.isPresent()) {
-                Movie movie = movieOpt.get();
-                System.out.println("Movie found: " + movie.getTitle() + " (ID: " + movie.getMovieId() + ")");
-                
-                // Check MovieVersions
-                List<MovieVersion> versions = movieVersionRepository.findByMovie(movie);
-                System.out.println("MovieVersions count: " + versions.size());
-                for (MovieVersion mv : versions) {
-                    System.out.println("  - MovieVersion ID: " + mv.getMovieVersionId() + 
-                        ", RoomType: " + mv.getRoomType() + 
-                        ", Language: " + mv.getLanguage());
-                    // Count showtimes for this version by querying
-                    List<Showtime> versionShowtimes = showtimeRepository.findAll().stream()
-                        .filter(st -> st.getMovieVersion() != null && 
-                                     st.getMovieVersion().getMovieVersionId().equals(mv.getMovieVersionId()))
-                        .collect(Collectors.toList());
-                    System.out.println("    Showtimes count for this version: " + versionShowtimes.size());
-                    if (!versionShowtimes.isEmpty()) {
-                        System.out.println("    First showtime: " + versionShowtimes.get(0).getStartTime());
-                    }
-                }
-            } else {
-                System.out.println("ERROR: Movie not found with ID: " + movieId);
+            PriceDTO priceDTO = priceService.getPriceByRoomTypeAndSeatType(roomType, SeatType.NORMAL);
+            if (priceDTO != null) {
+                return new BigDecimal[] {
+                    priceDTO.getPrice(),
+                    priceService.calculateWeekendPrice(priceDTO.getPrice(), startTime)
+                };
             }
         } catch (Exception e) {
-            System.err.println("ERROR checking movie and versions: " + e.getMessage());
-            e.printStackTrace();
-        }
-        
-        // Test if there are ANY showtimes for this movie
-        List<Showtime> allMovieShowtimes = showtimeRepository.findAllByMovieId(movieId);
-        System.out.println("Total showtimes for movie " + movieId + " (via query): " + allMovieShowtimes.size());
-        if (!allMovieShowtimes.isEmpty()) {
-            Showtime first = allMovieShowtimes.get(0);
-            System.out.println("First showtime ID: " + first.getShowtimeId());
-            System.out.println("First showtime startTime: " + first.getStartTime());
-            if (first.getMovieVersion() != null) {
-                System.out.println("First showtime movieVersion ID: " + first.getMovieVersion().getMovieVersionId());
-                System.out.println("First showtime roomType: " + first.getMovieVersion().getRoomType());
-            }
-            if (first.getCinemaRoom() != null && first.getCinemaRoom().getCinemaComplex() != null && 
-                first.getCinemaRoom().getCinemaComplex().getAddress() != null) {
-                System.out.println("First showtime province: " + first.getCinemaRoom().getCinemaComplex().getAddress().getProvince());
-            }
+            log.warn("Failed to calculate price for room type {}: {}", roomType, e.getMessage());
         }
-        
-        java.time.LocalDateTime startOfDay = date.atStartOfDay();
-        java.time.LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
-        System.out.println("startOfDay: " + startOfDay);
-        System.out.println("endOfDay: " + endOfDay);
-        System.out.println("Current time: " + java.time.LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")));
-        
-        // Get showtimes for the date (without province filter)
-        List<Showtime> allShowtimes = showtimeRepository.findPublicShowtimesWithoutProvince(movieId, startOfDay, endOfDay);
-        System.out.println("Showtimes for date " + date + ": " + allShowtimes.size());
-        
-        // Debug: Log details of each showtime found
-        if (!allShowtimes.isEmpty()) {
-            System.out.println("=== DEBUG: Showtimes found ===");
-            for (int i = 0; i < Math.min(allShowtimes.size(), 5); i++) {
-                Showtime st = allShowtimes.get(i);
-                System.out.println("Showtime " + (i+1) + ":");
-                System.out.println("  - ID: " + st.getShowtimeId());
-                System.out.println("  - StartTime: " + st.getStartTime());
-                if (st.getMovieVersion() != null) {
-                    System.out.println("  - MovieVersion ID: " + st.getMovieVersion().getMovieVersionId());
-                    System.out.println("  - RoomType: " + st.getMovieVersion().getRoomType());
-                    if (st.getMovieVersion().getMovie() != null) {
-                        System.out.println("  - Movie ID: " + st.getMovieVersion().getMovie().getMovieId());
-                    }
-                } else {
-                    System.out.println("  - MovieVersion: NULL!");
-                }
-                if (st.getCinemaRoom() != null && st.getCinemaRoom().getCinemaComplex() != null) {
-                    System.out.println("  - CinemaComplex ID: " + st.getCinemaRoom().getCinemaComplex().getComplexId());
-                    System.out.println("  - CinemaComplex Name: " + st.getCinemaRoom().getCinemaComplex().getName());
-                    if (st.getCinemaRoom().getCinemaComplex().getAddress() != null) {
-                        System.out.println("  - Province: " + st.getCinemaRoom().getCinemaComplex().getAddress().getProvince());
-                    }
-                }
-            }
-        }
-        
-        // Filter by province in Java code for more flexible matching
-        // Và đảm bảo roomType của MovieVersion khớp với roomType của CinemaRoom
-        List<Showtime> showtimes;
-        if (province == null || province.trim().isEmpty()) {
-            // Filter chỉ lấy showtimes có roomType khớp
-            showtimes = allShowtimes.stream()
-                .filter(st -> {
-                    if (st.getMovieVersion() != null && st.getCinemaRoom() != null) {
-                        return st.getMovieVersion().getRoomType() == st.getCinemaRoom().getRoomType();
-                    }
-                    return false;
-                })
-                .collect(Collectors.toList());
-            System.out.println("No province filter, using all " + showtimes.size() + " showtimes (after roomType filter)");
-        } else {
-            String provinceLower = province.trim().toLowerCase();
-            System.out.println("Filtering by province: " + provinceLower);
-            showtimes = allShowtimes.stream()
-                .filter(st -> {
-                    // Kiểm tra roomType khớp trước
-                    if (st.getMovieVersion() != null && st.getCinemaRoom() != null) {
-                        if (st.getMovieVersion().getRoomType() != st.getCinemaRoom().getRoomType()) {
-                            return false;
-                        }
-                    } else {
-                        return false;
-                    }
-                    
-                    // Sau đó kiểm tra province
-                    if (st.getCinemaRoom() != null && 
-                        st.getCinemaRoom().getCinemaComplex() != null &&
-                        st.getCinemaRoom().getCinemaComplex().getAddress() != null) {
-                        String dbProvince = st.getCinemaRoom().getCinemaComplex().getAddress().getProvince();
-                        if (dbProvince != null) {
-                            String dbProvinceLower = dbProvince.trim().toLowerCase();
-                            boolean matches = dbProvinceLower.equals(provinceLower) || 
-                                             dbProvinceLower.contains(provinceLower) ||
-                                             provinceLower.contains(dbProvinceLower);
-                            if (matches) {
-                                System.out.println("Matched province: " + dbProvince + " with " + province);
-                            }
-                            return matches;
-                        }
-                    }
-                    return false;
-                })
-                .collect(Collectors.toList());
-            System.out.println("After province and roomType filter: " + showtimes.size() + " showtimes");
-        }
-        
-        // Map to DTO and handle any mapping errors
-        List<ShowtimeResponseDTO> result = new ArrayList<>();
-        for (Showtime st : showtimes) {
-            try {
-                ShowtimeResponseDTO dto = mapToDTO(st);
-                result.add(dto);
-                System.out.println("Mapped showtime " + st.getShowtimeId() + " to DTO: " + 
-                    "cinemaComplexId=" + dto.getCinemaComplexId() + 
-                    ", roomType=" + dto.getRoomType() + 
-                    ", startTime=" + dto.getStartTime());
-            } catch (Exception e) {
-                System.err.println("ERROR mapping showtime " + st.getShowtimeId() + ": " + e.getMessage());
-                e.printStackTrace();
-            }
-        }
-        
-        System.out.println("Final result count: " + result.size());
-        System.out.println("=== DEBUG: getPublicShowtimes END ===");
-        
-        return result;
+        return new BigDecimal[] {null, null};
     }
     
     /**
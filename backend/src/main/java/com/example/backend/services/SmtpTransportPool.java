@@ -0,0 +1,141 @@
+package com.example.backend.services;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Giữ sẵn một số kết nối SMTP đã đăng nhập để gửi nhiều email liên tiếp,
+ * thay vì mỗi email lại mở kết nối + STARTTLS + AUTH như mailSender.send().
+ * Kết nối để không quá idle-timeout-ms sẽ được đóng khi lấy ra (server SMTP thường tự ngắt kết nối rảnh).
+ */
+@Component
+@Slf4j
+public class SmtpTransportPool {
+
+    private final JavaMailSenderImpl mailSender;
+    private final BlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger openCount = new AtomicInteger();
+    private final long idleTimeoutMs;
+    private final int poolSize;
+
+    public static final class PooledTransport {
+        private final Transport transport;
+        private long lastUsedAt;
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+            this.lastUsedAt = System.currentTimeMillis();
+        }
+
+        public Transport getTransport() {
+            return transport;
+        }
+    }
+
+    public SmtpTransportPool(JavaMailSender mailSender,
+                             @Value("${email.outbox.smtp-pool-size:3}") int poolSize,
+                             @Value("${email.outbox.smtp-idle-timeout-ms:60000}") long idleTimeoutMs) {
+        if (!(mailSender instanceof JavaMailSenderImpl impl)) {
+            throw new IllegalStateException("SmtpTransportPool cần JavaMailSenderImpl");
+        }
+        this.mailSender = impl;
+        this.poolSize = poolSize;
+        this.permits = new Semaphore(poolSize);
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    /**
+     * Lấy một kết nối đã sẵn sàng; chờ tối đa timeoutMs nếu tất cả kết nối đang được dùng
+     */
+    public PooledTransport borrow(long timeoutMs) throws MessagingException, InterruptedException {
+        if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+            throw new MessagingException("Không lấy được kết nối SMTP sau " + timeoutMs + " ms");
+        }
+        try {
+            PooledTransport pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                boolean expired = System.currentTimeMillis() - pooled.lastUsedAt > idleTimeoutMs;
+                if (!expired && pooled.transport.isConnected()) {
+                    return pooled;
+                }
+                close(pooled);
+            }
+            return connect();
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Trả kết nối về pool; broken = true khi gửi bị lỗi kết nối, kết nối sẽ bị đóng
+     */
+    public void release(PooledTransport pooled, boolean broken) {
+        try {
+            if (broken || !pooled.transport.isConnected()) {
+                close(pooled);
+            } else {
+                pooled.lastUsedAt = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getOpenCount() {
+        return openCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            close(pooled);
+        }
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(
+                mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp");
+        // Giống JavaMailSenderImpl: username rỗng nghĩa là server không cần AUTH
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        if ("".equals(username)) {
+            username = null;
+            if ("".equals(password)) {
+                password = null;
+            }
+        }
+        transport.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+        openCount.incrementAndGet();
+        log.debug("Opened SMTP connection to {}:{}", mailSender.getHost(), mailSender.getPort());
+        return new PooledTransport(transport);
+    }
+
+    private void close(PooledTransport pooled) {
+        openCount.decrementAndGet();
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP connection: {}", e.getMessage());
+        }
+    }
+}
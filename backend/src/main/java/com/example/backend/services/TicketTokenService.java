@@ -0,0 +1,215 @@
+package com.example.backend.services;
+
+import com.example.backend.dtos.TicketTokenVerificationDTO;
+import com.example.backend.entities.Ticket;
+import com.example.backend.repositories.TicketRepository;
+import com.example.backend.utils.Base32;
+import com.example.backend.utils.ConcurrentBitmap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Token vé có chữ ký, thay cho chuỗi TICKET_... và JSON trong QR code.
+ * Layout 25 byte: version(1) | ticketId(6) | showtimeId(4) | seatId(4) | HMAC-SHA256 cắt còn 10 byte,
+ * encode Base32 thành 40 ký tự (QR alphanumeric, version nhỏ hơn nhiều so với JSON).
+ * Máy quét kiểm tra token chỉ bằng chữ ký + revocation bitmap trong bộ nhớ, không cần truy vấn MySQL.
+ */
+@Service
+@Slf4j
+public class TicketTokenService {
+
+    private static final byte VERSION = 1;
+    private static final int PAYLOAD_LENGTH = 15;
+    private static final int MAC_LENGTH = 10;
+    private static final int TOKEN_LENGTH = PAYLOAD_LENGTH + MAC_LENGTH;
+    private static final long MAX_TICKET_ID = (1L << 48) - 1;
+    private static final long MAX_INT_ID = 0xFFFFFFFFL;
+    // Base32 của 25 byte; byte đầu là VERSION = 1 nên token luôn bắt đầu bằng 'A'
+    private static final int TOKEN_CHARS = (TOKEN_LENGTH * 8 + 4) / 5;
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    private final TicketRepository ticketRepository;
+    private final ThreadLocal<Mac> macs;
+
+    // Vé thuộc đơn hàng đã hủy
+    private final ConcurrentBitmap revoked = new ConcurrentBitmap();
+    private volatile LocalDateTime lastRevocationRefresh;
+
+    public TicketTokenService(TicketRepository ticketRepository,
+                              @Value("${ticket.token.secret:}") String secret) {
+        this.ticketRepository = ticketRepository;
+        // Token đã gửi qua email/in ra phải còn hợp lệ sau restart và trên mọi node: không tự sinh key ngẫu nhiên
+        if (secret == null || secret.length() < MIN_SECRET_LENGTH) {
+            throw new IllegalStateException("ticket.token.secret (TICKET_TOKEN_SECRET) phải được cấu hình, tối thiểu "
+                    + MIN_SECRET_LENGTH + " ký tự, và giống nhau trên mọi node");
+        }
+        // Tách key riêng cho token vé, không dùng trực tiếp secret (có thể dùng chung với JWT)
+        byte[] key = hmac(secret.getBytes(StandardCharsets.UTF_8),
+                "ticket-token-v1".getBytes(StandardCharsets.UTF_8));
+        SecretKeySpec keySpec = new SecretKeySpec(key, "HmacSHA256");
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * Token của vé: dùng token đã lưu trong Ticket.qrCode lúc tạo đơn, chỉ ký lại cho vé cũ
+     * (qrCode dạng TICKET_... trước khi có token)
+     */
+    public String tokenFor(Ticket ticket) {
+        return tokenFor(ticket.getQrCode(), ticket.getTicketId(),
+                ticket.getShowtime().getShowtimeId(), ticket.getSeat().getSeatId());
+    }
+
+    public String tokenFor(String storedQrCode, long ticketId, long showtimeId, long seatId) {
+        if (storedQrCode != null && storedQrCode.length() == TOKEN_CHARS && storedQrCode.charAt(0) == 'A') {
+            return storedQrCode;
+        }
+        return issue(ticketId, showtimeId, seatId);
+    }
+
+    public String issue(Ticket ticket) {
+        return issue(ticket.getTicketId(), ticket.getShowtime().getShowtimeId(), ticket.getSeat().getSeatId());
+    }
+
+    public String issue(long ticketId, long showtimeId, long seatId) {
+        if (ticketId < 0 || ticketId > MAX_TICKET_ID || showtimeId < 0 || showtimeId > MAX_INT_ID
+                || seatId < 0 || seatId > MAX_INT_ID) {
+            throw new IllegalArgumentException("ID vượt quá giới hạn của ticket token");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(TOKEN_LENGTH);
+        buffer.put(VERSION);
+        buffer.putShort((short) (ticketId >>> 32));
+        buffer.putInt((int) ticketId);
+        buffer.putInt((int) showtimeId);
+        buffer.putInt((int) seatId);
+        byte[] bytes = buffer.array();
+        byte[] mac = macs.get().doFinal(Arrays.copyOf(bytes, PAYLOAD_LENGTH));
+        System.arraycopy(mac, 0, bytes, PAYLOAD_LENGTH, MAC_LENGTH);
+        return Base32.encode(bytes);
+    }
+
+    /**
+     * Kiểm tra token offline: định dạng, chữ ký, vé đã bị hủy chưa
+     */
+    public TicketTokenVerificationDTO verify(String token) {
+        TicketTokenVerificationDTO.TicketTokenVerificationDTOBuilder result = TicketTokenVerificationDTO.builder()
+                .token(token)
+                .valid(false);
+
+        byte[] bytes;
+        try {
+            bytes = Base32.decode(token.trim());
+        } catch (IllegalArgumentException e) {
+            return result.reason("INVALID_FORMAT").build();
+        }
+        if (bytes.length != TOKEN_LENGTH || bytes[0] != VERSION) {
+            return result.reason("INVALID_FORMAT").build();
+        }
+
+        byte[] expected = macs.get().doFinal(Arrays.copyOf(bytes, PAYLOAD_LENGTH));
+        if (!MessageDigest.isEqual(Arrays.copyOf(expected, MAC_LENGTH),
+                Arrays.copyOfRange(bytes, PAYLOAD_LENGTH, TOKEN_LENGTH))) {
+            return result.reason("INVALID_SIGNATURE").build();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, PAYLOAD_LENGTH - 1);
+        long ticketId = ((long) (buffer.getShort() & 0xFFFF) << 32) | (buffer.getInt() & MAX_INT_ID);
+        long showtimeId = buffer.getInt() & MAX_INT_ID;
+        long seatId = buffer.getInt() & MAX_INT_ID;
+        result.ticketId(ticketId).showtimeId(showtimeId).seatId(seatId);
+
+        if (revoked.get(ticketId)) {
+            return result.reason("REVOKED").build();
+        }
+        return result.valid(true).build();
+    }
+
+    public boolean isRevoked(long ticketId) {
+        return revoked.get(ticketId);
+    }
+
+    /**
+     * Thu hồi vé sau khi transaction hủy đơn commit
+     */
+    public void revoke(Collection<Long> ticketIds) {
+        Runnable action = () -> ticketIds.forEach(revoked::set);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public long getRevokedCount() {
+        return revoked.cardinality();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevocations() {
+        LocalDateTime startedAt = now();
+        List<Long> ids = ticketRepository.findCancelledTicketIds();
+        ids.forEach(revoked::set);
+        lastRevocationRefresh = startedAt;
+        log.info("Loaded {} revoked tickets", ids.size());
+    }
+
+    /**
+     * Đồng bộ vé bị hủy trên node khác (mỗi node chỉ tự revoke các đơn do chính nó hủy)
+     */
+    @Scheduled(fixedDelayString = "${ticket.token.revocation-refresh-ms:60000}")
+    public void refreshRevocations() {
+        LocalDateTime since = lastRevocationRefresh;
+        if (since == null) {
+            return;
+        }
+        LocalDateTime startedAt = now();
+        // Lùi 1 phút để không bỏ sót đơn commit chậm
+        List<Long> ids = ticketRepository.findTicketIdsCancelledSince(since.minusMinutes(1));
+        ids.forEach(revoked::set);
+        lastRevocationRefresh = startedAt;
+    }
+
+    private static byte[] hmac(byte[] key, byte[] data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
+    }
+}
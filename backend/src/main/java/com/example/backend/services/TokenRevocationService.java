@@ -0,0 +1,134 @@
+package com.example.backend.services;
+
+import com.example.backend.repositories.UserRepository;
+import com.example.backend.utils.JwtUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thu hồi JWT theo user, kiểm tra trong JwtAuthenticationFilter mà không truy vấn DB mỗi request.
+ * - username -> thời điểm (epoch ms): token cấp trước thời điểm này bị từ chối, so ở độ chính xác mili giây
+ *   (claim iatMs của JwtUtils; Hibernate 6 tạo users.tokens_revoked_at kiểu datetime(6))
+ * - Đăng xuất thu hồi theo user, tức là đăng xuất khỏi mọi thiết bị, không chỉ token đang dùng
+ * - User bị chặn: mọi token đều bị từ chối cho tới khi được bỏ chặn
+ * - Entry cũ hơn thời hạn JWT được dọn định kỳ (token cấp trước đó đã tự hết hạn), nên map chỉ chứa
+ *   user bị chặn + user đăng xuất/bị thu hồi trong khoảng thời hạn của JWT
+ * Trạng thái gốc nằm ở users.status và users.tokens_revoked_at; node khác đồng bộ qua refresh() định kỳ,
+ * message bus (nếu có) có thể gọi apply() để đẩy thay đổi ngay.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private static final long BLOCKED = Long.MAX_VALUE;
+    private static final ZoneId ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+
+    private final UserRepository userRepository;
+    private final long tokenLifetimeMs;
+
+    private final ConcurrentMap<String, Long> revokedBefore = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastRefresh;
+
+    public TokenRevocationService(UserRepository userRepository,
+                                  @Value("${jwt.expiration:86400000}") long tokenLifetimeMs) {
+        this.userRepository = userRepository;
+        this.tokenLifetimeMs = tokenLifetimeMs;
+    }
+
+    public boolean isRevoked(JwtUtils.VerifiedToken token) {
+        Long before = revokedBefore.get(token.username());
+        return before != null && token.issuedAtMs() < before;
+    }
+
+    /**
+     * Đăng xuất: thu hồi mọi token đã cấp cho user trước thời điểm này (mọi thiết bị);
+     * token cấp khi đăng nhập lại ngay sau đó vẫn hợp lệ
+     */
+    @Transactional
+    public void revokeTokens(String username) {
+        LocalDateTime now = now();
+        userRepository.updateTokensRevokedAt(username, now);
+        applyAfterCommit(username, true, now);
+    }
+
+    /**
+     * Gọi khi chặn/bỏ chặn user (caller đã lưu status và tokensRevokedAt)
+     */
+    public void onStatusChanged(String username, boolean active, LocalDateTime revokedAt) {
+        applyAfterCommit(username, active, revokedAt);
+    }
+
+    /**
+     * Cập nhật trạng thái thu hồi trong bộ nhớ (dùng cho thay đổi local và thay đổi từ node khác)
+     */
+    public void apply(String username, boolean active, LocalDateTime revokedAt) {
+        if (!active) {
+            revokedBefore.put(username, BLOCKED);
+        } else if (revokedAt != null) {
+            revokedBefore.put(username, revokedAt.atZone(ZONE).toInstant().toEpochMilli());
+        } else {
+            revokedBefore.remove(username);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDateTime startedAt = now();
+        List<Object[]> rows = userRepository.findBlockedOrRevokedSince(startedAt.minus(Duration.ofMillis(tokenLifetimeMs)));
+        applyRows(rows);
+        lastRefresh = startedAt;
+        log.info("Loaded {} token revocations", revokedBefore.size());
+    }
+
+    @Scheduled(fixedDelayString = "${security.token-revocation.refresh-ms:30000}")
+    public void refresh() {
+        LocalDateTime since = lastRefresh;
+        if (since == null) {
+            return;
+        }
+        LocalDateTime startedAt = now();
+        // Lùi 1 phút để không bỏ sót thay đổi commit chậm
+        applyRows(userRepository.findRevokedSince(since.minusMinutes(1)));
+        lastRefresh = startedAt;
+
+        long expiredBefore = System.currentTimeMillis() - tokenLifetimeMs;
+        revokedBefore.values().removeIf(before -> before != BLOCKED && before < expiredBefore);
+    }
+
+    private void applyRows(List<Object[]> rows) {
+        for (Object[] row : rows) {
+            apply((String) row[0], !Boolean.FALSE.equals(row[1]), (LocalDateTime) row[2]);
+        }
+    }
+
+    private void applyAfterCommit(String username, boolean active, LocalDateTime revokedAt) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(username, active, revokedAt);
+                }
+            });
+        } else {
+            apply(username, active, revokedAt);
+        }
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(ZONE);
+    }
+}
@@ -12,6 +12,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -28,6 +30,7 @@ public class UserService {
     private final CinemaComplexRepository cinemaComplexRepository;
     private final PasswordEncoder passwordEncoder;
     private final ActivityLogService activityLogService;
+    private final TokenRevocationService tokenRevocationService;
     
     /**
      * Lấy danh sách tất cả users với filter
@@ -178,9 +181,12 @@ public class UserService {
             throw new Exception("Không thể thay đổi trạng thái của Admin");
         }
         
-        // Toggle status
+        // Toggle status; token đã cấp trước đó bị thu hồi (chặn: từ chối mọi token cho tới khi bỏ chặn)
         user.setStatus(!user.getStatus());
+        user.setTokensRevokedAt(LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")));
         User updatedUser = userRepository.save(user);
+        tokenRevocationService.onStatusChanged(updatedUser.getUsername(), updatedUser.getStatus(),
+                updatedUser.getTokensRevokedAt());
         
         log.info("Toggled status for user ID: {} to {}", userId, updatedUser.getStatus());
         
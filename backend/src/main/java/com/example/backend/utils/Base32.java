@@ -0,0 +1,63 @@
+package com.example.backend.utils;
+
+/**
+ * Base32 (RFC 4648) không padding. Chỉ dùng A-Z và 2-7 nên QR code encode được ở chế độ alphanumeric
+ * (5.5 bit/ký tự thay vì 8 bit/byte), cho QR nhỏ hơn so với Base64 hay JSON.
+ */
+public final class Base32 {
+
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567".toCharArray();
+    private static final int[] LOOKUP = new int[128];
+    static {
+        java.util.Arrays.fill(LOOKUP, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            LOOKUP[ALPHABET[i]] = i;
+            LOOKUP[Character.toLowerCase(ALPHABET[i])] = i;
+        }
+    }
+
+    private Base32() {
+    }
+
+    public static String encode(byte[] data) {
+        StringBuilder sb = new StringBuilder((data.length * 8 + 4) / 5);
+        int buffer = 0;
+        int bits = 0;
+        for (byte b : data) {
+            buffer = (buffer << 8) | (b & 0xFF);
+            bits += 8;
+            while (bits >= 5) {
+                sb.append(ALPHABET[(buffer >>> (bits - 5)) & 31]);
+                bits -= 5;
+            }
+        }
+        if (bits > 0) {
+            sb.append(ALPHABET[(buffer << (5 - bits)) & 31]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException nếu chuỗi chứa ký tự không thuộc bảng Base32
+     */
+    public static byte[] decode(String text) {
+        byte[] out = new byte[text.length() * 5 / 8];
+        int buffer = 0;
+        int bits = 0;
+        int index = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int value = c < 128 ? LOOKUP[c] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("Ký tự Base32 không hợp lệ: " + c);
+            }
+            buffer = (buffer << 5) | value;
+            bits += 5;
+            if (bits >= 8) {
+                out[index++] = (byte) (buffer >>> (bits - 8));
+                bits -= 8;
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.backend.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bitmap theo ID (ticketId, ...) đọc/ghi lock-free từ nhiều thread.
+ * Chia thành các trang 65536 bit, trang chỉ được cấp phát khi có bit đầu tiên được set,
+ * nên ID tăng dần (IDENTITY) chỉ tốn khoảng 8KB cho mỗi 65536 ID.
+ */
+public class ConcurrentBitmap {
+
+    private static final int PAGE_BITS = 16;
+    private static final int WORDS_PER_PAGE = (1 << PAGE_BITS) / 64;
+
+    private final ConcurrentMap<Long, AtomicLongArray> pages = new ConcurrentHashMap<>();
+
+    /**
+     * @return true nếu bit trước đó chưa được set
+     */
+    public boolean set(long id) {
+        AtomicLongArray page = pages.computeIfAbsent(id >>> PAGE_BITS, k -> new AtomicLongArray(WORDS_PER_PAGE));
+        int word = (int) ((id >>> 6) & (WORDS_PER_PAGE - 1));
+        long mask = 1L << (id & 63);
+        while (true) {
+            long current = page.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (page.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    public boolean get(long id) {
+        AtomicLongArray page = pages.get(id >>> PAGE_BITS);
+        if (page == null) {
+            return false;
+        }
+        int word = (int) ((id >>> 6) & (WORDS_PER_PAGE - 1));
+        return (page.get(word) & (1L << (id & 63))) != 0;
+    }
+
+    public void clear(long id) {
+        AtomicLongArray page = pages.get(id >>> PAGE_BITS);
+        if (page == null) {
+            return;
+        }
+        int word = (int) ((id >>> 6) & (WORDS_PER_PAGE - 1));
+        long mask = 1L << (id & 63);
+        while (true) {
+            long current = page.get(word);
+            if ((current & mask) == 0 || page.compareAndSet(word, current, current & ~mask)) {
+                return;
+            }
+        }
+    }
+
+    public long cardinality() {
+        long count = 0;
+        for (AtomicLongArray page : pages.values()) {
+            for (int i = 0; i < page.length(); i++) {
+                count += Long.bitCount(page.get(i));
+            }
+        }
+        return count;
+    }
+
+    public void clearAll() {
+        pages.clear();
+    }
+}
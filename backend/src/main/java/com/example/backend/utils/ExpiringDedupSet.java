@@ -0,0 +1,59 @@
+package com.example.backend.utils;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tập key "đã xử lý gần đây" có TTL và giới hạn kích thước, dùng để chặn xử lý trùng trong cùng node.
+ * - tryAdd() lock-free bằng putIfAbsent/replace: chỉ đúng một thread thắng với mỗi key còn hạn
+ * - Khi vượt maxEntries thì dọn key hết hạn; nếu vẫn vượt thì bỏ bớt key bất kỳ
+ *   (chỉ là lớp lọc nhanh, nguồn dedup chính phải nằm trong database)
+ */
+public class ExpiringDedupSet<K> {
+
+    private final ConcurrentMap<K, Long> expiresAt = new ConcurrentHashMap<>();
+    private final long ttlMs;
+    private final int maxEntries;
+
+    public ExpiringDedupSet(long ttlMs, int maxEntries) {
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return true nếu key chưa có (hoặc đã hết hạn) và thread hiện tại được quyền xử lý
+     */
+    public boolean tryAdd(K key) {
+        long now = System.currentTimeMillis();
+        Long current = expiresAt.putIfAbsent(key, now + ttlMs);
+        if (current == null) {
+            if (expiresAt.size() > maxEntries) {
+                evict(now);
+            }
+            return true;
+        }
+        // Key cũ đã hết hạn: chỉ thread replace thành công mới được xử lý
+        return current <= now && expiresAt.replace(key, current, now + ttlMs);
+    }
+
+    /**
+     * Bỏ key để lần sau xử lý lại được (ví dụ xử lý bị lỗi)
+     */
+    public void remove(K key) {
+        expiresAt.remove(key);
+    }
+
+    public int size() {
+        return expiresAt.size();
+    }
+
+    private void evict(long now) {
+        expiresAt.values().removeIf(expiry -> expiry <= now);
+        Iterator<K> iterator = expiresAt.keySet().iterator();
+        while (expiresAt.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
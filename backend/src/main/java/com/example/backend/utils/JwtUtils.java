@@ -2,101 +2,150 @@ package com.example.backend.utils;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Tạo và kiểm tra JWT.
+ * - Parser được build một lần và dùng chung (JwtParser immutable, thread-safe)
+ * - Token đã kiểm tra chữ ký được cache theo SHA-256 của token tới khi hết hạn,
+ *   request tiếp theo với cùng token không phải verify HS512 và parse JSON lại
+ */
 @Component
+@Slf4j
 public class JwtUtils {
 
     // Fixed secret key - phải đủ 64 bytes (512 bits) cho HS512
     private static final String SECRET_KEY_STRING = "CinesmartMovieTicketBookingSecretKey2024VeryLongAndSecureKeyForHS512Algorithm!@#$%";
     private final SecretKey jwtSecret = Keys.hmacShaKeyFor(SECRET_KEY_STRING.getBytes(StandardCharsets.UTF_8));
     private final long jwtExpirationMs = 86400000; // 1 ngày
+    // iat chuẩn tính theo giây; thời điểm cấp chính xác tới mili giây để so với thời điểm thu hồi
+    private static final String ISSUED_AT_MS_CLAIM = "iatMs";
+
+    private final JwtParser jwtParser = Jwts.parserBuilder()
+            .setSigningKey(jwtSecret)
+            .build();
+
+    // SHA-256(token) -> thông tin đã verify; không giữ nguyên token trong bộ nhớ
+    private final ConcurrentMap<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private final int maxCacheEntries;
+
+    /**
+     * Thông tin lấy từ token đã verify (immutable, dùng chung giữa các thread)
+     */
+    public record VerifiedToken(String username, String role, long issuedAtMs, long expiresAtMs) {}
+
+    public JwtUtils(@Value("${jwt.cache.max-entries:10000}") int maxCacheEntries) {
+        this.maxCacheEntries = maxCacheEntries;
+    }
 
     public String generateJwtToken(String username, String role) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setSubject(username)
                 .claim("role", role)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
+                .claim(ISSUED_AT_MS_CLAIM, now)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + jwtExpirationMs))
                 .signWith(jwtSecret, SignatureAlgorithm.HS512)
                 .compact();
     }
 
+    /**
+     * Kiểm tra token và lấy username/role trong một lần parse
+     * @return null nếu token sai chữ ký, sai định dạng hoặc đã hết hạn
+     */
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAtMs() > now) {
+                return cached;
+            }
+            verifiedTokens.remove(key, cached);
+            return null;
+        }
+
+        VerifiedToken verified;
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            Date issuedAt = claims.getIssuedAt();
+            Long issuedAtMs = claims.get(ISSUED_AT_MS_CLAIM, Long.class);
+            Date expiration = claims.getExpiration();
+            verified = new VerifiedToken(
+                    claims.getSubject(),
+                    claims.get("role", String.class),
+                    // Token cấp trước khi có iatMs: chỉ có iat theo giây
+                    issuedAtMs != null ? issuedAtMs : issuedAt != null ? issuedAt.getTime() : 0L,
+                    expiration != null ? expiration.getTime() : now + jwtExpirationMs);
+        } catch (ExpiredJwtException e) {
+            log.debug("JWT token expired at {}", e.getClaims().getExpiration());
+            return null;
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Invalid JWT: {}", e.getMessage());
+            return null;
+        }
+
+        verifiedTokens.put(key, verified);
+        if (verifiedTokens.size() > maxCacheEntries) {
+            evict(now);
+        }
+        return verified;
+    }
+
     public String getUsernameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(jwtSecret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return requireVerified(token).username();
     }
 
     public String getRoleFromJwtToken(String token) {
-        return (String) Jwts.parserBuilder()
-                .setSigningKey(jwtSecret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("role");
+        return requireVerified(token).role();
     }
 
     public boolean validateJwtToken(String authToken) {
-        System.out.println(">>> JwtUtils.validateJwtToken() - START");
-        System.out.println(">>> Token to validate (first 50 chars): "
-                + (authToken.length() > 50 ? authToken.substring(0, 50) + "..." : authToken));
-        System.out.println(">>> Token length: " + authToken.length());
+        return verify(authToken) != null;
+    }
 
-        try {
-            System.out.println(">>> Attempting to parse token...");
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(jwtSecret)
-                    .build()
-                    .parseClaimsJws(authToken)
-                    .getBody();
-
-            System.out.println(">>> Token parsed successfully!");
-            System.out.println(">>> Subject (username): " + claims.getSubject());
-            System.out.println(">>> Role: " + claims.get("role"));
-            System.out.println(">>> Issued At: " + claims.getIssuedAt());
-            System.out.println(">>> Expiration: " + claims.getExpiration());
-
-            // Kiểm tra token có hết hạn không
-            Date expiration = claims.getExpiration();
-            Date now = new Date();
-            System.out.println(">>> Current time: " + now);
-            System.out.println(
-                    ">>> Time until expiration: " + (expiration.getTime() - now.getTime()) / 1000 + " seconds");
-
-            if (expiration.before(now)) {
-                System.out.println(">>> ✗✗✗ JWT token has expired!");
-                System.out.println(">>> Expiration: " + expiration);
-                System.out.println(">>> Current time: " + now);
-                return false;
-            }
+    private VerifiedToken requireVerified(String token) {
+        VerifiedToken verified = verify(token);
+        if (verified == null) {
+            throw new JwtException("Invalid JWT token");
+        }
+        return verified;
+    }
 
-            System.out.println(">>> ✓✓✓ Token is VALID!");
-            return true;
-        } catch (ExpiredJwtException e) {
-            System.out.println(">>> ✗✗✗ JWT token expired (caught ExpiredJwtException)");
-            System.out.println(">>> Exception message: " + e.getMessage());
-            System.out.println(">>> Expiration from exception: " + e.getClaims().getExpiration());
-            return false;
-        } catch (JwtException e) {
-            System.out.println(">>> ✗✗✗ Invalid JWT (caught JwtException)");
-            System.out.println(">>> Exception type: " + e.getClass().getName());
-            System.out.println(">>> Exception message: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        } catch (Exception e) {
-            System.out.println(">>> ✗✗✗ Error validating JWT (caught general Exception)");
-            System.out.println(">>> Exception type: " + e.getClass().getName());
-            System.out.println(">>> Exception message: " + e.getMessage());
-            e.printStackTrace();
-            return false;
+    /**
+     * Dọn token hết hạn; nếu vẫn vượt giới hạn thì bỏ bớt entry bất kỳ (lần sau chỉ phải verify lại)
+     */
+    private void evict(long now) {
+        verifiedTokens.values().removeIf(token -> token.expiresAtMs() <= now);
+        Iterator<String> iterator = verifiedTokens.keySet().iterator();
+        while (verifiedTokens.size() > maxCacheEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 }
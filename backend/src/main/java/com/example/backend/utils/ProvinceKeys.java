@@ -0,0 +1,59 @@
+package com.example.backend.utils;
+
+import java.text.Normalizer;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hóa tên tỉnh/thành thành key so sánh bằng được (lưu ở Address.provinceKey, có index):
+ * bỏ dấu, chữ thường, bỏ tiền tố "Tỉnh"/"Thành phố"/"TP.", nối bằng dấu gạch.
+ * Ví dụ: "TP. Hồ Chí Minh", "Thành phố Hồ Chí Minh", "ho chi minh" -> "ho-chi-minh"
+ */
+public final class ProvinceKeys {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALNUM = Pattern.compile("[^a-z0-9]+");
+    private static final String[] PREFIXES = {"thanh-pho-", "tp-", "tinh-"};
+    private static final Map<String, String> ALIASES = Map.of(
+            "hcm", "ho-chi-minh",
+            "sai-gon", "ho-chi-minh",
+            "hn", "ha-noi");
+
+    private ProvinceKeys() {
+    }
+
+    /**
+     * @return key đã chuẩn hóa, null nếu province rỗng
+     */
+    public static String normalize(String province) {
+        if (province == null || province.isBlank()) {
+            return null;
+        }
+        String ascii = MARKS.matcher(Normalizer.normalize(province.trim(), Normalizer.Form.NFD)).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase();
+        String key = NON_ALNUM.matcher(ascii).replaceAll("-");
+        key = trimDashes(key);
+        for (String prefix : PREFIXES) {
+            if (key.startsWith(prefix)) {
+                key = key.substring(prefix.length());
+                break;
+            }
+        }
+        key = ALIASES.getOrDefault(key, key);
+        return key.isEmpty() ? null : key;
+    }
+
+    private static String trimDashes(String value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) == '-') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) == '-') {
+            end--;
+        }
+        return value.substring(start, end);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.backend.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket không khóa, cài đặt kiểu GCRA: toàn bộ trạng thái là một mốc thời gian
+ * (theoretical arrival time) trong AtomicLong, mỗi lần lấy token là một vòng CAS.
+ * - Bucket đầy: capacity request liền nhau được qua
+ * - Sau đó cứ mỗi periodNanos / capacity hồi lại một token
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(int capacity, long periodNanos) {
+        this.intervalNanos = Math.max(1, periodNanos / Math.max(1, capacity));
+        this.burstNanos = intervalNanos * Math.max(1, capacity);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * @return 0 nếu lấy được token, ngược lại số nano giây phải chờ tới khi có token
+     */
+    public long tryAcquire() {
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            long allowAt = next - burstNanos;
+            if (allowAt - now > 0) {
+                return allowAt - now;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Trả lại token vừa lấy (request bị rule khác từ chối nên không tính)
+     */
+    public void refund() {
+        theoreticalArrival.addAndGet(-intervalNanos);
+    }
+
+    /**
+     * Bucket đã hồi đầy: bỏ đi cũng không mất trạng thái
+     */
+    public boolean isFull() {
+        return theoreticalArrival.get() - System.nanoTime() <= 0;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.backend.controllers;
+
+import com.example.backend.repositories.ManagerRepository;
+import com.example.backend.services.QrCodeService;
+import com.example.backend.services.TicketTokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TicketControllerTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G'};
+
+    private final QrCodeService qrCodeService = mock(QrCodeService.class);
+    private final ManagerRepository managerRepository = mock(ManagerRepository.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new TicketController(qrCodeService, mock(TicketTokenService.class), managerRepository))
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("customer1", null, "ROLE_CUSTOMER"));
+        when(qrCodeService.renderTicketQr(eq(7L), anyString(), anyBoolean(), any()))
+                .thenReturn(new QrCodeService.QrImage("abc123", PNG));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void servesPngWithEtagAndPrivateCaching() throws Exception {
+        mockMvc.perform(get("/api/tickets/7/qr.png"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc123\""))
+                .andExpect(header().string("Cache-Control", containsString("private")))
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(PNG));
+        verify(qrCodeService).renderTicketQr(7L, "customer1", false, null);
+    }
+
+    @Test
+    void returnsNotModifiedForMatchingEtag() throws Exception {
+        mockMvc.perform(get("/api/tickets/7/qr.png").header("If-None-Match", "\"abc123\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void rendersAgainWhenEtagChanged() throws Exception {
+        mockMvc.perform(get("/api/tickets/7/qr.png").header("If-None-Match", "\"old\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(PNG));
+    }
+
+    @Test
+    void forbidsOtherCustomersTickets() throws Exception {
+        when(qrCodeService.renderTicketQr(eq(8L), anyString(), anyBoolean(), any()))
+                .thenThrow(new SecurityException("Bạn không có quyền xem vé này"));
+
+        mockMvc.perform(get("/api/tickets/8/qr.png"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void passesManagerComplexToService() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("manager1", null, "ROLE_MANAGER"));
+        when(managerRepository.findCinemaComplexIdByUsername("manager1")).thenReturn(Optional.of(3L));
+
+        mockMvc.perform(get("/api/tickets/7/qr.png"))
+                .andExpect(status().isOk());
+        verify(qrCodeService).renderTicketQr(7L, "manager1", true, 3L);
+    }
+
+    @Test
+    void forbidsManagerWithoutComplex() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("manager2", null, "ROLE_MANAGER"));
+        when(managerRepository.findCinemaComplexIdByUsername("manager2")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/tickets/7/qr.png"))
+                .andExpect(status().isForbidden());
+        verify(qrCodeService, never()).renderTicketQr(anyLong(), anyString(), anyBoolean(), any());
+    }
+
+    @Test
+    void adminIsNotScopedToComplex() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("admin", null, "ROLE_ADMIN"));
+
+        mockMvc.perform(get("/api/tickets/7/qr.png"))
+                .andExpect(status().isOk());
+        verify(qrCodeService).renderTicketQr(eq(7L), eq("admin"), eq(true), isNull());
+    }
+}
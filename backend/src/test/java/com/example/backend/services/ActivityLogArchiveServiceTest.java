@@ -0,0 +1,65 @@
+package com.example.backend.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ActivityLogArchiveServiceTest {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final ActivityLogArchiveService archiveService =
+            new ActivityLogArchiveService(jdbcTemplate, transactionTemplate);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(archiveService, "enabled", true);
+        ReflectionTestUtils.setField(archiveService, "retentionMonths", 6);
+        ReflectionTestUtils.setField(archiveService, "batchSize", 2);
+        ReflectionTestUtils.setField(archiveService, "partitioning", false);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+    }
+
+    @Test
+    void archivesUntilLastPartialBatch() {
+        ReflectionTestUtils.setField(archiveService, "maxDurationMs", 60_000L);
+        when(jdbcTemplate.queryForList(startsWith("SELECT activity_id"), any(MapSqlParameterSource.class), eq(Long.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+
+        archiveService.archiveExpired();
+
+        verify(jdbcTemplate, times(3)).update(startsWith("DELETE FROM activity_logs"), any(MapSqlParameterSource.class));
+    }
+
+    @Test
+    void stopsWhenTimeBudgetIsUsed() {
+        ReflectionTestUtils.setField(archiveService, "maxDurationMs", 50L);
+        // Luôn còn log cũ: chỉ dừng nhờ max-duration-ms
+        when(jdbcTemplate.queryForList(startsWith("SELECT activity_id"), any(MapSqlParameterSource.class), eq(Long.class)))
+                .thenAnswer(inv -> {
+                    Thread.sleep(10);
+                    return List.of(1L, 2L);
+                });
+
+        archiveService.archiveExpired();
+
+        verify(jdbcTemplate, atLeast(1)).update(anyString(), any(MapSqlParameterSource.class));
+    }
+}
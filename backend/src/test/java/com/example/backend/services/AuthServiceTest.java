@@ -0,0 +1,78 @@
+package com.example.backend.services;
+
+import com.example.backend.repositories.AdminRepository;
+import com.example.backend.repositories.CustomerRepository;
+import com.example.backend.repositories.ManagerRepository;
+import com.example.backend.repositories.UserRepository;
+import com.example.backend.utils.JwtUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthServiceTest {
+
+    private static final String EMAIL = "customer1@example.com";
+
+    private final CustomerRepository customerRepository = mock(CustomerRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        when(customerRepository.existsByEmail(EMAIL)).thenReturn(true);
+        authService = new AuthService(customerRepository, mock(ManagerRepository.class), mock(AdminRepository.class),
+                emailService, mock(PasswordHashingService.class), mock(JwtUtils.class), mock(UserRepository.class),
+                mock(TokenRevocationService.class), new InMemoryOtpStore());
+    }
+
+    @Test
+    void correctOtpIssuesResetToken() {
+        String otp = sendForgotPasswordOtp();
+
+        assertNotNull(authService.verifyForgotPasswordOtp(EMAIL, otp));
+        // Mã chỉ dùng được một lần
+        assertThrows(RuntimeException.class, () -> authService.verifyForgotPasswordOtp(EMAIL, otp));
+    }
+
+    @Test
+    void lockedOutOtpKeepsResendCooldown() {
+        String otp = sendForgotPasswordOtp();
+        String wrong = otp.equals("000000") ? "111111" : "000000";
+
+        for (int i = 1; i < 5; i++) {
+            RuntimeException e = assertThrows(RuntimeException.class,
+                    () -> authService.verifyForgotPasswordOtp(EMAIL, wrong));
+            assertEquals("Mã OTP không đúng", e.getMessage());
+        }
+        RuntimeException locked = assertThrows(RuntimeException.class,
+                () -> authService.verifyForgotPasswordOtp(EMAIL, wrong));
+        assertTrue(locked.getMessage().startsWith("Nhập sai OTP quá"));
+
+        // Mã đã bị hủy, kể cả khi nhập đúng
+        assertThrows(RuntimeException.class, () -> authService.verifyForgotPasswordOtp(EMAIL, otp));
+        assertEquals(0, authService.getForgotPasswordOtpRemainingSeconds(EMAIL));
+        // Không được gửi lại mã mới trước khi hết cooldown
+        RuntimeException cooldown = assertThrows(RuntimeException.class,
+                () -> authService.sendForgotPasswordOtp(EMAIL));
+        assertTrue(cooldown.getMessage().startsWith("Vui lòng đợi"));
+        verify(emailService, times(1)).sendForgotPasswordOtpEmail(eq(EMAIL), anyString());
+    }
+
+    private String sendForgotPasswordOtp() {
+        authService.sendForgotPasswordOtp(EMAIL);
+        ArgumentCaptor<String> otp = ArgumentCaptor.forClass(String.class);
+        verify(emailService, times(1)).sendForgotPasswordOtpEmail(eq(EMAIL), otp.capture());
+        return otp.getValue();
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.backend.services;
+
+import com.example.backend.dtos.CheckInResultDTO;
+import com.example.backend.repositories.ManagerRepository;
+import com.example.backend.repositories.ShowtimeRepository;
+import com.example.backend.repositories.TicketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CheckInServiceTest {
+
+    private static final long SHOWTIME_ID = 10L;
+    private static final long COMPLEX_ID = 1L;
+
+    private final TicketRepository ticketRepository = mock(TicketRepository.class);
+    private final ShowtimeRepository showtimeRepository = mock(ShowtimeRepository.class);
+    private final TicketTokenService ticketTokenService =
+            new TicketTokenService(ticketRepository, "test-ticket-token-secret-0123456789abcdef");
+    private CheckInService checkInService;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime now = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
+        List<Object[]> times = new ArrayList<>();
+        times.add(new Object[]{now.minusMinutes(10), now.plusHours(2), COMPLEX_ID});
+        when(showtimeRepository.findTimesById(SHOWTIME_ID)).thenReturn(times);
+        checkInService = new CheckInService(ticketTokenService, ticketRepository, showtimeRepository,
+                mock(ManagerRepository.class), mock(JdbcTemplate.class), mock(SimpMessagingTemplate.class),
+                30, 30, 500, 0, 300000);
+    }
+
+    @Test
+    void reloadsTicketsSoldAfterPreload() {
+        when(ticketRepository.findCheckInRowsByShowtimeId(SHOWTIME_ID))
+                .thenReturn(rows(1), rows(2));
+        assertEquals(1, checkInService.getShowtimeStats(SHOWTIME_ID, null).get("totalTickets"));
+
+        CheckInResultDTO result = checkIn(2L, null);
+
+        assertTrue(result.getAccepted());
+        assertEquals("A2", result.getSeat());
+        assertEquals(2, checkInService.getShowtimeStats(SHOWTIME_ID, null).get("totalTickets"));
+    }
+
+    @Test
+    void preloadTickRefreshesLoadedShowtimes() {
+        when(ticketRepository.findCheckInRowsByShowtimeId(SHOWTIME_ID))
+                .thenReturn(rows(1), rows(3));
+        when(showtimeRepository.findIdsOpenForCheckIn(any(), any())).thenReturn(List.of(SHOWTIME_ID));
+        checkInService.getShowtimeStats(SHOWTIME_ID, null);
+
+        checkInService.preload();
+
+        assertEquals(3, checkInService.getShowtimeStats(SHOWTIME_ID, null).get("totalTickets"));
+    }
+
+    @Test
+    void rejectsScansFromAnotherComplex() {
+        when(ticketRepository.findCheckInRowsByShowtimeId(SHOWTIME_ID)).thenReturn(rows(1));
+
+        CheckInResultDTO result = checkIn(1L, COMPLEX_ID + 1);
+
+        assertFalse(result.getAccepted());
+        assertEquals("WRONG_CINEMA_COMPLEX", result.getReason());
+        assertThrows(SecurityException.class, () -> checkInService.getShowtimeStats(SHOWTIME_ID, COMPLEX_ID + 1));
+        assertTrue(checkIn(1L, COMPLEX_ID).getAccepted());
+    }
+
+    @Test
+    void rejectsTicketMissingFromShowtime() {
+        when(ticketRepository.findCheckInRowsByShowtimeId(SHOWTIME_ID)).thenReturn(rows(1));
+
+        CheckInResultDTO result = checkIn(99L, COMPLEX_ID);
+
+        assertFalse(result.getAccepted());
+        assertEquals("UNKNOWN_TICKET", result.getReason());
+        assertEquals(0, checkInService.getShowtimeStats(SHOWTIME_ID, null).get("checkedIn"));
+        assertEquals(0, checkInService.getMetrics().get("pendingWrites"));
+    }
+
+    @Test
+    void rejectsTicketOfUnpaidOrder() {
+        // Vé 2 thuộc đơn chưa thanh toán nên không có trong danh sách check-in (kể cả sau khi nạp lại)
+        when(ticketRepository.findCheckInRowsByShowtimeId(SHOWTIME_ID)).thenReturn(rows(1));
+
+        CheckInResultDTO unpaid = checkIn(2L, COMPLEX_ID);
+
+        assertFalse(unpaid.getAccepted());
+        assertEquals("UNKNOWN_TICKET", unpaid.getReason());
+        assertTrue(checkIn(1L, COMPLEX_ID).getAccepted());
+    }
+
+    /**
+     * 20 cổng cùng quét toàn bộ vé của suất chiếu (mỗi cổng một thứ tự khác nhau):
+     * mỗi vé chỉ được chấp nhận đúng một lần
+     */
+    @Test
+    void twentyGatesAcceptEachTicketOnce() throws Exception {
+        int tickets = 400;
+        int gates = 20;
+        when(ticketRepository.findCheckInRowsByShowtimeId(SHOWTIME_ID)).thenReturn(rows(tickets));
+        List<String> tokens = new ArrayList<>();
+        for (long ticketId = 1; ticketId <= tickets; ticketId++) {
+            tokens.add(ticketTokenService.issue(ticketId, SHOWTIME_ID, ticketId));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(gates);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> accepted = new ArrayList<>();
+        try {
+            for (int gate = 0; gate < gates; gate++) {
+                String gateId = "G" + gate;
+                List<String> order = new ArrayList<>(tokens);
+                Collections.shuffle(order);
+                accepted.add(pool.submit(() -> {
+                    start.await();
+                    int count = 0;
+                    for (String token : order) {
+                        if (checkInService.checkIn(token, SHOWTIME_ID, gateId, COMPLEX_ID).get(0).getAccepted()) {
+                            count++;
+                        }
+                    }
+                    return count;
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> future : accepted) {
+                total += future.get(30, TimeUnit.SECONDS);
+            }
+
+            assertEquals(tickets, total);
+            assertEquals(tickets, checkInService.getShowtimeStats(SHOWTIME_ID, null).get("checkedIn"));
+            assertEquals(tickets, checkInService.getMetrics().get("pendingWrites"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private CheckInResultDTO checkIn(long ticketId, Long complexId) {
+        String token = ticketTokenService.issue(ticketId, SHOWTIME_ID, ticketId);
+        return checkInService.checkIn(token, SHOWTIME_ID, "G1", complexId).get(0);
+    }
+
+    // ticketId 1..count, ghế A1..A{count}, chưa check-in
+    private static List<Object[]> rows(int count) {
+        List<Object[]> rows = new ArrayList<>();
+        for (long ticketId = 1; ticketId <= count; ticketId++) {
+            rows.add(new Object[]{ticketId, "A", (int) ticketId, null});
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.backend.services;
+
+import com.example.backend.dtos.CheckoutQueueStatusDTO;
+import com.example.backend.repositories.ShowtimeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CheckoutQueueServiceTest {
+
+    private static final long SHOWTIME_ID = 5L;
+    private static final long COMPLEX_ID = 1L;
+
+    private final ShowtimeRepository showtimeRepository = mock(ShowtimeRepository.class);
+    private final CheckoutQueueService queueService = new CheckoutQueueService(showtimeRepository, 900000, 60);
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> times = new ArrayList<>();
+        times.add(new Object[]{LocalDateTime.now(), LocalDateTime.now().plusHours(2), COMPLEX_ID});
+        when(showtimeRepository.findTimesById(SHOWTIME_ID)).thenReturn(times);
+    }
+
+    @Test
+    void ticketOnlyWorksForUserWhoJoined() {
+        queueService.activate(SHOWTIME_ID, 60, null);
+        String ticket = queueService.join(SHOWTIME_ID, "customer1").getTicket();
+        queueService.admit();
+
+        assertTrue(queueService.isAdmitted(SHOWTIME_ID, ticket, "customer1"));
+        assertFalse(queueService.isAdmitted(SHOWTIME_ID, ticket, "customer2"));
+        assertThrows(RuntimeException.class, () -> queueService.getStatus(SHOWTIME_ID, ticket, "customer2"));
+
+        // Người khác lấy số thì nhận ticket riêng, không dùng lại ticket bị lộ
+        CheckoutQueueStatusDTO other = queueService.join(SHOWTIME_ID, "customer2");
+        assertNotEquals(ticket, other.getTicket());
+        assertEquals(ticket, queueService.join(SHOWTIME_ID, "customer1").getTicket());
+    }
+
+    @Test
+    void repeatedJoinsKeepOnePlaceInLine() {
+        queueService.activate(SHOWTIME_ID, 60, null);
+        CheckoutQueueStatusDTO first = queueService.join(SHOWTIME_ID, "customer1");
+        for (int i = 0; i < 10; i++) {
+            CheckoutQueueStatusDTO again = queueService.join(SHOWTIME_ID, "customer1");
+            assertEquals(first.getTicket(), again.getTicket());
+            assertEquals(1L, again.getPosition());
+        }
+
+        assertEquals(2L, queueService.join(SHOWTIME_ID, "customer2").getPosition());
+        assertEquals(2L, queueService.getQueues(null).get(0).get("issued"));
+    }
+
+    @Test
+    void managerCanOnlyControlQueuesOfOwnComplex() {
+        assertThrows(SecurityException.class, () -> queueService.activate(SHOWTIME_ID, 60, COMPLEX_ID + 1));
+        assertTrue(queueService.getQueues(null).isEmpty());
+
+        queueService.activate(SHOWTIME_ID, 60, COMPLEX_ID);
+        assertEquals(1, queueService.getQueues(COMPLEX_ID).size());
+        assertTrue(queueService.getQueues(COMPLEX_ID + 1).isEmpty());
+        assertThrows(SecurityException.class, () -> queueService.deactivate(SHOWTIME_ID, COMPLEX_ID + 1));
+
+        queueService.deactivate(SHOWTIME_ID, null);
+        assertTrue(queueService.getQueues(null).isEmpty());
+    }
+}
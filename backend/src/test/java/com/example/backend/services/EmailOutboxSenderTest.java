@@ -0,0 +1,188 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.EmailOutbox;
+import com.example.backend.entities.enums.EmailOutboxStatus;
+import com.example.backend.repositories.EmailOutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Gửi outbox qua GreenMail (SMTP server chạy trong test), database được mock
+ */
+class EmailOutboxSenderTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final EmailOutboxRepository outboxRepository = mock(EmailOutboxRepository.class);
+    private final NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+    private final JdbcTemplate plainJdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final Executor directExecutor = Runnable::run;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(jdbcTemplate.getJdbcTemplate()).thenReturn(plainJdbcTemplate);
+    }
+
+    @Test
+    void sendsBatchOverPooledConnections() throws Exception {
+        JavaMailSenderImpl mailSender = mailSender(ServerSetupTest.SMTP.getPort());
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, 2, 60000);
+        EmailOutboxSender sender = sender(mailSender, pool, 2);
+        List<EmailOutbox> emails = emails(5);
+        stubClaim(emails);
+
+        sender.wakeUp();
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(5, received.length);
+        assertEquals("Subject 0", received[0].getSubject());
+        // Executor chạy tuần tự nên 2 phần của batch dùng lại cùng một kết nối, kết nối được giữ cho batch sau
+        assertEquals(1, pool.getOpenCount());
+        assertEquals(5, sender.getSentTotal());
+        verify(jdbcTemplate).update(contains("status = 'SENT'"), argThat((SqlParameterSource params) ->
+                ((Collection<?>) params.getValue("ids")).size() == 5));
+        verify(plainJdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+        stubClaim(emails(3));
+        sender.wakeUp();
+
+        assertEquals(8, greenMail.getReceivedMessages().length);
+        assertEquals(1, pool.getOpenCount());
+        pool.shutdown();
+    }
+
+    @Test
+    void schedulesRetryWhenSmtpIsUnreachable() {
+        // Không có server ở cổng này: mọi email lỗi kết nối và được hẹn gửi lại
+        JavaMailSenderImpl mailSender = mailSender(ServerSetupTest.SMTP.getPort() + 7);
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, 1, 60000);
+        EmailOutboxSender sender = sender(mailSender, pool, 1);
+        stubClaim(emails(2));
+
+        sender.wakeUp();
+
+        assertEquals(0, greenMail.getReceivedMessages().length);
+        assertEquals(0, sender.getSentTotal());
+        assertEquals(2, sender.getFailedAttempts());
+        verify(plainJdbcTemplate).batchUpdate(contains("UPDATE email_outbox SET status = ?"),
+                argThat((List<Object[]> rows) -> rows.size() == 2
+                        && rows.stream().allMatch(row -> EmailOutboxStatus.PENDING.name().equals(row[0]))));
+    }
+
+    @Test
+    void rejectsPoolSmallerThanSenders() {
+        JavaMailSenderImpl mailSender = mailSender(ServerSetupTest.SMTP.getPort());
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, 2, 60000);
+        EmailOutboxSender sender = sender(mailSender, pool, 3);
+
+        assertThrows(IllegalStateException.class, sender::validatePoolSize);
+    }
+
+    @Test
+    void purgesSentAndFailedRowsInBatches() {
+        JavaMailSenderImpl mailSender = mailSender(ServerSetupTest.SMTP.getPort());
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, 1, 60000);
+        EmailOutboxSender sender = sender(mailSender, pool, 1);
+        ReflectionTestUtils.setField(sender, "purgeBatchSize", 100);
+        when(jdbcTemplate.update(contains("DELETE FROM email_outbox"), any(SqlParameterSource.class)))
+                .thenReturn(100, 40, 7);
+
+        sender.purge();
+
+        assertEquals(147, sender.getPurgedTotal());
+        verify(jdbcTemplate).update(contains("DELETE FROM email_outbox"),
+                argThat((SqlParameterSource params) -> params != null
+                        && EmailOutboxStatus.FAILED.name().equals(params.getValue("status"))));
+    }
+
+    private void stubClaim(List<EmailOutbox> emails) {
+        List<Long> ids = new ArrayList<>();
+        emails.forEach(email -> ids.add(email.getOutboxId()));
+        when(jdbcTemplate.queryForList(contains("FOR UPDATE SKIP LOCKED"), any(SqlParameterSource.class), eq(Long.class)))
+                .thenReturn(ids, List.of());
+        when(outboxRepository.findAllById(ids)).thenReturn(emails);
+    }
+
+    private EmailOutboxSender sender(JavaMailSenderImpl mailSender, SmtpTransportPool pool, int senders) {
+        EmailOutboxSender sender = new EmailOutboxSender(outboxRepository, jdbcTemplate, transactionTemplate,
+                mailSender, pool, new ObjectMapper(), directExecutor);
+        ReflectionTestUtils.setField(sender, "fromEmail", "noreply@cinesmart.test");
+        ReflectionTestUtils.setField(sender, "enabled", true);
+        ReflectionTestUtils.setField(sender, "batchSize", 50);
+        ReflectionTestUtils.setField(sender, "senders", senders);
+        ReflectionTestUtils.setField(sender, "maxAttempts", 6);
+        ReflectionTestUtils.setField(sender, "retryBaseDelayMs", 30000L);
+        ReflectionTestUtils.setField(sender, "retryMaxDelayMs", 3600000L);
+        ReflectionTestUtils.setField(sender, "borrowTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(sender, "sentRetentionDays", 7);
+        ReflectionTestUtils.setField(sender, "failedRetentionDays", 30);
+        ReflectionTestUtils.setField(sender, "purgeBatchSize", 1000);
+        return sender;
+    }
+
+    private JavaMailSenderImpl mailSender(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        Properties properties = new Properties();
+        properties.put("mail.smtp.connectiontimeout", "2000");
+        properties.put("mail.smtp.timeout", "2000");
+        mailSender.setJavaMailProperties(properties);
+        return mailSender;
+    }
+
+    private static long nextId = 1;
+
+    private List<EmailOutbox> emails(int count) {
+        List<EmailOutbox> emails = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            emails.add(EmailOutbox.builder()
+                    .outboxId(nextId++)
+                    .emailType("OTP")
+                    .toEmail("customer" + i + "@cinesmart.test")
+                    .subject("Subject " + i)
+                    .body("<p>Mã OTP: 12345" + i + "</p>")
+                    .html(true)
+                    .nextAttemptAt(LocalDateTime.now())
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        return emails;
+    }
+}
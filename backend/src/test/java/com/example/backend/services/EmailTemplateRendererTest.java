@@ -0,0 +1,97 @@
+package com.example.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailTemplateRendererTest {
+
+    private final EmailTemplateRenderer renderer = new EmailTemplateRenderer();
+
+    @Test
+    void rendersTicketComboAndVoucherFragments() {
+        Map<String, Object> model = baseModel();
+        model.put("tickets", List.of(ticket("Dune: Part Two", "qr0")));
+        model.put("voucher", Map.of("code", "FLASH50", "name", "Giảm 50k"));
+        model.put("hasCombos", true);
+        model.put("combos", List.of(Map.of("name", "Combo Bắp Nước", "quantity", 2,
+                "unitPrice", "90000 ₫", "lineTotal", "180000 ₫")));
+
+        String html = renderer.render("email/booking-confirmation", model);
+
+        assertTrue(html.contains("VÉ XEM PHIM"));
+        assertTrue(html.contains("Dune: Part Two"));
+        assertTrue(html.contains("cid:qr0"));
+        assertTrue(html.contains("F5, F6"));
+        assertTrue(html.contains("FLASH50"));
+        assertTrue(html.contains("Combo Bắp Nước"));
+        assertTrue(html.contains("180000 ₫"));
+    }
+
+    @Test
+    void omitsEmptySections() {
+        Map<String, Object> model = baseModel();
+        model.put("tickets", List.of());
+        model.put("hasCombos", false);
+
+        String html = renderer.render("email/booking-confirmation", model);
+
+        assertFalse(html.contains("FLASH50"));
+        assertFalse(html.contains("cid:"));
+    }
+
+    @Test
+    void escapesHtmlInValues() {
+        Map<String, Object> model = baseModel();
+        model.put("tickets", List.of(ticket("<script>alert(1)</script>", "qr0")));
+
+        String html = renderer.render("email/booking-confirmation", model);
+
+        assertFalse(html.contains("<script>alert(1)</script>"));
+        assertTrue(html.contains("&lt;script&gt;"));
+    }
+
+    @Test
+    void reusesCompiledTemplateAcrossRenders() {
+        Map<String, Object> first = baseModel();
+        first.put("tickets", List.of(ticket("Phim A", "qr0")));
+        Map<String, Object> second = baseModel();
+        second.put("tickets", List.of(ticket("Phim B", "qr1")));
+
+        String htmlA = renderer.render("email/booking-confirmation", first);
+        String htmlB = renderer.render("email/booking-confirmation", second);
+
+        assertTrue(htmlA.contains("Phim A") && !htmlA.contains("Phim B"));
+        assertTrue(htmlB.contains("Phim B") && !htmlB.contains("Phim A"));
+    }
+
+    private Map<String, Object> baseModel() {
+        Map<String, Object> model = new HashMap<>();
+        model.put("headerTitle", "VÉ XEM PHIM");
+        model.put("orderId", 42L);
+        model.put("orderDateTime", "20/10/2026 19:30");
+        model.put("orderDate", "20/10/2026");
+        model.put("totalAmount", "270000 ₫");
+        return model;
+    }
+
+    private Map<String, Object> ticket(String movieTitle, String qrCid) {
+        Map<String, Object> ticket = new HashMap<>();
+        ticket.put("movieTitle", movieTitle);
+        ticket.put("cinemaName", "Cinesmart Quận 1");
+        ticket.put("cinemaAddress", "123 Nguyễn Huệ");
+        ticket.put("date", "20/10/2026");
+        ticket.put("time", "19:30");
+        ticket.put("format", "2D");
+        ticket.put("seats", "F5, F6");
+        ticket.put("price", "270000 ₫");
+        ticket.put("bookingId", "42-7-2026-10-20T19:30:00");
+        ticket.put("qrCid", qrCid);
+        return ticket;
+    }
+}
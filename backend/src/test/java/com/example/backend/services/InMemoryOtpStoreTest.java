@@ -0,0 +1,55 @@
+package com.example.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryOtpStoreTest {
+
+    private static final String NAMESPACE = "test-otp";
+
+    private final InMemoryOtpStore otpStore = new InMemoryOtpStore();
+
+    @Test
+    void expiredEntryIsTreatedAsMissing() {
+        long now = System.currentTimeMillis();
+        otpStore.put(NAMESPACE, "a@example.com", new OtpStore.Entry("123456", now - 1, now - 1000, 0));
+
+        assertTrue(otpStore.get(NAMESPACE, "a@example.com").isEmpty());
+        AtomicReference<OtpStore.Entry> seen = new AtomicReference<>(new OtpStore.Entry("x", 0, 0, 0));
+        otpStore.compute(NAMESPACE, "a@example.com", current -> {
+            seen.set(current);
+            return null;
+        });
+        assertNull(seen.get());
+    }
+
+    @Test
+    void exceptionInComputeKeepsEntry() {
+        long now = System.currentTimeMillis();
+        OtpStore.Entry entry = new OtpStore.Entry("123456", now + 60000, now, 0);
+        otpStore.put(NAMESPACE, "a@example.com", entry);
+
+        assertThrows(RuntimeException.class, () -> otpStore.compute(NAMESPACE, "a@example.com", current -> {
+            throw new RuntimeException("cooldown");
+        }));
+        assertEquals(entry, otpStore.get(NAMESPACE, "a@example.com").orElseThrow());
+    }
+
+    @Test
+    void evictExpiredKeepsLiveEntries() {
+        long now = System.currentTimeMillis();
+        otpStore.put(NAMESPACE, "old@example.com", new OtpStore.Entry("111111", now - 1, now - 1000, 0));
+        otpStore.put(NAMESPACE, "new@example.com", new OtpStore.Entry("222222", now + 60000, now, 0));
+
+        otpStore.evictExpired();
+
+        assertTrue(otpStore.remove(NAMESPACE, "old@example.com").isEmpty());
+        assertEquals("222222", otpStore.remove(NAMESPACE, "new@example.com").orElseThrow().value());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.Price;
+import com.example.backend.entities.enums.RoomType;
+import com.example.backend.entities.enums.SeatType;
+import com.example.backend.repositories.PriceRepository;
+import org.junit.jupiter.api.Test;
+import org.kie.api.runtime.KieContainer;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PriceServiceTest {
+
+    private final PriceRepository priceRepository = mock(PriceRepository.class);
+
+    @Test
+    void servesBasePricesFromMemoryWithinTtl() {
+        when(priceRepository.findAll()).thenReturn(List.of(price("90000")));
+        PriceService priceService = new PriceService(priceRepository, mock(KieContainer.class), 60000);
+
+        assertEquals(new BigDecimal("90000"), priceService.getBasePrice(RoomType.TYPE_2D, SeatType.NORMAL));
+        assertEquals(new BigDecimal("90000"), priceService.getBasePrice(RoomType.TYPE_2D, SeatType.NORMAL));
+        verify(priceRepository, times(1)).findAll();
+    }
+
+    @Test
+    void reloadsBasePricesAfterTtl() {
+        // Giá được sửa ở node khác: node này không nhận được afterCommit, chỉ dựa vào TTL
+        when(priceRepository.findAll()).thenReturn(List.of(price("90000")), List.of(price("95000")));
+        PriceService priceService = new PriceService(priceRepository, mock(KieContainer.class), 0);
+
+        assertEquals(new BigDecimal("90000"), priceService.getBasePrice(RoomType.TYPE_2D, SeatType.NORMAL));
+        assertEquals(new BigDecimal("95000"), priceService.getBasePrice(RoomType.TYPE_2D, SeatType.NORMAL));
+    }
+
+    private static Price price(String amount) {
+        return Price.builder()
+                .roomType(RoomType.TYPE_2D)
+                .seatType(SeatType.NORMAL)
+                .price(new BigDecimal(amount))
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.CinemaComplex;
+import com.example.backend.entities.CinemaRoom;
+import com.example.backend.entities.Order;
+import com.example.backend.entities.Showtime;
+import com.example.backend.entities.Ticket;
+import com.example.backend.entities.User;
+import com.example.backend.repositories.TicketRepository;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QrCodeServiceTest {
+
+    private final TicketRepository ticketRepository = mock(TicketRepository.class);
+    private final QrCodeService qrCodeService =
+            new QrCodeService(ticketRepository, mock(TicketTokenService.class), 2);
+
+    @Test
+    void rendersDecodablePng() throws Exception {
+        QrCodeService.QrImage image = qrCodeService.render("T1.ABCDEF T1.GHIJKL");
+
+        assertEquals("T1.ABCDEF T1.GHIJKL", decode(image.png()));
+    }
+
+    @Test
+    void returnsCachedBytesForSameContent() {
+        QrCodeService.QrImage first = qrCodeService.render("T1.ABCDEF");
+        QrCodeService.QrImage second = qrCodeService.render("T1.ABCDEF");
+
+        assertEquals(first.hash(), second.hash());
+        assertSame(first.png(), second.png());
+        assertNotEquals(first.hash(), qrCodeService.render("T1.OTHER").hash());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        QrCodeService.QrImage a = qrCodeService.render("A");
+        QrCodeService.QrImage b = qrCodeService.render("B");
+        // Truy cập lại A để B thành phần tử cũ nhất
+        qrCodeService.render("A");
+        qrCodeService.render("C");
+
+        assertEquals(2, qrCodeService.getCacheSize());
+        assertSame(a.png(), qrCodeService.render("A").png());
+        assertNotSame(b.png(), qrCodeService.render("B").png());
+    }
+
+    @Test
+    void serializesMapContentInInsertionOrder() throws Exception {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("orderId", 42);
+        data.put("type", "FOOD");
+
+        assertEquals("{\"orderId\":42,\"type\":\"FOOD\"}", decode(qrCodeService.render(data).png()));
+    }
+
+    @Test
+    void refusesManagerOfAnotherComplex() {
+        stubTicket(LocalDateTime.now());
+
+        assertThrows(SecurityException.class, () -> qrCodeService.renderTicketQr(7L, "manager1", true, 99L));
+    }
+
+    @Test
+    void refusesUnpaidOrder() {
+        stubTicket(null);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> qrCodeService.renderTicketQr(7L, "customer1", false, null));
+        assertEquals("Đơn hàng chưa được thanh toán", e.getMessage());
+    }
+
+    private void stubTicket(LocalDateTime paidAt) {
+        User user = new User();
+        user.setUsername("customer1");
+        Order order = new Order();
+        order.setOrderId(1L);
+        order.setUser(user);
+        order.setVnpPayDate(paidAt);
+        CinemaRoom room = CinemaRoom.builder()
+                .cinemaComplex(CinemaComplex.builder().complexId(3L).build())
+                .build();
+        Showtime showtime = Showtime.builder().showtimeId(5L).cinemaRoom(room).build();
+        Ticket ticket = Ticket.builder().ticketId(7L).order(order).showtime(showtime).build();
+        when(ticketRepository.findByIdWithDetails(7L)).thenReturn(Optional.of(ticket));
+    }
+
+    private String decode(byte[] png) throws Exception {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)));
+        return new QRCodeReader().decode(bitmap).getText();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.backend.services;
+
+import com.example.backend.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterServiceTest {
+
+    private final RateLimitProperties properties = new RateLimitProperties();
+    private final RateLimiterService rateLimiter = new RateLimiterService(properties);
+
+    @Test
+    void rejectedRequestDoesNotConsumeEarlierRules() {
+        // "api" (rộng, 3 request) đứng trước "payment" (hẹp, 1 request)
+        properties.setRules(List.of(rule("api", "/api/", 3), rule("payment", "/api/payment/", 1)));
+
+        assertTrue(rateLimiter.check("POST", "/api/payment/momo/create", null, "1.1.1.1").allowed());
+        for (int i = 0; i < 5; i++) {
+            RateLimiterService.Decision decision =
+                    rateLimiter.check("POST", "/api/payment/momo/create", null, "1.1.1.1");
+            assertFalse(decision.allowed());
+            assertEquals("payment", decision.rule());
+        }
+
+        // Các request bị rule "payment" từ chối không làm cạn bucket "api"
+        assertTrue(rateLimiter.check("GET", "/api/movies", null, "1.1.1.1").allowed());
+        assertTrue(rateLimiter.check("GET", "/api/movies", null, "1.1.1.1").allowed());
+        assertFalse(rateLimiter.check("GET", "/api/movies", null, "1.1.1.1").allowed());
+    }
+
+    @Test
+    void limitsPerClient() {
+        properties.setRules(List.of(rule("api", "/api/", 1)));
+
+        assertTrue(rateLimiter.check("GET", "/api/movies", null, "1.1.1.1").allowed());
+        assertFalse(rateLimiter.check("GET", "/api/movies", null, "1.1.1.1").allowed());
+        assertTrue(rateLimiter.check("GET", "/api/movies", null, "2.2.2.2").allowed());
+    }
+
+    private static RateLimitProperties.Rule rule(String name, String prefix, int capacity) {
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setName(name);
+        rule.setPathPrefixes(List.of(prefix));
+        rule.setCapacity(capacity);
+        rule.setPeriodMs(3_600_000);
+        return rule;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.backend.services;
+
+import com.example.backend.dtos.TicketTokenVerificationDTO;
+import com.example.backend.repositories.TicketRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class TicketTokenServiceTest {
+
+    private static final String SECRET = "test-ticket-token-secret-0123456789abcdef";
+
+    private final TicketTokenService service = new TicketTokenService(mock(TicketRepository.class), SECRET);
+
+    @Test
+    void issuesCompactTokenThatVerifiesOffline() {
+        String token = service.issue(123456789L, 4242L, 77L);
+
+        assertEquals(40, token.length());
+        assertTrue(token.matches("[A-Z2-7]+"));
+        TicketTokenVerificationDTO result = service.verify(token);
+        assertTrue(result.getValid());
+        assertEquals(123456789L, result.getTicketId());
+        assertEquals(4242L, result.getShowtimeId());
+        assertEquals(77L, result.getSeatId());
+    }
+
+    @Test
+    void tokensStayValidAcrossInstancesWithSameSecret() {
+        String token = service.issue(1L, 2L, 3L);
+        TicketTokenService otherNode = new TicketTokenService(mock(TicketRepository.class), SECRET);
+
+        assertTrue(otherNode.verify(token).getValid());
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherSecret() {
+        TicketTokenService other = new TicketTokenService(mock(TicketRepository.class),
+                "another-ticket-token-secret-0123456789abc");
+
+        assertEquals("INVALID_SIGNATURE", service.verify(other.issue(1L, 2L, 3L)).getReason());
+    }
+
+    @Test
+    void rejectsTamperedAndMalformedTokens() {
+        String token = service.issue(10L, 20L, 30L);
+        char last = token.charAt(token.length() - 1);
+        String tampered = token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+        assertFalse(service.verify(tampered).getValid());
+        assertEquals("INVALID_FORMAT", service.verify("TICKET_user_1_2_1700000000000").getReason());
+    }
+
+    @Test
+    void rejectsRevokedTickets() {
+        String token = service.issue(55L, 1L, 1L);
+
+        service.revoke(List.of(55L));
+
+        assertEquals("REVOKED", service.verify(token).getReason());
+    }
+
+    @Test
+    void failsWithoutConfiguredSecret() {
+        assertThrows(IllegalStateException.class, () -> new TicketTokenService(mock(TicketRepository.class), ""));
+        assertThrows(IllegalStateException.class, () -> new TicketTokenService(mock(TicketRepository.class), "short"));
+    }
+
+    @Test
+    void reusesStoredTokenAndSignsLegacyQrCodes() {
+        String stored = service.issue(9L, 8L, 7L);
+
+        assertSame(stored, service.tokenFor(stored, 9L, 8L, 7L));
+        String legacy = "TICKET_customer1_8_7_1700000000000";
+        String token = service.tokenFor(legacy, 9L, 8L, 7L);
+        assertNotEquals(legacy, token);
+        assertEquals(stored, token);
+    }
+}
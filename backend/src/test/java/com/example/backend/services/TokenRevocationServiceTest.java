@@ -0,0 +1,67 @@
+package com.example.backend.services;
+
+import com.example.backend.repositories.UserRepository;
+import com.example.backend.utils.JwtUtils;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class TokenRevocationServiceTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+    // Giữa một giây: token cấp trước/sau trong cùng giây phải được phân biệt
+    private static final long REVOKED_AT_MS = 1_760_000_000_500L;
+
+    private final TokenRevocationService service =
+            new TokenRevocationService(mock(UserRepository.class), 86400000L);
+
+    @Test
+    void comparesIssueTimeAtMillisecondPrecision() {
+        service.apply("customer1", true, at(REVOKED_AT_MS));
+
+        assertTrue(service.isRevoked(token("customer1", REVOKED_AT_MS - 1)));
+        assertFalse(service.isRevoked(token("customer1", REVOKED_AT_MS)));
+        assertFalse(service.isRevoked(token("customer1", REVOKED_AT_MS + 1)));
+        assertFalse(service.isRevoked(token("customer2", REVOKED_AT_MS - 1)));
+    }
+
+    @Test
+    void revokesEveryTokenOfBlockedUser() {
+        service.apply("customer1", false, null);
+
+        assertTrue(service.isRevoked(token("customer1", System.currentTimeMillis() + 60_000)));
+
+        service.apply("customer1", true, null);
+        assertFalse(service.isRevoked(token("customer1", REVOKED_AT_MS)));
+    }
+
+    @Test
+    void logoutRevokesTokensOfAllDevicesButNotNextLogin() throws InterruptedException {
+        JwtUtils jwtUtils = new JwtUtils(100);
+        JwtUtils.VerifiedToken phone = jwtUtils.verify(jwtUtils.generateJwtToken("customer1", "CUSTOMER"));
+        JwtUtils.VerifiedToken laptop = jwtUtils.verify(jwtUtils.generateJwtToken("customer1", "CUSTOMER"));
+        Thread.sleep(2);
+
+        service.revokeTokens("customer1");
+        Thread.sleep(2);
+        JwtUtils.VerifiedToken relogin = jwtUtils.verify(jwtUtils.generateJwtToken("customer1", "CUSTOMER"));
+
+        assertTrue(service.isRevoked(phone));
+        assertTrue(service.isRevoked(laptop));
+        assertFalse(service.isRevoked(relogin));
+    }
+
+    private static JwtUtils.VerifiedToken token(String username, long issuedAtMs) {
+        return new JwtUtils.VerifiedToken(username, "CUSTOMER", issuedAtMs, issuedAtMs + 86400000L);
+    }
+
+    private static LocalDateTime at(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZONE);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.backend.utils;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilsTest {
+
+    private final JwtUtils jwtUtils = new JwtUtils(2);
+
+    @Test
+    void verifiesGeneratedToken() {
+        String token = jwtUtils.generateJwtToken("customer1", "CUSTOMER");
+
+        JwtUtils.VerifiedToken verified = jwtUtils.verify(token);
+
+        assertNotNull(verified);
+        assertEquals("customer1", verified.username());
+        assertEquals("CUSTOMER", verified.role());
+        assertTrue(verified.expiresAtMs() > verified.issuedAtMs());
+        assertEquals("customer1", jwtUtils.getUsernameFromJwtToken(token));
+        assertEquals("CUSTOMER", jwtUtils.getRoleFromJwtToken(token));
+    }
+
+    @Test
+    void keepsIssueTimeInMilliseconds() {
+        long before = System.currentTimeMillis();
+        JwtUtils.VerifiedToken verified = jwtUtils.verify(jwtUtils.generateJwtToken("customer1", "CUSTOMER"));
+
+        assertTrue(verified.issuedAtMs() >= before);
+        assertTrue(verified.issuedAtMs() <= System.currentTimeMillis());
+    }
+
+    @Test
+    void returnsCachedResultForSameToken() {
+        String token = jwtUtils.generateJwtToken("customer1", "CUSTOMER");
+
+        assertSame(jwtUtils.verify(token), jwtUtils.verify(token));
+        // Cache tắt: mỗi lần verify lại từ đầu
+        JwtUtils uncached = new JwtUtils(0);
+        assertNotSame(uncached.verify(token), uncached.verify(token));
+    }
+
+    @Test
+    void rejectsTamperedAndMalformedTokens() {
+        String token = jwtUtils.generateJwtToken("customer1", "CUSTOMER");
+        String[] parts = token.split("\\.");
+        String forged = Jwts.builder().setSubject("admin").claim("role", "ADMIN").compact().split("\\.")[1];
+
+        assertNull(jwtUtils.verify(parts[0] + "." + forged + "." + parts[2]));
+        assertNull(jwtUtils.verify("not-a-jwt"));
+        assertNull(jwtUtils.verify(""));
+        assertFalse(jwtUtils.validateJwtToken(null));
+        assertThrows(JwtException.class, () -> jwtUtils.getUsernameFromJwtToken("not-a-jwt"));
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        SecretKey secret = (SecretKey) ReflectionTestUtils.getField(jwtUtils, "jwtSecret");
+        long now = System.currentTimeMillis();
+        String expired = Jwts.builder()
+                .setSubject("customer1")
+                .claim("role", "CUSTOMER")
+                .setIssuedAt(new Date(now - 120_000))
+                .setExpiration(new Date(now - 60_000))
+                .signWith(secret, SignatureAlgorithm.HS512)
+                .compact();
+
+        assertNull(jwtUtils.verify(expired));
+    }
+
+    @Test
+    void keepsCacheWithinLimit() {
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(jwtUtils.verify(jwtUtils.generateJwtToken("user" + i, "CUSTOMER")));
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, ?> cache = (Map<String, ?>) ReflectionTestUtils.getField(jwtUtils, "verifiedTokens");
+        assertTrue(cache.size() <= 2);
+    }
+}
@@ -4,6 +4,7 @@ import NotificationBell from './NotificationBell';
 import VoiceSearchBar from './VoiceSearchBar';
 import { cinemaComplexService } from '../services/cinemaComplexService';
 import { walletService } from '../services/walletService';
+import authService from '../services/authService';
 
 export default function Header({ children }) {
   const navigate = useNavigate();
@@ -139,9 +140,8 @@ export default function Header({ children }) {
     };
   }, [showCinemaDropdown, showUserDropdown]);
 
-  const handleLogout = () => {
-    localStorage.removeItem('user');
-    localStorage.removeItem('jwt');
+  const handleLogout = async () => {
+    await authService.logout();
     setUser(null);
     navigate('/');
   };
@@ -204,12 +204,19 @@ const NotificationBell = () => {
         }, 1000);
       };
       
+      // Listen for campaign broadcasts; only users in the campaign segment will find a new item
+      const handleCampaign = () => {
+        loadNotifications();
+      };
+      
       window.addEventListener('paymentSuccess', handlePaymentSuccess);
       window.addEventListener('orderCancelled', handleOrderCancelled);
+      window.addEventListener('notificationCampaign', handleCampaign);
       
       return () => {
         window.removeEventListener('paymentSuccess', handlePaymentSuccess);
         window.removeEventListener('orderCancelled', handleOrderCancelled);
+        window.removeEventListener('notificationCampaign', handleCampaign);
         websocketService.disconnect();
         // Cleanup audio context
         if (audioContextRef.current) {
@@ -189,6 +189,23 @@ const TicketModal = ({ order, isOpen, onClose }) => {
             qrData.seats = sortedSeats; // Array
             qrData.format = mapRoomType(item.showtime.format);
             
+            // Backend trả về token có chữ ký cho từng vé: QR chứa các token (sắp theo hàng ghế, số ghế) cách nhau bởi dấu cách,
+            // giống nội dung QR trong email. Đơn cũ chưa có token thì vẫn dùng JSON.
+            const parseSeat = (seatId) => {
+              const match = /^([A-Za-z]+)(\d+)$/.exec(String(seatId || ''));
+              return match ? [match[1], Number(match[2])] : [String(seatId || ''), 0];
+            };
+            const qrValue = item.qrTokens && item.qrTokens.length === item.seats.length
+              ? [...item.qrTokens]
+                  .sort((a, b) => {
+                    const [rowA, colA] = parseSeat(a.seatId);
+                    const [rowB, colB] = parseSeat(b.seatId);
+                    return rowA === rowB ? colA - colB : rowA.localeCompare(rowB);
+                  })
+                  .map(t => t.token)
+                  .join(' ')
+              : JSON.stringify(qrData);
+
             // Log để debug
             console.log('=== TicketModal QR Code Data ===');
             console.log('JSON:', JSON.stringify(qrData));
@@ -297,7 +314,7 @@ const TicketModal = ({ order, isOpen, onClose }) => {
                     border: '1px solid #eee'
                   }}>
                     <QRCodeSVG
-                      value={JSON.stringify(qrData)}
+                      value={qrValue}
                       size={200}
                       level="H"
                       includeMargin={true}
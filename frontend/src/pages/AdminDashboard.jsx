@@ -29,6 +29,7 @@ import ActivityManagement from '../components/AdminDashboard/ActivityManagement'
 import ReviewManagement from '../components/AdminDashboard/ReviewManagement';
 import AdminShowtimeView from '../components/AdminDashboard/AdminShowtimeView';
 import cloudinaryService from '../services/cloudinaryService';
+import authService from '../services/authService';
 
 // Add CSS animation for spinner and notification
 if (typeof document !== 'undefined') {
@@ -978,8 +979,8 @@ export default function AdminDashboard() {
               </div>
             </div>
             <button
-              onClick={() => {
-                localStorage.removeItem('jwt');
+              onClick={async () => {
+                await authService.logout();
                 window.location.href = '/signin';
               }}
               style={{
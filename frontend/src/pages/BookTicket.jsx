@@ -8,6 +8,7 @@ import showtimeService from '../services/showtimeService';
 import { movieService } from '../services/movieService';
 import { cinemaComplexService } from '../services/cinemaComplexService';
 import { websocketService } from '../services/websocketService';
+import { checkoutQueueService } from '../services/checkoutQueueService';
 import { API_BASE_URL } from '../config/api';
 
 // Generate seats for a room
@@ -487,6 +488,47 @@ export default function BookTicket() {
     loadRoomAndSeats();
   }, [selectedShowtime]);
 
+  // Hàng chờ checkout: suất chiếu bán chạy chỉ cho vào chọn ghế theo lượt
+  const [queueStatus, setQueueStatus] = useState(null);
+
+  useEffect(() => {
+    const showtimeId = selectedShowtime?.showtimeId;
+    if (!showtimeId || typeof showtimeId !== 'number') {
+      setQueueStatus(null);
+      return;
+    }
+
+    let cancelled = false;
+    let timer = null;
+
+    const poll = async (joinFirst) => {
+      let result = joinFirst
+        ? await checkoutQueueService.join(showtimeId)
+        : await checkoutQueueService.getStatus(showtimeId);
+      if (!result.success && !joinFirst) {
+        // Ticket hết hạn hoặc không còn: xếp hàng lại
+        result = await checkoutQueueService.join(showtimeId);
+      }
+      if (cancelled) return;
+      if (!result.success) {
+        // Không vào được hàng chờ thì vẫn cho chọn ghế, server sẽ kiểm tra lại khi thanh toán
+        setQueueStatus(null);
+        return;
+      }
+      setQueueStatus(result.data);
+      if (result.data.active && !result.data.admitted) {
+        timer = setTimeout(() => poll(false), 5000);
+      }
+    };
+
+    poll(true);
+
+    return () => {
+      cancelled = true;
+      if (timer) clearTimeout(timer);
+    };
+  }, [selectedShowtime?.showtimeId]);
+
   // Update ref when selectedSeats changes
   useEffect(() => {
     selectedSeatsRef.current = selectedSeats;
@@ -1107,6 +1149,21 @@ export default function BookTicket() {
                       </button>
                     </div>
                   </div>
+                ) : queueStatus?.active && !queueStatus.admitted ? (
+                  <div className="book-ticket-step">
+                    <div style={{ textAlign: 'center', padding: '40px', color: 'rgba(255,255,255,0.85)' }}>
+                      <h2 style={{ margin: '0 0 12px', fontSize: '20px', fontWeight: 800, color: '#fff' }}>
+                        Đang xếp hàng chờ chọn ghế
+                      </h2>
+                      <p style={{ marginBottom: '8px' }}>
+                        Suất chiếu đang có nhiều người đặt vé. Có {queueStatus.position} người đứng trước bạn.
+                      </p>
+                      <p style={{ color: 'rgba(255,255,255,0.6)' }}>
+                        Thời gian chờ dự kiến: khoảng {Math.max(1, Math.ceil((queueStatus.estimatedWaitSeconds || 0) / 60))} phút.
+                        Vui lòng không tải lại trang.
+                      </p>
+                    </div>
+                  </div>
                 ) : selectedRoom && selectedShowtime ? (
                   <div className="book-ticket-step">
                     <div className="book-ticket-seat-selection">
@@ -1,5 +1,6 @@
 import React, { useMemo, useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
+import authService from '../services/authService';
 import ManagerCinemaManagement from '../components/ManagerDashboard/ManagerCinemaManagement';
 import ManagerMovieManagement from '../components/ManagerDashboard/ManagerMovieManagement';
 import ManagerPriceView from '../components/ManagerDashboard/ManagerPriceView';
@@ -364,8 +365,8 @@ export default function ManagerDashboard() {
               </div>
             </div>
             <button
-              onClick={() => {
-                localStorage.removeItem('jwt');
+              onClick={async () => {
+                await authService.logout();
                 window.location.href = '/signin';
               }}
               style={{
@@ -81,11 +81,15 @@ export default function Orders() {
                 startTime: item.showtimeStart
               },
               seats: [],
+              qrTokens: [],
               price: 0,
               basePrice: 0
             };
           }
           itemsByShowtime[key].seats.push(item.seatId);
+          if (item.qrToken) {
+            itemsByShowtime[key].qrTokens.push({ seatId: item.seatId, token: item.qrToken });
+          }
           itemsByShowtime[key].price += Number(item.price);
           itemsByShowtime[key].basePrice += Number(item.basePrice || item.price);
         });
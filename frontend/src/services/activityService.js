@@ -53,6 +53,15 @@ const extractActivities = (response) => {
   return activities;
 };
 
+const extractPage = (response) => {
+  const page = response?.data?.data || {};
+  return {
+    items: Array.isArray(page.items) ? page.items : [],
+    nextCursor: page.nextCursor || null,
+    hasMore: Boolean(page.hasMore),
+  };
+};
+
 const ensureToken = () => {
   const token = localStorage.getItem('jwt');
   if (!token) {
@@ -72,6 +81,8 @@ const buildQueryParams = (filters = {}) => {
   if (filters.startDate) params.append('startDate', filters.startDate);
   if (filters.endDate) params.append('endDate', filters.endDate);
   if (filters.days) params.append('days', filters.days);
+  if (filters.cursor) params.append('cursor', filters.cursor);
+  if (filters.size) params.append('size', filters.size);
 
   const queryString = params.toString();
   return queryString ? `?${queryString}` : '';
@@ -137,6 +148,44 @@ export const activityService = {
     }
   },
 
+  /**
+   * Admin: Lấy hoạt động theo trang (gồm cả log đã lưu trữ)
+   * @param {Object} filters - Như getAllActivities, thêm {cursor, size}; cursor = nextCursor của trang trước
+   * @returns {Promise<Object>} {success, data: {items, nextCursor, hasMore}}
+   */
+  getActivitiesPage: async (filters = {}) => {
+    try {
+      const tokenError = ensureToken();
+      if (tokenError) return tokenError;
+
+      const response = await axiosInstance.get(`/admin/activities/page${buildQueryParams(filters)}`);
+      return {
+        success: true,
+        data: extractPage(response),
+      };
+    } catch (error) {
+      return handleError(error, 'Không thể lấy danh sách hoạt động');
+    }
+  },
+
+  /**
+   * Manager: Lấy hoạt động của chính manager theo trang
+   */
+  getManagerActivitiesPage: async (filters = {}) => {
+    try {
+      const tokenError = ensureToken();
+      if (tokenError) return tokenError;
+
+      const response = await axiosInstance.get(`/manager/activities/page${buildQueryParams(filters)}`);
+      return {
+        success: true,
+        data: extractPage(response),
+      };
+    } catch (error) {
+      return handleError(error, 'Không thể lấy danh sách hoạt động');
+    }
+  },
+
   /**
    * Admin: Xóa một hoạt động theo ID
    * @param {Number} activityId - ID của hoạt động cần xóa
@@ -252,11 +252,14 @@ export const authService = {
 
   /**
    * Kiểm tra thời gian còn lại của OTP
+   * @param {string} email - Email đã yêu cầu OTP
    * @returns {Promise<Object>} Response từ server
    */
-  getOtpRemainingTime: async () => {
+  getOtpRemainingTime: async (email) => {
     try {
-      const response = await axiosInstance.get('/auth/forgot-password/otp-remaining-time');
+      const response = await axiosInstance.get('/auth/forgot-password/otp-remaining-time', {
+        params: { email },
+      });
       
       return {
         success: true,
@@ -269,6 +272,26 @@ export const authService = {
       };
     }
   },
+
+  /**
+   * Đăng xuất: thu hồi các JWT đã cấp cho tài khoản ở server, rồi xóa token/user ở localStorage
+   * (lỗi mạng vẫn xóa token phía client)
+   */
+  logout: async () => {
+    const token = localStorage.getItem('jwt');
+    try {
+      if (token) {
+        await axiosInstance.post('/auth/logout', null, {
+          headers: { Authorization: `Bearer ${token}` },
+        });
+      }
+    } catch (error) {
+      console.error('Logout error:', error);
+    } finally {
+      localStorage.removeItem('jwt');
+      localStorage.removeItem('user');
+    }
+  },
 };
 
 export default authService;
\ No newline at end of file
@@ -0,0 +1,95 @@
+import axios from 'axios';
+import { API_BASE_URL } from '../config/api';
+
+const axiosInstance = axios.create({
+  baseURL: API_BASE_URL,
+  withCredentials: true,
+  headers: {
+    'Content-Type': 'application/json',
+  },
+});
+
+// Interceptor để thêm JWT token vào header (ticket hàng chờ gắn với tài khoản đã đăng nhập)
+axiosInstance.interceptors.request.use(
+  (config) => {
+    const token = localStorage.getItem('jwt');
+    if (token) {
+      config.headers.Authorization = `Bearer ${token}`;
+    }
+    return config;
+  },
+  (error) => {
+    return Promise.reject(error);
+  }
+);
+
+// Ticket hàng chờ được giữ trong sessionStorage và gửi kèm khi tạo thanh toán (header X-Checkout-Ticket)
+const TICKET_STORAGE_KEY = 'checkoutQueueTicket';
+
+const saveTicket = (status) => {
+  if (status?.active && status.ticket) {
+    sessionStorage.setItem(
+      TICKET_STORAGE_KEY,
+      JSON.stringify({ showtimeId: status.showtimeId, ticket: status.ticket })
+    );
+  }
+};
+
+export const checkoutQueueService = {
+  /**
+   * Lấy ticket đã lưu (chỉ trả về nếu đúng suất chiếu khi truyền showtimeId)
+   * @param {number} [showtimeId]
+   * @returns {string|null}
+   */
+  getStoredTicket: (showtimeId) => {
+    try {
+      const stored = JSON.parse(sessionStorage.getItem(TICKET_STORAGE_KEY) || 'null');
+      if (!stored || (showtimeId && stored.showtimeId !== showtimeId)) {
+        return null;
+      }
+      return stored.ticket;
+    } catch {
+      return null;
+    }
+  },
+
+  /**
+   * Xếp hàng cho suất chiếu (server giữ nguyên vị trí nếu tài khoản đã có ticket)
+   * @param {number} showtimeId
+   * @returns {Promise<Object>} { success, data: { active, admitted, position, estimatedWaitSeconds, ... } }
+   */
+  join: async (showtimeId) => {
+    try {
+      const response = await axiosInstance.post(`/checkout-queue/${showtimeId}/join`);
+      saveTicket(response.data.data);
+      return { success: true, data: response.data.data };
+    } catch (error) {
+      return {
+        success: false,
+        error: error.response?.data?.message || error.message || 'Không thể vào hàng chờ',
+      };
+    }
+  },
+
+  /**
+   * Kiểm tra vị trí trong hàng chờ
+   * @param {number} showtimeId
+   * @returns {Promise<Object>}
+   */
+  getStatus: async (showtimeId) => {
+    try {
+      const ticket = checkoutQueueService.getStoredTicket(showtimeId);
+      const response = await axiosInstance.get(`/checkout-queue/${showtimeId}/status`, {
+        params: { ticket },
+      });
+      return { success: true, data: response.data.data };
+    } catch (error) {
+      return {
+        success: false,
+        error: error.response?.data?.message || error.message || 'Không thể kiểm tra hàng chờ',
+      };
+    }
+  },
+};
+
+export default checkoutQueueService;
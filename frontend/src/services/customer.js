@@ -133,6 +133,41 @@ export const getAllOrdersManager = async () => {
   }
 };
 
+// Danh sách đơn phân trang theo cursor: params = { cursor, size, status, paymentMethod, from, to, keyword, ... }
+// Trả về { items, nextCursor, hasMore }; truyền nextCursor vào lần gọi sau để lấy trang tiếp theo
+const getOrdersPage = async (url, params = {}) => {
+  const res = await axiosInstance.get(url, { params });
+  if (res.data.success && res.data.data) {
+    return res.data.data;
+  }
+  throw new Error(res.data.message || 'Lấy danh sách đơn hàng thất bại');
+};
+
+export const getMyOrdersPage = (params) => getOrdersPage('/customer/orders/page', params);
+
+export const getOrdersPageAdmin = (params) => getOrdersPage('/customer/admin/orders/page', params);
+
+export const getOrdersPageManager = (params) => getOrdersPage('/manager/orders/page', params);
+
+// Tải file CSV đơn hàng/vé: params = { type: 'orders' | 'tickets', status, paymentMethod, from, to, ... }
+// Trình duyệt lưu file theo tên server trả về trong Content-Disposition
+const downloadOrdersExport = async (url, params = {}) => {
+  const res = await axiosInstance.get(url, { params, responseType: 'blob' });
+  const disposition = res.headers['content-disposition'] || '';
+  const match = disposition.match(/filename="?([^"]+)"?/);
+  const link = document.createElement('a');
+  link.href = URL.createObjectURL(res.data);
+  link.download = match ? match[1] : `${params.type || 'orders'}.csv`;
+  document.body.appendChild(link);
+  link.click();
+  link.remove();
+  URL.revokeObjectURL(link.href);
+};
+
+export const exportOrdersAdmin = (params) => downloadOrdersExport('/customer/admin/orders/export', params);
+
+export const exportOrdersManager = (params) => downloadOrdersExport('/manager/orders/export', params);
+
 export const getExpenseStatistics = async () => {
   try {
     console.log('Calling expense-statistics API...');
@@ -1,5 +1,6 @@
 import axios from 'axios';
 import { API_BASE_URL } from '../config/api';
+import { checkoutQueueService } from './checkoutQueueService';
 
 const axiosInstance = axios.create({
   baseURL: API_BASE_URL,
@@ -19,6 +20,11 @@ axiosInstance.interceptors.request.use(
     } else {
       console.warn('PaymentService: No JWT token found in localStorage for', config.url);
     }
+    // Ticket hàng chờ checkout (suất chiếu đang bật hàng chờ mới cần)
+    const checkoutTicket = checkoutQueueService.getStoredTicket();
+    if (checkoutTicket) {
+      config.headers['X-Checkout-Ticket'] = checkoutTicket;
+    }
     return config;
   },
   (error) => Promise.reject(error)
@@ -101,6 +101,20 @@ class WebSocketService {
 
       this.subscriptions.set(destination, subscription);
       console.log(`Subscribed to ${destination}`);
+
+      // Campaign notifications are broadcast once to everyone online; the per-user copy is
+      // already in the inbox, so just signal listeners to reload it
+      const campaignDestination = '/topic/notifications/campaigns';
+      const campaignSubscription = this.client.subscribe(campaignDestination, (message) => {
+        try {
+          const campaign = JSON.parse(message.body);
+          console.log('Received campaign notification:', campaign);
+          window.dispatchEvent(new CustomEvent('notificationCampaign', { detail: campaign }));
+        } catch (error) {
+          console.error('Error parsing campaign notification:', error);
+        }
+      });
+      this.subscriptions.set(campaignDestination, campaignSubscription);
     } catch (error) {
       console.error('Error subscribing to notifications:', error);
     }